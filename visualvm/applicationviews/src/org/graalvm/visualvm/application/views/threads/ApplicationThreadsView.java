@@ -119,6 +119,7 @@ class ApplicationThreadsView extends DataSourceView implements DataRemovedListen
     @Override
     protected synchronized void removed() {
         cleanup();
+        if (threadsManager != null) threadsManager.close();
     }
 
     VisualVMThreadsDataManager getDataManager() {
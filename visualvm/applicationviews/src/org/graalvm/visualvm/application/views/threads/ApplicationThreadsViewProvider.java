@@ -64,6 +64,7 @@ public class ApplicationThreadsViewProvider extends PluggableDataSourceViewProvi
 
     protected void saveView(Application application, Snapshot snapshot) {
         VisualVMThreadsDataManager tmanager = null;
+        boolean temporaryManager = false;
         ApplicationThreadsView view = (ApplicationThreadsView)getCachedView(application);
         if (view != null) {
             tmanager = view.getDataManager();
@@ -71,6 +72,7 @@ public class ApplicationThreadsViewProvider extends PluggableDataSourceViewProvi
             ThreadMXBean tbean = resolveThreads(application);
             if (tbean != null) {
                 tmanager = new ThreadMXBeanDataManager(tbean);
+                temporaryManager = true;
                 ((ThreadMXBeanDataManager)tmanager).refreshThreadsSync();
 //                try { Thread.sleep(50); } catch (Exception e) {} // Collect some data
 //                ((ThreadMXBeanDataManager)tmanager).refreshThreadsSync();
@@ -78,6 +80,7 @@ public class ApplicationThreadsViewProvider extends PluggableDataSourceViewProvi
         }
 
         if (tmanager != null) PersistenceSupport.saveDataManager(tmanager, snapshot.getStorage());
+        if (temporaryManager) tmanager.close();
     }
 
     static ThreadMXBean resolveThreads(Application application) {
@@ -72,6 +72,7 @@ class ThreadMXBeanDataManager extends VisualVMThreadsDataManager {
     }
 
     ThreadMXBeanDataManager(ThreadMXBean tb) {
+        super(true); // live monitoring may run for days, keep only state changes
         threadBean = tb;
         deadlockDetector = new DeadlockDetector(tb);
         changeSupport = new PropertyChangeSupport(this);
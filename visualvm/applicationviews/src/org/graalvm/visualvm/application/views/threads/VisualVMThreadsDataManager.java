@@ -33,6 +33,13 @@ import org.graalvm.visualvm.lib.jfluid.results.threads.ThreadsDataManager;
  */
 abstract class VisualVMThreadsDataManager extends ThreadsDataManager {
 
+    VisualVMThreadsDataManager() {
+    }
+
+    VisualVMThreadsDataManager(boolean compactStorage) {
+        super(compactStorage);
+    }
+
     abstract int getThreadCount();
     abstract int getDaemonThreadCount();
     abstract void cleanup();
@@ -27,6 +27,7 @@ package org.graalvm.visualvm.attach;
 
 import com.sun.tools.attach.VirtualMachine;
 import org.graalvm.visualvm.application.Application;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
 import org.graalvm.visualvm.tools.attach.AttachModel;
 import java.io.IOException;
 import java.io.InputStream;
@@ -55,6 +56,7 @@ class AttachModelImpl extends AttachModel {
     String pid;
     HotSpotVirtualMachine vm;
     Map<String,String> commandLineMap;
+    private HeapHistogramParser histogramParser;
     
     AttachModelImpl(Application app) {
         pid = Integer.toString(app.getPid());
@@ -120,9 +122,12 @@ class AttachModelImpl extends AttachModel {
         }
     }
 
-    public synchronized HeapHistogramImpl takeHeapHistogram() {
+    public synchronized HeapHistogram takeHeapHistogram() {
         try (InputStream in = getVirtualMachine().heapHisto(ALL_OBJECTS_OPTION)) {
-            return new HeapHistogramImpl(in);
+            if (histogramParser == null) {
+                histogramParser = new HeapHistogramParser();
+            }
+            return histogramParser.parse(in);
         } catch (IOException ex) {
             LOGGER.log(Level.INFO,"takeHeapHistogram",ex);  // NOI18N
         }
@@ -26,12 +26,9 @@
 package org.graalvm.visualvm.attach;
 
 import org.graalvm.visualvm.application.jvm.HeapHistogram;
-import java.io.InputStream;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
 
 /**
@@ -85,48 +82,6 @@ class HeapHistogramImpl extends HeapHistogram {
     HeapHistogramImpl() {
     }
     
-    HeapHistogramImpl(InputStream in) {
-        Map<String,ClassInfoImpl> classesMap = new HashMap<>(1024);
-        Map<String,ClassInfoImpl> permGenMap = new HashMap<>(1024);
-        time = new Date();
-        Scanner sc = new Scanner(in, "UTF-8");  // NOI18N
-        sc.useRadix(10);
-        while(!sc.hasNext("-+")) {
-            sc.nextLine();
-        }
-        sc.skip("-+");
-        sc.nextLine();
-
-        
-        while(sc.hasNext("[0-9]+:")) {  // NOI18N
-            ClassInfoImpl newClInfo = new ClassInfoImpl(sc);
-            if (newClInfo.isPermGen()) {
-                storeClassInfo(newClInfo, permGenMap);
-                totalPermGenBytes += newClInfo.getBytes();
-                totalPermgenInstances += newClInfo.getInstancesCount();
-            } else {
-                storeClassInfo(newClInfo, classesMap);
-                totalHeapBytes += newClInfo.getBytes();
-                totalHeapInstances += newClInfo.getInstancesCount();                
-            }
-        }
-        sc.next("Total");   // NOI18N
-        totalInstances = sc.nextLong();
-        totalBytes = sc.nextLong();
-        classes = new HashSet<>(classesMap.values());
-        permGenClasses = new HashSet<>(permGenMap.values());
-    }
-
-    void storeClassInfo(final ClassInfoImpl newClInfo, final Map<String, ClassInfoImpl> map) {
-        ClassInfoImpl oldClInfo = map.get(newClInfo.getName());
-        if (oldClInfo == null) {
-            map.put(newClInfo.getName(),newClInfo);
-        } else {
-            oldClInfo.bytes += newClInfo.getBytes();
-            oldClInfo.instances += newClInfo.getInstancesCount();               
-        }
-    }
-    
     public Date getTime() {
         return (Date) time.clone();
     }
@@ -172,18 +127,6 @@ class HeapHistogramImpl extends HeapHistogram {
         ClassInfoImpl() {
         }
         
-        ClassInfoImpl(Scanner sc) {
-            String jvmName;
-            
-            sc.next();
-            instances = sc.nextLong();
-            bytes = sc.nextLong();
-            jvmName = sc.next();
-            sc.nextLine();  // skip module name on JDK 9
-            permGen = jvmName.charAt(0) == '<';     // NOI18N
-            name = convertJVMName(jvmName);
-        }
-        
         public String getName() {
             return name;
         }
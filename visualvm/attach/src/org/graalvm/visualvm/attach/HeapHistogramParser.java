@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.attach;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
+import org.graalvm.visualvm.tools.attach.HeapHistogramBuilder;
+
+/**
+ * Parser of the class histogram returned by the attach API. The histogram is read
+ * directly from the byte stream and JVM class names are looked up in a table which is
+ * kept between refreshes, so each known class name is decoded only once. The class
+ * table and the histogram itself are maintained by {@link HeapHistogramBuilder}.
+ */
+class HeapHistogramParser {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_ENTRIES = 1;
+    private static final int STATE_DONE = 2;
+
+    private static final byte[] TOTAL = "Total".getBytes(StandardCharsets.US_ASCII);   // NOI18N
+
+    private final HeapHistogramBuilder builder = new HeapHistogramBuilder();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private int state;
+    private long totalInstances;
+    private long totalBytes;
+
+    // Distinct JVM names, several names may map to the same class slot
+    private byte[][] entryNames = new byte[1024][];
+    private int[] entryHashes = new int[1024];
+    private int[] entrySlots = new int[1024];
+    private int[] entryTable = new int[2048];   // entry + 1, 0 for empty
+    private int nEntries;
+
+    synchronized HeapHistogram parse(InputStream in) throws IOException {
+        state = STATE_HEADER;
+        lineLength = 0;
+        totalInstances = 0;
+        totalBytes = 0;
+        builder.startHistogram();
+
+        int n;
+        while (state != STATE_DONE && (n = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < n && state != STATE_DONE; i++) {
+                if (buffer[i] == '\n') {    // NOI18N
+                    if (lineLength == 0) {
+                        processLine(buffer, start, i);
+                    } else {
+                        appendLine(start, i);
+                        processLine(line, 0, lineLength);
+                        lineLength = 0;
+                    }
+                    start = i + 1;
+                }
+            }
+            if (state != STATE_DONE) {
+                appendLine(start, n);
+            }
+        }
+        if (state != STATE_DONE && lineLength > 0) {
+            processLine(line, 0, lineLength);
+        }
+        HeapHistogram histogram = builder.createHistogram(totalInstances, totalBytes);
+        int[] slotMap = builder.prune();
+        if (slotMap != null) {
+            remapEntries(slotMap);
+        }
+        return histogram;
+    }
+
+    private void appendLine(int start, int end) {
+        int len = end - start;
+        if (lineLength + len > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + len));
+        }
+        System.arraycopy(buffer, start, line, lineLength, len);
+        lineLength += len;
+    }
+
+    private void processLine(byte[] b, int pos, int end) {
+        pos = skipSpaces(b, pos, end);
+        if (state == STATE_HEADER) {
+            if (pos < end && b[pos] == '-') {   // NOI18N
+                state = STATE_ENTRIES;
+            }
+            return;
+        }
+        // entry line:   1:         12345        1234567  [B (java.base@11)
+        int p = skipDigits(b, pos, end);
+        if (p > pos && p < end && b[p] == ':') {    // NOI18N
+            p = skipSpaces(b, p + 1, end);
+            int q = skipDigits(b, p, end);
+            long inst = parseLong(b, p, q);
+            p = skipSpaces(b, q, end);
+            q = skipDigits(b, p, end);
+            long size = parseLong(b, p, q);
+            p = skipSpaces(b, q, end);
+            q = p;
+            while (q < end && !isSpace(b[q])) {
+                q++;
+            }
+            if (q > p) {
+                addEntry(b, p, q, inst, size);
+            }
+            return;
+        }
+        // Total         123456      12345678
+        if (startsWith(b, pos, end, TOTAL)) {
+            p = skipSpaces(b, pos + TOTAL.length, end);
+            int q = skipDigits(b, p, end);
+            totalInstances = parseLong(b, p, q);
+            p = skipSpaces(b, q, end);
+            q = skipDigits(b, p, end);
+            totalBytes = parseLong(b, p, q);
+        }
+        state = STATE_DONE;
+    }
+
+    private void addEntry(byte[] b, int start, int end, long inst, long size) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + b[i];
+        }
+        int mask = entryTable.length - 1;
+        int idx = hash & mask;
+        int entry;
+        while ((entry = entryTable[idx] - 1) != -1) {
+            if (entryHashes[entry] == hash && equals(entryNames[entry], b, start, end)) {
+                break;
+            }
+            idx = (idx + 1) & mask;
+        }
+        if (entry == -1) {
+            entry = newEntry(b, start, end, hash);
+            entryTable[idx] = entry + 1;
+            if (nEntries * 2 > entryTable.length) {
+                rehash(entryTable.length * 2);
+            }
+        }
+        builder.addClass(entrySlots[entry], inst, size);
+    }
+
+    private int newEntry(byte[] b, int start, int end, int hash) {
+        String jvmName = new String(b, start, end - start, StandardCharsets.UTF_8);
+        int slot = builder.getSlot(jvmName);
+
+        if (nEntries == entryNames.length) {
+            int len = nEntries * 2;
+            entryNames = Arrays.copyOf(entryNames, len);
+            entryHashes = Arrays.copyOf(entryHashes, len);
+            entrySlots = Arrays.copyOf(entrySlots, len);
+        }
+        entryNames[nEntries] = Arrays.copyOfRange(b, start, end);
+        entryHashes[nEntries] = hash;
+        entrySlots[nEntries] = slot;
+        return nEntries++;
+    }
+
+    private void rehash(int length) {
+        int[] table = new int[length];
+        int mask = table.length - 1;
+        for (int entry = 0; entry < nEntries; entry++) {
+            int idx = entryHashes[entry] & mask;
+            while (table[idx] != 0) {
+                idx = (idx + 1) & mask;
+            }
+            table[idx] = entry + 1;
+        }
+        entryTable = table;
+    }
+
+    /**
+     * Drops JVM names of the classes dropped by the builder and remaps the rest.
+     */
+    private void remapEntries(int[] slotMap) {
+        int n = 0;
+        for (int entry = 0; entry < nEntries; entry++) {
+            int slot = slotMap[entrySlots[entry]];
+            if (slot != -1) {
+                entryNames[n] = entryNames[entry];
+                entryHashes[n] = entryHashes[entry];
+                entrySlots[n] = slot;
+                n++;
+            }
+        }
+        Arrays.fill(entryNames, n, nEntries, null);
+        nEntries = n;
+        rehash(entryTable.length);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';      // NOI18N
+    }
+
+    private static int skipSpaces(byte[] b, int pos, int end) {
+        while (pos < end && isSpace(b[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipDigits(byte[] b, int pos, int end) {
+        while (pos < end && b[pos] >= '0' && b[pos] <= '9') {   // NOI18N
+            pos++;
+        }
+        return pos;
+    }
+
+    private static long parseLong(byte[] b, int start, int end) {
+        long val = 0;
+        for (int i = start; i < end; i++) {
+            val = val * 10 + (b[i] - '0');  // NOI18N
+        }
+        return val;
+    }
+
+    private static boolean startsWith(byte[] b, int pos, int end, byte[] prefix) {
+        if (end - pos < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[pos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equals(byte[] name, byte[] b, int start, int end) {
+        if (name.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != b[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
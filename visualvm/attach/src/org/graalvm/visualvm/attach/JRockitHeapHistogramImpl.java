@@ -60,6 +60,16 @@ class JRockitHeapHistogramImpl extends HeapHistogramImpl {
         classes = new HashSet<>(classesMap.values());
         permGenClasses = Collections.emptySet();
     }
+
+    private static void storeClassInfo(final ClassInfoImpl newClInfo, final Map<String, ClassInfoImpl> map) {
+        ClassInfoImpl oldClInfo = map.get(newClInfo.getName());
+        if (oldClInfo == null) {
+            map.put(newClInfo.getName(),newClInfo);
+        } else {
+            oldClInfo.bytes += newClInfo.getBytes();
+            oldClInfo.instances += newClInfo.getInstancesCount();               
+        }
+    }
         
     static class JRockitClassInfoImpl extends ClassInfoImpl {
         
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.attach;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
+import org.graalvm.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of parsing class histograms by HeapHistogramParser.
+ */
+public class HeapHistogramParserTest {
+
+    private static final String JDK9_HISTOGRAM =
+        " num     #instances         #bytes  class name (module)\n" +                      // NOI18N
+        "-------------------------------------------------------\n" +                      // NOI18N
+        "   1:          1000          50000  [B (java.base@11.0.2)\n" +                     // NOI18N
+        "   2:           500          12000  java.lang.String (java.base@11.0.2)\n" +       // NOI18N
+        "   3:            10            240  com.foo.Bar\n" +                               // NOI18N
+        "   4:             5            120  com.foo.Bar\n" +                               // NOI18N
+        "   5:             2             64  [Ljava.lang.Object; (java.base@11.0.2)\n" +    // NOI18N
+        "Total          1517          62424\n";                                             // NOI18N
+
+    private static final String PERMGEN_HISTOGRAM =
+        " num     #instances         #bytes  class name\n" +                                // NOI18N
+        "----------------------------------------------\n" +                                // NOI18N
+        "   1:         10000         800000  <constMethodKlass>\n" +                        // NOI18N
+        "   2:          5000         400000  [C\n" +                                        // NOI18N
+        "   3:           100           2000  <methodKlass>\n" +                             // NOI18N
+        "   4:            20            400  <methodKlass>\n" +                             // NOI18N
+        "Total         15120        1202400\n";                                             // NOI18N
+
+    private HeapHistogramParser parser;
+
+    @Before
+    public void setUp() {
+        parser = new HeapHistogramParser();
+    }
+
+    @Test
+    public void testModuleSuffixAndDuplicateNames() throws IOException {
+        HeapHistogram histogram = parse(JDK9_HISTOGRAM);
+
+        assertEquals(1517, histogram.getTotalInstances());
+        assertEquals(62424, histogram.getTotalBytes());
+        assertEquals(1517, histogram.getTotalHeapInstances());
+        assertEquals(62424, histogram.getTotalHeapBytes());
+        assertEquals(4, histogram.getHeapHistogram().size());
+        assertTrue(histogram.getPermGenHistogram().isEmpty());
+        assertClass(histogram.getHeapHistogram(), "byte[]", 1000, 50000);                  // NOI18N
+        assertClass(histogram.getHeapHistogram(), "java.lang.String", 500, 12000);         // NOI18N
+        assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);                 // NOI18N
+        assertClass(histogram.getHeapHistogram(), "java.lang.Object[]", 2, 64);            // NOI18N
+    }
+
+    @Test
+    public void testPermGen() throws IOException {
+        HeapHistogram histogram = parse(PERMGEN_HISTOGRAM);
+
+        assertEquals(15120, histogram.getTotalInstances());
+        assertEquals(1202400, histogram.getTotalBytes());
+        assertEquals(5000, histogram.getTotalHeapInstances());
+        assertEquals(400000, histogram.getTotalHeapBytes());
+        assertEquals(10120, histogram.getTotalPerGenInstances());
+        assertEquals(802400, histogram.getTotalPermGenHeapBytes());
+        assertEquals(1, histogram.getHeapHistogram().size());
+        assertEquals(2, histogram.getPermGenHistogram().size());
+        assertClass(histogram.getHeapHistogram(), "char[]", 5000, 400000);                 // NOI18N
+        assertClass(histogram.getPermGenHistogram(), "Read-Only Method Metadata", 10000, 800000);  // NOI18N
+        assertClass(histogram.getPermGenHistogram(), "Read-Write Method Metadata", 120, 2400);     // NOI18N
+    }
+
+    @Test
+    public void testReuse() throws IOException {
+        ClassInfo string1 = find(parse(JDK9_HISTOGRAM).getHeapHistogram(), "java.lang.String");   // NOI18N
+        HeapHistogram histogram = parse(JDK9_HISTOGRAM.replace("  500          12000", "  501          12024"));  // NOI18N
+        ClassInfo string2 = find(histogram.getHeapHistogram(), "java.lang.String");          // NOI18N
+        ClassInfo bytes2 = find(histogram.getHeapHistogram(), "byte[]");                    // NOI18N
+        HeapHistogram histogram3 = parse(JDK9_HISTOGRAM);
+
+        assertNotSame(string1, string2);
+        assertEquals(501, string2.getInstancesCount());
+        assertSame(bytes2, find(histogram3.getHeapHistogram(), "byte[]"));                  // NOI18N
+        assertEquals(500, find(histogram3.getHeapHistogram(), "java.lang.String").getInstancesCount());  // NOI18N
+    }
+
+    @Test
+    public void testUnloadedClasses() throws IOException {
+        // many classes loaded once, then unloaded
+        StringBuilder sb = new StringBuilder(JDK9_HISTOGRAM.substring(0, JDK9_HISTOGRAM.indexOf("Total")));    // NOI18N
+        for (int i = 0; i < 5000; i++) {
+            sb.append("   ").append(i + 6).append(":             1             16  com.foo.Generated").append(i).append('\n');    // NOI18N
+        }
+        sb.append("Total          6517          142424\n");   // NOI18N
+        HeapHistogram histogram = parse(sb.toString());
+        assertEquals(5004, histogram.getHeapHistogram().size());
+        ClassInfo generated = find(histogram.getHeapHistogram(), "com.foo.Generated42");    // NOI18N
+
+        for (int i = 0; i < 40; i++) {
+            histogram = parse(JDK9_HISTOGRAM);
+            assertEquals(4, histogram.getHeapHistogram().size());
+            assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);             // NOI18N
+        }
+
+        // the class is reported correctly once seen again, with a new ClassInfo as it was dropped
+        histogram = parse(sb.toString());
+        assertEquals(5004, histogram.getHeapHistogram().size());
+        assertClass(histogram.getHeapHistogram(), "com.foo.Generated42", 1, 16);            // NOI18N
+        assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);                 // NOI18N
+        assertNotSame(generated, find(histogram.getHeapHistogram(), "com.foo.Generated42"));  // NOI18N
+    }
+
+    private HeapHistogram parse(String text) throws IOException {
+        return parser.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ClassInfo find(Set<ClassInfo> infos, String name) {
+        ClassInfo found = null;
+        for (ClassInfo info : infos) {
+            if (info.getName().equals(name)) {
+                assertNull("Duplicate class " + name, found);    // NOI18N
+                found = info;
+            }
+        }
+        assertNotNull("Missing class " + name, found);   // NOI18N
+        return found;
+    }
+
+    private static void assertClass(Set<ClassInfo> infos, String name, long instances, long bytes) {
+        ClassInfo info = find(infos, name);
+        assertEquals(name, instances, info.getInstancesCount());
+        assertEquals(name, bytes, info.getBytes());
+    }
+}
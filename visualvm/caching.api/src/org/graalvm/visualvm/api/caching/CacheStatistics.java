@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.api.caching;
+
+/**
+ * Snapshot of the usage statistics of a {@linkplain Cache}
+ */
+final public class CacheStatistics {
+
+    final private long hitCount;
+    final private long missCount;
+    final private long loadCount;
+    final private long totalLoadTime;
+    final private long evictionCount;
+    final private int size;
+
+    public CacheStatistics(long hitCount, long missCount, long loadCount,
+                           long totalLoadTime, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * 
+     * @return Returns the number of lookups served from the cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 
+     * @return Returns the number of lookups which required the value to be loaded
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 
+     * @return Returns the number of values loaded by {@linkplain Persistor} or {@linkplain EntryFactory}
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * 
+     * @return Returns the total time spent loading values in nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 
+     * @return Returns the average time spent loading a value in nanoseconds
+     */
+    public long getAverageLoadTime() {
+        return loadCount == 0 ? 0 : totalLoadTime / loadCount;
+    }
+
+    /**
+     * 
+     * @return Returns the number of entries evicted because of the size bound
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 
+     * @return Returns the number of entries currently held by the cache
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 
+     * @return Returns the ratio of lookups served from the cache
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics[hits=" + hitCount + ", misses=" + missCount + // NOI18N
+               ", loads=" + loadCount + ", loadTime=" + totalLoadTime + // NOI18N
+               ", evictions=" + evictionCount + ", size=" + size + "]"; // NOI18N
+    }
+}
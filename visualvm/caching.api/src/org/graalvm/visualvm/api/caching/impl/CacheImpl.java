@@ -27,26 +27,56 @@ package org.graalvm.visualvm.api.caching.impl;
 
 
 import org.graalvm.visualvm.api.caching.Cache;
+import org.graalvm.visualvm.api.caching.CacheStatistics;
 import org.graalvm.visualvm.api.caching.Entry;
 import org.graalvm.visualvm.api.caching.EntryFactory;
 import org.graalvm.visualvm.api.caching.Persistor;
 import java.lang.ref.Reference;
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.ref.ReferenceQueue;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Default class implementation - should be used as a base for caching functionality
+ * <p>
+ * Lookups are served from a concurrent map; a missing or stale value is loaded
+ * by the first thread asking for it while other threads asking for the same key
+ * wait for that load only. An {@linkplain EntryFactory} asking for the key it is
+ * just creating gets an {@linkplain IllegalStateException}. Keys cleared by the
+ * garbage collector are purged on access and the number of entries can be bounded by the
+ * <code>org.graalvm.visualvm.api.caching.maxSize</code> system property,
+ * read when the cache is created, in which case the least frequently used entries are evicted first.
+ * </p>
  * @author Jaroslav Bachorik
  */
 final class CacheImpl<K, V> extends Cache<K,V> {
-    final private Map<Reference<K>, Entry<V>> objectCache = new HashMap<>();
+    private static final String MAX_SIZE_PROPERTY = "org.graalvm.visualvm.api.caching.maxSize"; // NOI18N
 
-    private long update_interval = 60480000; // 7 days in milliseconds
+    final private int maxSize = Integer.getInteger(MAX_SIZE_PROPERTY, 0);
+    final private ConcurrentMap<Reference<K>, Slot<K,V>> objectCache = new ConcurrentHashMap<>();
+    final private ReferenceQueue<K> clearedKeys = new ReferenceQueue<>();
+    final private ReentrantLock evictionLock = new ReentrantLock();
+
+    private volatile long update_interval = 60480000; // 7 days in milliseconds
 
     private Persistor<K, V> persistor = Persistor.DEFAULT;
-    private KeyFactory<K> keyFactory = KeyFactory.DEFAULT;
+    private KeyFactory<K> keyFactory = new SoftKeyFactory<>();
     private EntryFactory<K,V> resolver = EntryFactory.DEFAULT;
 
+    final private LongAdder hitCount = new LongAdder();
+    final private LongAdder missCount = new LongAdder();
+    final private LongAdder loadCount = new LongAdder();
+    final private LongAdder loadTime = new LongAdder();
+    final private LongAdder evictionCount = new LongAdder();
+    private long lastAging; // guarded by evictionLock
+
     CacheImpl() {};
 
     CacheImpl(EntryFactory<K,V> resolver) {
@@ -95,40 +125,47 @@ final class CacheImpl<K, V> extends Cache<K,V> {
      */
     @Override
     final public V retrieveObject(K key) {
+        purgeClearedKeys();
         Reference<K> softKey = keyFactory.createKey(key);
-        synchronized(objectCache) {
-            Entry<V> entry = objectCache.get(softKey);
-            if (entry == null) {
-                entry = persistor.retrieve(key);
+        for (;;) {
+            Slot<K,V> slot = objectCache.get(softKey);
+            if (slot == null) {
+                Slot<K,V> newSlot = new Slot<>(keyFactory.createKey(key, clearedKeys));
+                slot = objectCache.putIfAbsent(newSlot.key, newSlot);
+                if (slot == null) {
+                    missCount.increment();
+                    Entry<V> entry = load(newSlot, key, null);
+                    evictIfNeeded(newSlot);
+                    return entry != null ? entry.getContent() : null;
+                }
             }
+            Entry<V> entry = slot.await();
             if (entry == null) {
-                entry = cacheMiss(key);
-                if (entry != null && entry.getContent() != null) {
-                    persistor.store(key, entry);
-                    objectCache.put(softKey, entry);
-                }
-            } else {
-                long timestamp = System.currentTimeMillis();
-                if ((timestamp - entry.getUpdateTimeStamp()) > update_interval) {
-                    Entry<V> newEntry = cacheMiss(key);
-                    if (newEntry != null && newEntry.getContent() != null) {
-                        persistor.store(key, entry);
-                        objectCache.put(softKey, newEntry);
-                        entry = newEntry;
-                    }
-                }
+                // concurrent load has not resolved the key
+                return null;
+            }
+            if (!isStale(entry)) {
+                hitCount.increment();
+                slot.recordAccess();
+                return entry.getContent();
+            }
+            Slot<K,V> newSlot = new Slot<>(slot.key);
+            if (objectCache.replace(slot.key, slot, newSlot)) {
+                missCount.increment();
+                entry = load(newSlot, key, entry);
+                return entry != null ? entry.getContent() : null;
             }
-            return entry != null ? entry.getContent() : null;
         }
     }
     
     @Override
     final public V invalidateObject(K key) {
+        purgeClearedKeys();
         Reference<K> softKey = keyFactory.createKey(key);
-        synchronized(objectCache) {
-            Entry<V> entry = objectCache.remove(softKey);
-            return entry != null ? entry.getContent() : null;
-        }
+        Slot<K,V> slot = objectCache.remove(softKey);
+        if (slot == null) return null;
+        Entry<V> entry = slot.await();
+        return entry != null ? entry.getContent() : null;
     }
 
     /**
@@ -149,6 +186,12 @@ final class CacheImpl<K, V> extends Cache<K,V> {
         this.update_interval = ttl;
     }
 
+    @Override
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hitCount.sum(), missCount.sum(), loadCount.sum(),
+                                   loadTime.sum(), evictionCount.sum(), objectCache.size());
+    }
+
     /**
      * This method is called in case of cache-miss
      * It can return NULL if it's not possible to resolve the missing instance
@@ -158,4 +201,142 @@ final class CacheImpl<K, V> extends Cache<K,V> {
     private Entry<V> cacheMiss(K key) {
         return resolver.createEntry(key);
     }
+
+    /**
+     * Loads the value for the given key outside of any cache-wide lock
+     * and publishes it to the threads waiting for the slot
+     */
+    private Entry<V> load(Slot<K,V> slot, K key, Entry<V> staleEntry) {
+        Entry<V> entry = staleEntry;
+        long start = System.nanoTime();
+        try {
+            if (entry == null) {
+                entry = persistor.retrieve(key);
+            }
+            if (entry == null || isStale(entry)) {
+                Entry<V> newEntry = cacheMiss(key);
+                if (newEntry != null && newEntry.getContent() != null) {
+                    persistor.store(key, newEntry);
+                    entry = newEntry;
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            objectCache.remove(slot.key, slot);
+            slot.loaded.completeExceptionally(e);
+            throw e;
+        } finally {
+            slot.loader = null;
+            loadCount.increment();
+            loadTime.add(System.nanoTime() - start);
+        }
+        if (entry == null || entry.getContent() == null) {
+            objectCache.remove(slot.key, slot);
+            entry = null;
+        }
+        slot.loaded.complete(entry);
+        return entry;
+    }
+
+    private boolean isStale(Entry<V> entry) {
+        return (System.currentTimeMillis() - entry.getUpdateTimeStamp()) > update_interval;
+    }
+
+    private void purgeClearedKeys() {
+        Reference<? extends K> key;
+        while ((key = clearedKeys.poll()) != null) {
+            objectCache.remove(key);
+        }
+    }
+
+    /**
+     * Evicts the least frequently used entries once the cache grows over its bound.
+     * The victims are selected by a single pass keeping a bounded heap, a thread
+     * finding another eviction in progress does not wait for it.
+     * Access frequencies are halved after every 10 * maxSize lookups so that
+     * entries popular a long time ago do not stay in the cache forever.
+     */
+    private void evictIfNeeded(Slot<K,V> justLoaded) {
+        int max = maxSize;
+        if (max <= 0 || objectCache.size() <= max) return;
+        if (!evictionLock.tryLock()) return;
+        try {
+            int excess = objectCache.size() - max;
+            if (excess <= 0) return;
+            // evict a few more entries to amortize the cost of the scan
+            excess += max / 10;
+            // the most frequently used victim at the head
+            PriorityQueue<Slot<K,V>> victims = new PriorityQueue<>(excess, new Comparator<Slot<K,V>>() {
+                @Override
+                public int compare(Slot<K,V> s1, Slot<K,V> s2) {
+                    if (s1.sampledFrequency != s2.sampledFrequency) return s1.sampledFrequency > s2.sampledFrequency ? -1 : 1;
+                    return Long.compare(s2.sampledAccess, s1.sampledAccess);
+                }
+            });
+            for (Slot<K,V> slot : objectCache.values()) {
+                if (slot == justLoaded || !slot.loaded.isDone()) continue;
+                // frequencies change concurrently, the heap is ordered by a snapshot
+                slot.sampledFrequency = slot.frequency.get();
+                slot.sampledAccess = slot.lastAccess;
+                if (victims.size() < excess) {
+                    victims.add(slot);
+                } else if (victims.comparator().compare(slot, victims.peek()) > 0) {
+                    victims.poll();
+                    victims.add(slot);
+                }
+            }
+            for (Slot<K,V> slot : victims) {
+                if (objectCache.remove(slot.key, slot)) {
+                    evictionCount.increment();
+                }
+            }
+            long lookups = hitCount.sum() + missCount.sum();
+            if (lookups - lastAging >= 10L * max) {
+                lastAging = lookups;
+                for (Slot<K,V> slot : objectCache.values()) {
+                    AtomicInteger frequency = slot.frequency;
+                    frequency.set(frequency.get() >>> 1);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Holder of a cached value; the value is published through a future
+     * so that concurrent lookups of the same key wait for a single load.
+     */
+    private static final class Slot<K,V> {
+        final Reference<K> key;
+        final CompletableFuture<Entry<V>> loaded = new CompletableFuture<>();
+        final AtomicInteger frequency = new AtomicInteger(1);
+        volatile long lastAccess = System.nanoTime();
+        // the slot is always created by the thread loading its value, cleared once loaded
+        volatile Thread loader = Thread.currentThread();
+        int sampledFrequency; // guarded by evictionLock
+        long sampledAccess; // guarded by evictionLock
+
+        Slot(Reference<K> key) {
+            this.key = key;
+        }
+
+        Entry<V> await() {
+            if (loader == Thread.currentThread()) {
+                throw new IllegalStateException("Recursive retrieval of a key being loaded: " + key.get()); // NOI18N
+            }
+            try {
+                return loaded.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+                if (cause instanceof Error) throw (Error)cause;
+                throw e;
+            }
+        }
+
+        void recordAccess() {
+            lastAccess = System.nanoTime();
+            if (frequency.get() < Integer.MAX_VALUE) frequency.incrementAndGet();
+        }
+    }
 }
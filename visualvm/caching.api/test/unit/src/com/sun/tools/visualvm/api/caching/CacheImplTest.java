@@ -25,6 +25,16 @@
 
 package org.graalvm.visualvm.api.caching;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -155,4 +165,163 @@ public class CacheImplTest {
         assertEquals(expResult, result);
     }
 
-}
\ No newline at end of file
+    /**
+     * Test of retrieveObject method, of class AbstractCache.
+     */
+    @Test
+    public void testRetrieveObjectConcurrent() throws Exception {
+        System.out.println("retrieveObject - concurrent");
+        final int threads = 8;
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Cache<String, String> slowCache = CacheFactory.getInstance().softMapCache(new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Entry<>("value of " + key);
+            }
+        });
+        final String key = "key";
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return slowCache.retrieveObject(key);
+                    }
+                }));
+            }
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // give the other threads a chance to find the pending load
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value of key", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+
+        CacheStatistics stats = slowCache.getStatistics();
+        assertEquals(1, stats.getLoadCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(threads - 1, stats.getHitCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    /**
+     * Test of retrieveObject method, of class AbstractCache.
+     */
+    @Test
+    public void testRetrieveObjectRecursive() {
+        System.out.println("retrieveObject - recursive");
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicReference<Cache<String, String>> recursiveCache = new AtomicReference<>();
+        recursiveCache.set(CacheFactory.getInstance().softMapCache(new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                if (loads.incrementAndGet() == 1) {
+                    recursiveCache.get().retrieveObject(key);
+                }
+                return new Entry<>("value of " + key);
+            }
+        }));
+        String key = "key";
+        try {
+            recursiveCache.get().retrieveObject(key);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected, the factory asked for the key it is creating
+        }
+        assertEquals(0, recursiveCache.get().getStatistics().getSize());
+
+        // the failed load does not block next retrievals
+        assertEquals("value of key", recursiveCache.get().retrieveObject(key));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Test of retrieveObject method, of class AbstractCache.
+     */
+    @Test
+    public void testRetrieveObjectBounded() {
+        System.out.println("retrieveObject - bounded");
+        final int maxSize = 10;
+        final AtomicInteger loads = new AtomicInteger();
+        Cache<String, String> boundedCache;
+        String oldMaxSize = System.getProperty("org.graalvm.visualvm.api.caching.maxSize");
+        System.setProperty("org.graalvm.visualvm.api.caching.maxSize", Integer.toString(maxSize));
+        try {
+            boundedCache = CacheFactory.getInstance().softMapCache(new EntryFactory<String, String>() {
+                @Override
+                public Entry<String> createEntry(String key) {
+                    loads.incrementAndGet();
+                    return new Entry<>("value of " + key);
+                }
+            });
+        } finally {
+            if (oldMaxSize == null) {
+                System.clearProperty("org.graalvm.visualvm.api.caching.maxSize");
+            } else {
+                System.setProperty("org.graalvm.visualvm.api.caching.maxSize", oldMaxSize);
+            }
+        }
+        String hotKey = "key0";
+        for (int i = 0; i < maxSize; i++) {
+            boundedCache.retrieveObject("key" + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            boundedCache.retrieveObject(hotKey);
+        }
+        assertEquals(maxSize, loads.get());
+        for (int i = maxSize; i < 3 * maxSize; i++) {
+            boundedCache.retrieveObject("key" + i);
+        }
+
+        CacheStatistics stats = boundedCache.getStatistics();
+        assertTrue(stats.getSize() <= maxSize);
+        assertTrue(stats.getEvictionCount() >= 2 * maxSize - stats.getSize());
+
+        // the most frequently used entry survives the eviction
+        loads.set(0);
+        assertEquals("value of key0", boundedCache.retrieveObject(hotKey));
+        assertEquals(0, loads.get());
+    }
+
+    /**
+     * Test of retrieveObject method, of class AbstractCache.
+     */
+    @Test
+    public void testRetrieveObjectPurged() throws Exception {
+        System.out.println("retrieveObject - purged");
+        Cache<String, String> weakCache = CacheFactory.getInstance().weakMapCache(new EntryFactory<String, String>() {
+            @Override
+            public Entry<String> createEntry(String key) {
+                return new Entry<>("test");
+            }
+        });
+        String key = "key";
+        weakCache.retrieveObject(new String("collected"));
+        weakCache.retrieveObject(key);
+        assertEquals(2, weakCache.getStatistics().getSize());
+
+        // the entry of a collected key is dropped on the next access
+        for (int i = 0; i < 50 && weakCache.getStatistics().getSize() > 1; i++) {
+            System.gc();
+            Thread.sleep(100);
+            weakCache.retrieveObject(key);
+        }
+        assertEquals(1, weakCache.getStatistics().getSize());
+    }
+
+}
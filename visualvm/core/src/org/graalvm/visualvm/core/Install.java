@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2007, 2020, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2022, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -45,6 +45,11 @@ class Install {
             return VisualVM.getInstance().closing();
         }
 
+        @Override
+        public void close() {
+            Storage.flushAllCustomProperties();
+        }
+
         @Override
         public void restored() {
             // NOTE: this has to be called before any of DataSourceProviders initializes
@@ -33,10 +33,18 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
 
 /**
  * Storage for a DataSource.
@@ -52,6 +60,16 @@ public final class Storage {
     
     private static final Logger LOGGER = Logger.getLogger(Storage.class.getName());
     
+    // Delay in ms between the first modification of custom properties and writing them to disk
+    private static final int STORE_DELAY = Integer.getInteger("org.graalvm.visualvm.core.datasource.storeDelay", 1000); // NOI18N
+    
+    private static final RequestProcessor WRITER = new RequestProcessor("Storage Writer"); // NOI18N
+    private static final RequestProcessor.Task WRITER_TASK = WRITER.create(new Runnable() {
+        public void run() { flushPendingStorages(); }
+    });
+    // @GuardedBy PENDING_STORAGES
+    private static final Map<File, Storage> PENDING_STORAGES = new LinkedHashMap<>();
+    
     /**
      * Default extension for storage file.
      */
@@ -74,6 +92,12 @@ public final class Storage {
     private final File propertiesFile;
     
     private Properties properties;
+    // Set when the properties file has been deleted, pending writes are dropped
+    // @GuardedBy this
+    private boolean propertiesDeleted;
+    
+    // Serializes writes of the properties file, acquired before the Storage lock
+    private final Object writeLock = new Object();
 
 
     /**
@@ -121,9 +145,13 @@ public final class Storage {
      * 
      * @return storage directory.
      */
-    public synchronized File getDirectory() {
-        if (!Utils.prepareDirectory(directory)) throw new IllegalStateException("Cannot create storage directory " + directory);    // NOI18N
-        return directory;
+    public File getDirectory() {
+        // directory content may be copied or archived, make sure the properties file is up to date
+        flushCustomProperties();
+        synchronized (this) {
+            if (!Utils.prepareDirectory(directory)) throw new IllegalStateException("Cannot create storage directory " + directory);    // NOI18N
+            return directory;
+        }
     }
     
     /**
@@ -174,7 +202,7 @@ public final class Storage {
         for (int i = 0; i < keys.length; i++)
             if (values[i] != null) prop.put(keys[i], values[i]);
             else prop.remove(keys[i]);
-        storeCustomProperties(); // NOTE: this could be done lazily if storeCustomProperties() was public
+        storeCustomProperties();
     }
 
     /**
@@ -197,7 +225,7 @@ public final class Storage {
             for (String key : keys) {
                 prop.remove(key);
             }
-        storeCustomProperties(); // NOTE: this could be done lazily if storeCustomProperties() was public
+        storeCustomProperties();
     }
 
     /**
@@ -226,9 +254,45 @@ public final class Storage {
     /**
      * Deletes properties file.
      */
-    public synchronized void deleteCustomPropertiesStorage() {
-        if (propertiesFile != null && propertiesFile.exists())
-            if (!propertiesFile.delete()) propertiesFile.deleteOnExit();
+    public void deleteCustomPropertiesStorage() {
+        if (propertiesFile == null) return;
+        
+        synchronized (PENDING_STORAGES) {
+            if (PENDING_STORAGES.get(propertiesFile) == this) PENDING_STORAGES.remove(propertiesFile);
+        }
+        synchronized (writeLock) {
+            synchronized (this) {
+                // a write already taken from the pending storages must not recreate the file
+                propertiesDeleted = true;
+                if (propertiesFile.exists())
+                    if (!propertiesFile.delete()) propertiesFile.deleteOnExit();
+            }
+        }
+    }
+    
+    /**
+     * Writes pending changes of custom properties to disk. Custom properties
+     * are written by a background writer shortly after being modified, this
+     * method writes them immediately in the calling thread.
+     */
+    public void flushCustomProperties() {
+        if (propertiesFile == null) return;
+        
+        boolean pending;
+        synchronized (PENDING_STORAGES) {
+            pending = PENDING_STORAGES.get(propertiesFile) == this;
+            if (pending) PENDING_STORAGES.remove(propertiesFile);
+        }
+        if (pending) writeCustomProperties();
+    }
+    
+    /**
+     * Writes pending changes of custom properties of all Storages to disk.
+     * Called on VisualVM shutdown.
+     */
+    public static void flushAllCustomProperties() {
+        WRITER_TASK.cancel();
+        flushPendingStorages();
     }
     
     
@@ -329,12 +393,47 @@ public final class Storage {
     }
     
     
+    // Schedules writing the properties to disk, changes made before the write are coalesced
     private void storeCustomProperties() {
-        if (properties != null && propertiesFile != null) storeProperties(properties, propertiesFile);
+        if (properties == null || propertiesFile == null) return;
+        
+        propertiesDeleted = false;
+        boolean schedule;
+        synchronized (PENDING_STORAGES) {
+            schedule = PENDING_STORAGES.isEmpty();
+            PENDING_STORAGES.put(propertiesFile, this);
+        }
+        if (schedule) WRITER_TASK.schedule(STORE_DELAY);
+    }
+    
+    private void writeCustomProperties() {
+        synchronized (writeLock) {
+            Properties snapshot;
+            synchronized (this) {
+                if (properties == null || propertiesDeleted) return;
+                snapshot = (Properties)properties.clone();
+            }
+            storePropertiesAtomically(snapshot, propertiesFile);
+        }
+    }
+    
+    private static void flushPendingStorages() {
+        List<Storage> storages;
+        synchronized (PENDING_STORAGES) {
+            storages = new ArrayList<>(PENDING_STORAGES.values());
+            PENDING_STORAGES.clear();
+        }
+        for (Storage storage : storages) storage.writeCustomProperties();
     }
     
     private Properties getCustomProperties(boolean createEmpty) {
-        if (properties == null && propertiesFile != null) properties = loadProperties(propertiesFile);
+        if (properties == null && propertiesFile != null) {
+            // another Storage for the same file may have unwritten changes
+            Storage pending;
+            synchronized (PENDING_STORAGES) { pending = PENDING_STORAGES.get(propertiesFile); }
+            if (pending != null && pending != this) pending.flushCustomProperties();
+            properties = loadProperties(propertiesFile);
+        }
         if (properties == null && createEmpty) properties = new Properties();
         return properties;
     }
@@ -364,7 +463,7 @@ public final class Storage {
         }
     }
     
-    private static void storeProperties(Properties properties, File file) {
+    private static boolean storeProperties(Properties properties, File file) {
         Utils.prepareDirectory(file.getParentFile()); // Directories may not be created yet
 
         OutputStream os = null;
@@ -372,17 +471,48 @@ public final class Storage {
         try {
             os = new FileOutputStream(file);
             bos = new BufferedOutputStream(os);
-            properties.storeToXML(os, null);
+            properties.storeToXML(bos, null);
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error storing properties", e);    // NOI18N
+            return false;
         } finally {
             try {
                 if (bos != null) bos.close();
                 if (os != null) os.close();
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, "Problem closing output stream", e);   // NOI18N
+                return false;
             }
         }
+        return true;
+    }
+    
+    private static void storePropertiesAtomically(Properties properties, File file) {
+        File directory = file.getParentFile();
+        Utils.prepareDirectory(directory); // Directories may not be created yet
+        
+        File tmpFile;
+        try {
+            tmpFile = File.createTempFile(file.getName(), ".tmp", directory); // NOI18N
+        } catch (Exception e) {
+            LOGGER.log(Level.INFO, "Cannot create temporary file, storing properties directly", e);    // NOI18N
+            storeProperties(properties, file);
+            return;
+        }
+        
+        try {
+            if (!storeProperties(properties, tmpFile)) return;
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error storing properties", e);    // NOI18N
+        } finally {
+            // never leave the temporary file in the storage directory
+            if (tmpFile.exists() && !tmpFile.delete()) tmpFile.deleteOnExit();
+        }
     }
 
 }
@@ -27,7 +27,9 @@ package org.graalvm.visualvm.core.scheduler;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -38,7 +40,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * @author Jaroslav Bachorik
  */
 class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
-    static private final Map<Quantum, WeakReference<SchedulingPipe>> pipeMap = new HashMap<>();
+    static private final Map<Object, WeakReference<SchedulingPipe>> pipeMap = new HashMap<>();
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -49,13 +51,21 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
     private Quantum interval;
     private SchedulerTask delegateTask;
     private Quantum suspendedFrom = Quantum.SUSPENDED;
+    private final Object target;
+    private final String targetName;
 
     private SchedulingPipe pipe = null;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     DefaultScheduledTask(Quantum interval, SchedulerTask task) {
+        this(interval, task, null, null);
+    }
+
+    DefaultScheduledTask(Quantum interval, SchedulerTask task, Object target, String targetName) {
         delegateTask = task;
+        this.target = target;
+        this.targetName = targetName;
         setInterval(interval);
     }
 
@@ -72,17 +82,21 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
             oldInterval = this.interval;
 
             synchronized(pipeMap) {
-                WeakReference<SchedulingPipe> oldPipeRef = pipeMap.get(oldInterval);
-                WeakReference<SchedulingPipe> newPipeRef = pipeMap.get(interval);
+                Object oldKey = getPipeKey(oldInterval);
+                Object newKey = getPipeKey(interval);
+                WeakReference<SchedulingPipe> oldPipeRef = pipeMap.get(oldKey);
+                WeakReference<SchedulingPipe> newPipeRef = pipeMap.get(newKey);
 
                 SchedulingPipe oldPipe = oldPipeRef != null ? oldPipeRef.get() : null;
                 SchedulingPipe newPipe = newPipeRef != null ? newPipeRef.get() : null;
                 if (oldPipe != null) {
                     oldPipe.removeTask(this);
+                    // pipes of polling targets are not reused once empty
+                    if (target != null && oldPipe.isEmpty()) pipeMap.remove(oldKey);
                 }
                 if (newPipe == null && interval != Quantum.SUSPENDED) {
-                    newPipe = new SchedulingPipe(interval);
-                    pipeMap.put(interval, new WeakReference<>(newPipe));
+                    newPipe = new SchedulingPipe(interval, target, targetName);
+                    pipeMap.put(newKey, new WeakReference<>(newPipe));
                 }
                 if (newPipe != null) {
                     newPipe.addTask(this);
@@ -174,6 +188,21 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
         delegateTask.onSchedule(timeStamp);
     }
 
+    private Object getPipeKey(Quantum interval) {
+        return target == null || interval == null ? interval : new PipeKey(interval, target);
+    }
+
+    static List<PollStatistics> getPollStatistics() {
+        List<PollStatistics> statistics = new ArrayList<>();
+        synchronized(pipeMap) {
+            for (WeakReference<SchedulingPipe> pipeRef : pipeMap.values()) {
+                SchedulingPipe pipe = pipeRef.get();
+                if (pipe != null && pipe.getTarget() != null) statistics.add(pipe.getStatistics());
+            }
+        }
+        return statistics;
+    }
+
     void setPipe(SchedulingPipe pipe) {
         this.pipe = pipe;
     }
@@ -181,4 +210,25 @@ class DefaultScheduledTask implements ScheduledTask, SchedulerTask {
     SchedulingPipe getPipe() {
         return pipe;
     }
+
+    // polling targets are compared by identity
+    private static final class PipeKey {
+        private final Quantum interval;
+        private final Object target;
+
+        PipeKey(Quantum interval, Object target) {
+            this.interval = interval;
+            this.target = target;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PipeKey)) return false;
+            PipeKey key = (PipeKey)obj;
+            return key.target == target && key.interval.equals(interval);
+        }
+
+        public int hashCode() {
+            return 31 * interval.hashCode() + System.identityHashCode(target);
+        }
+    }
 }
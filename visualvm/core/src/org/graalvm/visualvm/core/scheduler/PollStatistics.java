@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.core.scheduler;
+
+/**
+ * Snapshot of polling statistics of a single target scheduled by the
+ * {@link Scheduler}, intended for diagnostics of slow or unreachable targets.
+ * All latencies are in milliseconds.
+ */
+public final class PollStatistics {
+
+    private final String targetName;
+    private final Quantum interval;
+    private final int tasks;
+    private final long polls;
+    private final long failures;
+    private final long skipped;
+    private final long lastLatency;
+    private final long maxLatency;
+    private final long totalLatency;
+    private final int backoff;
+
+    PollStatistics(String targetName, Quantum interval, int tasks, long polls, long failures, long skipped,
+                   long lastLatency, long maxLatency, long totalLatency, int backoff) {
+        this.targetName = targetName;
+        this.interval = interval;
+        this.tasks = tasks;
+        this.polls = polls;
+        this.failures = failures;
+        this.skipped = skipped;
+        this.lastLatency = lastLatency;
+        this.maxLatency = maxLatency;
+        this.totalLatency = totalLatency;
+        this.backoff = backoff;
+    }
+
+    /**
+     * @return display name of the polled target
+     */
+    public String getTargetName() {
+        return targetName;
+    }
+
+    /**
+     * @return interval at which the target is polled
+     */
+    public Quantum getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return number of tasks coalesced into a single poll of the target
+     */
+    public int getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @return number of executed polls
+     */
+    public long getPolls() {
+        return polls;
+    }
+
+    /**
+     * @return number of polls in which a task failed with an exception
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return number of intervals skipped because the previous poll was still
+     * running or the target was backed off
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return duration of the last poll
+     */
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * @return duration of the longest poll
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return average duration of a poll
+     */
+    public long getAverageLatency() {
+        return polls == 0 ? 0 : totalLatency / polls;
+    }
+
+    /**
+     * @return number of intervals the target is currently backed off for,
+     * 0 if the target is polled regularly
+     */
+    public int getBackoff() {
+        return backoff;
+    }
+}
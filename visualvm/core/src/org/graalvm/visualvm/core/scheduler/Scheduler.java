@@ -24,6 +24,7 @@
  */
 package org.graalvm.visualvm.core.scheduler;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.logging.Logger;
@@ -90,6 +91,42 @@ public class Scheduler {
         return scheduled;
     }
 
+    /**
+     * Schedules a new task polling the given target, typically a connection to a monitored JVM
+     * All tasks scheduled for the same target with the same interval are executed sequentially in one batch
+     * The first execution is delayed by a random part of the interval to spread polls of different targets
+     * An interval is skipped if the previous batch has not finished yet, a target which is slow or throws exceptions is polled less frequently
+     * This operation's result should be cached by the caller;otherwise the task will get unscheduled immediately
+     * @param task The task to be executed
+     * @param interval The interval to execute the task
+     * @param target The polled target, compared by identity
+     * @param targetName The display name of the target used in diagnostics
+     * @param immediate Tells whether the newly scheduled task is exeucted out-of-order at the moment of scheduling it
+     * @return Returns an instance of <code>ScheduledTask</code> that can be used to later modify the interval of execution
+     */
+    public final ScheduledTask schedule(final SchedulerTask task, final Quantum interval, Object target, String targetName, boolean immediate) {
+        if (target == null) throw new IllegalArgumentException("Target cannot be null"); // NOI18N
+        boolean suspended = interval.equals(Quantum.SUSPENDED);
+        if (immediate && !suspended) {
+            immediateTaskService.submit(new Runnable() {
+                public void run() {
+                    task.onSchedule(System.currentTimeMillis());
+                }
+            });
+        }
+
+        return new DefaultScheduledTask(interval, task, target, targetName);
+    }
+
+    /**
+     * Returns polling statistics of all targets currently scheduled using
+     * {@link #schedule(SchedulerTask, Quantum, Object, String, boolean)}
+     * @return Returns statistics of the polled targets
+     */
+    public final List<PollStatistics> getPollStatistics() {
+        return DefaultScheduledTask.getPollStatistics();
+    }
+
     /**
      * Unschedules an instance of <code>Scheduled</code> class
      * @param task The task to be unscheduled
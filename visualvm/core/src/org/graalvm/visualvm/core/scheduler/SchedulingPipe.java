@@ -26,13 +26,21 @@
 package org.graalvm.visualvm.core.scheduler;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -43,6 +51,14 @@ import java.util.logging.Logger;
  * for a certain scheduling interval
  * <p>It allows addition and removal of the tasks and takes care of creating
  * and releasing appropriate scheduled executors</p>
+ * <p>A pipe created for a polling target runs all its tasks in one batch on
+ * a single worker. The first run is delayed by a random fraction of the
+ * interval so that pipes of different targets do not fire at the same time.
+ * An interval is skipped while the previous batch is still running and the
+ * target is backed off exponentially when a batch fails or takes longer
+ * than the interval.</p>
+ * <p>A task of any pipe is not run again while its previous run is still
+ * executing, the interval is skipped instead.</p>
  * 
  * @author Jaroslav Bachorik <jaroslav.bachorik@sun.com>
  */
@@ -55,16 +71,40 @@ final class SchedulingPipe {
     // @GuardedBy pipeLock
     private ScheduledFuture<?> pipeFuture = null;
 
-    final private static ScheduledExecutorService schedulerService = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
-    final private static ExecutorService dispatcher = Executors.newCachedThreadPool();
+    private static final int MAX_BACKOFF = 32; // intervals
+
+    final private static ScheduledExecutorService schedulerService = Executors.newScheduledThreadPool(1, new WorkerFactory("VisualVM Scheduler")); // NOI18N
+    // a hung target holds just one worker since a pipe never runs more than one batch at a time
+    final private static ExecutorService dispatcher = Executors.newCachedThreadPool(new WorkerFactory("VisualVM Scheduler Worker")); // NOI18N
     
     // @GuardedBy tasksLock
     final private Set<WeakReference<DefaultScheduledTask>> tasks = new HashSet<>();
 
     private Quantum interval;
+    private final Object target;
+    private final String targetName;
+
+    // @GuardedBy statsLock
+    final private Object statsLock = new Object();
+    private boolean pollRunning;
+    private final Set<DefaultScheduledTask> runningTasks = Collections.newSetFromMap(new IdentityHashMap<DefaultScheduledTask, Boolean>());
+    private int backoff;
+    private int skipIntervals;
+    private long polls;
+    private long failures;
+    private long skipped;
+    private long lastLatency;
+    private long maxLatency;
+    private long totalLatency;
 
     SchedulingPipe(Quantum interval) {
+        this(interval, null, null);
+    }
+
+    SchedulingPipe(Quantum interval, Object target, String targetName) {
         this.interval = interval;
+        this.target = target;
+        this.targetName = targetName;
     }
 
     void addTask(DefaultScheduledTask task) {
@@ -81,28 +121,26 @@ final class SchedulingPipe {
 
     private void startPipe() {
         synchronized (pipeLock) {
+            long period = interval.unit.toNanos(interval.interval);
+            // spread the first polls of different targets over the interval
+            long initialDelay = target == null ? period : ThreadLocalRandom.current().nextLong(period) + 1;
             pipeFuture = schedulerService.scheduleAtFixedRate(new Runnable() {
 
                 public void run() {
                     tasksLock.writeLock().lock();
                     try {
                         final long timeStamp = System.currentTimeMillis();
-                        for (Iterator<WeakReference<DefaultScheduledTask>> iter = tasks.iterator(); iter.hasNext();) {
-                            WeakReference<DefaultScheduledTask> ref = iter.next();
-                            final DefaultScheduledTask t = ref.get();
-                            if (t != null) {
-                                dispatcher.submit(new Runnable() {
-
-                                    public void run() {
-                                        try {
-                                            t.onSchedule(timeStamp);
-                                        } catch (Throwable e) {
-                                            LOGGER.log(Level.SEVERE, null, e);
-                                        }
-                                    }
-                                });
-                            } else {
-                                iter.remove();
+                        if (target != null) {
+                            pollTarget(timeStamp);
+                        } else {
+                            for (Iterator<WeakReference<DefaultScheduledTask>> iter = tasks.iterator(); iter.hasNext();) {
+                                WeakReference<DefaultScheduledTask> ref = iter.next();
+                                final DefaultScheduledTask t = ref.get();
+                                if (t != null) {
+                                    scheduleTask(t, timeStamp);
+                                } else {
+                                    iter.remove();
+                                }
                             }
                         }
                         if (tasks.isEmpty()) {
@@ -115,7 +153,111 @@ final class SchedulingPipe {
                         tasksLock.writeLock().unlock();
                     }
                 }
-            }, interval.interval, interval.interval, interval.unit);
+            }, initialDelay, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // @GuardedBy tasksLock
+    private void scheduleTask(final DefaultScheduledTask t, final long timeStamp) {
+        synchronized (statsLock) {
+            // the shared workers must not pile up runs of a task slower than the interval
+            if (!runningTasks.add(t)) {
+                skipped++;
+                return;
+            }
+        }
+
+        dispatcher.submit(new Runnable() {
+
+            public void run() {
+                try {
+                    t.onSchedule(timeStamp);
+                } catch (Throwable e) {
+                    LOGGER.log(Level.SEVERE, null, e);
+                } finally {
+                    synchronized (statsLock) {
+                        runningTasks.remove(t);
+                    }
+                }
+            }
+        });
+    }
+
+    // @GuardedBy tasksLock
+    private void pollTarget(final long timeStamp) {
+        final List<DefaultScheduledTask> batch = new ArrayList<>(tasks.size());
+        for (Iterator<WeakReference<DefaultScheduledTask>> iter = tasks.iterator(); iter.hasNext();) {
+            DefaultScheduledTask t = iter.next().get();
+            if (t != null) batch.add(t);
+            else iter.remove();
+        }
+        if (batch.isEmpty()) return;
+
+        synchronized (statsLock) {
+            if (pollRunning || skipIntervals > 0) {
+                if (!pollRunning) skipIntervals--;
+                skipped++;
+                return;
+            }
+            pollRunning = true;
+        }
+
+        dispatcher.submit(new Runnable() {
+
+            public void run() {
+                boolean failed = false;
+                long start = System.nanoTime();
+                for (DefaultScheduledTask t : batch) {
+                    try {
+                        t.onSchedule(timeStamp);
+                    } catch (Throwable e) {
+                        failed = true;
+                        LOGGER.log(Level.WARNING, "Polling " + targetName + " failed", e); // NOI18N
+                    }
+                }
+                long latency = System.nanoTime() - start;
+                synchronized (statsLock) {
+                    pollRunning = false;
+                    polls++;
+                    if (failed) failures++;
+                    lastLatency = TimeUnit.NANOSECONDS.toMillis(latency);
+                    maxLatency = Math.max(maxLatency, lastLatency);
+                    totalLatency += lastLatency;
+                    if (failed || latency > interval.unit.toNanos(interval.interval)) {
+                        backoff = backoff == 0 ? 1 : Math.min(MAX_BACKOFF, backoff * 2);
+                        skipIntervals = backoff;
+                    } else {
+                        backoff = 0;
+                    }
+                }
+            }
+        });
+    }
+
+    Object getTarget() {
+        return target;
+    }
+
+    PollStatistics getStatistics() {
+        int tasksCount;
+        tasksLock.readLock().lock();
+        try {
+            tasksCount = tasks.size();
+        } finally {
+            tasksLock.readLock().unlock();
+        }
+        synchronized (statsLock) {
+            return new PollStatistics(targetName, interval, tasksCount, polls, failures, skipped,
+                                      lastLatency, maxLatency, totalLatency, backoff);
+        }
+    }
+
+    boolean isEmpty() {
+        tasksLock.readLock().lock();
+        try {
+            return tasks.isEmpty();
+        } finally {
+            tasksLock.readLock().unlock();
         }
     }
 
@@ -134,9 +276,26 @@ final class SchedulingPipe {
         }
         if (tasks.isEmpty()) {
             synchronized(pipeLock) {
-                pipeFuture.cancel(false);
-                pipeFuture = null;
+                if (pipeFuture != null) {
+                    pipeFuture.cancel(false);
+                    pipeFuture = null;
+                }
             }
         }
     }
+
+    private static final class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String name;
+
+        WorkerFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, name + " " + counter.incrementAndGet()); // NOI18N
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
@@ -27,5 +27,7 @@
  * Support for executing scheduled tasks in given intervals synchronously
  * Eg. all tasks scheduled to execute in 5 minutes interval will be executed
  * in one batch once the interval times-out, thus receiving the same timestamp
+ * Tasks polling a target, eg. a JMX connection, are batched per target instead
+ * and the targets are spread over the interval
  */
 package org.graalvm.visualvm.core.scheduler;
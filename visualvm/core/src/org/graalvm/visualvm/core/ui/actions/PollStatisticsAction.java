@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ *  DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ *  This code is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License version 2 only, as
+ *  published by the Free Software Foundation.  Oracle designates this
+ *  particular file as subject to the "Classpath" exception as provided
+ *  by Oracle in the LICENSE file that accompanied this code.
+ * 
+ *  This code is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ *  version 2 for more details (a copy is included in the LICENSE file that
+ *  accompanied this code).
+ * 
+ *  You should have received a copy of the GNU General Public License version
+ *  2 along with this work; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ *  Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ *  or visit www.oracle.com if you need additional information or have any
+ *  questions.
+ */
+
+package org.graalvm.visualvm.core.ui.actions;
+
+import java.awt.Dialog;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import org.graalvm.visualvm.core.scheduler.PollStatistics;
+import org.graalvm.visualvm.core.scheduler.Scheduler;
+import org.openide.DialogDescriptor;
+import org.openide.DialogDisplayer;
+import org.openide.util.NbBundle;
+
+/**
+ * Displays latencies of polling the monitored targets.
+ */
+class PollStatisticsAction extends AbstractAction {
+    
+    private static PollStatisticsAction instance;
+    
+    public static synchronized PollStatisticsAction instance() {
+        if (instance == null) instance = new PollStatisticsAction();
+        return instance;
+    }
+    
+    public void actionPerformed(ActionEvent e) {
+        final StatisticsModel model = new StatisticsModel();
+        model.refresh();
+        
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(700, 300));
+        
+        JButton refreshButton = new JButton(NbBundle.getMessage(PollStatisticsAction.class, "LBL_Refresh")); // NOI18N
+        refreshButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) { model.refresh(); }
+        });
+        
+        DialogDescriptor dd = new DialogDescriptor(scrollPane, NbBundle.getMessage(PollStatisticsAction.class, "LBL_Poll_Statistics"), // NOI18N
+                false, new Object[] { refreshButton, DialogDescriptor.CLOSED_OPTION }, DialogDescriptor.CLOSED_OPTION,
+                DialogDescriptor.DEFAULT_ALIGN, null, null);
+        dd.setClosingOptions(new Object[] { DialogDescriptor.CLOSED_OPTION });
+        Dialog d = DialogDisplayer.getDefault().createDialog(dd);
+        d.pack();
+        d.setVisible(true);
+    }
+    
+    
+    private PollStatisticsAction() {
+        putValue(NAME, NbBundle.getMessage(PollStatisticsAction.class, "LBL_Poll_Statistics1")); // NOI18N
+        putValue(SHORT_DESCRIPTION, NbBundle.getMessage(PollStatisticsAction.class, "LBL_Poll_Statistics")); // NOI18N
+    }
+    
+    
+    private static class StatisticsModel extends AbstractTableModel {
+        
+        private static final String[] COLUMNS = NbBundle.getMessage(PollStatisticsAction.class, "COL_Poll_Statistics").split(","); // NOI18N
+        
+        private List<PollStatistics> statistics = new ArrayList<>();
+        
+        void refresh() {
+            statistics = Scheduler.sharedInstance().getPollStatistics();
+            fireTableDataChanged();
+        }
+        
+        public int getRowCount() {
+            return statistics.size();
+        }
+
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+        
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+        
+        public Class<?> getColumnClass(int column) {
+            return column < 2 ? String.class : Long.class;
+        }
+
+        public Object getValueAt(int row, int column) {
+            PollStatistics stats = statistics.get(row);
+            switch (column) {
+                case 0: return stats.getTargetName();
+                case 1: return stats.getInterval().toString();
+                case 2: return (long)stats.getTasks();
+                case 3: return stats.getPolls();
+                case 4: return stats.getLastLatency();
+                case 5: return stats.getAverageLatency();
+                case 6: return stats.getMaxLatency();
+                case 7: return stats.getSkipped();
+                case 8: return stats.getFailures();
+                default: return (long)stats.getBackoff();
+            }
+        }
+        
+    }
+    
+}
@@ -60,6 +60,8 @@ public abstract class HeapViewerNode extends CCTNode {
     
     private HeapViewerNode[] children;
     
+    private volatile long childrenComputeTime;
+    
     
     // --- CCTNode ---------------------------------------------------------
     
@@ -125,6 +127,14 @@ public abstract class HeapViewerNode extends CCTNode {
         }
     }
     
+    long getChildrenComputeTime() {
+        return childrenComputeTime;
+    }
+    
+    void setChildrenComputeTime(long time) {
+        childrenComputeTime = time;
+    }
+    
     private boolean childrenComputed() {
         if (children == null) return false;
         if (children.length == 0 || children.length > 1) return true;
@@ -175,6 +185,7 @@ public abstract class HeapViewerNode extends CCTNode {
 //                    System.err.println(">>> Computing children in " + Thread.currentThread() + "...");
                 }
                 
+                long start = System.currentTimeMillis();
                 HeapViewerNode[] ret;
                 try {
                     ret = lazilyComputeChildren(root.getContext().getFragment().getHeap(), root.getViewID(), root.getViewFilter(), root.getDataTypes(), root.getSortOrders(), progress);
@@ -191,6 +202,8 @@ public abstract class HeapViewerNode extends CCTNode {
                     else ret = null; // probably not needed, just to be sure we don't overwrite newer results
                 }
                 
+                if (ret != null) childrenComputeTime = System.currentTimeMillis() - start;
+                
 //                if (ret == null) System.err.println(">>> Cancelled children in " + Thread.currentThread() + " time " + (System.currentTimeMillis() - t));
 //                else System.err.println(">>> Computed children in " + Thread.currentThread() + " time " + (System.currentTimeMillis() - t));
                 
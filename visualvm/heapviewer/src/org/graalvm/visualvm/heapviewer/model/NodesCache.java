@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2017, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2017, 2022, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,62 +25,144 @@
 
 package org.graalvm.visualvm.heapviewer.model;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
-import java.util.HashMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import org.graalvm.visualvm.lib.jfluid.results.CCTNode;
 
 /**
+ * Cache of children of collapsed nodes. Each entry is held softly and the cache
+ * is bounded by the estimated size of the cached node arrays, least recently
+ * used entries are evicted first. Children which took long to compute (references,
+ * GC roots, dominators etc.) are held strongly until evicted by the size bound.
  *
  * @author Jiri Sedlacek
  */
 public final class NodesCache {
     
-    private Reference<Map<NodeKey, HeapViewerNode[]>> cache;
+    // Maximum estimated size of cached children in bytes
+    private static final long MAX_WEIGHT = Long.getLong("heapviewer.nodesCacheSize", Runtime.getRuntime().maxMemory() / 32); // NOI18N
     
+    // Children computed longer than this (in ms) are held strongly, negative value disables the retention
+    private static final int EXPENSIVE_CHILDREN = Integer.getInteger("heapviewer.nodesCacheExpensiveThreshold", 500); // NOI18N
     
-    public void storeChildren(HeapViewerNode node, HeapViewerNode[] children) {
-        getCache().put(new NodeKey(node), children);
+    // Estimated size of a node including its slot in the children array
+    private static final int NODE_WEIGHT = 96;
+    private static final int ARRAY_WEIGHT = 16;
+    
+    private final Map<NodeKey, CachedChildren> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<HeapViewerNode[]> clearedChildren = new ReferenceQueue<>();
+    private long weight;
+    
+    
+    public synchronized void storeChildren(HeapViewerNode node, HeapViewerNode[] children) {
+        purgeCleared();
+        
+        long computeTime = node.getChildrenComputeTime();
+        boolean expensive = EXPENSIVE_CHILDREN >= 0 && computeTime >= EXPENSIVE_CHILDREN;
+        NodeKey key = new NodeKey(node);
+        CachedChildren cached = new CachedChildren(key, children, computeTime, expensive, clearedChildren);
+        
+        CachedChildren previous = cache.put(key, cached);
+        if (previous != null) weight -= previous.weight;
+        weight += cached.weight;
+        
+        if (weight > MAX_WEIGHT) evict(cached);
+    }
+    
+    public synchronized HeapViewerNode[] retrieveChildren(HeapViewerNode node) {
+        purgeCleared();
+        
+        CachedChildren cached = cache.remove(new NodeKey(node));
+        if (cached == null) return null;
+        
+        weight -= cached.weight;
+        HeapViewerNode[] children = cached.get();
+        if (children != null) node.setChildrenComputeTime(cached.computeTime);
+        return children;
+    }
+    
+    
+    public synchronized void clear() {
+        cache.clear();
+        weight = 0;
+        while (clearedChildren.poll() != null);
     }
     
-    public HeapViewerNode[] retrieveChildren(HeapViewerNode node) {
-        return getCache().remove(new NodeKey(node));
+    
+    private void purgeCleared() {
+        CachedChildren cleared;
+        while ((cleared = (CachedChildren)clearedChildren.poll()) != null) {
+            if (cache.get(cleared.key) == cleared) {
+                cache.remove(cleared.key);
+                weight -= cleared.weight;
+            }
+        }
     }
     
+    private void evict(CachedChildren justStored) {
+        // cheap children go first, expensive ones only if still over the limit
+        evict(justStored, false);
+        if (weight > MAX_WEIGHT) evict(justStored, true);
+    }
     
-    public void clear() {
-        cache = null;
+    private void evict(CachedChildren justStored, boolean expensive) {
+        Iterator<CachedChildren> entries = cache.values().iterator();
+        while (weight > MAX_WEIGHT && entries.hasNext()) {
+            CachedChildren cached = entries.next();
+            if (cached != justStored && (expensive || cached.strongChildren == null)) {
+                entries.remove();
+                weight -= cached.weight;
+            }
+        }
     }
     
     
-    private Map<NodeKey, HeapViewerNode[]> getCache() {
-        Map<NodeKey, HeapViewerNode[]> c = cache == null ? null : cache.get();
-        if (c == null) {
-            c = new HashMap();
-            cache = new WeakReference(c);
+    private static final class CachedChildren extends SoftReference<HeapViewerNode[]> {
+        
+        private final NodeKey key;
+        private final long weight;
+        private final long computeTime;
+        private final HeapViewerNode[] strongChildren;
+        
+        CachedChildren(NodeKey key, HeapViewerNode[] children, long computeTime, boolean expensive, ReferenceQueue<HeapViewerNode[]> queue) {
+            super(children, queue);
+            
+            this.key = key;
+            this.weight = ARRAY_WEIGHT + (long)children.length * NODE_WEIGHT;
+            this.computeTime = computeTime;
+            this.strongChildren = expensive ? children : null;
         }
-        return c;
+        
     }
     
     
     private static final class NodeKey {
         
-        private final HeapViewerNode node;
-        private int distance;
-        private int hashCode;
+        // path to root captured at creation time, stays valid even if the nodes get detached later
+        private final HeapViewerNode[] path;
+        private final int hashCode;
 
         NodeKey(HeapViewerNode node) {
-            this.node = node;
+            int distance = 0;
+            HeapViewerNode n = node;
+            while (n != null) {
+                distance++;
+                n = n.getParent();
+            }
             
-            distance = 0;
-            hashCode = 1;
+            path = new HeapViewerNode[distance];
             
-            while (node != null) {
-                hashCode = 31 * hashCode + node.hashCode();
-                distance++;
-                node = (HeapViewerNode)node.getParent();
+            int hash = 1;
+            n = node;
+            for (int i = 0; i < distance; i++) {
+                path[i] = n;
+                hash = 31 * hash + n.hashCode();
+                n = n.getParent();
             }
+            hashCode = hash;
         }
 
         public final int hashCode() {
@@ -92,17 +174,7 @@ public final class NodesCache {
             if (!(o instanceof NodeKey)) return false;
             
             NodeKey nk = (NodeKey)o;
-            if (distance != nk.distance) return false;
-            
-            CCTNode n = nk.node;
-            CCTNode t = node;
-            while (t != null) {
-                if (!t.equals(n)) return false;
-                t = t.getParent();
-                n = n.getParent();
-            }
-            
-            return true;
+            return hashCode == nk.hashCode && Arrays.equals(path, nk.path);
         }
 
     }
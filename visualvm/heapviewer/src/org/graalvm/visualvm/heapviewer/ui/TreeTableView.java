@@ -235,6 +235,7 @@ public class TreeTableView {
     public void reloadView() {
         if (component != null) {
             if (root != currentRoot) pinNode(null);
+            nodesCache.clear();
             root.reset(false);
         }
     }
@@ -243,6 +244,7 @@ public class TreeTableView {
     public void closed() {
         if (component != null) {
             if (root != currentRoot) pinNode(null);
+            nodesCache.clear();
             root.reset(true);
         }
     }
@@ -435,8 +437,7 @@ public class TreeTableView {
     // --- BreadCrumbs prototype -----------------------------------------------
     
     private void setRoot(HeapViewerNode newRoot) {
-        nodesCache.clear();
-        
+        // nodesCache is keyed by full paths to the view root, no need to clear it when (un)pinning
         model.setRoot(newRoot);
         currentRoot = newRoot;
         
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2007, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2022, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,6 +25,9 @@
 
 package org.graalvm.visualvm.host.model;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import org.graalvm.visualvm.core.model.Model;
 
 /**
@@ -148,4 +151,25 @@ public abstract class HostOverview extends Model  {
      */ 
     public abstract String getHostAddress();
     
+    /**
+     * Returns true if {@link #getProcessInfo(java.util.Collection)} provides
+     * resource usage of processes running on this host.
+     * 
+     * @return true if resource usage of processes is available, false otherwise
+     */
+    public boolean isProcessInfoSupported() {
+        return false;
+    }
+    
+    /**
+     * Returns resource usage of the given processes, all processes are read
+     * in a single pass. CPU usage is computed since the previous call of this method.
+     * 
+     * @param pids ids of the processes
+     * @return resource usage of the processes, finished or inaccessible processes are not included
+     */
+    public Map<Integer, ProcessInfo> getProcessInfo(Collection<Integer> pids) {
+        return Collections.emptyMap();
+    }
+    
 }
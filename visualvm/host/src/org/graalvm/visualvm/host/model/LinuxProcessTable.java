@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.host.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads resource usage of processes from the Linux /proc filesystem.
+ */
+class LinuxProcessTable {
+    
+    private static final Logger LOGGER = Logger.getLogger(LinuxProcessTable.class.getName());
+    
+    private static final String PROC = "/proc";  // NOI18N
+    
+    // USER_HZ, the unit of utime and stime in /proc/<pid>/stat
+    private static final int CLOCK_TICKS = Integer.getInteger("org.graalvm.visualvm.host.clockTicks", 100);  // NOI18N
+    
+    // indexes of fields in /proc/<pid>/stat counted from the field following the command name
+    private static final int STAT_UTIME = 11;
+    private static final int STAT_STIME = 12;
+    private static final int STAT_THREADS = 17;
+    private static final int STAT_STARTTIME = 19;
+    
+    private final int processors;
+    // CPU ticks consumed by processes at the previous sample
+    private Map<Integer, CpuSample> lastSamples = new HashMap<>();
+    
+    
+    static boolean isSupported() {
+        return new File(PROC, "self/stat").isFile();  // NOI18N
+    }
+    
+    LinuxProcessTable(int processors) {
+        this.processors = Math.max(1, processors);
+    }
+    
+    
+    synchronized Map<Integer, ProcessInfo> sample(Collection<Integer> pids) {
+        long time = System.nanoTime();
+        Map<Integer, CpuSample> samples = new HashMap<>();
+        Map<Integer, ProcessInfo> infos = new HashMap<>();
+        
+        for (Integer pid : pids) {
+            String[] stat = readStat(pid);
+            if (stat == null || stat.length <= STAT_STARTTIME) continue; // process finished
+            
+            long ticks = parseLong(stat[STAT_UTIME]) + parseLong(stat[STAT_STIME]);
+            long startTime = parseLong(stat[STAT_STARTTIME]);
+            CpuSample sample = new CpuSample(ticks, startTime, time);
+            samples.put(pid, sample);
+            
+            double cpuUsage = -1;
+            CpuSample last = lastSamples.get(pid);
+            // start time differs if the pid has been reused by another process
+            if (last != null && last.startTime == startTime && time > last.time) {
+                double cpuSeconds = (double)(ticks - last.ticks) / CLOCK_TICKS;
+                double wallSeconds = (time - last.time) / 1e9;
+                cpuUsage = Math.min(100, Math.max(0, cpuSeconds / wallSeconds / processors * 100));
+            }
+            
+            Map<String, String> status = readKeyValues(pid, "status");  // NOI18N
+            Map<String, String> io = readKeyValues(pid, "io");  // NOI18N
+            
+            int threads = (int)parseLong(stat[STAT_THREADS]);
+            long rss = parseKiloBytes(status.get("VmRSS"));  // NOI18N
+            long voluntary = parseLong(status.get("voluntary_ctxt_switches"));  // NOI18N
+            long involuntary = parseLong(status.get("nonvoluntary_ctxt_switches"));  // NOI18N
+            long read = parseLong(io.get("read_bytes"));  // NOI18N
+            long written = parseLong(io.get("write_bytes"));  // NOI18N
+            
+            infos.put(pid, new ProcessInfo(pid, cpuUsage, rss, threads, voluntary, involuntary, read, written));
+        }
+        
+        lastSamples = samples;
+        return infos;
+    }
+    
+    
+    private static String[] readStat(int pid) {
+        String stat = readFile(pid, "stat");  // NOI18N
+        if (stat == null) return null;
+        
+        // command name is in parentheses and may contain spaces or parentheses
+        int commandEnd = stat.lastIndexOf(')');
+        if (commandEnd == -1) return null;
+        return stat.substring(commandEnd + 1).trim().split(" ");  // NOI18N
+    }
+    
+    private static Map<String, String> readKeyValues(int pid, String file) {
+        Map<String, String> values = new HashMap<>();
+        String content = readFile(pid, file);
+        if (content != null) {
+            for (String line : content.split("\n")) {  // NOI18N
+                int separator = line.indexOf(':');
+                if (separator > 0) values.put(line.substring(0, separator), line.substring(separator + 1).trim());
+            }
+        }
+        return values;
+    }
+    
+    private static String readFile(int pid, String file) {
+        Path path = Paths.get(PROC, Integer.toString(pid), file);
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            // process finished or the file is not accessible, /proc/<pid>/io of other users
+            LOGGER.log(Level.FINEST, "Cannot read " + path, e);  // NOI18N
+            return null;
+        }
+    }
+    
+    private static long parseKiloBytes(String value) {
+        if (value == null) return -1;
+        int unit = value.indexOf(' ');
+        long kiloBytes = parseLong(unit == -1 ? value : value.substring(0, unit));
+        return kiloBytes == -1 ? -1 : kiloBytes * 1024;
+    }
+    
+    private static long parseLong(String value) {
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    
+    private static final class CpuSample {
+        
+        final long ticks;
+        final long startTime;
+        final long time;
+        
+        CpuSample(long ticks, long startTime, long time) {
+            this.ticks = ticks;
+            this.startTime = startTime;
+            this.time = time;
+        }
+        
+    }
+    
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2007, 2021, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2022, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -30,6 +30,9 @@ import org.graalvm.visualvm.host.Host;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import org.openide.util.NbBundle;
 
 
@@ -40,10 +43,14 @@ import org.openide.util.NbBundle;
 class LocalHostOverview extends HostOverview  {
   private OperatingSystemMXBean osMXBean;
   private boolean loadAverageAvailable;
+  private LinuxProcessTable processTable;
 
   LocalHostOverview() {
     osMXBean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
     loadAverageAvailable = osMXBean.getSystemLoadAverage() >= 0;
+    if (LinuxProcessTable.isSupported()) {
+      processTable = new LinuxProcessTable(osMXBean.getAvailableProcessors());
+    }
   }
 
   public String getName() {
@@ -109,4 +116,13 @@ class LocalHostOverview extends HostOverview  {
     }
   }
 
+  public boolean isProcessInfoSupported() {
+    return processTable != null;
+  }
+
+  public Map<Integer, ProcessInfo> getProcessInfo(Collection<Integer> pids) {
+    if (processTable == null) return Collections.emptyMap();
+    return processTable.sample(pids);
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.host.model;
+
+/**
+ * Resource usage of a process running on a host as provided by
+ * {@link HostOverview#getProcessInfo(java.util.Collection)}.
+ * Values which are not available are reported as -1.
+ */
+public final class ProcessInfo {
+    
+    private final int pid;
+    private final double cpuUsage;
+    private final long residentSetSize;
+    private final int threads;
+    private final long voluntaryContextSwitches;
+    private final long involuntaryContextSwitches;
+    private final long readBytes;
+    private final long writtenBytes;
+    
+    
+    public ProcessInfo(int pid, double cpuUsage, long residentSetSize, int threads,
+                       long voluntaryContextSwitches, long involuntaryContextSwitches,
+                       long readBytes, long writtenBytes) {
+        this.pid = pid;
+        this.cpuUsage = cpuUsage;
+        this.residentSetSize = residentSetSize;
+        this.threads = threads;
+        this.voluntaryContextSwitches = voluntaryContextSwitches;
+        this.involuntaryContextSwitches = involuntaryContextSwitches;
+        this.readBytes = readBytes;
+        this.writtenBytes = writtenBytes;
+    }
+    
+    
+    /**
+     * Returns the process id.
+     * 
+     * @return the process id
+     */
+    public int getPid() {
+        return pid;
+    }
+    
+    /**
+     * Returns the CPU usage of the process since the previous sample in percent
+     * of all processors of the host.
+     * 
+     * @return CPU usage in percent or -1 for the first sample of the process
+     */
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+    
+    /**
+     * Returns the resident set size of the process.
+     * 
+     * @return resident set size in bytes
+     */
+    public long getResidentSetSize() {
+        return residentSetSize;
+    }
+    
+    /**
+     * Returns the number of threads of the process.
+     * 
+     * @return number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+    
+    /**
+     * Returns the total number of voluntary context switches of the process.
+     * 
+     * @return number of voluntary context switches
+     */
+    public long getVoluntaryContextSwitches() {
+        return voluntaryContextSwitches;
+    }
+    
+    /**
+     * Returns the total number of involuntary context switches of the process.
+     * 
+     * @return number of involuntary context switches
+     */
+    public long getInvoluntaryContextSwitches() {
+        return involuntaryContextSwitches;
+    }
+    
+    /**
+     * Returns the total number of bytes the process caused to be read from storage.
+     * 
+     * @return number of bytes read
+     */
+    public long getReadBytes() {
+        return readBytes;
+    }
+    
+    /**
+     * Returns the total number of bytes the process caused to be written to storage.
+     * 
+     * @return number of bytes written
+     */
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+    
+}
@@ -26,15 +26,30 @@
 package org.graalvm.visualvm.host.views.overview;
 
 import java.awt.BorderLayout;
+import java.awt.Component;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import org.graalvm.visualvm.application.Application;
 import org.graalvm.visualvm.charts.ChartFactory;
 import org.graalvm.visualvm.charts.SimpleXYChartDescriptor;
 import org.graalvm.visualvm.charts.SimpleXYChartSupport;
+import org.graalvm.visualvm.core.datasource.descriptor.DataSourceDescriptorFactory;
 import org.graalvm.visualvm.core.datasupport.DataRemovedListener;
 import org.graalvm.visualvm.core.options.GlobalPreferences;
 import org.graalvm.visualvm.core.ui.DataSourceView;
@@ -43,6 +58,7 @@ import org.graalvm.visualvm.core.ui.components.NotSupportedDisplayer;
 import org.graalvm.visualvm.host.Host;
 import org.graalvm.visualvm.host.model.HostOverview;
 import org.graalvm.visualvm.host.model.HostOverviewFactory;
+import org.graalvm.visualvm.host.model.ProcessInfo;
 import org.graalvm.visualvm.uisupport.HTMLTextArea;
 import org.openide.util.ImageUtilities;
 import org.openide.util.NbBundle;
@@ -98,6 +114,15 @@ class HostOverviewView extends DataSourceView implements DataRemovedListener<Hos
         final SwapMemoryViewSupport swapMemoryViewSupport = new SwapMemoryViewSupport(chartCache);
         dvc.addDetailsView(swapMemoryViewSupport.getDetailsView(), DataViewComponent.TOP_RIGHT);
 
+        final ProcessesViewSupport processesViewSupport;
+        if (hostOverview.isProcessInfoSupported()) {
+            processesViewSupport = new ProcessesViewSupport();
+            dvc.configureDetailsArea(new DataViewComponent.DetailsAreaConfiguration(NbBundle.getMessage(HostOverviewView.class, "LBL_Processes"), true), DataViewComponent.BOTTOM_LEFT); // NOI18N
+            dvc.addDetailsView(processesViewSupport.getDetailsView(), DataViewComponent.BOTTOM_LEFT);
+        } else {
+            processesViewSupport = null;
+        }
+
         timer = new Timer();
         timer.schedule(new TimerTask() {
             public void run() {
@@ -105,6 +130,8 @@ class HostOverviewView extends DataSourceView implements DataRemovedListener<Hos
                 cpuLoadViewSupport.refresh(hostOverview, time);
                 physicalMemoryViewSupport.refresh(hostOverview, time);
                 swapMemoryViewSupport.refresh(hostOverview, time);
+                if (processesViewSupport != null)
+                    processesViewSupport.refresh(hostOverview, (Host)getDataSource());
             }
         }, 800, 2000);
         ((Host)getDataSource()).notifyWhenRemoved(this);
@@ -322,4 +349,162 @@ class HostOverviewView extends DataSourceView implements DataRemovedListener<Hos
 
     }
 
+
+
+    // --- Processes -----------------------------------------------------------
+
+    private static class ProcessesViewSupport extends JPanel {
+
+        private static final String[] COLUMN_NAMES = new String[] {
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_name"),    // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_pid"), // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_cpu"), // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_rss"), // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_threads"), // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_vcsw"),    // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_ivcsw"),   // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_read"),    // NOI18N
+            NbBundle.getMessage(HostOverviewView.class, "COL_Process_written")  // NOI18N
+        };
+
+        private ProcessesTableModel tableModel;
+
+        ProcessesViewSupport() {
+            initComponents();
+        }
+
+        public DataViewComponent.DetailsView getDetailsView() {
+            return new DataViewComponent.DetailsView(NbBundle.getMessage(HostOverviewView.class, "LBL_Processes_table"), null, 10, this, null); // NOI18N
+        }
+
+        public void refresh(HostOverview hostOverview, Host host) {
+            Set<Application> applications = host.getRepository().getDataSources(Application.class);
+            Map<Integer, String> names = new HashMap<>();
+            for (Application application : applications) {
+                int pid = application.getPid();
+                if (pid != Application.UNKNOWN_PID)
+                    names.put(pid, DataSourceDescriptorFactory.getDescriptor(application).getName());
+            }
+
+            // single batched pass over all known pids
+            Map<Integer, ProcessInfo> infos = names.isEmpty() ?
+                    Collections.<Integer, ProcessInfo>emptyMap() :
+                    hostOverview.getProcessInfo(names.keySet());
+
+            final List<ProcessInfo> rows = new ArrayList<>(infos.values());
+            final List<String> rowNames = new ArrayList<>(rows.size());
+            for (ProcessInfo info : rows) rowNames.add(names.get(info.getPid()));
+
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() { tableModel.setData(rows, rowNames); }
+            });
+        }
+
+        private void initComponents() {
+            setLayout(new BorderLayout());
+            setOpaque(false);
+
+            tableModel = new ProcessesTableModel();
+            JTable table = new JTable(tableModel);
+            table.setAutoCreateRowSorter(true);
+            table.setFillsViewportHeight(true);
+            ValueRenderer renderer = new ValueRenderer();
+            table.setDefaultRenderer(Number.class, renderer);
+            table.setDefaultRenderer(Double.class, renderer);
+            table.getColumnModel().getColumn(0).setPreferredWidth(250);
+
+            JScrollPane scroll = new JScrollPane(table);
+            scroll.setBorder(BorderFactory.createEmptyBorder());
+            add(scroll, BorderLayout.CENTER);
+        }
+
+
+        private static class ProcessesTableModel extends AbstractTableModel {
+
+            private List<ProcessInfo> rows = Collections.emptyList();
+            private List<String> names = Collections.emptyList();
+
+            void setData(List<ProcessInfo> rows, List<String> names) {
+                this.rows = rows;
+                this.names = names;
+                fireTableDataChanged();
+            }
+
+            public int getRowCount() {
+                return rows.size();
+            }
+
+            public int getColumnCount() {
+                return COLUMN_NAMES.length;
+            }
+
+            public String getColumnName(int column) {
+                return COLUMN_NAMES[column];
+            }
+
+            public Class<?> getColumnClass(int column) {
+                switch (column) {
+                    case 0: return String.class;
+                    case 2: return Double.class;
+                    default: return Long.class;
+                }
+            }
+
+            public Object getValueAt(int row, int column) {
+                ProcessInfo info = rows.get(row);
+                switch (column) {
+                    case 0: return names.get(row);
+                    case 1: return Long.valueOf(info.getPid());
+                    case 2: return info.getCpuUsage();
+                    case 3: return info.getResidentSetSize();
+                    case 4: return Long.valueOf(info.getThreads());
+                    case 5: return info.getVoluntaryContextSwitches();
+                    case 6: return info.getInvoluntaryContextSwitches();
+                    case 7: return info.getReadBytes();
+                    case 8: return info.getWrittenBytes();
+                    default: return null;
+                }
+            }
+
+        }
+
+
+        private static class ValueRenderer extends DefaultTableCellRenderer {
+
+            private final NumberFormat percentFormat;
+            private final NumberFormat numberFormat;
+
+            ValueRenderer() {
+                setHorizontalAlignment(SwingConstants.TRAILING);
+                percentFormat = NumberFormat.getInstance();
+                percentFormat.setMinimumFractionDigits(1);
+                percentFormat.setMaximumFractionDigits(1);
+                numberFormat = NumberFormat.getInstance();
+            }
+
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                int modelColumn = table.convertColumnIndexToModel(column);
+                setText(format(value, modelColumn));
+                return this;
+            }
+
+            private String format(Object value, int column) {
+                if (!(value instanceof Number)) return ""; // NOI18N
+                Number number = (Number)value;
+                if (number.doubleValue() < 0) return "-"; // NOI18N
+                switch (column) {
+                    case 1: return number.toString();
+                    case 2: return percentFormat.format(number.doubleValue());
+                    case 3:
+                    case 7:
+                    case 8: return numberFormat.format(number.longValue() / 1024) + " KB"; // NOI18N
+                    default: return numberFormat.format(number.longValue());
+                }
+            }
+
+        }
+
+    }
+
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jmx.impl;
+
+import java.util.Arrays;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
+import org.graalvm.visualvm.tools.attach.HeapHistogramBuilder;
+
+/**
+ * Parser of the GC.class_histogram diagnostic command result. The text is scanned
+ * in place and JVM class names are looked up in a table which is kept between refreshes,
+ * so no substrings are created for known classes. The class table and the histogram
+ * itself are maintained by {@link HeapHistogramBuilder}.
+ */
+class HeapHistogramParser {
+
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_ENTRIES = 1;
+    private static final int STATE_DONE = 2;
+
+    private static final String TOTAL = "Total";   // NOI18N
+
+    private final HeapHistogramBuilder builder = new HeapHistogramBuilder();
+    private int state;
+    private long totalInstances;
+    private long totalBytes;
+
+    // Distinct JVM names, several names may map to the same class slot
+    private String[] entryNames = new String[1024];
+    private int[] entrySlots = new int[1024];
+    private int[] entryTable = new int[2048];   // entry + 1, 0 for empty
+    private int nEntries;
+
+    synchronized HeapHistogram parse(String text) {
+        state = STATE_HEADER;
+        totalInstances = 0;
+        totalBytes = 0;
+        builder.startHistogram();
+
+        int length = text.length();
+        int start = 0;
+        while (state != STATE_DONE && start < length) {
+            int end = text.indexOf('\n', start);    // NOI18N
+            if (end == -1) {
+                end = length;
+            }
+            processLine(text, start, end);
+            start = end + 1;
+        }
+        HeapHistogram histogram = builder.createHistogram(totalInstances, totalBytes);
+        int[] slotMap = builder.prune();
+        if (slotMap != null) {
+            remapEntries(slotMap);
+        }
+        return histogram;
+    }
+
+    private void processLine(String s, int pos, int end) {
+        pos = skipSpaces(s, pos, end);
+        if (state == STATE_HEADER) {
+            if (pos < end && s.charAt(pos) == '-') {   // NOI18N
+                state = STATE_ENTRIES;
+            }
+            return;
+        }
+        // entry line:   1:         12345        1234567  [B (java.base@11)
+        int p = skipDigits(s, pos, end);
+        if (p > pos && p < end && s.charAt(p) == ':') {    // NOI18N
+            p = skipSpaces(s, p + 1, end);
+            int q = skipDigits(s, p, end);
+            long inst = parseLong(s, p, q);
+            p = skipSpaces(s, q, end);
+            q = skipDigits(s, p, end);
+            long size = parseLong(s, p, q);
+            p = skipSpaces(s, q, end);
+            q = p;
+            while (q < end && !isSpace(s.charAt(q))) {
+                q++;
+            }
+            if (q > p) {
+                addEntry(s, p, q, inst, size);
+            }
+            return;
+        }
+        // Total         123456      12345678
+        if (s.startsWith(TOTAL, pos)) {
+            p = skipSpaces(s, pos + TOTAL.length(), end);
+            int q = skipDigits(s, p, end);
+            totalInstances = parseLong(s, p, q);
+            p = skipSpaces(s, q, end);
+            q = skipDigits(s, p, end);
+            totalBytes = parseLong(s, p, q);
+        }
+        state = STATE_DONE;
+    }
+
+    private void addEntry(String s, int start, int end, long inst, long size) {
+        int len = end - start;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + s.charAt(i);     // same as String.hashCode()
+        }
+        int mask = entryTable.length - 1;
+        int idx = hash & mask;
+        int entry;
+        while ((entry = entryTable[idx] - 1) != -1) {
+            String name = entryNames[entry];
+            if (name.hashCode() == hash && name.length() == len && s.regionMatches(start, name, 0, len)) {
+                break;
+            }
+            idx = (idx + 1) & mask;
+        }
+        if (entry == -1) {
+            entry = newEntry(s.substring(start, end));
+            entryTable[idx] = entry + 1;
+            if (nEntries * 2 > entryTable.length) {
+                rehash(entryTable.length * 2);
+            }
+        }
+        builder.addClass(entrySlots[entry], inst, size);
+    }
+
+    private int newEntry(String jvmName) {
+        int slot = builder.getSlot(jvmName);
+
+        if (nEntries == entryNames.length) {
+            int len = nEntries * 2;
+            entryNames = Arrays.copyOf(entryNames, len);
+            entrySlots = Arrays.copyOf(entrySlots, len);
+        }
+        entryNames[nEntries] = jvmName;
+        entrySlots[nEntries] = slot;
+        return nEntries++;
+    }
+
+    private void rehash(int length) {
+        int[] table = new int[length];
+        int mask = table.length - 1;
+        for (int entry = 0; entry < nEntries; entry++) {
+            int idx = entryNames[entry].hashCode() & mask;
+            while (table[idx] != 0) {
+                idx = (idx + 1) & mask;
+            }
+            table[idx] = entry + 1;
+        }
+        entryTable = table;
+    }
+
+    /**
+     * Drops JVM names of the classes dropped by the builder and remaps the rest.
+     */
+    private void remapEntries(int[] slotMap) {
+        int n = 0;
+        for (int entry = 0; entry < nEntries; entry++) {
+            int slot = slotMap[entrySlots[entry]];
+            if (slot != -1) {
+                entryNames[n] = entryNames[entry];
+                entrySlots[n] = slot;
+                n++;
+            }
+        }
+        Arrays.fill(entryNames, n, nEntries, null);
+        nEntries = n;
+        rehash(entryTable.length);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r';      // NOI18N
+    }
+
+    private static int skipSpaces(String s, int pos, int end) {
+        while (pos < end && isSpace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipDigits(String s, int pos, int end) {
+        while (pos < end && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {   // NOI18N
+            pos++;
+        }
+        return pos;
+    }
+
+    private static long parseLong(String s, int start, int end) {
+        long val = 0;
+        for (int i = start; i < end; i++) {
+            val = val * 10 + (s.charAt(i) - '0');  // NOI18N
+        }
+        return val;
+    }
+}
@@ -90,6 +90,8 @@ public class JmxSupport {
     
     private String commandLine;
     private final Object commandLineLock = new Object();
+    private HeapHistogramParser histogramParser;
+    private final Object histogramParserLock = new Object();
 
     JmxSupport(JmxModel jmx) {
         jmxModel = jmx;
@@ -380,11 +382,20 @@ public class JmxSupport {
         if (isReadOnlyConnection()) return null;
         String histo = executeJCmd(HISTOGRAM_COMMAND, Collections.singletonMap(ALL_OBJECTS_OPTION, null));
         if (histo != null) {
-            return new HeapHistogramImpl(histo);
+            return getHistogramParser().parse(histo);
         }
         return null;
     }
     
+    private HeapHistogramParser getHistogramParser() {
+        synchronized (histogramParserLock) {
+            if (histogramParser == null) {
+                histogramParser = new HeapHistogramParser();
+            }
+            return histogramParser;
+        }
+    }
+
     void setFlagValue(String name, String value) {
         try {
         HotSpotDiagnosticMXBean hsDiagnostic = getHotSpotDiagnostic();
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.jmx.impl;
+
+import java.util.Set;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
+import org.graalvm.visualvm.application.jvm.HeapHistogram.ClassInfo;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of parsing GC.class_histogram results by HeapHistogramParser.
+ */
+public class HeapHistogramParserTest {
+
+    private static final String HISTOGRAM =
+        "12345:\n" +                                                                        // NOI18N
+        " num     #instances         #bytes  class name (module)\n" +                      // NOI18N
+        "-------------------------------------------------------\n" +                      // NOI18N
+        "   1:          1000          50000  [B (java.base@17.0.2)\n" +                     // NOI18N
+        "   2:           500          12000  java.lang.String (java.base@17.0.2)\n" +       // NOI18N
+        "   3:            10            240  com.foo.Bar\n" +                               // NOI18N
+        "   4:             5            120  com.foo.Bar\n" +                               // NOI18N
+        "   5:             2             64  [Ljava.lang.Object; (java.base@17.0.2)\n" +    // NOI18N
+        "   6:             1             16  [[I (java.base@17.0.2)\n" +                    // NOI18N
+        "Total          1518          62440\n";                                             // NOI18N
+
+    private HeapHistogramParser parser;
+
+    @Before
+    public void setUp() {
+        parser = new HeapHistogramParser();
+    }
+
+    @Test
+    public void testModuleSuffixAndDuplicateNames() {
+        HeapHistogram histogram = parser.parse(HISTOGRAM);
+
+        assertEquals(1518, histogram.getTotalInstances());
+        assertEquals(62440, histogram.getTotalBytes());
+        assertEquals(1518, histogram.getTotalHeapInstances());
+        assertEquals(62440, histogram.getTotalHeapBytes());
+        assertEquals(5, histogram.getHeapHistogram().size());
+        assertTrue(histogram.getPermGenHistogram().isEmpty());
+        assertClass(histogram.getHeapHistogram(), "byte[]", 1000, 50000);                  // NOI18N
+        assertClass(histogram.getHeapHistogram(), "java.lang.String", 500, 12000);         // NOI18N
+        assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);                 // NOI18N
+        assertClass(histogram.getHeapHistogram(), "java.lang.Object[]", 2, 64);            // NOI18N
+        assertClass(histogram.getHeapHistogram(), "int[][]", 1, 16);                       // NOI18N
+    }
+
+    @Test
+    public void testWindowsLineEnds() {
+        HeapHistogram histogram = parser.parse(HISTOGRAM.replace("\n", "\r\n"));    // NOI18N
+
+        assertEquals(1518, histogram.getTotalInstances());
+        assertEquals(62440, histogram.getTotalBytes());
+        assertEquals(5, histogram.getHeapHistogram().size());
+        assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);                 // NOI18N
+    }
+
+    @Test
+    public void testMissingTotal() {
+        HeapHistogram histogram = parser.parse(HISTOGRAM.substring(0, HISTOGRAM.indexOf("Total")));   // NOI18N
+
+        assertEquals(0, histogram.getTotalInstances());
+        assertEquals(1518, histogram.getTotalHeapInstances());
+        assertEquals(5, histogram.getHeapHistogram().size());
+    }
+
+    @Test
+    public void testReuse() {
+        ClassInfo string1 = find(parser.parse(HISTOGRAM).getHeapHistogram(), "java.lang.String");   // NOI18N
+        HeapHistogram histogram = parser.parse(HISTOGRAM.replace("  500          12000", "  501          12024"));  // NOI18N
+        ClassInfo string2 = find(histogram.getHeapHistogram(), "java.lang.String");          // NOI18N
+        ClassInfo bytes2 = find(histogram.getHeapHistogram(), "byte[]");                    // NOI18N
+        HeapHistogram histogram3 = parser.parse(HISTOGRAM);
+
+        assertNotSame(string1, string2);
+        assertEquals(501, string2.getInstancesCount());
+        assertSame(bytes2, find(histogram3.getHeapHistogram(), "byte[]"));                  // NOI18N
+        assertEquals(500, find(histogram3.getHeapHistogram(), "java.lang.String").getInstancesCount());  // NOI18N
+    }
+
+    @Test
+    public void testUnloadedClasses() {
+        // many classes loaded once, then unloaded
+        StringBuilder sb = new StringBuilder(HISTOGRAM.substring(0, HISTOGRAM.indexOf("Total")));    // NOI18N
+        for (int i = 0; i < 5000; i++) {
+            sb.append("   ").append(i + 7).append(":             1             16  com.foo.Generated").append(i).append('\n');    // NOI18N
+        }
+        sb.append("Total          6518          142440\n");   // NOI18N
+        HeapHistogram histogram = parser.parse(sb.toString());
+        assertEquals(5005, histogram.getHeapHistogram().size());
+        ClassInfo generated = find(histogram.getHeapHistogram(), "com.foo.Generated42");    // NOI18N
+
+        for (int i = 0; i < 40; i++) {
+            histogram = parser.parse(HISTOGRAM);
+            assertEquals(5, histogram.getHeapHistogram().size());
+            assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);             // NOI18N
+        }
+
+        // the class is reported correctly once seen again, with a new ClassInfo as it was dropped
+        histogram = parser.parse(sb.toString());
+        assertEquals(5005, histogram.getHeapHistogram().size());
+        assertClass(histogram.getHeapHistogram(), "com.foo.Generated42", 1, 16);            // NOI18N
+        assertClass(histogram.getHeapHistogram(), "com.foo.Bar", 15, 360);                 // NOI18N
+        assertNotSame(generated, find(histogram.getHeapHistogram(), "com.foo.Generated42"));  // NOI18N
+    }
+
+    private static ClassInfo find(Set<ClassInfo> infos, String name) {
+        ClassInfo found = null;
+        for (ClassInfo info : infos) {
+            if (info.getName().equals(name)) {
+                assertNull("Duplicate class " + name, found);    // NOI18N
+                found = info;
+            }
+        }
+        assertNotNull("Missing class " + name, found);   // NOI18N
+        return found;
+    }
+
+    private static void assertClass(Set<ClassInfo> infos, String name, long instances, long bytes) {
+        ClassInfo info = find(infos, name);
+        assertEquals(name, instances, info.getInstancesCount());
+        assertEquals(name, bytes, info.getBytes());
+    }
+}
@@ -34,8 +34,7 @@ import java.lang.management.RuntimeMXBean;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Collection;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
@@ -47,6 +46,10 @@ import org.graalvm.visualvm.application.jvm.MonitoredData;
 import org.graalvm.visualvm.core.datasupport.DataRemovedListener;
 import org.graalvm.visualvm.core.datasupport.Stateful;
 import org.graalvm.visualvm.core.options.GlobalPreferences;
+import org.graalvm.visualvm.core.scheduler.Quantum;
+import org.graalvm.visualvm.core.scheduler.ScheduledTask;
+import org.graalvm.visualvm.core.scheduler.Scheduler;
+import org.graalvm.visualvm.core.scheduler.SchedulerTask;
 import org.graalvm.visualvm.tools.jmx.JmxModel;
 import org.graalvm.visualvm.tools.jmx.JmxModel.ConnectionState;
 import org.graalvm.visualvm.tools.jmx.JmxModelFactory;
@@ -80,7 +83,6 @@ class JmxSupport implements DataRemovedListener<Application> {
     private static final String METASPACE = "Metaspace";       // NOI18N
     private static final String IBM_PERM_GEN = "class storage";    // NOI18N
     private static final ObjectName osName = getOSName();
-    private static long INITIAL_DELAY = 100;
 
     private Application application;
     private JvmMXBeans mxbeans;
@@ -88,7 +90,7 @@ class JmxSupport implements DataRemovedListener<Application> {
     private final Object processCPUTimeAttributeLock = new Object();
     private Boolean processCPUTimeAttribute;
     private double processingCapacity;
-    private Timer timer;
+    private ScheduledTask timer;
     private MemoryPoolMXBean permGenPool;
     private Collection<GarbageCollectorMXBean> gcList;
     private String[] genName;
@@ -278,25 +280,33 @@ class JmxSupport implements DataRemovedListener<Application> {
         int interval = GlobalPreferences.sharedInstance().getMonitoredDataPoll() * 1000;
         final JvmMXBeans jmx = getJvmMXBeans();
         if (jmx != null) {
-            TimerTask task = new TimerTask() {
-                public void run() {
+            SchedulerTask task = new SchedulerTask() {
+                public void onSchedule(long timeStamp) {
                     if (application.getState() == Stateful.STATE_AVAILABLE) try {
                         MonitoredData data = new MonitoredDataImpl(jvm, JmxSupport.this, jmx);
                         jvm.notifyListeners(data);
                     } catch (UndeclaredThrowableException e) {
                         LOGGER.throwing(JmxSupport.class.getName(), "MonitoredDataImpl<init>", e); // NOI18N
+                        throw e; // let the scheduler back off
                     }
                 }
             };
             disableTimer();
-            timer = new Timer("JMX MonitoredData timer for "+application.getId());       // NOI18N
-            timer.schedule(task,INITIAL_DELAY,interval);
+            // polls of the same connection are coalesced by the scheduler
+            timer = Scheduler.sharedInstance().schedule(task, new Quantum(TimeUnit.MILLISECONDS, interval),
+                                                        getPollTarget(), "JMX " + application.getId(), false); // NOI18N
         }
     }
 
+    private Object getPollTarget() {
+        JmxModel jmxModel = JmxModelFactory.getJmxModelFor(application);
+        MBeanServerConnection conn = jmxModel == null ? null : jmxModel.getMBeanServerConnection();
+        return conn != null ? conn : this;
+    }
+
     void disableTimer() {
         if (timer != null) {
-            timer.cancel();
+            Scheduler.sharedInstance().unschedule(timer);
         }
     }
 
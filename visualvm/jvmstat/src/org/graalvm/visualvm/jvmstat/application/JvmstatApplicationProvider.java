@@ -34,8 +34,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
@@ -75,9 +77,23 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
     private static final RequestProcessor PROCESSOR =
             new RequestProcessor("JvmstatApplicationProvider Processor", 10); // NOI18N
     
+    // Resolves Jvm of newly discovered applications, opening perfdata of many JVMs in parallel
+    private static final int RESOLVER_THREADS = Integer.getInteger("org.graalvm.visualvm.jvmstat.resolverThreads", // NOI18N
+            Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())));
+    private static final RequestProcessor RESOLVER =
+            new RequestProcessor("JvmstatApplicationProvider Jvm Resolver", RESOLVER_THREADS); // NOI18N
+    
+    // Delay for coalescing resolved applications into a single repository update
+    private static final int ADD_BATCH_DELAY = 100;
+    
     private static JvmstatApplicationProvider instance;
     
-    private final Map<String, JvmstatApplication> applications = new HashMap<>();
+    private final Map<String, JvmstatApplication> applications = new ConcurrentHashMap<>();
+    // Guards addingApplications, the repository is updated outside of it
+    private final Object applicationsLock = new Object();
+    // Resolved applications being added to the host repository, mapped to TRUE if they
+    // terminated in the meantime and JvmResolver has to remove them once added
+    private final Map<JvmstatApplication, Boolean> addingApplications = new HashMap<>();
     private final Map<Host,Map<HostIdentifier,JvmstatConnection>> hostsListeners = new HashMap<>();
     
     static synchronized JvmstatApplicationProvider sharedInstance() {
@@ -185,7 +201,7 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
     }
     
     private void processNewApplicationsByPids(Host host, HostIdentifier hostId, Set<Integer> applicationPids) {
-        Set<JvmstatApplication> newApplications = new HashSet<>();
+        List<JvmstatApplication> newApplications = new ArrayList<>();
         
         for (int applicationPid : applicationPids) {
             // Do not provide instance for Application.CURRENT_APPLICATION
@@ -196,8 +212,6 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
             String appId = createId(host, applicationPid);
             JvmstatApplication application = new JvmstatApplication(host, hostId, appId, applicationPid);
             if (!applications.containsKey(appId)) {
-                // precompute JVM
-                application.jvm = JvmFactory.getJVMFor(application);
                 applications.put(appId, application);
                 newApplications.add(application);
             } else {
@@ -209,24 +223,37 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
             }
         }
         
-        host.getRepository().addDataSources(newApplications);
+        if (newApplications.size() == 1) {
+            // precompute JVM
+            JvmstatApplication application = newApplications.get(0);
+            application.jvm = JvmFactory.getJVMFor(application);
+            host.getRepository().addDataSource(application);
+        } else if (!newApplications.isEmpty()) {
+            new JvmResolver(host, newApplications).start();
+        }
     }
     
     private void processTerminatedApplicationsByPids(Host host, Set<Integer> applicationPids) {
         Set<JvmstatApplication> finishedApplications = new HashSet<>();
         
-        for (int applicationPid : applicationPids) {
-            String appId = createId(host, applicationPid);
-            if (applications.containsKey(appId)) {
-                JvmstatApplication application = applications.get(appId);
-                if (application != null) {
-                    application.setStateImpl(Stateful.STATE_UNAVAILABLE);
-                    if (!application.handleControlledRemove()) finishedApplications.add(application);
+        synchronized (applicationsLock) {
+            for (int applicationPid : applicationPids) {
+                String appId = createId(host, applicationPid);
+                if (applications.containsKey(appId)) {
+                    JvmstatApplication application = applications.get(appId);
+                    if (application != null) {
+                        application.setStateImpl(Stateful.STATE_UNAVAILABLE);
+                        if (!application.handleControlledRemove()) {
+                            // the removal must follow the addition, JvmResolver will remove it
+                            if (addingApplications.containsKey(application)) addingApplications.put(application, Boolean.TRUE);
+                            else finishedApplications.add(application);
+                        }
+                    }
+                    applications.remove(appId);
                 }
-                applications.remove(appId);
             }
         }
-        
+
         host.getRepository().removeDataSources(finishedApplications);
     }
     
@@ -296,6 +323,10 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
         applications.remove(jvmstatApplication.getId());
     }
     
+    private boolean isRegistered(JvmstatApplication jvmstatApplication) {
+        return applications.get(jvmstatApplication.getId()) == jvmstatApplication;
+    }
+    
     // TODO: reimplement to listen for Host.getState() == STATE_UNAVAILABLE
     //    private void processAllTerminatedApplications(Host host) {
     //        Set<JvmstatApplication> applicationsSet = host.getRepository().getDataSources(JvmstatApplication.class);
@@ -478,4 +509,77 @@ public class JvmstatApplicationProvider implements DataChangeListener<Host> {
         }
     }
     
+    
+    // Precomputes JVMs of new applications in parallel and adds the applications
+    // to the host in batches as soon as their JVMs are available
+    private class JvmResolver {
+        
+        private final Host host;
+        private final List<JvmstatApplication> applicationsToResolve;
+        private final Set<JvmstatApplication> resolvedApplications = new HashSet<>();
+        private final RequestProcessor.Task addTask;
+        private boolean addScheduled;
+        
+        JvmResolver(Host host, List<JvmstatApplication> applicationsToResolve) {
+            this.host = host;
+            this.applicationsToResolve = applicationsToResolve;
+            addTask = PROCESSOR.create(new Runnable() {
+                public void run() { addResolved(); }
+            });
+        }
+        
+        void start() {
+            for (final JvmstatApplication application : applicationsToResolve) {
+                RESOLVER.post(new Runnable() {
+                    public void run() { resolve(application); }
+                });
+            }
+        }
+        
+        private void resolve(JvmstatApplication application) {
+            try {
+                if (isRegistered(application)) application.jvm = JvmFactory.getJVMFor(application);
+            } catch (Exception e) {
+                LOGGER.log(Level.INFO, "Failed to resolve JVM for " + application.getId(), e); // NOI18N
+            }
+            
+            boolean schedule;
+            synchronized (this) {
+                resolvedApplications.add(application);
+                schedule = !addScheduled;
+                addScheduled = true;
+            }
+            if (schedule) addTask.schedule(ADD_BATCH_DELAY);
+        }
+        
+        private void addResolved() {
+            Set<JvmstatApplication> resolved;
+            synchronized (this) {
+                resolved = new HashSet<>(resolvedApplications);
+                resolvedApplications.clear();
+                addScheduled = false;
+            }
+            Set<JvmstatApplication> toAdd = new HashSet<>();
+            synchronized (applicationsLock) {
+                for (JvmstatApplication application : resolved)
+                    // the application may have terminated in the meantime
+                    if (isRegistered(application)) {
+                        toAdd.add(application);
+                        addingApplications.put(application, Boolean.FALSE);
+                    }
+            }
+            if (toAdd.isEmpty()) return;
+            
+            host.getRepository().addDataSources(toAdd);
+            
+            Set<JvmstatApplication> terminated = new HashSet<>();
+            synchronized (applicationsLock) {
+                for (JvmstatApplication application : toAdd)
+                    if (Boolean.TRUE.equals(addingApplications.remove(application))) terminated.add(application);
+            }
+            if (!terminated.isEmpty()) host.getRepository().removeDataSources(terminated);
+        }
+        
+    }
+    
 }
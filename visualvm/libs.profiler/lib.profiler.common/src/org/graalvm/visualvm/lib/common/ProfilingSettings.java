@@ -79,6 +79,8 @@ public class ProfilingSettings {
     public static final String PROP_THREADS_MONITORING_ENABLED = "profiler.settings.threads.monitoring.enabled"; //NOI18N
     public static final String PROP_LOCKCONTENTION_MONITORING_ENABLED = "profiler.settings.lockcontention.monitoring.enabled"; //NOI18N
     public static final String PROP_THREADS_SAMPLING_ENABLED = "profiler.settings.threads.sampling.enabled"; //NOI18N
+    public static final String PROP_GROUP_VIRTUAL_THREADS = "profiler.settings.group.virtual.threads"; //NOI18N
+    public static final String PROP_AGGREGATE_SQL = "profiler.settings.jdbc.aggregate.sql"; //NOI18N
     public static final String PROP_CPU_PROFILING_TYPE = "profiler.settings.cpu.profiling.type"; //NOI18N
     public static final String PROP_EXCLUDE_WAIT_TIME = "profiler.settings.cpu.exclude.wait.time"; // NOI18N
     public static final String PROP_INSTR_SCHEME = "profiler.settings.instr.scheme"; //NOI18N
@@ -142,6 +144,8 @@ public class ProfilingSettings {
     private boolean threadsMonitoringEnabled = false;
     private boolean lockContentionMonitoringEnabled = false;
     private boolean threadsSamplingEnabled = true;
+    private boolean groupVirtualThreads = false;
+    private boolean aggregateSQL = false;
 
     // General CPU Profiling settings
     private boolean useProfilingPoints = true;
@@ -516,6 +520,22 @@ public class ProfilingSettings {
         return threadsSamplingEnabled;
     }
 
+    public void setGroupVirtualThreads(final boolean group) {
+        groupVirtualThreads = group;
+    }
+
+    public boolean getGroupVirtualThreads() {
+        return groupVirtualThreads;
+    }
+
+    public void setAggregateSQL(final boolean aggregate) {
+        aggregateSQL = aggregate;
+    }
+
+    public boolean getAggregateSQL() {
+        return aggregateSQL;
+    }
+
     public void setUseProfilingPoints(boolean enabled) {
         useProfilingPoints = enabled;
     }
@@ -568,6 +588,8 @@ public class ProfilingSettings {
         settings.setThreadsMonitoringEnabled(getThreadsMonitoringEnabled());
         settings.setLockContentionMonitoringEnabled(getLockContentionMonitoringEnabled());
         settings.setThreadsSamplingEnabled(getThreadsSamplingEnabled());
+        settings.setGroupVirtualThreads(getGroupVirtualThreads());
+        settings.setAggregateSQL(getAggregateSQL());
 
         if (getNProfiledThreadsLimit() > 0) {
             settings.setNProfiledThreadsLimit(getNProfiledThreadsLimit());
@@ -621,6 +643,8 @@ public class ProfilingSettings {
         settings.setThreadsMonitoringEnabled(getThreadsMonitoringEnabled());
         settings.setLockContentionMonitoringEnabled(getLockContentionMonitoringEnabled());
         settings.setThreadsSamplingEnabled(getThreadsSamplingEnabled());
+        settings.setGroupVirtualThreads(getGroupVirtualThreads());
+        settings.setAggregateSQL(getAggregateSQL());
         settings.setUseProfilingPoints(useProfilingPoints());
 
         settings.setExcludeWaitTime(getExcludeWaitTime());
@@ -673,6 +697,10 @@ public class ProfilingSettings {
         sb.append('\n'); //NOI18N
         sb.append("threadsSamplingEnabled: ").append(getThreadsSamplingEnabled()); //NOI18N
         sb.append('\n'); //NOI18N
+        sb.append("groupVirtualThreads: ").append(getGroupVirtualThreads()); //NOI18N
+        sb.append('\n'); //NOI18N
+        sb.append("aggregateSQL: ").append(getAggregateSQL()); //NOI18N
+        sb.append('\n'); //NOI18N
         sb.append("useProfilingPoints: ").append(useProfilingPoints()); // NOI18N
         sb.append('\n'); //NOI18N
         sb.append("excludeWaitTime: ").append(getExcludeWaitTime()); //NOI18N
@@ -746,6 +774,12 @@ public class ProfilingSettings {
         setThreadsSamplingEnabled(Boolean.valueOf(getProperty(props, prefix + PROP_THREADS_SAMPLING_ENABLED, "true")) //NOI18N
                                            .booleanValue());
 
+        setGroupVirtualThreads(Boolean.valueOf(getProperty(props, prefix + PROP_GROUP_VIRTUAL_THREADS, "false")) //NOI18N
+                                           .booleanValue());
+
+        setAggregateSQL(Boolean.valueOf(getProperty(props, prefix + PROP_AGGREGATE_SQL, "false")) //NOI18N
+                                           .booleanValue());
+
         // CPU and Code Fragment common
         // default for exclude wait time is false, to reflect the setting stored in snapshots before the wait time
         // exclusion was introduced
@@ -869,6 +903,8 @@ public class ProfilingSettings {
         props.put(prefix + PROP_THREADS_MONITORING_ENABLED, Boolean.toString(getThreadsMonitoringEnabled()));
         props.put(prefix + PROP_LOCKCONTENTION_MONITORING_ENABLED, Boolean.toString(getLockContentionMonitoringEnabled()));
         props.put(prefix + PROP_THREADS_SAMPLING_ENABLED, Boolean.toString(getThreadsSamplingEnabled()));
+        props.put(prefix + PROP_GROUP_VIRTUAL_THREADS, Boolean.toString(getGroupVirtualThreads()));
+        props.put(prefix + PROP_AGGREGATE_SQL, Boolean.toString(getAggregateSQL()));
 
         // CPU and Code Fragment common
         props.put(prefix + PROP_EXCLUDE_WAIT_TIME, Boolean.toString(getExcludeWaitTime()));
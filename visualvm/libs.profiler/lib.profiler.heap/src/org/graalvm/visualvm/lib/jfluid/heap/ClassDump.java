@@ -63,6 +63,7 @@ class ClassDump extends HprofObject implements JavaClass {
     private int instances;
     private int instanceSize;
     private long firstInstanceOffset;
+    private long[] instancesIndexChunks; // see InstancesIndex
     private long loadClassOffset;
     private long retainedSizeByClass;
 
@@ -164,6 +165,18 @@ class ClassDump extends HprofObject implements JavaClass {
         HprofByteBuffer dumpBuffer = getHprofBuffer();
         int idSize = dumpBuffer.getIDSize();
         List<Instance> instancesList = new ArrayList<>(instancesCount);
+        LongIterator indexedOffsets = getIndexedOffsets(instancesCount);
+
+        if (indexedOffsets != null) {
+            while (indexedOffsets.hasNext()) {
+                Instance instance = heap.getInstanceByOffset(new long[] { indexedOffsets.next() }, this, classId);
+
+                if (instance != null) {
+                    instancesList.add(instance);
+                }
+            }
+            return instancesList;
+        }
         TagBounds allInstanceDumpBounds = heap.getAllInstanceDumpBounds();
         long[] offset = new long[] { firstInstanceOffset };
 
@@ -218,6 +231,10 @@ class ClassDump extends HprofObject implements JavaClass {
         if (instancesCount == 0) {
             return Collections.emptyIterator();
         }
+        LongIterator indexedOffsets = getIndexedOffsets(instancesCount);
+        if (indexedOffsets != null) {
+            return new IndexedInstancesIterator(indexedOffsets);
+        }
         return new InstancesIterator(instancesCount);
     }
 
@@ -493,6 +510,19 @@ class ClassDump extends HprofObject implements JavaClass {
         }
     }
 
+    void setInstancesIndex(long[] chunks) {
+        instancesIndexChunks = chunks;
+    }
+
+    private LongIterator getIndexedOffsets(int instancesCount) {
+        InstancesIndex index = getHprof().instancesIndex;
+
+        if (index != null && instancesIndexChunks != null) {
+            return index.getOffsetsIterator(instancesIndexChunks, instancesCount);
+        }
+        return null;
+    }
+
     void addSizeForInstance(Instance i) {
         retainedSizeByClass+=i.getRetainedSize();
     }
@@ -566,11 +596,44 @@ class ClassDump extends HprofObject implements JavaClass {
         } 
     }
 
+    private class IndexedInstancesIterator implements Iterator<Instance> {
+
+        private final LongIterator offsets;
+        private final HprofHeap heap;
+        private final long classId;
+
+        private IndexedInstancesIterator(LongIterator it) {
+            offsets = it;
+            heap = getHprof();
+            classId = getJavaClassId();
+        }
+
+        public boolean hasNext() {
+            return offsets.hasNext();
+        }
+
+        public Instance next() {
+            Instance i = heap.getInstanceByOffset(new long[] { offsets.next() }, ClassDump.this, classId);
+            if (i == null) {
+                throw new NoSuchElementException();
+            }
+            return i;
+        }
+    }
+
     //---- Serialization support
     void writeToStream(DataOutputStream out) throws IOException {
         out.writeLong(fileOffset);
         out.writeInt(instances);
         out.writeLong(firstInstanceOffset);
+        if (instancesIndexChunks == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(instancesIndexChunks.length);
+            for (long chunk : instancesIndexChunks) {
+                out.writeLong(chunk);
+            }
+        }
         out.writeLong(loadClassOffset);
         out.writeLong(retainedSizeByClass);        
     }
@@ -579,6 +642,13 @@ class ClassDump extends HprofObject implements JavaClass {
         this(segment, offset);
         instances = dis.readInt();
         firstInstanceOffset = dis.readLong();
+        int chunks = dis.readInt();
+        if (chunks >= 0) {
+            instancesIndexChunks = new long[chunks];
+            for (int i = 0; i < chunks; i++) {
+                instancesIndexChunks[i] = dis.readLong();
+            }
+        }
         loadClassOffset = dis.readLong();
         retainedSizeByClass = dis.readLong();        
     }
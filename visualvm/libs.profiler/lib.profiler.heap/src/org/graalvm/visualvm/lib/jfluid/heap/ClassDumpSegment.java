@@ -155,7 +155,7 @@ class ClassDumpSegment extends TagBounds {
     }
 
     ClassDump getPrimitiveArrayClass(byte type) {
-        ClassDump primitiveArray = (ClassDump) primitiveArrayMap.get(Integer.valueOf(type));
+        ClassDump primitiveArray = findPrimitiveArrayClass(type);
 
         if (primitiveArray == null) {
             throw new IllegalArgumentException("Invalid type " + type); // NOI18N
@@ -164,6 +164,10 @@ class ClassDumpSegment extends TagBounds {
         return primitiveArray;
     }
 
+    ClassDump findPrimitiveArrayClass(byte type) {
+        return (ClassDump) primitiveArrayMap.get(Integer.valueOf(type));
+    }
+
     Map<Long,JavaClass> getClassIdToClassMap() {
         List<JavaClass> allClasses = createClassCollection();
         Map<Long,JavaClass> map = new HashMap<>(allClasses.size()*4/3);
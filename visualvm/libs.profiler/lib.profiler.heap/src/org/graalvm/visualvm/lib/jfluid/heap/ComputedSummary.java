@@ -48,13 +48,23 @@ class ComputedSummary implements HeapSummary {
         }
         bytes = bytesCount;
         instances = instancesCount;
-        long headerTime = heap.dumpBuffer.getTime();
-        long tagTime = heap.getHeapTime() / 1000;
-        time = headerTime + tagTime;
+        time = computeTime(heap);
+    }
+
+    ComputedSummary(HprofHeap heap, long bytesCount, long instancesCount) {
+        bytes = bytesCount;
+        instances = instancesCount;
+        time = computeTime(heap);
     }
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
+    private static long computeTime(HprofHeap heap) {
+        long headerTime = heap.dumpBuffer.getTime();
+        long tagTime = heap.getHeapTime() / 1000;
+        return headerTime + tagTime;
+    }
+
     public long getTime() {
         return time;
     }
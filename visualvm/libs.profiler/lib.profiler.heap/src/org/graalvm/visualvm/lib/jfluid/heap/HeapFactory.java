@@ -71,23 +71,55 @@ public class HeapFactory {
     public static Heap createHeap(File heapDump, int segment)
                            throws FileNotFoundException, IOException {
         CacheDirectory cacheDir = CacheDirectory.getHeapDumpCacheDirectory(heapDump, segment);
-        if (!cacheDir.isTemporary()) {
-            File savedDump = cacheDir.getHeapDumpAuxFile();
-
-            if (savedDump.exists() && savedDump.isFile() && savedDump.canRead()) {
-                try {
-                    return loadHeap(cacheDir);
-                } catch (IOException ex) {
-                    System.err.println("Loading heap dump "+heapDump+" from cache failed.");
-                    ex.printStackTrace(System.err);
-                    cacheDir.deleteAllCachedFiles();
-                }
-            }
+        Heap cachedHeap = loadCachedHeap(heapDump, cacheDir);
+        if (cachedHeap != null) {
+            return cachedHeap;
         }
         return new HprofHeap(heapDump, segment, cacheDir);
 
     }
     
+    /**
+     * this factory method creates {@link HeapQuickSummary} from a memory dump file in Hprof format.
+     * Quick summary is computed without the instance index, the full {@link Heap}
+     * is available via {@link HeapQuickSummary#getHeap()}.
+     * <br>
+     * Speed: normal
+     * @param heapDump file which contains memory dump
+     * @return implementation of {@link HeapQuickSummary} corresponding to the memory dump
+     * passed in heapDump parameter
+     * @throws java.io.FileNotFoundException if heapDump file does not exist
+     * @throws java.io.IOException if I/O error occurred while accessing heapDump file
+     */
+    public static HeapQuickSummary createQuickSummary(File heapDump) throws FileNotFoundException, IOException {
+        return createQuickSummary(heapDump, 0);
+    }
+
+    /**
+     * this factory method creates {@link HeapQuickSummary} from a memory dump file in Hprof format.
+     * If the memory dump file contains more than one dump, parameter segment is used to
+     * select particular dump.
+     * <br>
+     * Speed: normal
+     * @return implementation of {@link HeapQuickSummary} corresponding to the memory dump
+     * passed in heapDump parameter
+     * @param segment select corresponding dump from multi-dump file
+     * @param heapDump file which contains memory dump
+     * @throws java.io.FileNotFoundException if heapDump file does not exist
+     * @throws java.io.IOException if I/O error occurred while accessing heapDump file
+     */
+    public static HeapQuickSummary createQuickSummary(File heapDump, int segment)
+                           throws FileNotFoundException, IOException {
+        CacheDirectory cacheDir = CacheDirectory.getHeapDumpCacheDirectory(heapDump, segment);
+        Heap cachedHeap = loadCachedHeap(heapDump, cacheDir);
+        if (cachedHeap != null) {
+            // tag bounds are restored from the cache, instance dumps are walked by the summary
+            return new HprofQuickSummary((HprofHeap) cachedHeap);
+        }
+        HprofHeap heap = new HprofHeap(heapDump, segment, cacheDir, true);
+        return new HprofQuickSummary(heap, heap.takeRecordCounter());
+    }
+
     /**
      * this method is used to get a total number of heap dumps (segments) in
      * multi-dump file.
@@ -105,6 +137,23 @@ public class HeapFactory {
         return 1;
     }
 
+    private static Heap loadCachedHeap(File heapDump, CacheDirectory cacheDir) {
+        if (!cacheDir.isTemporary()) {
+            File savedDump = cacheDir.getHeapDumpAuxFile();
+
+            if (savedDump.exists() && savedDump.isFile() && savedDump.canRead()) {
+                try {
+                    return loadHeap(cacheDir);
+                } catch (IOException ex) {
+                    System.err.println("Loading heap dump "+heapDump+" from cache failed.");
+                    ex.printStackTrace(System.err);
+                    cacheDir.deleteAllCachedFiles();
+                }
+            }
+        }
+        return null;
+    }
+
     static Heap loadHeap(CacheDirectory cacheDir)
                            throws FileNotFoundException, IOException {
         File savedDump = cacheDir.getHeapDumpAuxFile();
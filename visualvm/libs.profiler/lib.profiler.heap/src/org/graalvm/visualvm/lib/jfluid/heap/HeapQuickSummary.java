@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * This is quick summary of the heap dump intended for the first look at huge heap dumps.
+ * It is computed by one sequential pass over the heap dump without building
+ * the instance index, so the classes histogram, the biggest arrays, the GC roots
+ * and the thread stacks are available much sooner than from {@link Heap}.
+ * The underlying {@link Heap} can be obtained via {@link #getHeap()}, it computes
+ * the rest of the data lazily when it is needed.
+ */
+public interface HeapQuickSummary {
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * returns {@link HeapSummary} for the heap dump. The live bytes and live instances
+     * are taken from the quick summary pass, if they are not available in the heap dump.
+     * <br>
+     * Speed: fast
+     * @return {@link HeapSummary} of the heap dump
+     */
+    HeapSummary getSummary();
+
+    /**
+     * returns List of all {@link JavaClass} instances in the heap dump.
+     * Use {@link #getInstancesCount(JavaClass)} and {@link #getAllInstancesSize(JavaClass)}
+     * instead of corresponding methods of {@link JavaClass} to avoid computation
+     * of the instance index.
+     * <br>
+     * Speed: fast
+     * @return list of all {@link JavaClass} in the heap dump.
+     */
+    List<JavaClass> getAllClasses();
+
+    /**
+     * returns number of instances of the {@link JavaClass} computed by the quick summary pass.
+     * <br>
+     * Speed: fast
+     * @param jcls {@link JavaClass} from {@link #getAllClasses()}
+     * @return number of instances of jcls
+     */
+    int getInstancesCount(JavaClass jcls);
+
+    /**
+     * returns the size of all instances of the {@link JavaClass} in bytes
+     * computed by the quick summary pass.
+     * <br>
+     * Speed: fast
+     * @param jcls {@link JavaClass} from {@link #getAllClasses()}
+     * @return shallow size of all instances of jcls
+     */
+    long getAllInstancesSize(JavaClass jcls);
+
+    /**
+     * returns List of the biggest arrays in the heap dump ordered by their size.
+     * At most 100 arrays are returned.
+     * <br>
+     * Speed: fast
+     * @return list of the biggest object and primitive arrays
+     */
+    List<Instance> getBiggestArrays();
+
+    /**
+     * returns number of GC roots of each kind ({@link GCRoot#JNI_GLOBAL}, etc.).
+     * <br>
+     * Speed: fast
+     * @return Map &lt;GC root kind, number of GC roots&gt;
+     */
+    Map<String,Integer> getGCRootsCount();
+
+    /**
+     * returns thread GC roots, {@link ThreadObjectGCRoot#getStackTrace()} can be used
+     * to get stack traces of the threads.
+     * <br>
+     * Speed: fast
+     * @return list of {@link ThreadObjectGCRoot}
+     */
+    List<ThreadObjectGCRoot> getThreadGCRoots();
+
+    /**
+     * returns {@link Heap}, which was used to compute this quick summary.
+     * The instance index and other data are computed when they are needed
+     * by the methods of {@link Heap}.
+     * <br>
+     * Speed: fast
+     * @return {@link Heap} of the heap dump
+     */
+    Heap getHeap();
+}
@@ -40,6 +40,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  *
@@ -103,13 +105,15 @@ class HprofHeap implements Heap {
     private static final boolean DEBUG = false;
 
     private static final String SNAPSHOT_ID = "NBPHD";
-    private static final int SNAPSHOT_VERSION  = 4;
+    private static final int SNAPSHOT_VERSION  = 5;
     private static final String OS_PROP = "os.name";
+    private static final Logger LOG = Logger.getLogger(HprofHeap.class.getName());
     
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     HprofByteBuffer dumpBuffer;
     LongMap idToOffsetMap;
+    InstancesIndex instancesIndex;
     private NearestGCRoot nearestGCRoot;
     final HprofGCRoots gcRoots;
     private ComputedSummary computedSummary;
@@ -119,6 +123,7 @@ class HprofHeap implements Heap {
     private TagBounds heapDumpSegment;
     private TagBounds[] heapTagBounds;
     private TagBounds[] tagBounds = new TagBounds[0xff];
+    private HprofQuickSummary.RecordCounter recordCounter;
     private boolean instancesCountComputed;
     private final Object instancesCountLock = new Object();
     private boolean referencesComputed;
@@ -137,6 +142,14 @@ class HprofHeap implements Heap {
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     HprofHeap(File dumpFile, int seg, CacheDirectory cacheDir) throws FileNotFoundException, IOException {
+        this(dumpFile, seg, cacheDir, false);
+    }
+
+    /**
+     * @param countRecords if true, instance dumps are counted by the tag bounds scan for {@link HprofQuickSummary},
+     * see {@link #takeRecordCounter()}
+     */
+    HprofHeap(File dumpFile, int seg, CacheDirectory cacheDir, boolean countRecords) throws FileNotFoundException, IOException {
         cacheDirectory = cacheDir;
         dumpBuffer = cacheDir.createHprofByteBuffer(dumpFile);
         segment = seg;
@@ -144,6 +157,9 @@ class HprofHeap implements Heap {
         heapDumpSegment = computeHeapDumpStart();
 
         if (heapDumpSegment != null) {
+            if (countRecords) {
+                recordCounter = new HprofQuickSummary.RecordCounter(this);
+            }
             fillHeapTagBounds();
         }
 
@@ -286,6 +302,21 @@ class HprofHeap implements Heap {
         return computedSummary;
     }
 
+    /**
+     * Returns summary, instances count and size are supplied by the caller
+     * if they are not available in the heap dump, see HprofQuickSummary.
+     */
+    synchronized HeapSummary getSummary(long liveBytes, long liveInstances) {
+        if (tagBounds[HEAP_SUMMARY] == null) {
+            synchronized (computedSummaryLock) {
+                if (computedSummary == null) {
+                    computedSummary = new ComputedSummary(this, liveBytes, liveInstances);
+                }
+            }
+        }
+        return getSummary();
+    }
+
     public Properties getSystemProperties() {
         JavaClass systemClass = getJavaClassByName("java.lang.System"); // NOI18N
         if (systemClass != null) {
@@ -359,6 +390,10 @@ class HprofHeap implements Heap {
         out.writeInt(idMapSize);
         out.writeInt(segment);        
         idToOffsetMap.writeToStream(out);
+        out.writeBoolean(instancesIndex != null);
+        if (instancesIndex != null) {
+            instancesIndex.writeToStream(out);
+        }
         out.writeBoolean(domTree != null);
         if (domTree != null) {
             domTree.writeToStream(out);
@@ -401,6 +436,9 @@ class HprofHeap implements Heap {
         idMapSize = dis.readInt();
         segment = dis.readInt();
         idToOffsetMap = new LongMap(dis, cacheDirectory);
+        if (dis.readBoolean()) {
+            instancesIndex = new InstancesIndex(dis, cacheDirectory);
+        }
         if (dis.readBoolean()) {
             domTree = new DominatorTree(this, dis);
         }
@@ -432,6 +470,15 @@ class HprofHeap implements Heap {
         return allInstanceDumpBounds;
     }
     
+    /**
+     * Returns records counted by the tag bounds scan and releases them, null if they were not counted.
+     */
+    HprofQuickSummary.RecordCounter takeRecordCounter() {
+        HprofQuickSummary.RecordCounter counter = recordCounter;
+        recordCounter = null;
+        return counter;
+    }
+    
     long getRetainedSize(Instance instance) {
         computeRetainedSize();
         return idToOffsetMap.get(instance.getInstanceId()).getRetainedSize();
@@ -529,6 +576,7 @@ class HprofHeap implements Heap {
         int idSize = dumpBuffer.getIDSize();
         long[] offset = new long[] { allInstanceDumpBounds.startOffset };
         Map<Long,JavaClass> classIdToClassMap = classDumpBounds.getClassIdToClassMap();
+        InstancesIndex index = createInstancesIndex();
 
         for (long counter = 0; offset[0] < allInstanceDumpBounds.endOffset; counter++) {
             int classIdOffset = 0;
@@ -564,15 +612,50 @@ class HprofHeap implements Heap {
                 classDump.registerInstance(start);
                 instanceEntry.setIndex(classDump.getInstancesCount());
                 classDumpBounds.addInstanceSize(classDump, tag, start);
+                index = addToInstancesIndex(index, classDump, start);
             }
             HeapProgress.progress(counter,allInstanceDumpBounds.startOffset,start,allInstanceDumpBounds.endOffset);
         }
+        instancesIndex = finishInstancesIndex(index);
         instancesCountComputed = true;
         writeToFile();
         }
         HeapProgress.progressFinish();
     }
 
+    private InstancesIndex createInstancesIndex() {
+        try {
+            return new InstancesIndex(cacheDirectory);
+        } catch (IOException ex) {
+            LOG.log(Level.INFO, "Cannot create instances index", ex); // NOI18N
+            return null;
+        }
+    }
+
+    private static InstancesIndex addToInstancesIndex(InstancesIndex index, ClassDump classDump, long offset) {
+        if (index != null) {
+            try {
+                index.addInstance(classDump, offset);
+            } catch (IOException ex) {
+                LOG.log(Level.INFO, "Cannot write instances index", ex); // NOI18N
+                return null;    // instances will be found by scanning the dump
+            }
+        }
+        return index;
+    }
+
+    private static InstancesIndex finishInstancesIndex(InstancesIndex index) {
+        if (index != null) {
+            try {
+                index.finish();
+            } catch (IOException ex) {
+                LOG.log(Level.INFO, "Cannot write instances index", ex); // NOI18N
+                return null;
+            }
+        }
+        return index;
+    }
+
     List<Value> findReferencesFor(long instanceId) {
         assert instanceId != 0L : "InstanceID is null";
         computeReferences();
@@ -1326,6 +1409,9 @@ class HprofHeap implements Heap {
 
             if ((tag == CLASS_DUMP) || (tag == INSTANCE_DUMP) || (tag == OBJECT_ARRAY_DUMP) || (tag == PRIMITIVE_ARRAY_DUMP)) {
                 idMapSize++;
+                if (recordCounter != null) {
+                    recordCounter.record(tag, start);
+                }
             }
             HeapProgress.progress(counter,heapDumpSegment.startOffset,start,heapDumpSegment.endOffset);
         }
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import static org.graalvm.visualvm.lib.jfluid.heap.ObjectSizeSettings.OBJECT_ALIGNMENT;
+
+/**
+ * Quick summary computed by one pass over instance dumps. Per class counts,
+ * sizes and the biggest arrays are collected by a {@link RecordCounter} while
+ * {@link HprofHeap} scans the tag bounds of a newly parsed dump, a heap loaded
+ * from the cache directory is walked once more. No instance index is built,
+ * so the summary is much cheaper than {@link HprofHeap#computeInstances()}.
+ */
+class HprofQuickSummary implements HeapQuickSummary {
+
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int BIGGEST_ARRAYS = 100;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final HprofHeap heap;
+    private final List<JavaClass> classes;
+    private final LongHashMap classIndexes;
+    private final int[] instancesCounts;
+    private final long[] instancesSizes;
+    private final List<Instance> biggestArrays;
+    private final Map<String,Integer> gcRootsCount;
+    private final List<ThreadObjectGCRoot> threadGCRoots;
+    private final HeapSummary summary;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    HprofQuickSummary(HprofHeap h) {
+        this(h, null);
+    }
+
+    /**
+     * @param counter records counted by the tag bounds scan of the heap, null to walk the instance dumps
+     */
+    HprofQuickSummary(HprofHeap h, RecordCounter counter) {
+        heap = h;
+        classes = heap.getAllClasses();
+        classIndexes = new LongHashMap(classes.size());
+        for (int i = 0; i < classes.size(); i++) {
+            classIndexes.put(classes.get(i).getJavaClassId(), i);
+        }
+        instancesCounts = new int[classes.size()];
+        instancesSizes = new long[classes.size()];
+        biggestArrays = new ArrayList<>(BIGGEST_ARRAYS);
+        gcRootsCount = new HashMap<>();
+        threadGCRoots = new ArrayList<>();
+
+        if (!classes.isEmpty()) {
+            if (counter == null) {
+                counter = countRecords();
+            }
+            computeHistogram(counter);
+        }
+        computeGCRoots();
+
+        long bytes = 0;
+        long instances = 0;
+
+        for (int i = 0; i < classes.size(); i++) {
+            instances += instancesCounts[i];
+            bytes += instancesSizes[i];
+        }
+        summary = heap.getSummary(bytes, instances);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    public HeapSummary getSummary() {
+        return summary;
+    }
+
+    public List<JavaClass> getAllClasses() {
+        return classes;
+    }
+
+    public int getInstancesCount(JavaClass jcls) {
+        int index = getClassIndex(jcls.getJavaClassId());
+
+        return index < 0 ? 0 : instancesCounts[index];
+    }
+
+    public long getAllInstancesSize(JavaClass jcls) {
+        int index = getClassIndex(jcls.getJavaClassId());
+
+        return index < 0 ? 0 : instancesSizes[index];
+    }
+
+    public List<Instance> getBiggestArrays() {
+        return Collections.unmodifiableList(biggestArrays);
+    }
+
+    public Map<String,Integer> getGCRootsCount() {
+        return Collections.unmodifiableMap(gcRootsCount);
+    }
+
+    public List<ThreadObjectGCRoot> getThreadGCRoots() {
+        return Collections.unmodifiableList(threadGCRoots);
+    }
+
+    public Heap getHeap() {
+        return heap;
+    }
+
+    private int getClassIndex(long classId) {
+        return (int) classIndexes.get(classId);
+    }
+
+    private RecordCounter countRecords() {
+        TagBounds allInstanceDumpBounds = heap.getAllInstanceDumpBounds();
+        RecordCounter records = new RecordCounter(heap);
+        long[] offset = new long[] { allInstanceDumpBounds.startOffset };
+
+        HeapProgress.progressStart();
+        for (long counter = 0; offset[0] < allInstanceDumpBounds.endOffset; counter++) {
+            long start = offset[0];
+            int tag = heap.readDumpTag(offset);
+
+            records.record(tag, start);
+            HeapProgress.progress(counter,allInstanceDumpBounds.startOffset,start,allInstanceDumpBounds.endOffset);
+        }
+        HeapProgress.progressFinish();
+        return records;
+    }
+
+    private void computeHistogram(RecordCounter counter) {
+        ClassDumpSegment classDumpBounds = heap.getClassDumpSegment();
+        HprofByteBuffer dumpBuffer = heap.dumpBuffer;
+        int idSize = dumpBuffer.getIDSize();
+
+        for (int i = 0; i < classes.size(); i++) {
+            int slot = counter.getSlot(classes.get(i).getJavaClassId());
+
+            if (slot >= 0) {
+                long[] elements = counter.arrayElements[slot];
+
+                instancesCounts[i] = counter.counts[slot];
+                instancesSizes[i] = elements == null ?
+                        (long) instancesCounts[i] * classes.get(i).getInstanceSize() :
+                        getArraysSize(classDumpBounds, (byte) HprofHeap.OBJECT, elements);
+            }
+        }
+        for (byte type = HprofHeap.BOOLEAN; type <= HprofHeap.LONG; type++) {
+            if (counter.primitiveCounts[type] > 0) {
+                int classIndex = getPrimitiveArrayIndex(classDumpBounds, type);
+
+                if (classIndex >= 0) {
+                    instancesCounts[classIndex] += counter.primitiveCounts[type];
+                    instancesSizes[classIndex] += getArraysSize(classDumpBounds, type, counter.primitiveElements[type]);
+                }
+            }
+        }
+
+        // candidates are ranked by number of element bytes, the real size grows with it
+        List<ArrayEntry> arrays = new ArrayList<>(2 * BIGGEST_ARRAYS);
+        for (ArrayEntry candidate : counter.objectArrays) {
+            if (getClassIndex(dumpBuffer.getID(candidate.offset + 1 + idSize + 4 + 4)) >= 0) {
+                int length = dumpBuffer.getInt(candidate.offset + 1 + idSize + 4);
+                arrays.add(new ArrayEntry(classDumpBounds.getArraySize((byte) HprofHeap.OBJECT, length), candidate.offset));
+            }
+        }
+        for (ArrayEntry candidate : counter.primitiveArrays) {
+            byte type = dumpBuffer.get(candidate.offset + 1 + idSize + 4 + 4);
+            if (getPrimitiveArrayIndex(classDumpBounds, type) >= 0) {
+                int length = dumpBuffer.getInt(candidate.offset + 1 + idSize + 4);
+                arrays.add(new ArrayEntry(classDumpBounds.getArraySize(type, length), candidate.offset));
+            }
+        }
+        Collections.sort(arrays);
+        for (ArrayEntry array : arrays.subList(0, Math.min(BIGGEST_ARRAYS, arrays.size()))) {
+            biggestArrays.add(heap.getInstanceByOffset(new long[] { array.offset }));
+        }
+    }
+
+    // same computation as ClassDump.getAllInstancesSize() for arrays
+    private static long getArraysSize(ClassDumpSegment classDumpBounds, byte type, long[] elements) {
+        long size = elements[OBJECT_ALIGNMENT] * OBJECT_ALIGNMENT * classDumpBounds.sizeSettings.getElementSize(type);
+
+        for (int i = 0; i < OBJECT_ALIGNMENT; i++) {
+            size += classDumpBounds.getArraySize(type, i) * elements[i];
+        }
+        return size;
+    }
+
+    private int getPrimitiveArrayIndex(ClassDumpSegment classDumpBounds, byte type) {
+        if (type < HprofHeap.BOOLEAN || type > HprofHeap.LONG) {
+            return -1;
+        }
+        ClassDump primitiveArray = classDumpBounds.findPrimitiveArrayClass(type);
+
+        return primitiveArray == null ? -1 : getClassIndex(primitiveArray.getJavaClassId());
+    }
+
+    private void computeGCRoots() {
+        for (GCRoot root : heap.getGCRoots()) {
+            String kind = root.getKind();
+            Integer count = gcRootsCount.get(kind);
+
+            gcRootsCount.put(kind, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+            if (root instanceof ThreadObjectGCRoot) {
+                threadGCRoots.add((ThreadObjectGCRoot) root);
+            }
+        }
+    }
+
+    //~ Inner classes ------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Counts instance and array records by class id. Classes need not be known
+     * yet, so it can be fed by the tag bounds scan of {@link HprofHeap}. Arrays
+     * are counted as in ClassDumpSegment: number of arrays by length modulo
+     * OBJECT_ALIGNMENT and sum of length / OBJECT_ALIGNMENT.
+     */
+    static final class RecordCounter {
+        private final HprofByteBuffer dumpBuffer;
+        private final int idSize;
+        private final HprofHeap heap;
+        private final LongHashMap classSlots = new LongHashMap();
+        private int slots;
+        private int[] counts = new int[256];
+        private long[][] arrayElements = new long[256][];   // null for instances
+        private final int[] primitiveCounts = new int[HprofHeap.LONG + 1];
+        private final long[][] primitiveElements = new long[HprofHeap.LONG + 1][OBJECT_ALIGNMENT + 1];
+        // the smallest of the biggest arrays is the head
+        private final PriorityQueue<ArrayEntry> objectArrays = new PriorityQueue<>(BIGGEST_ARRAYS, Collections.reverseOrder());
+        private final PriorityQueue<ArrayEntry> primitiveArrays = new PriorityQueue<>(BIGGEST_ARRAYS, Collections.reverseOrder());
+
+        RecordCounter(HprofHeap heap) {
+            this.heap = heap;
+            dumpBuffer = heap.dumpBuffer;
+            idSize = dumpBuffer.getIDSize();
+        }
+
+        void record(int tag, long start) {
+            if (tag == HprofHeap.INSTANCE_DUMP) {
+                int slot = getOrCreateSlot(dumpBuffer.getID(start + 1 + idSize + 4), false);
+
+                if (slot >= 0) {
+                    counts[slot]++;
+                }
+            } else if (tag == HprofHeap.OBJECT_ARRAY_DUMP) {
+                int length = dumpBuffer.getInt(start + 1 + idSize + 4);
+                int slot = getOrCreateSlot(dumpBuffer.getID(start + 1 + idSize + 4 + 4), true);
+
+                if (slot >= 0) {
+                    counts[slot]++;
+                    addElements(arrayElements[slot], length);
+                    addCandidate(objectArrays, length, start);
+                }
+            } else if (tag == HprofHeap.PRIMITIVE_ARRAY_DUMP) {
+                int length = dumpBuffer.getInt(start + 1 + idSize + 4);
+                byte type = dumpBuffer.get(start + 1 + idSize + 4 + 4);
+
+                if (type >= HprofHeap.BOOLEAN && type <= HprofHeap.LONG) {
+                    primitiveCounts[type]++;
+                    addElements(primitiveElements[type], length);
+                    addCandidate(primitiveArrays, (long) heap.getValueSize(type) * length, start);
+                }
+            }
+        }
+
+        int getSlot(long classId) {
+            return classId == 0 ? -1 : (int) classSlots.get(classId);
+        }
+
+        private int getOrCreateSlot(long classId, boolean array) {
+            int slot = getSlot(classId);
+
+            if (slot == -1 && classId != 0) {
+                if (slots == counts.length) {
+                    counts = Arrays.copyOf(counts, slots * 2);
+                    arrayElements = Arrays.copyOf(arrayElements, slots * 2);
+                }
+                slot = slots++;
+                classSlots.put(classId, slot);
+                if (array) {
+                    arrayElements[slot] = new long[OBJECT_ALIGNMENT + 1];
+                }
+            }
+            return slot;
+        }
+
+        private static void addElements(long[] elements, int length) {
+            elements[length % OBJECT_ALIGNMENT]++;
+            elements[OBJECT_ALIGNMENT] += length / OBJECT_ALIGNMENT;
+        }
+
+        private static void addCandidate(PriorityQueue<ArrayEntry> arrays, long bytes, long start) {
+            if (arrays.size() < BIGGEST_ARRAYS) {
+                arrays.add(new ArrayEntry(bytes, start));
+            } else if (bytes > arrays.peek().size) {
+                arrays.poll();
+                arrays.add(new ArrayEntry(bytes, start));
+            }
+        }
+    }
+
+    private static class ArrayEntry implements Comparable<ArrayEntry> {
+        private final long size;
+        private final long offset;
+
+        private ArrayEntry(long s, long off) {
+            size = s;
+            offset = off;
+        }
+
+        public int compareTo(ArrayEntry other) {
+            // bigger arrays are at beginning
+            int diff = Long.compare(other.size, size);
+            if (diff == 0) {
+                // sizes are the same, compare offsets
+                return Long.compare(offset, other.offset);
+            }
+            return diff;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof ArrayEntry) {
+                return offset == ((ArrayEntry) obj).offset;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (offset ^ (offset >>> 32));
+        }
+    }
+}
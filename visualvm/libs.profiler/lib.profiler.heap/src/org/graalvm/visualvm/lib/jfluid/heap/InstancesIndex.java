@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.heap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Class clustered index of instance offsets. Offsets of instances of one class are
+ * stored as deltas from the previous instance of the same class, encoded as unsigned
+ * variable length numbers. Data of each class are written to the backing file in chunks
+ * of CHUNK_SIZE bytes, the file offsets of chunks are kept in ClassDump.
+ * Iterating instances of a class reads only its chunks instead of the whole dump.
+ * Index files in a temporary cache directory are deleted when a new index is created
+ * after their index has been garbage collected, the rest is deleted on exit.
+ */
+class InstancesIndex {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int INITIAL_BUFFER_SIZE = 16;
+
+    // Index files of temporary cache directories, deleted once the index is unreachable
+    private static final ReferenceQueue<InstancesIndex> releasedIndexes = new ReferenceQueue<>();
+    private static final Set<TemporaryFile> temporaryFiles = Collections.synchronizedSet(new HashSet<TemporaryFile>());
+
+    private final File indexFile;
+    private final RandomAccessFile data;
+    private final FileChannel channel;
+    private long fileSize;
+    // Map <class, class index data being built>, only used in computeInstances()
+    private Map<ClassDump,ClassChunks> builders;
+
+    InstancesIndex(CacheDirectory cacheDir) throws IOException {
+        indexFile = cacheDir.createTempFile("NBProfiler", ".idx"); // NOI18N
+        data = new RandomAccessFile(indexFile, "rw"); // NOI18N
+        channel = data.getChannel();
+        builders = new HashMap<>();
+        if (cacheDir.isTemporary()) {
+            deleteReleasedFiles();
+            temporaryFiles.add(new TemporaryFile(this, indexFile, data));
+        }
+    }
+
+    private static void deleteReleasedFiles() {
+        Reference<? extends InstancesIndex> ref;
+
+        while ((ref = releasedIndexes.poll()) != null) {
+            TemporaryFile file = (TemporaryFile) ref;
+            temporaryFiles.remove(file);
+            file.delete();
+        }
+    }
+
+    void addInstance(ClassDump cls, long offset) throws IOException {
+        ClassChunks chunks = builders.get(cls);
+
+        if (chunks == null) {
+            chunks = new ClassChunks();
+            builders.put(cls, chunks);
+        }
+        chunks.addOffset(offset);
+    }
+
+    /**
+     * Writes remaining data and stores chunk offsets to classes
+     */
+    void finish() throws IOException {
+        for (Map.Entry<ClassDump,ClassChunks> entry : builders.entrySet()) {
+            ClassChunks chunks = entry.getValue();
+
+            chunks.flush();
+            entry.getKey().setInstancesIndex(chunks.getChunks());
+        }
+        builders = null;
+    }
+
+    LongIterator getOffsetsIterator(long[] chunks, int count) {
+        return new OffsetsIterator(chunks, count);
+    }
+
+    private synchronized long writeChunk(byte[] buffer, int length) throws IOException {
+        long chunkOffset = fileSize;
+
+        data.seek(chunkOffset);
+        data.write(buffer, 0, length);
+        fileSize += length;
+        return chunkOffset;
+    }
+
+    private void readChunk(long chunkOffset, ByteBuffer chunk) throws IOException {
+        chunk.clear();
+        chunk.limit((int) Math.min(CHUNK_SIZE, fileSize - chunkOffset));
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk, chunkOffset + chunk.position()) < 0) {
+                break;
+            }
+        }
+        chunk.flip();
+    }
+
+    //---- Serialization support
+    void writeToStream(DataOutputStream out) throws IOException {
+        out.writeUTF(indexFile.getAbsolutePath());
+        out.writeLong(fileSize);
+    }
+
+    InstancesIndex(DataInputStream dis, CacheDirectory cacheDir) throws IOException {
+        indexFile = cacheDir.getCacheFile(dis.readUTF());
+        data = new RandomAccessFile(indexFile, "rw"); // NOI18N
+        channel = data.getChannel();
+        fileSize = dis.readLong();
+    }
+
+    private static class TemporaryFile extends PhantomReference<InstancesIndex> {
+        private final File file;
+        private final RandomAccessFile data;
+
+        private TemporaryFile(InstancesIndex index, File file, RandomAccessFile data) {
+            super(index, releasedIndexes);
+            this.file = file;
+            this.data = data;
+        }
+
+        private void delete() {
+            try {
+                data.close();
+            } catch (IOException ex) {
+                // ignore, delete the file anyway
+            }
+            file.delete();
+        }
+    }
+
+    private class ClassChunks {
+        private byte[] buffer;
+        private int length;
+        private long lastOffset;
+        private long[] chunks;
+        private int nChunks;
+
+        private ClassChunks() {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+            chunks = new long[1];
+        }
+
+        private void addOffset(long offset) throws IOException {
+            long delta = offset - lastOffset;
+
+            lastOffset = offset;
+            do {
+                int b = (int) (delta & 0x7F);
+
+                delta >>>= 7;
+                if (delta != 0) {
+                    b |= 0x80;
+                }
+                writeByte(b);
+            } while (delta != 0);
+        }
+
+        private void writeByte(int b) throws IOException {
+            if (length == buffer.length) {
+                if (buffer.length < CHUNK_SIZE) {
+                    byte[] newBuffer = new byte[Math.min(buffer.length * 2, CHUNK_SIZE)];
+
+                    System.arraycopy(buffer, 0, newBuffer, 0, length);
+                    buffer = newBuffer;
+                } else {
+                    flush();
+                }
+            }
+            buffer[length++] = (byte) b;
+        }
+
+        private void flush() throws IOException {
+            if (length > 0) {
+                if (nChunks == chunks.length) {
+                    long[] newChunks = new long[chunks.length * 2];
+
+                    System.arraycopy(chunks, 0, newChunks, 0, nChunks);
+                    chunks = newChunks;
+                }
+                chunks[nChunks++] = writeChunk(buffer, length);
+                length = 0;
+            }
+        }
+
+        private long[] getChunks() {
+            long[] ret = new long[nChunks];
+
+            System.arraycopy(chunks, 0, ret, 0, nChunks);
+            return ret;
+        }
+    }
+
+    private class OffsetsIterator extends LongIterator {
+        private final long[] chunks;
+        private final ByteBuffer chunk;
+        private int nextChunk;
+        private int count;
+        private long offset;
+
+        private OffsetsIterator(long[] ch, int c) {
+            chunks = ch;
+            count = c;
+            chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            chunk.limit(0);
+        }
+
+        @Override
+        boolean hasNext() {
+            return count > 0;
+        }
+
+        @Override
+        long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long delta = 0;
+            int shift = 0;
+            int b;
+
+            do {
+                b = readByte();
+                delta |= ((long) (b & 0x7F)) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            offset += delta;
+            count--;
+            return offset;
+        }
+
+        private int readByte() {
+            if (!chunk.hasRemaining()) {
+                if (nextChunk == chunks.length) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    readChunk(chunks[nextChunk++], chunk);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+            return chunk.get() & 0xFF;
+        }
+    }
+}
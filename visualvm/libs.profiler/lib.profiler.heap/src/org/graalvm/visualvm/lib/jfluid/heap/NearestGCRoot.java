@@ -28,9 +28,18 @@ package org.graalvm.visualvm.lib.jfluid.heap;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
@@ -41,6 +50,10 @@ class NearestGCRoot {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
     private static final int BUFFER_SIZE = (64 * 1024) / 8;
+    private static final int BATCH_SIZE = 16 * 1024;
+    private static final int THREADS = Integer.getInteger("org.graalvm.visualvm.lib.jfluid.heap.gcroots.threads", // NOI18N
+                                                          Runtime.getRuntime().availableProcessors());
+    private static final int[] NO_FIELDS = new int[0];
     private static final String[] REF_CLASSES = {
         "java.lang.ref.WeakReference",    // NOI18N
         "java.lang.ref.SoftReference",    // NOI18N
@@ -65,6 +78,10 @@ class NearestGCRoot {
     private boolean gcRootsComputed;
     private long allInstances;
     private long processedInstances;
+    private Map<Long,JavaClass> classIdToClassMap;
+    // offsets of object fields from the start of instance field values, see InstanceDump.getFieldValues()
+    private Map<JavaClass,int[]> objectFieldOffsets;
+    private ExecutorService executor;
 //private long leavesCount;
 //private long firstLevel;
 //private long multiParentsCount;
@@ -86,12 +103,6 @@ class NearestGCRoot {
         return heap.getInstanceByID(nextGCPathId);
     }
 
-    private boolean isSpecialReference(FieldValue value, Instance instance) {
-        Field f = value.getField();
-
-        return f.equals(referentField) && referenceClasses.contains(instance.getJavaClass());
-    }
-
     private synchronized void computeGCRoots() {
         if (gcRootsComputed) {
             return;
@@ -107,6 +118,18 @@ class NearestGCRoot {
         allInstances = heap.getSummary().getTotalLiveInstances();
         Set<JavaClass> processedClasses = new HashSet<>(heap.getAllClasses().size()*4/3);
         
+        classIdToClassMap = heap.getClassDumpSegment().getClassIdToClassMap();
+        objectFieldOffsets = new ConcurrentHashMap<>(classIdToClassMap.size()*4/3);
+        if (THREADS > 1) {
+            executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "NearestGCRoot worker"); // NOI18N
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
         try {
             createBuffers();
             fillZeroLevel();
@@ -117,6 +140,13 @@ class NearestGCRoot {
             } while (hasMoreLevels());
         } catch (IOException ex) {
             ex.printStackTrace();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            classIdToClassMap = null;
+            objectFieldOffsets = null;
         }
 
         deleteBuffers();
@@ -158,77 +188,234 @@ class NearestGCRoot {
         return false;
     }
 
+    /**
+     * Instances of the level are read in batches. Each batch is split among worker threads, which
+     * read outgoing references directly from the dump and look up their LongMap entries. The nearest
+     * GC root pointers are then set by this thread in the order of the level, so the first referrer
+     * in the level wins, same as with the sequential processing.
+     */
     private void computeOneLevel(Set<JavaClass> processedClasses) throws IOException {
-        int idSize = heap.dumpBuffer.getIDSize();
+        long[] batch = new long[BATCH_SIZE];
+        LevelNode[] nodes = new LevelNode[BATCH_SIZE];
+
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new LevelNode();
+        }
         for (;;) {
-            Instance instance;
-            long instanceOffset = readLong();
-            List<FieldValue> fieldValues;
-            boolean hasValues = false;
-            
-            if (instanceOffset == 0L) { // end of level
+            int size = 0;
+
+            for (; size < batch.length; size++) {
+                long instanceOffset = readLong();
+
+                if (instanceOffset == 0L) { // end of level
+                    break;
+                }
+                batch[size] = instanceOffset;
+            }
+            if (size == 0) {
                 break;
             }
-            HeapProgress.progress(processedInstances++,allInstances);
-            instance = heap.getInstanceByOffset(new long[] {instanceOffset});
-            if (instance instanceof ObjectArrayInstance) {
-                ObjectArrayDump array = (ObjectArrayDump) instance;
-                int size = array.getLength();
-                long offset = array.getOffset();
-                long instanceId = instance.getInstanceId();
+            readNodes(batch, nodes, size);
+            for (int i = 0; i < size; i++) {
+                HeapProgress.progress(processedInstances++,allInstances);
+                processNode(nodes[i], processedClasses);
+            }
+            if (size < batch.length) {
+                break;
+            }
+        }
+    }
 
-                for (int i=0;i<size;i++) {
-                    long referenceId = heap.dumpBuffer.getID(offset + (i * idSize));
+    private void readNodes(final long[] batch, final LevelNode[] nodes, int size) throws IOException {
+        if (executor == null || size < THREADS * 64) {
+            readNodes(batch, nodes, 0, size);
+            return;
+        }
+        List<Future<Void>> results = new ArrayList<>(THREADS);
+        int step = (size + THREADS - 1) / THREADS;
 
-                    if (writeConnection(instanceId, referenceId)) {
-                        hasValues = true;
-                    }
+        for (int start = 0; start < size; start += step) {
+            final int from = start;
+            final int to = Math.min(start + step, size);
+
+            results.add(executor.submit(new Callable<Void>() {
+                public Void call() {
+                    readNodes(batch, nodes, from, to);
+                    return null;
                 }
-                if (!hasValues) {
-                    writeLeaf(instanceId,instance.getSize());
+            }));
+        }
+        try {
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    private void readNodes(long[] batch, LevelNode[] nodes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            readNode(batch[i], nodes[i]);
+        }
+    }
+
+    /**
+     * Reads instance at the given offset and its outgoing references, does not modify LongMap.
+     * Called from worker threads.
+     */
+    private void readNode(long start, LevelNode node) {
+        HprofByteBuffer dumpBuffer = heap.dumpBuffer;
+        int idSize = dumpBuffer.getIDSize();
+        int tag = dumpBuffer.get(start);
+
+        node.offset = start;
+        node.javaClass = null;
+        node.nRefs = 0;
+        node.kind = tag;
+        if (tag == HprofHeap.INSTANCE_DUMP) {
+            long classId = dumpBuffer.getID(start + 1 + idSize + 4);
+            ClassDump classDump = (ClassDump) classIdToClassMap.get(Long.valueOf(classId));
+
+            if (classDump != null) {
+                int[] fieldOffsets = getObjectFieldOffsets(classDump);
+                long valuesOffset = start + 1 + idSize + 4 + idSize + 4;
+
+                node.instanceId = dumpBuffer.getID(start + 1);
+                node.javaClass = classDump;
+                node.size = classDump.getInstanceSize();
+                for (int fieldOffset : fieldOffsets) {
+                    node.addReference(dumpBuffer.getID(valuesOffset + fieldOffset));
                 }
-                continue;
-            } else if (instance instanceof PrimitiveArrayInstance) {
-                writeLeaf(instance.getInstanceId(),instance.getSize());
-                continue;
-            } else if (instance instanceof ClassDumpInstance) {
-                ClassDump javaClass = ((ClassDumpInstance) instance).classDump;
-
-                fieldValues = javaClass.getStaticFieldValues();
-            } else if (instance instanceof InstanceDump) {
-                fieldValues = instance.getFieldValues();
-            } else {
-                if (instance == null) {
-                    System.err.println("HeapWalker Warning - null instance for " + heap.dumpBuffer.getID(instanceOffset + 1)); // NOI18N
-                    continue;
+            }
+        } else if (tag == HprofHeap.OBJECT_ARRAY_DUMP) {
+            long classId = dumpBuffer.getID(start + 1 + idSize + 4 + 4);
+            ClassDump classDump = (ClassDump) classIdToClassMap.get(Long.valueOf(classId));
+
+            if (classDump != null) {
+                ObjectArrayDump array = new ObjectArrayDump(classDump, start);
+                int length = array.getLength();
+                long offset = array.getOffset();
+
+                node.instanceId = dumpBuffer.getID(start + 1);
+                node.javaClass = classDump;
+                node.size = array.getSize();
+                for (int i = 0; i < length; i++) {
+                    node.addReference(dumpBuffer.getID(offset + (i * idSize)));
                 }
-                throw new IllegalArgumentException("Illegal type " + instance.getClass()); // NOI18N
             }
-            long instanceId = instance.getInstanceId();
-            for (FieldValue val : fieldValues) {
-                if (val instanceof ObjectFieldValue) {
-                     // skip Soft, Weak, Final and Phantom References
-                    if (!isSpecialReference(val, instance)) {
-                        long refInstanceId;
-
-                        if (val instanceof HprofFieldObjectValue) {
-                            refInstanceId = ((HprofFieldObjectValue) val).getInstanceID();
-                        } else {
-                             refInstanceId = ((HprofInstanceObjectValue) val).getInstanceId();
-                        }
-                        if (writeConnection(instanceId, refInstanceId)) {
-                            hasValues = true;
-                        }
+        } else if (tag == HprofHeap.PRIMITIVE_ARRAY_DUMP) {
+            ClassDump classDump = heap.getClassDumpSegment().getPrimitiveArrayClass(dumpBuffer.get(start + 1 + idSize + 4 + 4));
+
+            node.instanceId = dumpBuffer.getID(start + 1);
+            node.javaClass = classDump;
+            node.size = new PrimitiveArrayDump(classDump, start).getSize();
+        }
+        // class objects are handled in processNode()
+        for (int i = 0; i < node.nRefs; i++) {
+            long refInstanceId = node.refIds[i];
+
+            node.refEntries[i] = refInstanceId == 0L ? null : heap.idToOffsetMap.get(refInstanceId);
+        }
+    }
+
+    private int[] getObjectFieldOffsets(ClassDump classDump) {
+        int[] offsets = objectFieldOffsets.get(classDump);
+
+        if (offsets == null) {
+            boolean isReference = referenceClasses.contains(classDump);
+            List<Integer> offsetList = new ArrayList<>();
+            int offset = 0;
+
+            for (Field f : classDump.getAllInstanceFields()) {
+                HprofField field = (HprofField) f;
+
+                if (field.getValueType() == HprofHeap.OBJECT) {
+                    // skip Soft, Weak, Final and Phantom References
+                    if (!(isReference && isReferentField(field))) {
+                        offsetList.add(Integer.valueOf(offset));
                     }
                 }
+                offset += field.getValueSize();
             }
-            if (writeClassConnection(processedClasses, instanceId, instance.getJavaClass())) {
+            if (offsetList.isEmpty()) {
+                offsets = NO_FIELDS;
+            } else {
+                offsets = new int[offsetList.size()];
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = offsetList.get(i).intValue();
+                }
+            }
+            objectFieldOffsets.put(classDump, offsets);
+        }
+        return offsets;
+    }
+
+    private boolean isReferentField(Field field) {
+        return field.equals(referentField)
+               || (field.getDeclaringClass().equals(referentField.getDeclaringClass())
+                   && field.getName().equals(referentField.getName()));
+    }
+
+    private void processNode(LevelNode node, Set<JavaClass> processedClasses) throws IOException {
+        boolean hasValues = false;
+
+        if (node.kind == HprofHeap.CLASS_DUMP) {
+            processClassInstance(node.offset, processedClasses);
+            return;
+        }
+        if (node.javaClass == null) {
+            System.err.println("HeapWalker Warning - null instance for " + heap.dumpBuffer.getID(node.offset + 1)); // NOI18N
+            return;
+        }
+        for (int i = 0; i < node.nRefs; i++) {
+            if (writeConnection(node.instanceId, node.refIds[i], node.refEntries[i], false)) {
                 hasValues = true;
             }
-            if (!hasValues) {
-                writeLeaf(instanceId,instance.getSize());
+        }
+        if (node.kind == HprofHeap.INSTANCE_DUMP) {
+            if (writeClassConnection(processedClasses, node.instanceId, node.javaClass)) {
+                hasValues = true;
             }
+        }
+        if (!hasValues) {
+            writeLeaf(node.instanceId, node.size);
+        }
+        node.clearReferences();
+    }
 
+    private void processClassInstance(long instanceOffset, Set<JavaClass> processedClasses) throws IOException {
+        Instance instance = heap.getInstanceByOffset(new long[] {instanceOffset});
+        boolean hasValues = false;
+
+        if (!(instance instanceof ClassDumpInstance)) {
+            throw new IllegalArgumentException("Illegal type " + instance.getClass()); // NOI18N
+        }
+        ClassDump javaClass = ((ClassDumpInstance) instance).classDump;
+        List<FieldValue> fieldValues = javaClass.getStaticFieldValues();
+        long instanceId = instance.getInstanceId();
+
+        for (FieldValue val : fieldValues) {
+            if (val instanceof ObjectFieldValue) {
+                long refInstanceId;
+
+                if (val instanceof HprofFieldObjectValue) {
+                    refInstanceId = ((HprofFieldObjectValue) val).getInstanceID();
+                } else {
+                    refInstanceId = ((HprofInstanceObjectValue) val).getInstanceId();
+                }
+                if (writeConnection(instanceId, refInstanceId)) {
+                    hasValues = true;
+                }
+            }
+        }
+        if (writeClassConnection(processedClasses, instanceId, instance.getJavaClass())) {
+            hasValues = true;
+        }
+        if (!hasValues) {
+            writeLeaf(instanceId,instance.getSize());
         }
     }
 
@@ -304,9 +491,14 @@ class NearestGCRoot {
     
     private boolean writeConnection(long instanceId, long refInstanceId, boolean addRefInstanceId)
                           throws IOException {
-        if (refInstanceId != 0) {
-            LongMap.Entry entry = heap.idToOffsetMap.get(refInstanceId);
+        LongMap.Entry entry = refInstanceId == 0 ? null : heap.idToOffsetMap.get(refInstanceId);
 
+        return writeConnection(instanceId, refInstanceId, entry, addRefInstanceId);
+    }
+
+    private boolean writeConnection(long instanceId, long refInstanceId, LongMap.Entry entry, boolean addRefInstanceId)
+                          throws IOException {
+        if (refInstanceId != 0) {
             if (entry != null && entry.getNearestGCRootPointer() == 0L && heap.gcRoots.getGCRoots(refInstanceId) == null) {
                 writeLong(entry.getOffset());
                 if (addRefInstanceId) {
@@ -379,6 +571,47 @@ class NearestGCRoot {
         return multipleParents;
     }
 
+    /**
+     * Instance of the current level together with its outgoing references
+     */
+    private static class LevelNode {
+        private static final long[] NO_IDS = new long[0];
+        private static final LongMap.Entry[] NO_ENTRIES = new LongMap.Entry[0];
+
+        long offset;
+        int kind;   // dump tag
+        long instanceId;
+        long size;
+        ClassDump javaClass;
+        long[] refIds = NO_IDS;
+        LongMap.Entry[] refEntries = NO_ENTRIES;
+        int nRefs;
+
+        void addReference(long refInstanceId) {
+            if (nRefs == refIds.length) {
+                int newSize = Math.max(8, nRefs * 2);
+                long[] newIds = new long[newSize];
+
+                System.arraycopy(refIds, 0, newIds, 0, nRefs);
+                refIds = newIds;
+                refEntries = new LongMap.Entry[newSize];
+            }
+            refIds[nRefs++] = refInstanceId;
+        }
+
+        void clearReferences() {
+            if (refIds.length > BUFFER_SIZE) { // do not keep big object arrays
+                refIds = NO_IDS;
+                refEntries = NO_ENTRIES;
+            } else {
+                for (int i = 0; i < nRefs; i++) {
+                    refEntries[i] = null;
+                }
+            }
+            nRefs = 0;
+        }
+    }
+
     //---- Serialization support
     void writeToStream(DataOutputStream out) throws IOException {
         out.writeBoolean(gcRootsComputed);
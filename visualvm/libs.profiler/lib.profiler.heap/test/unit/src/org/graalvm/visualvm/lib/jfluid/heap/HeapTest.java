@@ -42,10 +42,13 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
 import org.junit.After;
@@ -67,6 +70,8 @@ public class HeapTest {
 
     @BeforeClass
     public static void setUpClass() throws Exception {
+        // levels of the nearest GC root search are read by several threads
+        System.setProperty("org.graalvm.visualvm.lib.jfluid.heap.gcroots.threads", "4"); // NOI18N
     }
 
     @AfterClass
@@ -255,6 +260,189 @@ public class HeapTest {
         }
     }
     
+    /**
+     * Test of getInstances method, of class JavaClass, read from the instances index.
+     */
+    @Test
+    public void testInstancesIndex() throws IOException, URISyntaxException {
+        System.out.println("instancesIndex");
+        Map<JavaClass, List<Instance>> allInstances = new HashMap<>();
+        Iterator<Instance> instanceIt = heap.getAllInstancesIterator();
+
+        while (instanceIt.hasNext()) {
+            Instance i = instanceIt.next();
+            List<Instance> instances = allInstances.get(i.getJavaClass());
+
+            if (instances == null) {
+                instances = new ArrayList<>();
+                allInstances.put(i.getJavaClass(), instances);
+            }
+            instances.add(i);
+        }
+        for (JavaClass clazz : heap.getAllClasses()) {
+            List<Instance> instances = allInstances.get(clazz);
+
+            if (instances == null) {
+                instances = new ArrayList<>();
+            }
+            assertEquals(clazz.getName(), instances.size(), clazz.getInstancesCount());
+            assertEquals(clazz.getName(), instances, clazz.getInstances());
+        }
+        // the index is stored in the cache together with the heap
+        URL url = getClass().getResource("small_heap.bin");
+        Heap cachedHeap = HeapFactory.createHeap(new File(url.toURI()));
+
+        for (JavaClass clazz : heap.getAllClasses()) {
+            JavaClass cachedClass = cachedHeap.getJavaClassByID(clazz.getJavaClassId());
+            List<Instance> instances = clazz.getInstances();
+            List<Instance> cachedInstances = cachedClass.getInstances();
+
+            assertEquals(clazz.getName(), instances.size(), cachedInstances.size());
+            for (int i = 0; i < instances.size(); i++) {
+                assertEquals(clazz.getName(), instances.get(i).getInstanceId(), cachedInstances.get(i).getInstanceId());
+            }
+        }
+    }
+
+    /**
+     * Test of getNearestGCRootPointer method, of class Instance.
+     */
+    @Test
+    public void testGetNearestGCRootPointer() {
+        System.out.println("getNearestGCRootPointer");
+        Map<Instance, Integer> distances = new HashMap<>();
+        Iterator<Instance> instanceIt = heap.getAllInstancesIterator();
+
+        while (instanceIt.hasNext()) {
+            Instance i = instanceIt.next();
+            Instance next = i.getNearestGCRootPointer();
+
+            if (i.isGCRoot()) {
+                assertEquals(i, next);
+            } else if (next != null) {
+                assertTrue(getReferrers(i).contains(next));
+            }
+            distances.put(i, getGCRootDistance(i));
+        }
+        // the path found by the breadth-first search is a shortest one
+        for (Map.Entry<Instance, Integer> entry : distances.entrySet()) {
+            Instance i = entry.getKey();
+            Integer distance = entry.getValue();
+
+            for (Instance referrer : getReferrers(i)) {
+                Integer referrerDistance = distances.get(referrer);
+
+                if (referrerDistance != null && referrerDistance.intValue() >= 0) {
+                    assertTrue(distance.intValue() >= 0);
+                    assertTrue(distance.intValue() <= referrerDistance.intValue() + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of createQuickSummary method, of class HeapFactory.
+     */
+    @Test
+    public void testQuickSummary() throws IOException, URISyntaxException {
+        System.out.println("quickSummary");
+        URL url = getClass().getResource("small_heap.bin");
+        HeapQuickSummary quickSummary = HeapFactory.createQuickSummary(new File(url.toURI()));
+
+        assertEquals(140120, quickSummary.getSummary().getTotalLiveBytes());
+        assertEquals(2208, quickSummary.getSummary().getTotalLiveInstances());
+        assertEquals(heap.getAllClasses().size(), quickSummary.getAllClasses().size());
+        for (JavaClass clazz : quickSummary.getAllClasses()) {
+            JavaClass heapClass = heap.getJavaClassByID(clazz.getJavaClassId());
+
+            assertEquals(clazz.getName(), heapClass.getInstancesCount(), quickSummary.getInstancesCount(clazz));
+            assertEquals(clazz.getName(), heapClass.getAllInstancesSize(), quickSummary.getAllInstancesSize(clazz));
+        }
+
+        List<Long> arraySizes = new ArrayList<>();
+        Iterator<Instance> instanceIt = heap.getAllInstancesIterator();
+
+        while (instanceIt.hasNext()) {
+            Instance i = instanceIt.next();
+
+            if (i instanceof ObjectArrayInstance || i instanceof PrimitiveArrayInstance) {
+                arraySizes.add(Long.valueOf(i.getSize()));
+            }
+        }
+        Collections.sort(arraySizes, Collections.reverseOrder());
+        List<Instance> biggestArrays = quickSummary.getBiggestArrays();
+        assertEquals(Math.min(100, arraySizes.size()), biggestArrays.size());
+        for (int i = 0; i < biggestArrays.size(); i++) {
+            assertEquals(arraySizes.get(i).longValue(), biggestArrays.get(i).getSize());
+        }
+
+        Map<String, Integer> gcRootsCount = new HashMap<>();
+        int threadGCRoots = 0;
+        for (GCRoot root : heap.getGCRoots()) {
+            Integer count = gcRootsCount.get(root.getKind());
+            gcRootsCount.put(root.getKind(), count == null ? 1 : count.intValue() + 1);
+            if (root instanceof ThreadObjectGCRoot) {
+                threadGCRoots++;
+            }
+        }
+        assertEquals(gcRootsCount, quickSummary.getGCRootsCount());
+        assertEquals(threadGCRoots, quickSummary.getThreadGCRoots().size());
+    }
+
+    /**
+     * Test of HprofQuickSummary walking instance dumps of a heap loaded from cache.
+     */
+    @Test
+    public void testQuickSummaryWalk() throws IOException, URISyntaxException {
+        System.out.println("quickSummaryWalk");
+        URL url = getClass().getResource("small_heap.bin");
+        HeapQuickSummary scanned = HeapFactory.createQuickSummary(new File(url.toURI()));
+        HeapQuickSummary walked = new HprofQuickSummary((HprofHeap) heap);
+
+        assertEquals(scanned.getSummary().getTotalLiveBytes(), walked.getSummary().getTotalLiveBytes());
+        assertEquals(scanned.getSummary().getTotalLiveInstances(), walked.getSummary().getTotalLiveInstances());
+        for (JavaClass clazz : walked.getAllClasses()) {
+            assertEquals(clazz.getName(), scanned.getInstancesCount(clazz), walked.getInstancesCount(clazz));
+            assertEquals(clazz.getName(), scanned.getAllInstancesSize(clazz), walked.getAllInstancesSize(clazz));
+        }
+        assertEquals(scanned.getBiggestArrays().size(), walked.getBiggestArrays().size());
+        for (int i = 0; i < walked.getBiggestArrays().size(); i++) {
+            assertEquals(scanned.getBiggestArrays().get(i).getInstanceId(), walked.getBiggestArrays().get(i).getInstanceId());
+        }
+    }
+
+    private static int getGCRootDistance(Instance instance) {
+        int distance = 0;
+        Instance p = instance;
+        Instance next = p.getNearestGCRootPointer();
+
+        while (!p.equals(next)) {
+            if (next == null) {
+                return -1;
+            }
+            distance++;
+            p = next;
+            next = next.getNearestGCRootPointer();
+        }
+        return distance;
+    }
+
+    private static Set<Instance> getReferrers(Instance instance) {
+        Set<Instance> referrers = new HashSet<>();
+
+        for (Value val : instance.getReferences()) {
+            if (val instanceof FieldValue) {
+                Field f = ((FieldValue) val).getField();
+
+                if ("referent".equals(f.getName()) && "java.lang.ref.Reference".equals(f.getDeclaringClass().getName())) { // NOI18N
+                    continue; // not followed by the GC root search
+                }
+            }
+            referrers.add(val.getDefiningInstance());
+        }
+        return referrers;
+    }
+
     @Test
     public void testHeapDumpLog() throws IOException, URISyntaxException {
         System.out.println("testHeapDumpLog");
@@ -29,9 +29,13 @@ import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Graphics;
 import java.awt.event.ActionEvent;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.swing.Box;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JLabel;
@@ -41,10 +45,13 @@ import javax.swing.JTree;
 import javax.swing.RowFilter;
 import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 import org.graalvm.visualvm.lib.jfluid.client.ClientUtils;
 import org.graalvm.visualvm.lib.jfluid.results.CCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.CPUCCTContainer;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.CPUCCTSearchIndex;
 import org.graalvm.visualvm.lib.jfluid.results.cpu.CPUResultsSnapshot;
 import org.graalvm.visualvm.lib.jfluid.results.cpu.PrestimeCPUCCTNode;
 import org.graalvm.visualvm.lib.profiler.api.icons.Icons;
@@ -87,6 +94,10 @@ abstract class CPUTreeTableView extends CPUView {
     private boolean searchTopMethods = true;
     private boolean searchCallerMethods = false;
     
+    private CPUResultsSnapshot searchData;
+    private int searchAggregation;
+    private final Set<CPUCCTContainer> indexedContainers = Collections.newSetFromMap(new WeakHashMap<>());
+    
     
     CPUTreeTableView(Set<ClientUtils.SourceCodeSelection> selection, boolean reverse) {
         this.selection = selection;
@@ -102,6 +113,8 @@ abstract class CPUTreeTableView extends CPUView {
         boolean _twoTimeStamps = twoTimeStamps;
         twoTimeStamps = newData == null ? !_twoTimeStamps : newData.isCollectingTwoTimeStamps();
         idMap = newIdMap;
+        searchData = _diff ? null : newData;
+        searchAggregation = aggregation;
         renderers[0].setDiffMode(_diff);
         renderers[1].setDiffMode(_diff);
         renderers[2].setDiffMode(_diff);
@@ -376,6 +389,71 @@ abstract class CPUTreeTableView extends CPUView {
         }
     }
 
+    // Skips subtrees of not yet computed nodes which do not contain any matching method
+    private class CCTSubtreeFilter implements SearchUtils.SubtreeFilter {
+        
+        private final String text;
+        private final boolean matchCase;
+        
+        private final Map<Integer, Boolean> methodMatches = new HashMap<>();
+        private final Map<CPUCCTContainer, CPUCCTSearchIndex.Matches> containerMatches = new HashMap<>();
+        
+        CCTSubtreeFilter(String text, boolean matchCase) {
+            this.text = text;
+            this.matchCase = matchCase;
+        }
+        
+        public boolean mayContainMatch(TreeNode node) {
+            if (!(node instanceof PrestimeCPUCCTNode)) return true;
+            
+            CPUCCTContainer container = ((PrestimeCPUCCTNode)node).getContainer();
+            if (container == null) return true;
+            
+            CPUCCTSearchIndex.Matches matches = containerMatches.get(container);
+            if (matches == null && !containerMatches.containsKey(container)) {
+                matches = resolveMatches(container);
+                containerMatches.put(container, matches);
+            }
+            
+            return matches == null || matches.mayContainMatch((PrestimeCPUCCTNode)node);
+        }
+        
+        private CPUCCTSearchIndex.Matches resolveMatches(CPUCCTContainer container) {
+            if (!container.hasSearchIndex()) {
+                // search this container as usual, the index will be available for next search
+                createSearchIndex(container);
+                return null;
+            }
+            
+            CPUCCTSearchIndex index = container.getSearchIndex();
+            int[] methodIds = index.getMethodIds();
+            int[] matching = new int[methodIds.length];
+            int count = 0;
+            
+            for (int methodId : methodIds) {
+                Boolean match = methodMatches.get(methodId);
+                if (match == null) {
+                    String value = getSearchValue(index.getMethodName(methodId));
+                    if (!matchCase) value = value.toLowerCase();
+                    match = value.contains(text);
+                    methodMatches.put(methodId, match);
+                }
+                if (match) matching[count++] = methodId;
+            }
+            
+            return index.getMatches(Arrays.copyOf(matching, count));
+        }
+        
+        // Same text as displayed by CPUJavaNameRenderer for a method node, the names are
+        // resolved by the index outside of the EDT so the renderer is not involved here
+        private String getSearchValue(String methodName) {
+            int bracketIndex = methodName.indexOf('(');
+            if (bracketIndex == -1) return methodName;
+            return methodName.substring(0, bracketIndex) + " " + methodName.substring(bracketIndex); // NOI18N
+        }
+        
+    }
+    
     private static class RowFilterImpl extends RowFilter implements ProfilerTreeTable.DeleteNodes {
 
         public boolean include(RowFilter.Entry entry) {
@@ -387,8 +465,36 @@ abstract class CPUTreeTableView extends CPUView {
         }
     }
     
+    public void activateSearch() {
+        super.activateSearch();
+        
+        // prepare search indexes of all threads in advance
+        CPUResultsSnapshot data = searchData;
+        if (!reverse && data != null)
+            for (int threadId : data.getThreadIds())
+                createSearchIndex(data.getContainerForThread(threadId, searchAggregation));
+    }
+    
+    private void createSearchIndex(final CPUCCTContainer container) {
+        if (container == null || container.hasSearchIndex() || !indexedContainers.add(container)) return;
+        
+        new SwingWorker<Void, Void>() {
+            protected Void doInBackground() throws Exception {
+                container.getSearchIndex();
+                return null;
+            }
+        }.execute();
+    }
+    
     protected SearchUtils.TreeHelper getSearchHelper() {
-        if (!reverse) return super.getSearchHelper();
+        if (!reverse) return new SearchUtils.TreeHelper() {
+            public int getNodeType(TreeNode node) {
+                return SearchUtils.TreeHelper.NODE_SEARCH_DOWN;
+            }
+            public SearchUtils.SubtreeFilter getSubtreeFilter(ProfilerTreeTable table, String text, boolean matchCase) {
+                return new CCTSubtreeFilter(text, matchCase);
+            }
+        };
         
         return new SearchUtils.TreeHelper() {
             public int getNodeType(TreeNode tnode) {
@@ -491,8 +491,8 @@ public abstract class LiveCPUView extends JPanel {
             popup.add(new JMenuItem(CPUView.FIND_IN_FORWARDCALLS) {
                 { setEnabled(userValue != null); }
                 protected void fireActionPerformed(ActionEvent e) {
-                    ProfilerTable table = forwardCallsView.getResultsComponent();
-                    if (SearchUtils.findString(table, searchString)) {
+                    ProfilerTreeTable table = (ProfilerTreeTable)forwardCallsView.getResultsComponent();
+                    if (SearchUtils.findString(table, searchString, true, true, forwardCallsView.getSearchHelper())) {
                         forwardCallsView.setVisible(true);
                         foundInForwardCalls();
                         table.requestFocusInWindow();
@@ -519,8 +519,8 @@ public abstract class LiveCPUView extends JPanel {
             popup.add(new JMenuItem(CPUView.FIND_IN_FORWARDCALLS) {
                 { setEnabled(userValue != null); }
                 protected void fireActionPerformed(ActionEvent e) {
-                    ProfilerTable table = forwardCallsView.getResultsComponent();
-                    if (SearchUtils.findString(table, searchString)) {
+                    ProfilerTreeTable table = (ProfilerTreeTable)forwardCallsView.getResultsComponent();
+                    if (SearchUtils.findString(table, searchString, true, true, forwardCallsView.getSearchHelper())) {
                         forwardCallsView.setVisible(true);
                         foundInForwardCalls();
                         table.requestFocusInWindow();
@@ -570,8 +570,8 @@ public abstract class SnapshotCPUView extends JPanel {
             popup.add(new JMenuItem(CPUView.FIND_IN_FORWARDCALLS) {
                 { setEnabled(userValue != null); }
                 protected void fireActionPerformed(ActionEvent e) {
-                    ProfilerTable table = forwardCallsView.getResultsComponent();
-                    if (SearchUtils.findString(table, searchString)) {
+                    ProfilerTreeTable table = (ProfilerTreeTable)forwardCallsView.getResultsComponent();
+                    if (SearchUtils.findString(table, searchString, true, true, forwardCallsView.getSearchHelper())) {
                         toggles[0].setSelected(true);
                         forwardCallsView.setVisible(true);
                         table.requestFocusInWindow();
@@ -598,8 +598,8 @@ public abstract class SnapshotCPUView extends JPanel {
             popup.add(new JMenuItem(CPUView.FIND_IN_FORWARDCALLS) {
                 { setEnabled(userValue != null); }
                 protected void fireActionPerformed(ActionEvent e) {
-                    ProfilerTable table = forwardCallsView.getResultsComponent();
-                    if (SearchUtils.findString(table, searchString)) {
+                    ProfilerTreeTable table = (ProfilerTreeTable)forwardCallsView.getResultsComponent();
+                    if (SearchUtils.findString(table, searchString, true, true, forwardCallsView.getSearchHelper())) {
                         toggles[0].setSelected(true);
                         forwardCallsView.setVisible(true);
                         table.requestFocusInWindow();
@@ -110,6 +110,9 @@ abstract class JDBCTreeTableView extends JDBCView {
         if (tables == null) tables = new HashSet();
         tables.clear();
         
+        String[][] _samples = newData.getSamplesForSelectId();
+        long[][] _sampleCounts = newData.getSampleCountsForSelectId();
+        
         for (int i = 1; i < _names.length; i++) {
             if (diff) {
                 totalObjects = Math.max(totalObjects, _nTotalAllocObjects[i]);
@@ -131,7 +134,9 @@ abstract class JDBCTreeTableView extends JDBCView {
             
             if (sqlFilter.passes(_names[i], commandString, sqlTables, statementType)) {
                 final int _i = i;
-                nodes.add(new SQLQueryNode(_names[i], _nTotalAllocObjects[i], _totalAllocObjectsSize[i], statementType, commandType, sqlTables) {
+                String[] samples = _samples == null ? null : _samples[i];
+                long[] sampleCounts = _sampleCounts == null ? null : _sampleCounts[i];
+                nodes.add(new SQLQueryNode(_names[i], _nTotalAllocObjects[i], _totalAllocObjectsSize[i], statementType, commandType, sqlTables, samples, sampleCounts) {
                     PresoObjAllocCCTNode computeChildren() { return newData.createPresentationCCT(_i, false); }
                 });
             }
@@ -146,6 +151,8 @@ abstract class JDBCTreeTableView extends JDBCView {
         renderers[1].setDiffMode(diff);
         treeTableModel.setRoot(PresoObjAllocCCTNode.rootNode(nodes.toArray(new PresoObjAllocCCTNode[0])));
 
+        sqlFilter.setStatementsSize(newData.getStatementsSize());
+
         currentData = newData;
     }
     
@@ -160,6 +167,8 @@ abstract class JDBCTreeTableView extends JDBCView {
         if (commands != null) commands.clear();
         if (tables != null) tables.clear();
 
+        sqlFilter.setStatementsSize(0);
+
         currentData = null;
     }
     
@@ -500,11 +509,15 @@ abstract class JDBCTreeTableView extends JDBCView {
         private final int statementType;
         private final int commandType;
         private final String[] tables;
-        SQLQueryNode(String className, long nTotalAllocObjects, long totalAllocObjectsSize, int statementType, int commandType, String[] tables) {
+        private final String[] samples;
+        private final long[] sampleCounts;
+        SQLQueryNode(String className, long nTotalAllocObjects, long totalAllocObjectsSize, int statementType, int commandType, String[] tables, String[] samples, long[] sampleCounts) {
             super(className, nTotalAllocObjects, totalAllocObjectsSize);
             this.statementType = statementType;
             this.commandType = commandType;
             this.tables = tables;
+            this.samples = samples;
+            this.sampleCounts = sampleCounts;
         }
         public CCTNode[] getChildren() {
             if (children == null) {
@@ -526,6 +539,10 @@ abstract class JDBCTreeTableView extends JDBCView {
         int getStatementType() { return statementType; }
         int getCommandType() { return commandType; }
         String[] getTables() { return tables; }
+        String getHtmlQuery() {
+            if (htmlName == null) htmlName = SQLFormatter.format(getNodeName());
+            return SQLFormatter.formatSamples(htmlName, samples, sampleCounts);
+        }
     }
     
 }
@@ -262,7 +262,7 @@ public abstract class LiveJDBCView extends JPanel {
     }
     
     private void showQueryImpl(PresoObjAllocCCTNode node) {
-        showSQLQuery(node.getNodeName(), ((JDBCTreeTableView.SQLQueryNode)node).htmlName);
+        showSQLQuery(node.getNodeName(), ((JDBCTreeTableView.SQLQueryNode)node).getHtmlQuery());
     }
     
     private void populatePopup(final DataView invoker, JPopupMenu popup, final Object value, final ClientUtils.SourceCodeSelection userValue) {
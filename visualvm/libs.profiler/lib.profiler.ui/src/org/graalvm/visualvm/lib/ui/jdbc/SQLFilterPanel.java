@@ -57,6 +57,7 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import org.graalvm.visualvm.lib.jfluid.results.jdbc.JdbcCCTProvider;
 import org.graalvm.visualvm.lib.profiler.api.ActionsSupport;
+import org.graalvm.visualvm.lib.ui.Formatters;
 import org.graalvm.visualvm.lib.ui.UIUtils;
 import org.graalvm.visualvm.lib.ui.swing.InvisibleToolbar;
 import org.graalvm.visualvm.lib.ui.swing.PopupButton;
@@ -84,6 +85,8 @@ abstract class SQLFilterPanel extends JPanel {
     private static final String COMMANDS_TOOLTIP = messages.getString("SQLFilterPanel_CommandsTooltip"); // NOI18N
     private static final String TABLES_TOOLTIP = messages.getString("SQLFilterPanel_TablesTooltip"); // NOI18N
     private static final String STATEMENTS_TOOLTIP = messages.getString("SQLFilterPanel_StatementsTooltip"); // NOI18N
+    private static final String STATEMENTS_SIZE = messages.getString("SQLFilterPanel_StatementsSize"); // NOI18N
+    private static final String STATEMENTS_SIZE_TOOLTIP = messages.getString("SQLFilterPanel_StatementsSizeTooltip"); // NOI18N
     // -----
     
     
@@ -92,6 +95,7 @@ abstract class SQLFilterPanel extends JPanel {
     private boolean initialized = false;
     
     private JButton applyB;
+    private JLabel sizeL;
     
     private Configuration current = new Configuration();
     private Configuration applied = new Configuration();
@@ -263,6 +267,12 @@ abstract class SQLFilterPanel extends JPanel {
         
         add(toolbar, BorderLayout.CENTER);
         
+        sizeL = new JLabel();
+        sizeL.setToolTipText(STATEMENTS_SIZE_TOOLTIP);
+        sizeL.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 6));
+        sizeL.setVisible(false);
+        add(sizeL, BorderLayout.EAST);
+        
         initialized = true;
         changed();
     }
@@ -278,6 +288,12 @@ abstract class SQLFilterPanel extends JPanel {
     }
     
     
+    void setStatementsSize(long size) {
+        sizeL.setVisible(size > 0);
+        if (size > 0) sizeL.setText(MessageFormat.format(STATEMENTS_SIZE, Formatters.bytesFormat().format(new Object[] { size })));
+    }
+    
+    
     abstract Set<String> getCommands();
     
     abstract Set<String> getTables();
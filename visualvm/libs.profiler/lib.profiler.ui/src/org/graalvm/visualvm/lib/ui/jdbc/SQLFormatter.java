@@ -25,6 +25,7 @@
 package org.graalvm.visualvm.lib.ui.jdbc;
 
 import java.awt.Color;
+import java.text.MessageFormat;
 import java.util.ResourceBundle;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,6 +42,9 @@ final class SQLFormatter {
     private static final ResourceBundle messages = ResourceBundle.getBundle("org.graalvm.visualvm.lib.ui.jdbc.Bundle"); // NOI18N
     private static final String DATABASE_PING = messages.getString("SQLFormatter_DatabasePing"); // NOI18N
 
+    private static final String SAMPLES_CAPTION = messages.getString("SQLFormatter_SamplesCaption"); // NOI18N
+    private static final String SAMPLE_COUNT = messages.getString("SQLFormatter_SampleCount"); // NOI18N
+
     private static final String PING_TEXT = " - <b>"+DATABASE_PING+"</b>";  // NOI18N
 
     private static String keywords[] = {
@@ -145,6 +149,24 @@ final class SQLFormatter {
         return formattedCommand;
     }
 
+    static String formatSamples(String htmlCommand, String[] samples, long[] counts) {
+        if (samples == null || samples.length == 0) return htmlCommand;
+        
+        StringBuilder s = new StringBuilder();
+        s.append(htmlCommand, 0, htmlCommand.length() - "</html>".length()); // NOI18N
+        s.append("<br><br><b>").append(SAMPLES_CAPTION).append("</b>"); // NOI18N
+        for (int i = 0; i < samples.length; i++) {
+            String sample = format(samples[i]);
+            s.append("<br>"); // NOI18N
+            s.append(sample, "<html>".length(), sample.length() - "</html>".length()); // NOI18N
+            s.append(" <font color='").append(getGrayHTMLString()).append("'>"); // NOI18N
+            s.append(MessageFormat.format(SAMPLE_COUNT, counts[i]));
+            s.append("</font>"); // NOI18N
+        }
+        s.append("</html>"); // NOI18N
+        return s.toString();
+    }
+
     private static String htmlize(String value) {
         return value.replace(">", "&gt;").replace("<", "&lt;");     // NOI18N
     }
@@ -162,6 +162,10 @@ public class ProfilerTreeTable extends ProfilerTable {
     }
     
     TreePath getPreviousPath(TreePath path, boolean down) { // TODO: optimize the algorithm to use 'down'
+        return getPreviousPath(path, down, null);
+    }
+    
+    TreePath getPreviousPath(TreePath path, boolean down, SearchUtils.SubtreeFilter filter) {
         TreeModel _model = model.treeModel;
         TreeNode node = (TreeNode)path.getLastPathComponent();
         TreePath parentPath = path.getParentPath();
@@ -177,7 +181,7 @@ public class ProfilerTreeTable extends ProfilerTable {
         node = (TreeNode)_model.getChild(parent, idx - 1);
         path = parentPath.pathByAddingChild(node);
 
-        if (down) while (_model.getChildCount(node) != 0) {
+        if (down) while ((filter == null || filter.mayContainMatch(node)) && _model.getChildCount(node) != 0) {
             node = (TreeNode)_model.getChild(node, _model.getChildCount(node) - 1);
             path = path.pathByAddingChild(node);
         }
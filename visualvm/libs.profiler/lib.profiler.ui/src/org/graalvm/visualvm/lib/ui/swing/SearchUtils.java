@@ -31,7 +31,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.ResourceBundle;
+import java.util.Set;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ActionMap;
@@ -146,6 +149,11 @@ public final class SearchUtils {
     }
     
     public static boolean findString(ProfilerTreeTable treeTable, String text, boolean matchCase, boolean next, TreeHelper helper) {
+        if (treeTable.getRowCount() == 0) {
+            ProfilerDialogs.displayWarning(MSG_NODATA, ACTION_FIND, null);
+            return false;
+        }
+        
         treeTable.putClientProperty(LAST_FIND_TEXT, text);
         treeTable.putClientProperty(LAST_FIND_MATCH_CASE, matchCase);
         
@@ -158,11 +166,15 @@ public final class SearchUtils {
         boolean firstPath = true;
         TreePath startPath = null;
         
+        SubtreeFilter filter = helper == null ? null : helper.getSubtreeFilter(treeTable, text, matchCase);
+        
         int nodeType = helper == null ? TreeHelper.NODE_SEARCH_DOWN : helper.getNodeType(selectedPath);
+        if (next && filter != null && !filter.mayContainMatch((TreeNode)selectedPath.getLastPathComponent()))
+            nodeType = TreeHelper.skipChildren(nodeType);
         
         do {
             selectedPath = next ? treeTable.getNextPath(selectedPath, TreeHelper.isDown(nodeType)) :
-                                  treeTable.getPreviousPath(selectedPath, TreeHelper.isDown(nodeType));
+                                  treeTable.getPreviousPath(selectedPath, TreeHelper.isDown(nodeType), filter);
             TreeNode node = (TreeNode)selectedPath.getLastPathComponent();
             
             if (helper != null) nodeType = helper.getNodeType(node);
@@ -176,8 +188,16 @@ public final class SearchUtils {
                 }
             }
             
-            if (startPath == null) startPath = selectedPath;
-            else if (firstPath) firstPath = false;
+            if (startPath == null) {
+                startPath = selectedPath;
+                // nodes on the start path must stay reachable to detect the end of search
+                if (filter != null) filter = new StartPathFilter(filter, startPath);
+            } else if (firstPath) {
+                firstPath = false;
+            }
+            
+            if (next && filter != null && !filter.mayContainMatch(node))
+                nodeType = TreeHelper.skipChildren(nodeType);
         } while (firstPath || !selectedPath.equals(startPath));
         
         ProfilerDialogs.displayInfo(MSG_NOTFOUND, ACTION_FIND, null);
@@ -447,10 +467,52 @@ public final class SearchUtils {
         
         int getNodeType(TreePath path) { return getNodeType((TreeNode)path.getLastPathComponent()); }
         
+        /**
+         * Returns a filter allowing to skip subtrees which cannot contain
+         * the searched text, their nodes are neither created nor traversed.
+         * 
+         * @param treeTable searched tree table
+         * @param text searched text, lowercase if matchCase is false
+         * @param matchCase true for case sensitive search
+         * @return filter for the search or null to search all subtrees
+         */
+        public SubtreeFilter getSubtreeFilter(ProfilerTreeTable treeTable, String text, boolean matchCase) { return null; }
+        
         static boolean isSearch(int type) { return type < 100; }
         
         static boolean isDown(int type) { return (type & 1) == 0; }
         
+        static int skipChildren(int type) { return type | 1; }
+        
+    }
+    
+    
+    public static interface SubtreeFilter {
+        
+        /**
+         * Returns false if none of the descendants of the node matches
+         * the searched text. The node itself is checked separately.
+         */
+        public boolean mayContainMatch(TreeNode node);
+        
+    }
+    
+    
+    private static final class StartPathFilter implements SubtreeFilter {
+        
+        private final SubtreeFilter filter;
+        private final Set<Object> startNodes;
+        
+        StartPathFilter(SubtreeFilter filter, TreePath startPath) {
+            this.filter = filter;
+            startNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            Collections.addAll(startNodes, startPath.getPath());
+        }
+        
+        public boolean mayContainMatch(TreeNode node) {
+            return startNodes.contains(node) || filter.mayContainMatch(node);
+        }
+        
     }
     
     
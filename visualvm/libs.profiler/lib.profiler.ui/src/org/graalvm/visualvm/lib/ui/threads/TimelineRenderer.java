@@ -101,7 +101,8 @@ public class TimelineRenderer extends BaseRenderer {
                   rowView.getPosition(rowView.getTime(i + 1))) + location.x;
         
         while (i >= 0 && xx >= 0) {
-            x = Math.max(0, rowView.getPosition(rowView.getTime(i))) + location.x;
+            int position = rowView.getPosition(rowView.getTime(i));
+            x = Math.max(0, position) + location.x;
             int ww = xx - x;
             if (ww > 0) {
                 Color c = ThreadData.getThreadStateColor(rowView.getState(i));
@@ -112,6 +113,8 @@ public class TimelineRenderer extends BaseRenderer {
                 
                 xx = x;
             }
+            // all older states are hidden by this one
+            if (position <= 0) break;
             i--;
         }
     }
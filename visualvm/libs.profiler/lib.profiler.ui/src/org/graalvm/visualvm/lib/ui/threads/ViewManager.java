@@ -332,13 +332,11 @@ public class ViewManager extends ProfilerTableContainer.ColumnChangeAdapter {
             if (i == Integer.MAX_VALUE) return i;
             
             int maxIndex = getMaxIndex();
-            int newIndex = i == Integer.MIN_VALUE ? maxIndex : i;
-            Position position = getIndexPosition(newIndex);
-            while (newIndex > 0 && Position.RIGHT.equals(position))
-                position = getIndexPosition(--newIndex);
+            int newIndex = findLastNotRight(0, i == Integer.MIN_VALUE ? maxIndex : i);
             
             // All indexes on right
-            if (Position.RIGHT.equals(position)) return Integer.MAX_VALUE;
+            if (newIndex == -1) return Integer.MAX_VALUE;
+            Position position = getIndexPosition(newIndex);
             
             // All indexes on left
             if (Position.LEFT.equals(position) && newIndex == maxIndex &&
@@ -353,14 +351,13 @@ public class ViewManager extends ProfilerTableContainer.ColumnChangeAdapter {
             if (i == Integer.MIN_VALUE) return i;
             
             int maxIndex = getMaxIndex();
-            int newIndex = i == Integer.MAX_VALUE ? 0 : i;
-            Position position = getIndexPosition(newIndex);
-            while (newIndex < maxIndex && !Position.RIGHT.equals(position))
-                position = getIndexPosition(++newIndex);
+            int startIndex = i == Integer.MAX_VALUE ? 0 : i;
+            int newIndex = findLastNotRight(startIndex, maxIndex);
             
             // First invisible inedx or all indexes on right
-            if (Position.RIGHT.equals(position))
-                return newIndex == 0 ? Integer.MAX_VALUE : newIndex - 1;
+            if (newIndex < startIndex)
+                return startIndex == 0 ? Integer.MAX_VALUE : startIndex - 1;
+            Position position = getIndexPosition(newIndex);
             
             // All indexes on left
             if (Position.LEFT.equals(position) && newIndex == maxIndex &&
@@ -370,6 +367,19 @@ public class ViewManager extends ProfilerTableContainer.ColumnChangeAdapter {
             return newIndex;
         }
         
+        // Positions grow with indexes, binary search for the last index in
+        // <from, to> which is not on right, from - 1 if there is none
+        private int findLastNotRight(int from, int to) {
+            int low = from;
+            int high = to;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (Position.RIGHT.equals(getIndexPosition(mid))) high = mid - 1;
+                else low = mid + 1;
+            }
+            return high;
+        }
+        
         private Position getIndexPosition(int index) {
             int position = getPosition(getTime(index)) - offset;
             if (position < 0) return Position.LEFT;
@@ -116,7 +116,7 @@ public class ProfilerClient implements CommonConstants {
                             byte[] buf = EventBufferProcessor.readDataAndPrepareForProcessing(bufferDumpedCmd);
                             
                             EventBufferResultsProvider.getDefault().dataReady(buf, getCurrentInstrType());
-                            sendSimpleRespToServer(true, null);
+                            acknowledgeEventBuffer(bufferDumpedCmd);
 
                             break;
                         case Command.CLASS_LOADER_UNLOADING:
@@ -1233,7 +1233,8 @@ public class ProfilerClient implements CommonConstants {
                                                                                   settings.getExcludeWaitTime(),
                                                                                   settings.getExcludeWaitTime(),
                                                                                   settings.isThreadsSamplingEnabled(),
-                                                                                  settings.getSamplingFrequency());
+                                                                                  settings.getSamplingFrequency(),
+                                                                                  settings.isGroupVirtualThreads());
 
         String errorMessage = sendCommandAndGetResponse(cmd);
 
@@ -1960,7 +1961,7 @@ public class ProfilerClient implements CommonConstants {
         int bufSize = cmd.getBufSize();
 
         if (bufSize == 0) { // zero size may happen when dump is forced when there is actually no new information generated
-            sendSimpleRespToServer(true, null);
+            acknowledgeEventBuffer(cmd);
 
             return;
         }
@@ -1991,11 +1992,20 @@ public class ProfilerClient implements CommonConstants {
             byte[] buf = EventBufferProcessor.readDataAndPrepareForProcessing(cmd);
             EventBufferResultsProvider.getDefault().dataReady(buf, getCurrentInstrType());
             handlingEventBufferDump = false;
-            sendSimpleRespToServer(true, null);
+            acknowledgeEventBuffer(cmd);
             forceObtainedResultsDumpCalled = false;
         }
     }
 
+    /** Pipelined buffers are acknowledged by their sequence id, the others by a simple response the server waits for */
+    private void acknowledgeEventBuffer(EventBufferDumpedCommand cmd) {
+        if (cmd.getSequenceId() > 0) {
+            sendComplexRespToServer(new EventBufferAckResponse(cmd.getSequenceId()));
+        } else {
+            sendSimpleRespToServer(true, null);
+        }
+    }
+
     /**
      * @param cmd Command to send
      * @return null if command was confirmed OK from Agent, Error message otherwise
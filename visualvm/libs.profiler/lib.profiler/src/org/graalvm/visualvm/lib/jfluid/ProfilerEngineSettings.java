@@ -87,6 +87,8 @@ public final class ProfilerEngineSettings implements CommonConstants, Cloneable
     private boolean threadsMonitoringEnabled;
     private boolean lockContentionMonitoringEnabled;
     private boolean threadsSamplingEnabled;
+    private boolean groupVirtualThreads;
+    private boolean aggregateSQL;
     private int allocStackTraceLimit = -5; // Negative number means full (unlimited) depth actually used, although the limit is preserved
     private int allocTrackEvery = 10;
     private int architecture; // system architecture 32bit/64bit
@@ -441,6 +443,30 @@ public final class ProfilerEngineSettings implements CommonConstants, Cloneable
         return threadsSamplingEnabled;
     }
 
+    /**
+     * When set, results of virtual threads are collected for a bounded number of logical threads, each of them
+     * reused by consecutive virtual threads, rather than for each virtual thread separately.
+     */
+    public void setGroupVirtualThreads(boolean b) {
+        groupVirtualThreads = b;
+    }
+
+    public boolean isGroupVirtualThreads() {
+        return groupVirtualThreads;
+    }
+
+    /**
+     * When set, JDBC statements differing only in literal values or comments are aggregated by their
+     * normalized SQL text, keeping a bounded number of the most frequent concrete statements as samples.
+     */
+    public void setAggregateSQL(boolean b) {
+        aggregateSQL = b;
+    }
+
+    public boolean isAggregateSQL() {
+        return aggregateSQL;
+    }
+
     public void setVMClassPaths(String javaClassPath, String javaExtDirs, String bootClassPath) {
         vmClassPaths[0] = MiscUtils.getLiveClassPathSubset(javaClassPath, getWorkingDir());
         vmClassPaths[1] = javaExtDirs;
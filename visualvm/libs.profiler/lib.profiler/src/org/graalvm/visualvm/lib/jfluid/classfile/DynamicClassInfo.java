@@ -74,6 +74,7 @@ public class DynamicClassInfo extends ClassInfo {
                                    // When we add entries to cpool for a particular injection type, its size before entries are added (base count) is stored
                                    // in this array's element corresponding to this injection type number (e.g. INJ_RECURSIVE_NORMAL_METHOD or INJ_CODE_REGION).
     private int nInstrumentedMethods;
+    private byte[] pinnedClassFileBytes; // Set while the class is being rewritten off the thread that owns the class file cache
     ClassPath classPath;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
@@ -127,9 +128,27 @@ public class DynamicClassInfo extends ClassInfo {
     }
 
     public byte[] getClassFileBytes() throws IOException {
+        byte[] pinned = pinnedClassFileBytes;
+
+        if (pinned != null) {
+            return pinned;
+        }
         return classPath.getClassFile(name, classFileLocation);
     }
 
+    /**
+     * Fetches the class file bytes and keeps them in this class info until {@link #unpinClassFileBytes()} is called.
+     * While pinned, the class can be instrumented and rewritten on another thread without touching the class file cache,
+     * which is not multithread-safe and may have to ask the profiled VM for the bytes.
+     */
+    public void pinClassFileBytes() throws IOException {
+        pinnedClassFileBytes = classPath.getClassFile(name, classFileLocation);
+    }
+
+    public void unpinClassFileBytes() {
+        pinnedClassFileBytes = null;
+    }
+
     public String getClassFileLocation() {
         return classFileLocation;
     } // TODO CHECK: unused method
@@ -163,6 +163,7 @@ public interface CommonConstants {
     public static final byte THREAD_INFO_IDENTICAL = 33;
     public static final byte THREAD_INFO = 34;
     public static final byte MARKER_ENTRY_PARAMETERS = 35;
+    public static final byte OBJ_ALLOC_STACK_TRACE_AGGREGATED = 36;
 
     // The following are used when storing unstamped method entry/exit events in the "compact" format, when both
     // event code and method id are packed in a single char. See more comments in ProfilerRuntimeCPUSampledInstr.java
@@ -317,5 +318,8 @@ public interface CommonConstants {
     public static final int AGENT_VERSION_90 = 18;
     public static final int AGENT_VERSION_VISUALVM_20 = 19;
     public static final int AGENT_VERSION_VISUALVM_206 = 20;
-    public static final int CURRENT_AGENT_VERSION = AGENT_VERSION_VISUALVM_206;
+    public static final int AGENT_VERSION_VISUALVM_21 = 21;
+    public static final int AGENT_VERSION_VISUALVM_211 = 22;
+    public static final int AGENT_VERSION_VISUALVM_212 = 23;
+    public static final int CURRENT_AGENT_VERSION = AGENT_VERSION_VISUALVM_212;
 }
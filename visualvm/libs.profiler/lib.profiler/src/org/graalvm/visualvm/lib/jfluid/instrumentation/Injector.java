@@ -115,19 +115,24 @@ public abstract class Injector extends SingleMethodScaner {
 
     // Increment to possible stack depth -- two instrumentation arguments
     private static final int STACK_INCREMENT = 2;
-    private static Stack changes = new Stack(); // Stack of additional changes to bytecodes that may be caused by our main injection change
-    private static byte[] _overwrite = new byte[3]; // Stores overwritten bytes for shrunken instructions
 
-    // The following array is re-used,to avoid excessive object allocations - which means that the class is not multi thread safe
-    private static byte[] reusableExcTable = new byte[100];
+    // The following array is re-used per thread, to avoid excessive object allocations
+    private static final ThreadLocal<byte[]> reusableExcTable = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[100];
+        }
+    };
 
-    // ProfilerRuntime.profilePointHit instrumentation
-    private static final byte[] injProfilePointHitCode = new byte[] { opc_sipush, 0, 0, (byte) opc_invokestatic, 0, 0, 0, 0 };
     private static final int injProfilePointHitIDCodeIdx = 1;
     private static final int injProfilePointHitMethodIdx = 4;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
+    // ProfilerRuntime.profilePointHit instrumentation, patched for each point, hence per injector
+    private final byte[] injProfilePointHitCode = new byte[] { opc_sipush, 0, 0, (byte) opc_invokestatic, 0, 0, 0, 0 };
+    private final Stack<ChangeItem> changes = new Stack<>(); // Stack of additional changes to bytecodes that may be caused by our main injection change
+    private final byte[] _overwrite = new byte[3]; // Stores overwritten bytes for shrunken instructions
+
     protected byte[] exceptionTable; // Current updateable copy of exception table (what is in MethodInfo Code attribute after exception_table_length)
     protected int baseCPoolCount; // The "base" constant pool index, after which the set of entries containing the calls that
                                   // we inject, plus supporting entries, are located.
@@ -369,7 +374,7 @@ public abstract class Injector extends SingleMethodScaner {
     /** If a change item is recorded for bci, with the same is_lookup_switch flag value, returns the associated padding, else -1. */
     private int getOrigSwitchPadding(int bci, boolean isLookupSwitch) {
         for (int k = 0; k < changes.size(); k++) {
-            ChangeItem ci = (ChangeItem) changes.elementAt(k);
+            ChangeItem ci = changes.elementAt(k);
 
             if (ci instanceof ChangeSwitchPadding) {
                 ChangeSwitchPadding csp = (ChangeSwitchPadding) ci;
@@ -527,7 +532,7 @@ public abstract class Injector extends SingleMethodScaner {
     private void handleCodeChanges() {
         while (!changes.empty()) {
             // Inv: everything is aligned.
-            ChangeItem ci = (ChangeItem) changes.pop();
+            ChangeItem ci = changes.pop();
             ci.handleCodeChange(this);
         }
     }
@@ -570,12 +575,15 @@ public abstract class Injector extends SingleMethodScaner {
 
         int len = excTableEntryCount * 8;
 
-        if (reusableExcTable.length < (len + 40)) {
-            reusableExcTable = new byte[(len * 2) + 40]; // Can add at least 8*5 = 40 entries.
+        byte[] buf = reusableExcTable.get();
+
+        if (buf.length < (len + 40)) {
+            buf = new byte[(len * 2) + 40]; // Can add at least 8*5 = 40 entries.
+            reusableExcTable.set(buf);
         }
 
-        System.arraycopy(origMethodInfo, startOfs + 2, reusableExcTable, 0, len);
-        exceptionTable = reusableExcTable;
+        System.arraycopy(origMethodInfo, startOfs + 2, buf, 0, len);
+        exceptionTable = buf;
     }
 
     private void injectProfilePointHit(RuntimeProfilingPoint point, int bci, int ppHitCPMethodIdx) {
@@ -663,7 +671,7 @@ public abstract class Injector extends SingleMethodScaner {
 
         // Relocate the bcis of changes in the pending change stack
         for (int j = 0; j < changes.size(); j++) {
-            ChangeItem ci = (ChangeItem) changes.elementAt(j);
+            ChangeItem ci = changes.elementAt(j);
             ci.relocate(bci, delta);
         }
     }
@@ -43,19 +43,19 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
     // Stuff used for rootEntry(char), methodEntry(char), and methodExit(char) injection interchangeably
-    protected static byte[] injCode1;
+    private static byte[] injCodeTemplate1;
     protected static int injCodeLen1;
     protected static int injCodeMethodIdxPos1;
     protected static int injCodeMethodIdPos1;
 
     // Stuff used for the equivalent of try { .. } catch (Throwable ex) { methodExit(methodId); throw ex; } around the whole method
-    protected static byte[] injCode2;
+    private static byte[] injCodeTemplate2;
     protected static int injCodeLen2;
     protected static int injCodeMethodIdxPos2;
     protected static int injCodeMethodIdPos2;
 
     // Stuff used for markerMethodExit(Object, char) injection
-    protected static byte[] injCode3;
+    private static byte[] injCodeTemplate3;
     protected static int injCodeLen3;
     protected static int injCodeMethodIdxPos3;
     protected static int injCodeMethodIdPos3;
@@ -65,6 +65,12 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
     }
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    // Copies of the above templates, patched with methodId and method index of this injector
+    protected final byte[] injCode1 = injCodeTemplate1.clone();
+    protected final byte[] injCode2 = injCodeTemplate2.clone();
+    protected final byte[] injCode3 = injCodeTemplate3.clone();
+
     protected int baseRootCPoolCount; // cpool base for root method type injection cpool fragment
     protected int injType; // INJ_RECURSIVE_NORMAL_METHOD, INJ_RECURSIVE_ROOT_METHOD, or same with _SAMPLED_ added
     protected int methodId; // methodId (char parameter value) that methodEntry(methodId) etc. should be invoked with
@@ -109,7 +115,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         // Injection for methodEntry(char methodId) (rootMethodEntry(char methodId)) and methodExit(char methodId)
         // the length of the injected code is extended to 8, to avoid worrying about switch statement 4-byte alignment
         injCodeLen1 = 8;
-        injCode1 = new byte[injCodeLen1];
+        byte[] injCode1 = new byte[injCodeLen1];
         injCode1[0] = (byte) opc_sipush;
         // Positions 1, 2 are occupied by methodId
         injCodeMethodIdPos1 = 1;
@@ -121,7 +127,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         // Injection for the whole-method all-exceptions try - catch
         // We do not need to worry about 4-byte alignment since this always goes to the end of a method
         injCodeLen2 = 9;
-        injCode2 = new byte[injCodeLen2];
+        byte[] injCode2 = new byte[injCodeLen2];
         injCode2[0] = (byte) opc_astore_1;
         injCode2[1] = (byte) opc_sipush;
         // Positions 2, 3 are occupied by methodId
@@ -133,7 +139,7 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         injCode2[8] = (byte) opc_athrow;
 
         injCodeLen3 = 8;
-        injCode3 = new byte[injCodeLen3];
+        byte[] injCode3 = new byte[injCodeLen3];
         injCode3[0] = (byte) opc_dup;
         injCode3[1] = (byte) opc_sipush;
         // Positions 2, 3 are occupied by methodId
@@ -142,6 +148,10 @@ class MethodEntryExitCallsInjector extends Injector implements CommonConstants {
         // Positions 5, 6 are occupied by method index
         injCodeMethodIdxPos3 = 5;
         injCode3[7] = (byte) opc_nop;
+
+        injCodeTemplate1 = injCode1;
+        injCodeTemplate2 = injCode2;
+        injCodeTemplate3 = injCode3;
     }
 
     /**
@@ -25,11 +25,15 @@
 
 package org.graalvm.visualvm.lib.jfluid.instrumentation;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.graalvm.visualvm.lib.jfluid.ProfilerEngineSettings;
 import org.graalvm.visualvm.lib.jfluid.classfile.BaseClassInfo;
 import org.graalvm.visualvm.lib.jfluid.classfile.ClassRepository;
@@ -79,6 +83,131 @@ public abstract class RecursiveMethodInstrumentor extends ClassManager {
         }
     }
 
+    /**
+     * Instrumentation and rewriting of one class, whose methods were already assigned their ids. Touches only the class
+     * itself, so different classes can be rewritten concurrently.
+     */
+    private final class ClassRewrite implements Runnable {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        final DynamicClassInfo clazz;
+        final RuntimeProfilingPoint[][] points; // Profiling points of methods to instrument, null for untouched methods
+        final boolean hasMarkerMethods;
+        final boolean hasRootMethods;
+        final byte[][] replacementClassFileBytes;
+        final byte[][] replacementMethodInfos;
+        final int[] methodIds; // -1 for methods only instrumented for profiling points
+        final int classIdx;
+        int imInClass;
+
+        //~ Constructors ---------------------------------------------------------------------------------------------------------
+
+        ClassRewrite(DynamicClassInfo clazz, int classIdx, byte[][] replacementClassFileBytes) {
+            int nMethods = clazz.getMethodNames().length;
+
+            this.clazz = clazz;
+            this.classIdx = classIdx;
+            this.replacementClassFileBytes = replacementClassFileBytes;
+            hasRootMethods = clazz.hasUninstrumentedRootMethods();
+            hasMarkerMethods = clazz.hasUninstrumentedMarkerMethods();
+            replacementMethodInfos = new byte[nMethods][];
+            points = new RuntimeProfilingPoint[nMethods][];
+            methodIds = new int[nMethods];
+            Arrays.fill(methodIds, -1);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
+
+        boolean pin() {
+            try {
+                clazz.pinClassFileBytes();
+
+                return true;
+            } catch (IOException ex) {
+                return false; // Will be rewritten on the calling thread, which reports the problem
+            }
+        }
+
+        public void run() {
+            for (int i = 0; i < points.length; i++) {
+                if (points[i] == null) {
+                    continue;
+                }
+
+                if (methodIds[i] != -1) {
+                    replacementMethodInfos[i] = InstrumentationFactory.instrumentMethod(clazz, i, normalInjectionType,
+                                                                                        rootInjectionType,
+                                                                                        markerInjectionType, methodIds[i],
+                                                                                        points[i]);
+                } else {
+                    replacementMethodInfos[i] = InstrumentationFactory.instrumentAsProiflePointHitMethod(clazz, i,
+                                                                                                         normalInjectionType,
+                                                                                                         points[i]);
+                }
+                clazz.saveMethodInfo(i, replacementMethodInfos[i]);
+            }
+
+            instrumentServletDoMethods(clazz, replacementMethodInfos);
+
+            if (imInClass > 0) {
+                if (hasRootMethods) {
+                    clazz.setHasUninstrumentedRootMethods(false);
+                }
+
+                if (hasMarkerMethods) {
+                    clazz.setHasUninstrumentedMarkerMethods(false);
+                }
+
+                DynamicConstantPoolExtension wholeECP = DynamicConstantPoolExtension.getAllAddedCPFragments(clazz);
+                int nAddedCPEntries = wholeECP.getNEntries();
+                byte[] addedCPContents = wholeECP.getContents();
+                replacementClassFileBytes[classIdx] = ClassRewriter.rewriteClassFile(clazz, replacementMethodInfos,
+                                                                                     nAddedCPEntries, addedCPContents);
+            }
+        }
+    }
+
+    /** Splits an array of class rewrites between workers of a fork/join pool */
+    private static final class ParallelClassRewrite extends RecursiveAction {
+        //~ Static fields/initializers -------------------------------------------------------------------------------------------
+
+        private static final long serialVersionUID = 1L;
+
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        private final ClassRewrite[] rewrites;
+        private final int from;
+        private final int to;
+
+        //~ Constructors ---------------------------------------------------------------------------------------------------------
+
+        ParallelClassRewrite(ClassRewrite[] rewrites, int from, int to) {
+            this.rewrites = rewrites;
+            this.from = from;
+            this.to = to;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
+
+        protected void compute() {
+            if ((to - from) <= PARALLEL_REWRITE_GRANULARITY) {
+                for (int i = from; i < to; i++) {
+                    rewrites[i].run();
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParallelClassRewrite(rewrites, from, mid), new ParallelClassRewrite(rewrites, mid, to));
+            }
+        }
+    }
+
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    // Minimum number of classes in one instrumentation round to rewrite them in parallel; smaller rounds aren't worth the handoff
+    private static final int PARALLEL_REWRITE_THRESHOLD = Integer.getInteger(
+            "org.graalvm.visualvm.lib.jfluid.parallelRewriteThreshold", 32).intValue(); // NOI18N
+    private static final int PARALLEL_REWRITE_GRANULARITY = 4;
+
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     protected Map instrClasses = new HashMap();
@@ -467,27 +596,32 @@ public abstract class RecursiveMethodInstrumentor extends ClassManager {
         int methodId = status.getStartingMethodId();
         int classIdx = 0;
         int methodIdx = 0;
-
+        boolean parallel = (instrClasses.size() >= PARALLEL_REWRITE_THRESHOLD) && (ForkJoinPool.getCommonPoolParallelism() > 1)
+                           && !Boolean.getBoolean("org.graalvm.visualvm.lib.jfluid.servletTracking"); // NOI18N
+        List<ClassRewrite> parallelRewrites = parallel ? new ArrayList<ClassRewrite>(instrClasses.size()) : null;
+
+        // Method ids, instrumentation status and constant pool layout are assigned here, sequentially and in a stable order.
+        // Bytecode injection and class file rewriting only touch the class itself, so for large batches it is done afterwards
+        // on the common fork/join pool. Call graph scanning that selects instrClasses stays sequential, since it mutates the
+        // shared ClassRepository and the reachability flags; the rewritten classes are still sent to the agent in a single
+        // InstrumentMethodGroupResponse, as streaming them in chunks would need a change of the wire protocol.
         for (Iterator e = instrClasses.values().iterator(); e.hasNext();) {
             DynamicClassInfo clazz = (DynamicClassInfo) e.next();
             int nMethods = clazz.getMethodNames().length;
             instrMethodClasses[classIdx] = clazz.getName().replace('/', '.').intern(); // NOI18N
             instrClassLoaderIds[classIdx] = clazz.getLoaderId();
 
-            boolean hasRootMethods = clazz.hasUninstrumentedRootMethods();
-            boolean hasMarkerMethods = clazz.hasUninstrumentedMarkerMethods();
+            ClassRewrite rewrite = new ClassRewrite(clazz, classIdx, replacementClassFileBytes);
             DynamicConstantPoolExtension.getCPFragment(clazz, normalInjectionType);
 
-            if (hasRootMethods) {
+            if (rewrite.hasRootMethods) {
                 DynamicConstantPoolExtension.getCPFragment(clazz, rootInjectionType);
             }
 
-            if (hasMarkerMethods) {
+            if (rewrite.hasMarkerMethods) {
                 DynamicConstantPoolExtension.getCPFragment(clazz, markerInjectionType);
             }
 
-            int imInClass = 0;
-            byte[][] replacementMethodInfos = new byte[nMethods][];
             RuntimeProfilingPoint[] pointsForClass = getRuntimeProfilingPoints(engineSettings.getRuntimeProfilingPoints(), clazz);
 
             //System.err.println("CLazz: "+clazz.getName());
@@ -505,47 +639,40 @@ public abstract class RecursiveMethodInstrumentor extends ClassManager {
                         clazz.setMethodInstrumented(i);
                         instrMethodLeaf[methodIdx] = clazz.isMethodLeaf(i);
                         //System.err.println(">>>1 For method " + clazz.getName() + "." + clazz.getMethodName(i) + clazz.getMethodSignature(i) + " gonna use methodId = " + methodId);
-                        replacementMethodInfos[i] = InstrumentationFactory.instrumentMethod(clazz, i, normalInjectionType,
-                                                                                            rootInjectionType,
-                                                                                            markerInjectionType, methodId++,
-                                                                                            points);
-                        clazz.saveMethodInfo(i, replacementMethodInfos[i]);
-
+                        rewrite.methodIds[i] = methodId++;
+                        rewrite.points[i] = points;
                         status.updateInstrMethodsInfo(instrMethodClasses[classIdx], instrClassLoaderIds[classIdx],
                                                       clazz.getMethodNames()[i], clazz.getMethodSignatures()[i]);
-                        imInClass++;
+                        rewrite.imInClass++;
                         methodIdx++;
                     } else if (points.length > 0) {
-                        replacementMethodInfos[i] = InstrumentationFactory.instrumentAsProiflePointHitMethod(clazz, i,
-                                                                                                             normalInjectionType,
-                                                                                                             points);
-                        clazz.saveMethodInfo(i, replacementMethodInfos[i]);
-                        imInClass++;
+                        rewrite.points[i] = points;
+                        rewrite.imInClass++;
                     }
                 } else {
-                    replacementMethodInfos[i] = clazz.getMethodInfo(i); // Will return the previously instrumented methodInfo
-                    imInClass++;
+                    rewrite.replacementMethodInfos[i] = clazz.getMethodInfo(i); // Will return the previously instrumented methodInfo
+                    rewrite.imInClass++;
                 }
             }
 
-            instrumentServletDoMethods(clazz, replacementMethodInfos);
+            if (parallel && rewrite.pin()) {
+                parallelRewrites.add(rewrite);
+            } else {
+                rewrite.run();
+            }
+            classIdx++;
+        }
 
-            if (imInClass > 0) {
-                if (hasRootMethods) {
-                    clazz.setHasUninstrumentedRootMethods(false);
-                }
+        if (parallel && !parallelRewrites.isEmpty()) {
+            ClassRewrite[] rewrites = parallelRewrites.toArray(new ClassRewrite[0]);
 
-                if (hasMarkerMethods) {
-                    clazz.setHasUninstrumentedMarkerMethods(false);
+            try {
+                ForkJoinPool.commonPool().invoke(new ParallelClassRewrite(rewrites, 0, rewrites.length));
+            } finally {
+                for (int i = 0; i < rewrites.length; i++) {
+                    rewrites[i].clazz.unpinClassFileBytes();
                 }
-
-                DynamicConstantPoolExtension wholeECP = DynamicConstantPoolExtension.getAllAddedCPFragments(clazz);
-                int nAddedCPEntries = wholeECP.getNEntries();
-                byte[] addedCPContents = wholeECP.getContents();
-                replacementClassFileBytes[classIdx] = ClassRewriter.rewriteClassFile(clazz, replacementMethodInfos,
-                                                                                     nAddedCPEntries, addedCPContents);
             }
-            classIdx++;
         }
 
         if (!reflectInvokeInstrumented) { // Special instrumentation of java.lang.reflect.Method.invoke()
@@ -36,8 +36,14 @@ import org.graalvm.visualvm.lib.jfluid.classfile.ClassInfo;
 public class SingleMethodScaner implements JavaClassConstants {
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
-    // The following array is re-used,to avoid excessive object allocations - which means that THIS CLASS IS NOT MULTITHREAD-SAFE!
-    private static byte[] reusableBytecodes = new byte[100];
+    // The following array is re-used per thread, to avoid excessive object allocations. Scanners running on different threads
+    // (see parallel class rewriting in RecursiveMethodInstrumentor) thus don't interfere, but only one scanner per thread may
+    // be active at a time.
+    private static final ThreadLocal<byte[]> reusableBytecodes = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[100];
+        }
+    };
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -173,12 +179,15 @@ public class SingleMethodScaner implements JavaClassConstants {
     }
 
     protected void initBytecodesArray() {
-        if (reusableBytecodes.length < (bytecodesLength * 8)) {
-            reusableBytecodes = new byte[bytecodesLength * 8];
+        byte[] buf = reusableBytecodes.get();
+
+        if (buf.length < (bytecodesLength * 8)) {
+            buf = new byte[bytecodesLength * 8];
+            reusableBytecodes.set(buf);
         }
 
-        System.arraycopy(origMethodInfo, bytecodesStartIdx, reusableBytecodes, 0, bytecodesLength);
-        bytecodes = reusableBytecodes;
+        System.arraycopy(origMethodInfo, bytecodesStartIdx, buf, 0, bytecodesLength);
+        bytecodes = buf;
     }
 
     protected void putInt(int pos, int value) {
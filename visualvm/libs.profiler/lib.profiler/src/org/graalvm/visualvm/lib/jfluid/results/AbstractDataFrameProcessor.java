@@ -26,7 +26,6 @@
 package org.graalvm.visualvm.lib.jfluid.results;
 
 import java.nio.ByteBuffer;
-import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.logging.Level;
@@ -56,7 +55,7 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
 
     protected volatile ProfilerClient client = null;
     protected volatile boolean collectingTwoTimeStamps;
-    private final Set listeners = new CopyOnWriteArraySet();
+    private final Set<ProfilingResultListener> listeners = new CopyOnWriteArraySet<>();
 
     // @GuardedBy this
     private boolean processorLives = false;
@@ -91,8 +90,8 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
     }
 
     public void removeAllListeners() {
-        for (Iterator iter = listeners.iterator(); iter.hasNext();) {
-            ((ProfilingResultListener) iter.next()).shutdown();
+        for (ProfilingResultListener listener : listeners) {
+            listener.shutdown();
         }
         listeners.clear();
     }
@@ -122,6 +121,10 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
 
     protected abstract void doProcessDataFrame(ByteBuffer buffer);
 
+    protected Set<ProfilingResultListener> getListeners() {
+        return listeners;
+    }
+
     protected static long getTimeStamp(ByteBuffer buffer) {
         long timestamp = (((long) buffer.get() & 0xFF) << 48) | (((long) buffer.get() & 0xFF) << 40)
                          | (((long) buffer.get() & 0xFF) << 32) | (((long) buffer.get() & 0xFF) << 24)
@@ -155,8 +158,8 @@ public abstract class AbstractDataFrameProcessor implements DataFrameProcessor {
     }
 
     protected void foreachListener(ListenerFunctor functor) {
-        for (Iterator iter = listeners.iterator(); iter.hasNext();) {
-            functor.execute((ProfilingResultListener) iter.next());
+        for (ProfilingResultListener listener : listeners) {
+            functor.execute(listener);
         }
     }
 
@@ -52,7 +52,8 @@ public abstract class BaseCallGraphBuilder implements ProfilingResultListener, C
     protected ProfilingSessionStatus status;
     protected final Set cctListeners = new CopyOnWriteArraySet();
     protected WeakReference clientRef;
-    protected boolean batchNotEmpty = false;
+    // Written also by the threads applying per-thread events in parallel, see CPUDataFrameProcessor
+    protected volatile boolean batchNotEmpty = false;
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -143,6 +144,16 @@ public abstract class BaseCallGraphBuilder implements ProfilingResultListener, C
 
     protected abstract void doStartup(ProfilerClient profilerClient);
 
+    /**
+     * Marks the current batch as not empty. Avoids the volatile write once the flag has already been set,
+     * so that it is cheap to call for every event.
+     */
+    protected final void markBatchNotEmpty() {
+        if (!batchNotEmpty) {
+            batchNotEmpty = true;
+        }
+    }
+
     protected ProfilerClient getClient() {
         if (clientRef == null) {
             return null;
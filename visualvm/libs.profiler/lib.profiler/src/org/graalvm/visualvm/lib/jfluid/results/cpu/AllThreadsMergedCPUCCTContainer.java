@@ -55,6 +55,13 @@ public class AllThreadsMergedCPUCCTContainer extends CPUCCTContainer {
         this.view = view;
         collectingTwoTimeStamps = cpuResSnapshot.isCollectingTwoTimeStamps();
 
+        for (PrestimeCPUCCTNode rootNodeSubNode : rootNodeSubNodes) {
+            CPUCCTContainer childContainer = rootNodeSubNode.getContainer();
+            if (childContainer != null && childContainer.signedTimes) {
+                signedTimes = true;
+            }
+        }
+
         compactData = new byte[OFS_SUBNODE02];
         setNCallsForNodeOfs(0, 1); // 1 call for "All threads" node looks more logical than 0 calls
         rootNode = new PrestimeCPUCCTNodeBacked(this, rootNodeSubNodes);
@@ -60,6 +60,7 @@ public class CPUCCTClassContainer extends CPUCCTContainer {
         this.childOfsSize = CHILD_OFS_SIZE_3;
 
         collectingTwoTimeStamps = sourceContainer.collectingTwoTimeStamps;
+        signedTimes = sourceContainer.signedTimes;
         nodeSize = sourceContainer.nodeSize;
 
         compactData = new byte[sourceContainer.compactData.length]; // Initially create a same-sized array - should be more than enough
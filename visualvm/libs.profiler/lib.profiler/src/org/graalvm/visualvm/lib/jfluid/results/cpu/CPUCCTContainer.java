@@ -99,6 +99,7 @@ public class CPUCCTContainer {
     protected Set methodsOnStack;
     protected boolean collectingTwoTimeStamps; // True if we collect two timestamps, absolute and thread CPU, for each method invocation
     protected boolean displayWholeThreadCPUTime; // True if we can calculate, and thus display, valid whole thread CPU time
+    protected boolean signedTimes; // True if the 5 byte times are differences that may be negative, see CPUCCTMerger.diff()
 
     // Time spent in instrumentation, measured in counts
     protected double timeInInjectedCodeInAbsCounts;
@@ -125,6 +126,7 @@ public class CPUCCTContainer {
     protected long wholeGraphPureTimeThreadCPU;
     private InstrumentationFilter filter;
     private PrestimeCPUCCTNodeFree reverseCCTRootNode;
+    private volatile CPUCCTSearchIndex searchIndex;
 //    private ProfilingSessionStatus status;
     private int[] nodeStack;
     private int childTotalNCalls;
@@ -225,6 +227,31 @@ public class CPUCCTContainer {
         return rootNode;
     }
 
+    /**
+     * Returns search index of the CCT, creates it on first call. Creating the index requires a pass over the whole
+     * compact data, should not be invoked in EDT.
+     */
+    public CPUCCTSearchIndex getSearchIndex() {
+        CPUCCTSearchIndex index = searchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = searchIndex;
+                if (index == null) {
+                    index = new CPUCCTSearchIndex(this);
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns true if the search index has already been created.
+     */
+    public boolean hasSearchIndex() {
+        return searchIndex != null;
+    }
+
     public long getSelfTime0ForNodeOfs(int nodeOfs) {
         return get5Bytes(nodeOfs + OFS_SELFTIME0);
     }
@@ -295,6 +322,7 @@ public class CPUCCTContainer {
 
         int len = in.readInt();
         compactData = new byte[len];
+        searchIndex = null;
 
         if (compactData.length > 0xFFFFFF) {
             childOfsSize = CHILD_OFS_SIZE_4;
@@ -326,6 +354,11 @@ public class CPUCCTContainer {
 
     // -- Serialization support
     public void writeToStream(DataOutputStream out) throws IOException {
+        if (signedTimes) {
+            // the stored format has no sign of the 5 byte times
+            throw new IOException("Cannot save a snapshot with negative times of thread " + threadName); // NOI18N
+        }
+
         out.writeInt(threadId);
         out.writeUTF(threadName);
 
@@ -508,9 +541,11 @@ public class CPUCCTContainer {
     }
 
     protected long get5Bytes(int ofs) {
-        return (((long) compactData[ofs++] & 0xFF) << 32) | (((long) compactData[ofs++] & 0xFF) << 24)
+        long val = (((long) compactData[ofs++] & 0xFF) << 32) | (((long) compactData[ofs++] & 0xFF) << 24)
                | (((long) compactData[ofs++] & 0xFF) << 16) | (((long) compactData[ofs++] & 0xFF) << 8)
                | ((long) compactData[ofs++] & 0xFF);
+
+        return signedTimes ? ((val << 24) >> 24) : val;
     }
 
     protected FlatProfileContainer postGenerateFlatProfile() {
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.cpu;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Merges and diffs CPU snapshots directly on the compact data of their CPUCCTContainers.
+ * Method ids of the snapshots are aligned by class name, method name and signature provided by a MethodInfoMapper
+ * of each snapshot, threads are aligned by name. Containers of the same-named threads are merged in parallel, each
+ * into a new compact container, without creating any PrestimeCPUCCTNode instances. The memory needed is bounded
+ * by the size of the compact data of the source snapshots.
+ * Only the method-level data are merged, class- and package-level views are created by the resulting snapshot
+ * on demand as usual.
+ */
+public final class CPUCCTMerger {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int MAX_METHOD_ID = 0xFFFF; // method ids are stored in 2 bytes in compact data
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    private CPUCCTMerger() {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Merges the snapshots into a new snapshot. Times and invocation counts of the same call paths in the same-named
+     * threads are added together.
+     *
+     * @param snapshots snapshots to merge, for example from several instances of an application or several time windows
+     * @return new snapshot containing the merged data
+     * @throws CPUResultsSnapshot.NoDataAvailableException if the snapshots contain no threads
+     * @throws InterruptedException if interrupted while waiting for the merge of thread data
+     */
+    public static CPUResultsSnapshot merge(CPUResultsSnapshot... snapshots)
+            throws CPUResultsSnapshot.NoDataAvailableException, InterruptedException {
+        int[] weights = new int[snapshots.length];
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1;
+        }
+
+        return combine(snapshots, weights);
+    }
+
+    /**
+     * Computes a difference of two snapshots as a new snapshot, values of snapshot1 are subtracted from values
+     * of snapshot2. Times of the resulting snapshot may be negative, the snapshot is intended for presentation only
+     * and CPUResultsSnapshot.writeToStream() refuses to save it.
+     *
+     * @param snapshot1 the base snapshot
+     * @param snapshot2 the compared snapshot
+     * @return new snapshot containing the differences
+     * @throws CPUResultsSnapshot.NoDataAvailableException if the snapshots contain no threads
+     * @throws InterruptedException if interrupted while waiting for the diff of thread data
+     */
+    public static CPUResultsSnapshot diff(CPUResultsSnapshot snapshot1, CPUResultsSnapshot snapshot2)
+            throws CPUResultsSnapshot.NoDataAvailableException, InterruptedException {
+        return combine(new CPUResultsSnapshot[] { snapshot1, snapshot2 }, new int[] { -1, 1 });
+    }
+
+    private static CPUResultsSnapshot combine(CPUResultsSnapshot[] snapshots, int[] weights)
+            throws CPUResultsSnapshot.NoDataAvailableException, InterruptedException {
+        if (snapshots.length == 0) {
+            throw new CPUResultsSnapshot.NoDataAvailableException();
+        }
+
+        for (CPUResultsSnapshot snapshot : snapshots) {
+            if (snapshot instanceof CPUResultsDiff) {
+                throw new IllegalArgumentException("Cannot merge a diff snapshot"); // NOI18N
+            }
+        }
+
+        // -- Align method ids
+        List<String> classNames = new ArrayList<>();
+        List<String> methodNames = new ArrayList<>();
+        List<String> methodSigs = new ArrayList<>();
+        Map<String, Integer> mergedIds = new HashMap<>();
+        int[][] methodIdMaps = new int[snapshots.length][];
+
+        for (int i = 0; i < snapshots.length; i++) {
+            MethodInfoMapper mapper = new SnapshotMethodInfoMapper(snapshots[i]);
+            mapper.lock(false);
+            try {
+                int maxMethodId = mapper.getMaxMethodId();
+                int[] methodIdMap = new int[maxMethodId + 1];
+
+                for (int methodId = mapper.getMinMethodId(); methodId <= maxMethodId; methodId++) {
+                    String className = mapper.getInstrMethodClass(methodId);
+                    String methodName = mapper.getInstrMethodName(methodId);
+                    String methodSig = mapper.getInstrMethodSignature(methodId);
+
+                    // 0th entry is a hidden "Thread" quazi-method, the same for all snapshots
+                    String key = methodId == 0 ? "" : className + '.' + methodName + methodSig; // NOI18N
+                    Integer mergedId = mergedIds.get(key);
+
+                    if (mergedId == null) {
+                        mergedId = Integer.valueOf(classNames.size());
+
+                        if (mergedId.intValue() > MAX_METHOD_ID) {
+                            throw new IllegalStateException("Too many methods in merged snapshot"); // NOI18N
+                        }
+
+                        mergedIds.put(key, mergedId);
+                        classNames.add(className);
+                        methodNames.add(methodName);
+                        methodSigs.add(methodSig);
+                    }
+
+                    methodIdMap[methodId] = mergedId.intValue();
+                }
+
+                methodIdMaps[i] = methodIdMap;
+            } finally {
+                mapper.unlock();
+            }
+        }
+
+        mergedIds = null; // Not needed anymore - free memory
+
+        // -- Align threads
+        Map<String, ThreadSources> threads = new LinkedHashMap<>();
+        boolean collectingTwoTimeStamps = true;
+        long beginTime = Long.MAX_VALUE;
+        long timeTaken = Long.MIN_VALUE;
+
+        for (int i = 0; i < snapshots.length; i++) {
+            CPUResultsSnapshot snapshot = snapshots[i];
+            collectingTwoTimeStamps &= snapshot.isCollectingTwoTimeStamps();
+            beginTime = Math.min(beginTime, snapshot.getBeginTime());
+            timeTaken = Math.max(timeTaken, snapshot.getTimeTaken());
+
+            for (CPUCCTContainer container : snapshot.threadCCTContainers[CPUResultsSnapshot.METHOD_LEVEL_VIEW]) {
+                ThreadSources sources = threads.get(container.getThreadName());
+
+                if (sources == null) {
+                    sources = new ThreadSources();
+                    threads.put(container.getThreadName(), sources);
+                }
+
+                sources.add(container, methodIdMaps[i], weights[i]);
+            }
+        }
+
+        if (threads.isEmpty()) {
+            throw new CPUResultsSnapshot.NoDataAvailableException();
+        }
+
+        // -- Merge threads in parallel
+        final CPUResultsSnapshot merged = new CPUResultsSnapshot();
+        final int nMethods = classNames.size();
+        List<Callable<CPUCCTContainer>> tasks = new ArrayList<>(threads.size());
+        Set<Integer> threadIds = new HashSet<>();
+        int maxThreadId = 0;
+
+        for (ThreadSources sources : threads.values()) {
+            maxThreadId = Math.max(maxThreadId, sources.containers.get(0).getThreadId());
+        }
+
+        for (Map.Entry<String, ThreadSources> entry : threads.entrySet()) {
+            final String threadName = entry.getKey();
+            final ThreadSources sources = entry.getValue();
+            int id = sources.containers.get(0).getThreadId();
+
+            if (!threadIds.add(id)) { // same thread id used by differently named threads
+                id = ++maxThreadId;
+                threadIds.add(id);
+            }
+
+            final int threadId = id;
+
+            tasks.add(new Callable<CPUCCTContainer>() {
+                public CPUCCTContainer call() {
+                    return new MergedCPUCCTContainer(merged, sources.containers.toArray(new CPUCCTContainer[0]),
+                                                     sources.methodIdMaps.toArray(new int[0][]), sources.getWeights(),
+                                                     nMethods, threadId, threadName);
+                }
+            });
+        }
+
+        CPUCCTContainer[] containers = new CPUCCTContainer[tasks.size()];
+        int nWorkers = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(nWorkers, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "CPU Snapshot Merger"); // NOI18N
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        try {
+            List<Future<CPUCCTContainer>> results = executor.invokeAll(tasks);
+
+            for (int i = 0; i < containers.length; i++) {
+                containers[i] = results.get(i).get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        merged.readFromMerged(beginTime, timeTaken, collectingTwoTimeStamps, classNames.toArray(new String[0]),
+                              methodNames.toArray(new String[0]), methodSigs.toArray(new String[0]), containers);
+
+        return merged;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    private static final class ThreadSources {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        private final List<CPUCCTContainer> containers = new ArrayList<>();
+        private final List<int[]> methodIdMaps = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
+
+        void add(CPUCCTContainer container, int[] methodIdMap, int weight) {
+            containers.add(container);
+            methodIdMaps.add(methodIdMap);
+            weights.add(weight);
+        }
+
+        int[] getWeights() {
+            int[] ret = new int[weights.size()];
+
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = weights.get(i);
+            }
+
+            return ret;
+        }
+    }
+
+    private static final class SnapshotMethodInfoMapper extends MethodInfoMapper {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        private final CPUResultsSnapshot snapshot;
+
+        //~ Constructors ---------------------------------------------------------------------------------------------------------
+
+        SnapshotMethodInfoMapper(CPUResultsSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
+
+        @Override
+        public String getInstrMethodClass(int methodId) {
+            return snapshot.getInstrMethodClasses(CPUResultsSnapshot.METHOD_LEVEL_VIEW)[methodId];
+        }
+
+        @Override
+        public String getInstrMethodName(int methodId) {
+            return snapshot.getInstrMethodNames()[methodId];
+        }
+
+        @Override
+        public String getInstrMethodSignature(int methodId) {
+            return snapshot.getInstrMethodSignatures()[methodId];
+        }
+
+        @Override
+        public int getMinMethodId() {
+            return 0;
+        }
+
+        @Override
+        public int getMaxMethodId() {
+            return snapshot.getNInstrMethods() - 1;
+        }
+    }
+}
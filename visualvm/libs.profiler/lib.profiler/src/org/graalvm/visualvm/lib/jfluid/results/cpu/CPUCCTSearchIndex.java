@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.cpu;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Search index of the CCT stored in a CPUCCTContainer. Maps method ids to the compact data offsets of all nodes where
+ * the method occurs and keeps the parent of every node, so the subtrees containing a method can be found without
+ * creating PrestimeCPUCCTNodeBacked instances for the whole tree. The index is built by a single pass over
+ * the compact data and can be created outside of the EDT, see CPUCCTContainer.getSearchIndex().
+ */
+public final class CPUCCTSearchIndex {
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final CPUCCTContainer container;
+    private final int[] nodeOffsets;      // node index -> compact data offset
+    private final int[] nodeParents;      // node index -> parent node index, -1 for root
+    private final long[] sortedOffsets;   // (compact data offset << 32) | node index, sorted
+    private final int[] methodIds;        // distinct method ids
+    private final int[] methodNodesStart; // index to methodIds -> first item in methodNodes
+    private final int[] methodNodes;      // node indexes grouped by method id
+    private final String[] methodNames;   // index to methodIds -> name of the method
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    CPUCCTSearchIndex(CPUCCTContainer container) {
+        this.container = container;
+
+        int count = 0;
+        int[] offsets = new int[1024];
+        int[] parents = new int[1024];
+        int[] methods = new int[1024];
+        int maxMethodId = -1;
+
+        if (container.compactData != null && container.compactData.length > 0) {
+            int[] stack = new int[64];
+            int stackSize = 0;
+
+            offsets[0] = 0;
+            parents[0] = -1;
+            methods[0] = container.getMethodIdForNodeOfs(0);
+            maxMethodId = methods[0];
+            stack[stackSize++] = count++;
+
+            while (stackSize > 0) {
+                int node = stack[--stackSize];
+                int nodeOfs = offsets[node];
+                int nChildren = container.getNChildrenForNodeOfs(nodeOfs);
+
+                for (int i = 0; i < nChildren; i++) {
+                    if (count == offsets.length) {
+                        int newLength = count * 2;
+                        offsets = Arrays.copyOf(offsets, newLength);
+                        parents = Arrays.copyOf(parents, newLength);
+                        methods = Arrays.copyOf(methods, newLength);
+                    }
+                    int childOfs = container.getChildOfsForNodeOfs(nodeOfs, i);
+                    int methodId = container.getMethodIdForNodeOfs(childOfs);
+                    offsets[count] = childOfs;
+                    parents[count] = node;
+                    methods[count] = methodId;
+                    if (methodId > maxMethodId) maxMethodId = methodId;
+                    if (stackSize == stack.length) stack = Arrays.copyOf(stack, stackSize * 2);
+                    stack[stackSize++] = count++;
+                }
+            }
+        }
+
+        nodeOffsets = Arrays.copyOf(offsets, count);
+        nodeParents = Arrays.copyOf(parents, count);
+
+        sortedOffsets = new long[count];
+        for (int i = 0; i < count; i++) sortedOffsets[i] = ((long)offsets[i] << 32) | i;
+        Arrays.sort(sortedOffsets);
+
+        // group node indexes by method id
+        int[] methodCounts = new int[maxMethodId + 1];
+        int nMethods = 0;
+        for (int i = 0; i < count; i++) if (methodCounts[methods[i]]++ == 0) nMethods++;
+
+        methodIds = new int[nMethods];
+        methodNodesStart = new int[nMethods + 1];
+        int[] methodPositions = new int[maxMethodId + 1];
+        for (int id = 0, m = 0, pos = 0; id <= maxMethodId; id++) {
+            if (methodCounts[id] == 0) continue;
+            methodIds[m] = id;
+            methodNodesStart[m++] = pos;
+            methodPositions[id] = pos;
+            pos += methodCounts[id];
+        }
+        methodNodesStart[nMethods] = count;
+
+        methodNodes = new int[count];
+        for (int i = 0; i < count; i++) methodNodes[methodPositions[methods[i]]++] = i;
+
+        // resolve method names while building the index, not when searching
+        methodNames = new String[nMethods];
+        for (int m = 0; m < nMethods; m++)
+            methodNames[m] = new PrestimeCPUCCTNodeBacked(container, null, nodeOffsets[methodNodes[methodNodesStart[m]]]).getNodeName();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    public CPUCCTContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * Returns ids of all methods present in the CCT, sorted.
+     */
+    public int[] getMethodIds() {
+        return methodIds.clone();
+    }
+
+    /**
+     * Returns compact data offsets of all nodes of the given method.
+     */
+    public int[] getNodeOffsets(int methodId) {
+        int m = Arrays.binarySearch(methodIds, methodId);
+        if (m < 0) return new int[0];
+
+        int[] ret = new int[methodNodesStart[m + 1] - methodNodesStart[m]];
+        for (int i = 0; i < ret.length; i++) ret[i] = nodeOffsets[methodNodes[methodNodesStart[m] + i]];
+        return ret;
+    }
+
+    /**
+     * Returns name of the method as provided by PrestimeCPUCCTNode.getNodeName(), resolved when creating the index.
+     */
+    public String getMethodName(int methodId) {
+        int m = Arrays.binarySearch(methodIds, methodId);
+        return m < 0 ? null : methodNames[m];
+    }
+
+    /**
+     * Returns a detached node representing the method, to be used for resolving its name or presentation.
+     */
+    public PrestimeCPUCCTNode getMethodNode(int methodId) {
+        int m = Arrays.binarySearch(methodIds, methodId);
+        if (m < 0) return null;
+
+        return new PrestimeCPUCCTNodeBacked(container, null, nodeOffsets[methodNodes[methodNodesStart[m]]]);
+    }
+
+    /**
+     * Resolves subtrees of the CCT containing any of the methods.
+     *
+     * @param matchingMethodIds ids of the matching methods
+     * @return Matches for the methods
+     */
+    public Matches getMatches(int[] matchingMethodIds) {
+        BitSet ancestors = new BitSet(nodeOffsets.length);
+
+        for (int methodId : matchingMethodIds) {
+            int m = Arrays.binarySearch(methodIds, methodId);
+            if (m < 0) continue;
+
+            for (int i = methodNodesStart[m]; i < methodNodesStart[m + 1]; i++) {
+                int parent = nodeParents[methodNodes[i]];
+                while (parent != -1 && !ancestors.get(parent)) {
+                    ancestors.set(parent);
+                    parent = nodeParents[parent];
+                }
+            }
+        }
+
+        return new Matches(ancestors);
+    }
+
+    private int getNodeIndex(int nodeOfs) {
+        int low = 0;
+        int high = sortedOffsets.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midOfs = (int)(sortedOffsets[mid] >>> 32);
+
+            if (midOfs < nodeOfs) low = mid + 1;
+            else if (midOfs > nodeOfs) high = mid - 1;
+            else return (int)sortedOffsets[mid];
+        }
+
+        return -1;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Subtrees of the CCT containing some of the methods passed to getMatches().
+     */
+    public final class Matches {
+
+        private final BitSet ancestors; // nodes with a matching descendant
+
+        private Matches(BitSet ancestors) {
+            this.ancestors = ancestors;
+        }
+
+        /**
+         * Returns false if none of the descendants of the node is a matching method. Returns true for nodes with
+         * already computed children and nodes not backed by this container, these have to be searched as usual.
+         */
+        public boolean mayContainMatch(PrestimeCPUCCTNode node) {
+            if (!(node instanceof PrestimeCPUCCTNodeBacked) || node.container != container) return true;
+
+            PrestimeCPUCCTNodeBacked backed = (PrestimeCPUCCTNodeBacked)node;
+            if (backed.children != null || backed.compactDataOfs == null ||
+                backed.isThreadNode() || backed.isFiltered()) return true;
+            if (backed.isSelfTimeNode()) return false;
+
+            for (int ofs : backed.compactDataOfs) {
+                int index = getNodeIndex(ofs);
+                if (index == -1 || ancestors.get(index)) return true;
+            }
+
+            return false;
+        }
+    }
+}
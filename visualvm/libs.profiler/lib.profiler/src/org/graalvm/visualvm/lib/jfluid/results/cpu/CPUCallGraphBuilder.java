@@ -28,6 +28,7 @@ package org.graalvm.visualvm.lib.jfluid.results.cpu;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import org.graalvm.visualvm.lib.jfluid.ProfilerClient;
 import org.graalvm.visualvm.lib.jfluid.client.ProfilingPointsProcessor;
@@ -99,13 +100,15 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
-    private DebugInfoCollector debugCollector = null;
+    private final DebugInfoCollector debugCollector = new DebugInfoCollector();
     private InstrumentationFilter instrFilter;
-    private boolean stackIntegrityViolationReported;
-    private long delta;
+    // Per-thread events may be applied from several threads in parallel, see CPUDataFrameProcessor
+    private final AtomicBoolean stackIntegrityViolationReported = new AtomicBoolean();
 
     private MethodInfoMapper methodInfoMapper = MethodInfoMapper.DEFAULT;
     private TimingAdjusterOld timingAdjuster = TimingAdjusterOld.getDefault();
+    // Per-thread events only touch the ThreadInfo of their thread, CPUDataFrameProcessor relies on it
+    // when applying events of different threads in parallel
     final private ThreadInfos threadInfos = new ThreadInfos();
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
@@ -214,7 +217,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void methodEntryUnstamped(final int methodId, final int threadId, final int methodType, final List parameters, final int[] methodIds) {
@@ -241,7 +244,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void methodExit(final int methodId, final int threadId, final int methodType, final long timeStamp0,
@@ -296,7 +299,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }        
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void methodExitUnstamped(final int methodId, final int threadId, final int methodType) {
@@ -345,17 +348,17 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void monitorEntry(final int threadId, final long timeStamp0, final long timeStamp1, final int monitorId, int ownerThreadId) {
         waitEntry(threadId, timeStamp0, timeStamp1);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void monitorExit(final int threadId, final long timeStamp0, final long timeStamp1, final int monitorId) {
         waitExit(threadId, timeStamp0, timeStamp1);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void newThread(final int threadId, final String threadName, final String threadClassName) {
@@ -368,7 +371,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         }
 
         threadInfos.newThreadInfo(threadId, threadName, threadClassName);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void newMonitor(int hash, String className) {
@@ -426,10 +429,10 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("ENTRY SLEEP: " // + debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
         }
 
         long diff = timeStamp0 - ti.topMethodEntryTime0;
@@ -443,7 +446,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         ti.topMethodEntryTime0 = timeStamp0;
 
         curNode.setLastWaitOrSleepStamp(timeStamp0);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void sleepExit(final int threadId, final long timeStamp0, final long timeStamp1) {
@@ -462,11 +465,11 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("EXIT SLEEP: " //+ debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", slept: " + lastSleep // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
             lastSleep = 0;
         }
 
@@ -478,7 +481,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             ti.topMethodEntryTime0 = timeStamp0;
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void threadsResume(final long timeStamp0, final long timeStamp1) {
@@ -509,7 +512,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void threadsSuspend(final long timeStamp0, final long timeStamp1) {
@@ -549,7 +552,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             }
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
     
     public void profilingPoint(final int threadId, final int ppId, final long timeStamp) {
@@ -599,7 +602,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
                 });
             }
         }
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void waitEntry(final int threadId, long timeStamp0, long timeStamp1) {
@@ -616,10 +619,10 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("ENTRY WAIT: " //+ debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
             //LOGGER.finest(dumpStack(ti));
         }
 
@@ -634,7 +637,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         ti.topMethodEntryTime0 = timeStamp0;
 
         curNode.setLastWaitOrSleepStamp(timeStamp0);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void waitExit(final int threadId, final long timeStamp0, final long timeStamp1) {
@@ -655,11 +658,11 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("EXIT WAIT: " //+ debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", waited: " + lastWait // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
             //LOGGER.finest(dumpStack(ti));
         }
 
@@ -668,7 +671,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             ti.topMethodEntryTime0 = timeStamp0;
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void parkEntry(final int threadId, long timeStamp0, long timeStamp1) {
@@ -685,10 +688,10 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("ENTRY PARK: " //+ debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
             //LOGGER.finest(dumpStack(ti));
         }
 
@@ -703,7 +706,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         ti.topMethodEntryTime0 = timeStamp0;
 
         curNode.setLastWaitOrSleepStamp(timeStamp0);
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     public void parkExit(final int threadId, final long timeStamp0, final long timeStamp1) {
@@ -724,11 +727,11 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("EXIT PARK: " //+ debugNode(curNode) // NOI18N
                           + ", time: " + timeStamp0 // NOI18N
-                          + ", delta: " + (timeStamp0 - delta) // NOI18N
+                          + ", delta: " + (timeStamp0 - ti.lastLoggedTimeStamp) // NOI18N
                           + ", waited: " + lastWait // NOI18N
                           + ", tid: " + ti.threadId // NOI18N
                           );
-            delta = timeStamp0;
+            ti.lastLoggedTimeStamp = timeStamp0;
             //LOGGER.finest(dumpStack(ti));
         }
 
@@ -737,7 +740,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             ti.topMethodEntryTime0 = timeStamp0;
         }
 
-        batchNotEmpty = true;
+        markBatchNotEmpty();
     }
 
     /**
@@ -979,14 +982,6 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
         this.instrFilter = filter;
     }
 
-    private synchronized DebugInfoCollector getDebugCollector() {
-        if (debugCollector == null) {
-            debugCollector = new DebugInfoCollector();
-        }
-
-        return debugCollector;
-    }
-
     protected boolean isReady() {
         return (status != null) && (instrFilter != null);
     }
@@ -1006,7 +1001,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
     }
 
     private String debugNode(RuntimeCPUCCTNode node) {
-        return getDebugCollector().getInfo(node);
+        return debugCollector.getInfo(node);
     }
 
     private String dumpStack(ThreadInfo ti) {
@@ -1159,7 +1154,7 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
     private TimedCPUCCTNode plainMethodEntry(final int methodId, final ThreadInfo ti, long timeStamp0, long timeStamp1,
                                              boolean stamped) {
         if (LOGGER.isLoggable(Level.FINEST)) {
-            LOGGER.log(Level.FINEST, "MethodEntry {0}: for tId = {1}, time: {2}, delta: {3}, method:  {4}", new Object[]{(!stamped) ? "(unstamped)" : "", (int) ti.threadId, timeStamp0, timeStamp0 - delta, debugMethod(methodId)});
+            LOGGER.log(Level.FINEST, "MethodEntry {0}: for tId = {1}, time: {2}, delta: {3}, method:  {4}", new Object[]{(!stamped) ? "(unstamped)" : "", (int) ti.threadId, timeStamp0, timeStamp0 - ti.lastLoggedTimeStamp, debugMethod(methodId)});
         }
 
         TimedCPUCCTNode curNode = ti.peek();
@@ -1238,8 +1233,8 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
     private TimedCPUCCTNode plainMethodExit(final int methodId, final ThreadInfo ti, long timeStamp0, long timeStamp1,
                                             boolean stamped) {
         if (LOGGER.isLoggable(Level.FINEST)) {
-            LOGGER.log(Level.FINEST, "MethodExit  {0}: for tId = {1}, time: {2}, delta: {3}, method:  {4}", new Object[]{(!stamped) ? "(unstamped)" : "", ti.threadId, timeStamp0, timeStamp0 - delta, debugMethod(methodId)});
-            delta = timeStamp0;
+            LOGGER.log(Level.FINEST, "MethodExit  {0}: for tId = {1}, time: {2}, delta: {3}, method:  {4}", new Object[]{(!stamped) ? "(unstamped)" : "", ti.threadId, timeStamp0, timeStamp0 - ti.lastLoggedTimeStamp, debugMethod(methodId)});
+            ti.lastLoggedTimeStamp = timeStamp0;
         }
 
         TimedCPUCCTNode curNode = ti.peek();
@@ -1268,9 +1263,8 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             message.append("received method debug: ").append(debugMethod(methodId)).append('\n'); // NOI18N
             message.append(CommonConstants.PLEASE_REPORT_PROBLEM);
 
-            if (!stackIntegrityViolationReported) {
+            if (stackIntegrityViolationReported.compareAndSet(false, true)) {
                 message.append(dumpStack(ti));
-                stackIntegrityViolationReported = true;
             }
 
             message.append('\n'); // NOI18N
@@ -1418,8 +1412,8 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
 
     private TimedCPUCCTNode rootMethodExit(final int methodId, final ThreadInfo ti, long timeStamp0, long timeStamp1) {
         if (LOGGER.isLoggable(Level.FINEST)) {
-            LOGGER.log(Level.FINEST, "RootMExit for tId = {0}, time: {1}, delta: {2}, method: {3}", new Object[]{(int) ti.threadId, timeStamp0, timeStamp0 - delta, debugMethod(methodId)});
-            delta = timeStamp0;
+            LOGGER.log(Level.FINEST, "RootMExit for tId = {0}, time: {1}, delta: {2}, method: {3}", new Object[]{(int) ti.threadId, timeStamp0, timeStamp0 - ti.lastLoggedTimeStamp, debugMethod(methodId)});
+            ti.lastLoggedTimeStamp = timeStamp0;
         }
 
         TimedCPUCCTNode curNode = ti.peek();
@@ -1448,9 +1442,9 @@ public class CPUCallGraphBuilder extends BaseCallGraphBuilder implements CPUProf
             message.append("received method debug: ").append(debugMethod(methodId)).append('\n'); // NOI18N
             message.append(CommonConstants.PLEASE_REPORT_PROBLEM);
 
-            if ((status != null) && (status.getInstrMethodClasses() != null) && !stackIntegrityViolationReported) {
+            if ((status != null) && (status.getInstrMethodClasses() != null)
+                    && stackIntegrityViolationReported.compareAndSet(false, true)) {
                 message.append(dumpStack(ti));
-                stackIntegrityViolationReported = true;
             }
 
             message.append('\n'); // NOI18N
@@ -30,6 +30,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import org.graalvm.visualvm.lib.jfluid.global.CommonConstants;
 import org.graalvm.visualvm.lib.jfluid.results.ProfilingResultListener;
@@ -45,12 +50,46 @@ import static org.graalvm.visualvm.lib.jfluid.utils.VMUtils.*;
  */
 public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
 
+    // Events of different threads are applied to call graph builders in parallel
+    // once at least this many of them are pending between two global events
+    private static final int PARALLEL_EVENTS_THRESHOLD = Integer.getInteger(
+            "org.graalvm.visualvm.lib.jfluid.results.cpu.parallelEventsThreshold", 512).intValue(); // NOI18N
+    private static final boolean SHARDED_PROCESSING = !Boolean.getBoolean(
+            "org.graalvm.visualvm.lib.jfluid.results.cpu.noShardedProcessing"); // NOI18N
+
     private boolean hasMonitorInfo;
     private Map methodParameters = new HashMap();
+
+    // Executor applying per-thread events in parallel, null if they are always applied inline
+    private final ExecutorService shardExecutor;
+    private final int parallelEventsThreshold;
+
+    // Sharded processing state, used only by the thread processing the current frame
+    private Thread shardingThread;
+    private ProfilingResultListener[] shardedListeners;
+    private ProfilingResultListener[] inlineListeners;
+    private final Map<Integer, ThreadShard> threadShards = new HashMap<>();
+    private final List<ThreadShard> pendingShards = new ArrayList<>();
+    private ThreadShard lastShard;
+    private int pendingEvents;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    public CPUDataFrameProcessor() {
+        this((SHARDED_PROCESSING && (ForkJoinPool.getCommonPoolParallelism() >= 2)) ? ForkJoinPool.commonPool() : null,
+             PARALLEL_EVENTS_THRESHOLD);
+    }
+
+    CPUDataFrameProcessor(ExecutorService shardExecutor, int parallelEventsThreshold) {
+        this.shardExecutor = shardExecutor;
+        this.parallelEventsThreshold = parallelEventsThreshold;
+    }
+
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
     public void doProcessDataFrame(ByteBuffer buffer) {
         hasMonitorInfo = (client != null) ? client.getSettings().isLockContentionMonitoringEnabled() : false;
+        startThreadShards();
 
         try {
             while (buffer.hasRemaining()) {
@@ -349,7 +388,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                         case CommonConstants.BUFFEREVENT_PROFILEPOINT_HIT: {
                             int id = buffer.getChar();
                             long timeStamp = getTimeStamp(buffer);
-                            int threadId = buffer.getChar();
+                            int threadId = buffer.getInt();
                             if (LOGGER.isLoggable(Level.FINEST)) {
                                 LOGGER.finest("Profile Point Hit " + id + ", threadId=" + id + ", timeStamp=" + timeStamp); // NOI18N
                             }
@@ -358,7 +397,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                             break;
                         }
                         case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                            currentThreadId = buffer.getChar();
+                            currentThreadId = buffer.getInt();
                             if (LOGGER.isLoggable(Level.FINEST)) {
                                 LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                             }
@@ -366,7 +405,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                             break;
                         }
                         case CommonConstants.NEW_THREAD: {
-                            int threadId = buffer.getChar();
+                            int threadId = buffer.getInt();
                             String threadName = getString(buffer);
                             String threadClassName = getString(buffer);
 
@@ -452,6 +491,118 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
             sb.append("]\n");
             LOGGER.severe(sb.toString());
             throw aioobe;
+        } finally {
+            finishThreadShards();
+        }
+    }
+
+    protected void foreachListener(ListenerFunctor functor) {
+        if (shardingThread == Thread.currentThread()) {
+            // global event, per-thread events received so far must be applied first
+            flushThreadShards();
+        }
+        super.foreachListener(functor);
+    }
+
+    protected void foreachThreadListener(int threadId, ListenerFunctor functor) {
+        if (shardingThread != Thread.currentThread()) {
+            super.foreachListener(functor);
+            return;
+        }
+        for (int i = 0; i < inlineListeners.length; i++) {
+            functor.execute(inlineListeners[i]);
+        }
+
+        ThreadShard shard = lastShard;
+
+        if ((shard == null) || (shard.threadId != threadId)) {
+            Integer key = Integer.valueOf(threadId);
+            shard = threadShards.get(key);
+
+            if (shard == null) {
+                shard = new ThreadShard(threadId);
+                threadShards.put(key, shard);
+            }
+            lastShard = shard;
+        }
+        if (shard.events.isEmpty()) {
+            pendingShards.add(shard);
+        }
+        shard.events.add(functor);
+        pendingEvents++;
+    }
+
+    private void startThreadShards() {
+        if (shardExecutor == null) {
+            return;
+        }
+
+        List<ProfilingResultListener> sharded = new ArrayList<>();
+        List<ProfilingResultListener> inline = new ArrayList<>();
+
+        for (ProfilingResultListener listener : getListeners()) {
+            // CPUCallGraphBuilder keeps the call tree of each thread in its own ThreadInfo
+            if (listener instanceof CPUCallGraphBuilder) {
+                sharded.add(listener);
+            } else {
+                inline.add(listener);
+            }
+        }
+        if (sharded.isEmpty()) {
+            return;
+        }
+        shardedListeners = sharded.toArray(new ProfilingResultListener[0]);
+        inlineListeners = inline.toArray(new ProfilingResultListener[0]);
+        shardingThread = Thread.currentThread();
+    }
+
+    private void finishThreadShards() {
+        if (shardingThread == null) {
+            return;
+        }
+        try {
+            flushThreadShards();
+        } finally {
+            shardingThread = null;
+            shardedListeners = null;
+            inlineListeners = null;
+            threadShards.clear();
+            lastShard = null;
+        }
+    }
+
+    private void flushThreadShards() {
+        int nShards = pendingShards.size();
+
+        if (nShards == 0) {
+            return;
+        }
+        try {
+            if ((nShards > 1) && (pendingEvents >= parallelEventsThreshold)) {
+                try {
+                    List<Future<Object>> results = shardExecutor.invokeAll(pendingShards);
+
+                    for (Future<Object> result : results) {
+                        try {
+                            result.get();
+                        } catch (ExecutionException e) {
+                            LOGGER.log(Level.SEVERE, "Error while processing data frame", e.getCause()); // NOI18N
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                for (int i = 0; i < nShards; i++) {
+                    pendingShards.get(i).apply();
+                }
+            }
+        } finally {
+            for (int i = 0; i < nShards; i++) {
+                pendingShards.get(i).events.clear();
+            }
+            pendingShards.clear();
+            pendingEvents = 0;
         }
     }
     
@@ -500,7 +651,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
 
     private void fireMethodEntry(final int methodId, final int threadId, final int methodType, final long timeStamp0,
                                  final long timeStamp1, final List parameters, final int[] methodIds) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).methodEntry(methodId, threadId, methodType, timeStamp0, timeStamp1, parameters, methodIds);
                 }
@@ -508,7 +659,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireMethodEntryUnstamped(final int methodId, final int threadId, final int methodType, final List parameters, final int[] methodIds) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).methodEntryUnstamped(methodId, threadId, methodType, parameters, methodIds);
                 }
@@ -517,7 +668,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
 
     private void fireMethodExit(final int methodId, final int threadId, final int methodType, final long timeStamp0,
                                 final long timeStamp1, final Object retVal) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).methodExit(methodId, threadId, methodType, timeStamp0, timeStamp1, retVal);
                 }
@@ -525,7 +676,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireMethodExitUnstamped(final int methodId, final int threadId, final int methodType) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).methodExitUnstamped(methodId, threadId, methodType);
                 }
@@ -533,7 +684,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireServletRequest(final int threadId, final int requestType, final String servletPath, final int sessionId) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).servletRequest(threadId, requestType, servletPath, sessionId);
                 }
@@ -541,7 +692,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireSleepEntry(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).sleepEntry(threadId, timeStamp0, timeStamp1);
                 }
@@ -549,7 +700,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireSleepExit(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).sleepExit(threadId, timeStamp0, timeStamp1);
                 }
@@ -573,7 +724,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireWaitEntry(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).waitEntry(threadId, timeStamp0, timeStamp1);
                 }
@@ -581,7 +732,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireWaitExit(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).waitExit(threadId, timeStamp0, timeStamp1);
                 }
@@ -589,7 +740,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireParkEntry(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).parkEntry(threadId, timeStamp0, timeStamp1);
                 }
@@ -597,7 +748,7 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
     }
 
     private void fireParkExit(final int threadId, final long timeStamp0, final long timeStamp1) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
                     ((CPUProfilingResultListener) listener).parkExit(threadId, timeStamp0, timeStamp1);
                 }
@@ -609,4 +760,30 @@ public class CPUDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     | (((int) buffer.get()) & 0xFF);
         return depth;
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    private final class ThreadShard implements Callable<Object> {
+        final int threadId;
+        final List<ListenerFunctor> events = new ArrayList<>();
+
+        ThreadShard(int threadId) {
+            this.threadId = threadId;
+        }
+
+        public Object call() {
+            apply();
+            return null;
+        }
+
+        void apply() {
+            for (int i = 0; i < events.size(); i++) {
+                ListenerFunctor functor = events.get(i);
+
+                for (int j = 0; j < shardedListeners.length; j++) {
+                    functor.execute(shardedListeners[j]);
+                }
+            }
+        }
+    }
 }
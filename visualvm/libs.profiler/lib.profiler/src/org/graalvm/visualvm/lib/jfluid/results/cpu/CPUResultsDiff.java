@@ -29,18 +29,30 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.graalvm.visualvm.lib.jfluid.client.ClientUtils;
 import org.graalvm.visualvm.lib.jfluid.results.CCTNode;
 
 /**
+ * Difference of two CPU snapshots. The call trees and the flat profiles are provided by a difference snapshot
+ * computed by CPUCCTMerger.diff() directly from the compact data of both snapshots. If the difference cannot
+ * be computed, the trees of both snapshots are compared node by node using DiffCPUCCTNode.
+ * Threads are identified by the ids of snapshot1, method ids are those of the difference snapshot.
  *
  * @author Jiri Sedlacek
  */
 public class CPUResultsDiff extends CPUResultsSnapshot {
 
+    private static final Logger LOGGER = Logger.getLogger(CPUResultsDiff.class.getName());
+
     private final CPUResultsSnapshot snapshot1;
     private final CPUResultsSnapshot snapshot2;
 
+    // @GuardedBy this
+    private CPUResultsSnapshot diffSnapshot;
+    private boolean diffSnapshotFailed;
+
 
     public CPUResultsDiff(CPUResultsSnapshot snapshot1, CPUResultsSnapshot snapshot2) {
 //        this.snapshot1 = new CPUResultsSnapshot();
@@ -64,6 +76,9 @@ public class CPUResultsDiff extends CPUResultsSnapshot {
     }
 
     public DiffFlatProfileContainer getFlatProfile(int threadId, int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return DiffFlatProfileContainer.create(diff.getFlatProfile(diffThread(diff, threadId), view));
+        
         // NOTE: only works correctly for threadId == -1 (All Threads)
         // TODO: resolve correct threadId for snapshot2 !!!
         FlatProfileContainer fpc1 = snapshot1.getFlatProfile(threadId, view);
@@ -72,6 +87,9 @@ public class CPUResultsDiff extends CPUResultsSnapshot {
     }
 
     public FlatProfileContainer getFlatProfile(Collection<Integer> threads, int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return DiffFlatProfileContainer.create(diff.getFlatProfile(diffThreads(diff, threads), view));
+        
         FlatProfileContainer fpc1 = snapshot1.getFlatProfile(threads, view);
         FlatProfileContainer fpc2 = snapshot2.getFlatProfile(threads2(threads), view);
         return DiffFlatProfileContainer.create(fpc1, fpc2);
@@ -94,11 +112,17 @@ public class CPUResultsDiff extends CPUResultsSnapshot {
     }
 
     public String[] getMethodClassNameAndSig(int methodId, int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getMethodClassNameAndSig(methodId, view);
+        
         return methodId < 0 ? snapshot2.getMethodClassNameAndSig(-methodId, view) :
                               snapshot1.getMethodClassNameAndSig(methodId, view);
     }
     
     public Map<Integer, ClientUtils.SourceCodeSelection> getMethodIDMap(int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getMethodIDMap(view);
+        
         Map<Integer, ClientUtils.SourceCodeSelection> map = new HashMap();
         for (int i = 0; i < snapshot1.instrMethodClassesViews[view].length; i++)
             map.put(i, snapshot1.getSourceCodeSelection(i, view));
@@ -118,6 +142,9 @@ public class CPUResultsDiff extends CPUResultsSnapshot {
     }
 
     public PrestimeCPUCCTNode getReverseCCT(int threadId, int methodId, int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getReverseCCT(diffThread(diff, threadId), methodId, view);
+        
         // TODO: resolve correct threadId for snapshot2
         PrestimeCPUCCTNode root1 = snapshot1.getReverseCCT(threadId, methodId, view);
         PrestimeCPUCCTNode root2 = snapshot2.getReverseCCT(threadId, methodId, view);
@@ -125,23 +152,66 @@ public class CPUResultsDiff extends CPUResultsSnapshot {
     }
 
     public PrestimeCPUCCTNode getRootNode(int view) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getRootNode(view);
+        
         PrestimeCPUCCTNode root1 = snapshot1.getRootNode(view);
         PrestimeCPUCCTNode root2 = snapshot2.getRootNode(view);
         return new DiffCPUCCTNode(root1, root2);
     }
     
     public PrestimeCPUCCTNode getRootNode(int view, Collection<Integer> threads, boolean merge) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getRootNode(view, diffThreads(diff, threads), merge);
+        
         PrestimeCPUCCTNode root1 = snapshot1.getRootNode(view, threads, merge);
         PrestimeCPUCCTNode root2 = snapshot2.getRootNode(view, threads2(threads), merge);
         return new DiffCPUCCTNode(root1, root2);
     }
     
     public PrestimeCPUCCTNode getReverseRootNode(int view, Collection<Integer> threads, boolean merge) {
+        CPUResultsSnapshot diff = getDiffSnapshot();
+        if (diff != null) return diff.getReverseRootNode(view, diffThreads(diff, threads), merge);
+        
         PrestimeCPUCCTNode root1 = snapshot1.getReverseRootNode(view, threads, merge);
         PrestimeCPUCCTNode root2 = snapshot2.getReverseRootNode(view, threads2(threads), merge);
         return new DiffCPUCCTNode(root1, root2);
     }
     
+    private synchronized CPUResultsSnapshot getDiffSnapshot() {
+        if (diffSnapshot == null && !diffSnapshotFailed) {
+            try {
+                diffSnapshot = CPUCCTMerger.diff(snapshot1, snapshot2);
+            } catch (NoDataAvailableException | IllegalStateException e) {
+                LOGGER.log(Level.INFO, "Comparing snapshot trees node by node", e); // NOI18N
+                diffSnapshotFailed = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return diffSnapshot;
+    }
+    
+    private int diffThread(CPUResultsSnapshot diff, int thread1Id) {
+        if (thread1Id < 0) return thread1Id;
+        
+        String name = getThreadNameForId(thread1Id);
+        for (int diffThreadId : diff.getThreadIds())
+            if (name.equals(diff.getThreadNameForId(diffThreadId)))
+                return diffThreadId;
+        
+        return thread1Id;
+    }
+    
+    private Collection<Integer> diffThreads(CPUResultsSnapshot diff, Collection<Integer> threads1) {
+        if (threads1 == null || threads1.isEmpty()) return threads1;
+        
+        Set<Integer> threads = new HashSet<>();
+        for (int thread1Id : threads1) threads.add(diffThread(diff, thread1Id));
+        
+        return threads;
+    }
+    
     private Collection<Integer> threads2(Collection<Integer> threads1) {
         if (threads1 == null || threads1.isEmpty()) return threads1;
         
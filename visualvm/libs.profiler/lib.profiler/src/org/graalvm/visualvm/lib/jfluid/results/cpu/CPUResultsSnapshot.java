@@ -578,6 +578,7 @@ public class CPUResultsSnapshot extends ResultsSnapshot {
             containers[i].threadName = scontainers[i].threadName;
 
             containers[i].collectingTwoTimeStamps = scontainers[i].collectingTwoTimeStamps;
+            containers[i].signedTimes = scontainers[i].signedTimes;
 
             containers[i].compactData = scontainers[i].compactData;
 
@@ -608,6 +609,37 @@ public class CPUResultsSnapshot extends ResultsSnapshot {
         rootNode[METHOD_LEVEL_VIEW] = createRootNodeForAllThreads(METHOD_LEVEL_VIEW);
     }
 
+    /**
+     * Initializes this snapshot from method-level containers created for it by CPUCCTMerger.
+     */
+    void readFromMerged(long beginTime, long timeTaken, boolean collectingTwoTimeStamps, String[] instrClassNames,
+                        String[] instrMethodNames, String[] instrMethodSigs, CPUCCTContainer[] containers) {
+        this.beginTime = beginTime;
+        this.timeTaken = timeTaken;
+        this.collectingTwoTimeStamps = collectingTwoTimeStamps;
+
+        nInstrMethods = instrClassNames.length;
+        instrMethodClassesViews = new String[3][];
+        instrMethodClassesViews[METHOD_LEVEL_VIEW] = instrClassNames;
+        this.instrMethodNames = instrMethodNames;
+        this.instrMethodSignatures = instrMethodSigs;
+
+        threadCCTContainers = new CPUCCTContainer[3][];
+        threadCCTContainers[METHOD_LEVEL_VIEW] = containers;
+
+        Map<Integer, Integer> threadIds = new HashMap<>(containers.length);
+
+        for (int i = 0; i < containers.length; i++) {
+            threadIds.put(containers[i].threadId, i);
+        }
+
+        threadIdMap = threadIds;
+
+        allThreadsMergedCCTContainers = new CPUCCTContainer[3];
+        rootNode = new PrestimeCPUCCTNode[3];
+        rootNode[METHOD_LEVEL_VIEW] = createRootNodeForAllThreads(METHOD_LEVEL_VIEW);
+    }
+
     public void readFromStream(DataInputStream in) throws IOException {
         super.readFromStream(in);
         collectingTwoTimeStamps = in.readBoolean();
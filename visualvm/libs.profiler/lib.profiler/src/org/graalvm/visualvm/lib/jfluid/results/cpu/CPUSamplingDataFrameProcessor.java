@@ -79,7 +79,7 @@ public class CPUSamplingDataFrameProcessor extends AbstractLockDataFrameProcesso
                     }
                     break;
                 case CommonConstants.NEW_THREAD: {
-                    int threadId = buffer.getChar();
+                    int threadId = buffer.getInt();
                     String threadName = getString(buffer);
                     String threadClassName = getString(buffer);
                     
@@ -94,7 +94,7 @@ public class CPUSamplingDataFrameProcessor extends AbstractLockDataFrameProcesso
                     break;
                 }
                 case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                    currentThreadId = buffer.getChar();
+                    currentThreadId = buffer.getInt();
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                     }
@@ -102,7 +102,7 @@ public class CPUSamplingDataFrameProcessor extends AbstractLockDataFrameProcesso
                     break;
                 }
                 case CommonConstants.THREAD_INFO_IDENTICAL: {
-                    int threadId = buffer.getChar();
+                    int threadId = buffer.getInt();
                     Integer threadIdObj = Integer.valueOf(threadId);
                     ThreadInfo lastInfo = lastThreadsDump.get(threadIdObj);
                     assert lastInfo != null;
@@ -113,7 +113,7 @@ public class CPUSamplingDataFrameProcessor extends AbstractLockDataFrameProcesso
                     break;
                 }
                 case CommonConstants.THREAD_INFO: {
-                    int threadId = buffer.getChar();
+                    int threadId = buffer.getInt();
                     byte state = buffer.get();
                     int stackLen = buffer.getChar();
                     int methodIds[] = new int[stackLen];
@@ -112,6 +112,39 @@ public class DiffFlatProfileContainer extends FlatProfileContainer {
                 Arrays.copyOf(methodIDs, pointer), pointer, wholeGraphNetTime0, wholeGraphNetTime1);
     }
     
+    /**
+     * Creates the container from a flat profile of a difference computed by CPUCCTMerger.diff(), the values of which
+     * are already the differences. Method ids are those of the difference snapshot.
+     */
+    static DiffFlatProfileContainer create(FlatProfileContainer c) {
+        boolean collectingTwoTimeStamps = c.collectingTwoTimeStamps;
+        int rows = c.getNRows();
+
+        long[] timesInMcs0 = new long[rows];
+        long[] timesInMcs1 = collectingTwoTimeStamps ? new long[rows] : null;
+        long[] totalTimesInMcs0 = new long[rows];
+        long[] totalTimesInMcs1 = collectingTwoTimeStamps ? new long[rows] : null;
+        int[] nInvocations = new int[rows];
+        ClientUtils.SourceCodeSelection[] sels = new ClientUtils.SourceCodeSelection[rows];
+        int[] methodIDs = new int[rows];
+
+        for (int i = 0; i < rows; i++) {
+            timesInMcs0[i] = c.getTimeInMcs0AtRow(i);
+            totalTimesInMcs0[i] = c.getTotalTimeInMcs0AtRow(i);
+            if (collectingTwoTimeStamps) {
+                timesInMcs1[i] = c.getTimeInMcs1AtRow(i);
+                totalTimesInMcs1[i] = c.getTotalTimeInMcs1AtRow(i);
+            }
+            nInvocations[i] = c.getNInvocationsAtRow(i);
+            sels[i] = c.getSourceCodeSelectionAtRow(i);
+            methodIDs[i] = c.getMethodIdAtRow(i);
+        }
+
+        return new DiffFlatProfileContainer(collectingTwoTimeStamps, timesInMcs0, timesInMcs1,
+                totalTimesInMcs0, totalTimesInMcs1, nInvocations, sels, methodIDs, rows,
+                c.getWholeGraphNetTime0(), c.getWholeGraphNetTime1());
+    }
+    
     private DiffFlatProfileContainer(boolean collectingTwoTimeStamps, long[] timeInMcs0, long[] timeInMcs1, 
              long[] totalTimeInMcs0, long[] totalTimeInMcs1, int[] nInvocations, ClientUtils.SourceCodeSelection[] sels, 
              int[] methodIDs, int nMethods, double wholeGraphNetTime0, double wholeGraphNetTime1) {
@@ -234,11 +234,35 @@ public abstract class FlatProfileContainer {
     }
 
     protected void removeZeroInvocationEntries() {
+        removeEntries(false);
+    }
+
+    /**
+     * Removes the entries whose invocations and times are all zero, keeps negative values. Used for differences
+     * of two snapshots.
+     */
+    protected void removeZeroEntries() {
+        removeEntries(true);
+    }
+
+    private boolean isEntryUsed(int i, boolean signed) {
+        if (!signed) {
+            return nInvocations[i] > 0;
+        }
+
+        return nInvocations[i] != 0 || timeInMcs0[i] != 0 || totalTimeInMcs0[i] != 0
+               || (collectingTwoTimeStamps && (timeInMcs1[i] != 0 || totalTimeInMcs1[i] != 0));
+    }
+
+    private void removeEntries(boolean signed) {
         nRows = 0;
 
+        boolean[] used = new boolean[totalMethods];
+
         // Note that at index 0 we always have a "Thread" quazi-method, that we shouldn't take into account
         for (int i = 1; i < totalMethods; i++) {
-            if (nInvocations[i] > 0) {
+            if (isEntryUsed(i, signed)) {
+                used[i] = true;
                 nRows++;
             }
         }
@@ -263,28 +287,28 @@ public abstract class FlatProfileContainer {
         int k = 0;
 
         for (int i = 1; i < totalMethods; i++) {
-            if (oldNInvocations[i] > 0) {
+            if (used[i]) {
                 long time = oldTime0[i];
-                if (time < 0) {
+                if (time < 0 && !signed) {
                     time = 0; // Replace possible negative time entries with 0
                 }
                 timeInMcs0[k] = time;
 
                 time = oldTotalTime0[i];
-                if (time < 0) {
+                if (time < 0 && !signed) {
                     time = 0;
                 }
                 totalTimeInMcs0[k] = time;
 
                 if (collectingTwoTimeStamps) {
                     time = oldTime1[i];
-                    if (time < 0) {
+                    if (time < 0 && !signed) {
                         time = 0;
                     }
                     timeInMcs1[k] = time;
 
                     time = oldTotalTime1[i];
-                    if (time < 0) {
+                    if (time < 0 && !signed) {
                         time = 0;
                     }
                     totalTimeInMcs1[k] = time;
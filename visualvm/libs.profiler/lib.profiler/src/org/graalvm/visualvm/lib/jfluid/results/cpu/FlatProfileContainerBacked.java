@@ -62,9 +62,15 @@ public class FlatProfileContainerBacked extends FlatProfileContainer {
 
         collectingTwoTimeStamps = cctContainer.isCollectingTwoTimeStamps();
 
-        // Now get rid of zero-invocation entries once and forever. Also set nTotalInvocations and set negative times
-        // (that may be possible due to time cleansing inaccuracies) to zero.
-        removeZeroInvocationEntries();
+        if (cctContainer.signedTimes) {
+            // Differences of snapshots, see CPUCCTMerger.diff(). Both the times and the invocations may be negative
+            // or zero for a method that has been invoked, only the entries without any difference are removed.
+            removeZeroEntries();
+        } else {
+            // Now get rid of zero-invocation entries once and forever. Also set nTotalInvocations and set negative times
+            // (that may be possible due to time cleansing inaccuracies) to zero.
+            removeZeroInvocationEntries();
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.cpu;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+
+/**
+ * A CPUCCTContainer created by merging the compact data of several source containers, typically containers of
+ * the same-named thread from different snapshots. Nodes of the sources are aligned by the merged method ids and
+ * their values are added together, each source multiplied by its weight. A weight of -1 is used to compute
+ * a difference, in which case the times stored in this container may be negative.
+ * The sources are read directly from their compact data, no PrestimeCPUCCTNode instances are created.
+ */
+class MergedCPUCCTContainer extends CPUCCTContainer {
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    //-- Temporary data used during construction
+    private CPUCCTContainer[] sources;
+    private int[][] methodIdMaps; // [source][source method id] -> merged method id
+    private int[] weights;
+    private int[] methodGroups;   // merged method id -> index of children group, -1 if not used by current node
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    MergedCPUCCTContainer(CPUResultsSnapshot cpuResSnapshot, CPUCCTContainer[] sources, int[][] methodIdMaps, int[] weights,
+                          int nMethods, int threadId, String threadName) {
+        super(cpuResSnapshot);
+        this.threadId = threadId;
+        this.threadName = threadName;
+        this.sources = sources;
+        this.methodIdMaps = methodIdMaps;
+        this.weights = weights;
+
+        collectingTwoTimeStamps = true;
+        displayWholeThreadCPUTime = true;
+
+        for (int i = 0; i < sources.length; i++) {
+            CPUCCTContainer source = sources[i];
+            int w = weights[i];
+
+            collectingTwoTimeStamps &= source.collectingTwoTimeStamps;
+            displayWholeThreadCPUTime &= source.displayWholeThreadCPUTime;
+            signedTimes |= w < 0 || source.signedTimes;
+
+            wholeGraphGrossTimeAbs += w * source.wholeGraphGrossTimeAbs;
+            wholeGraphGrossTimeThreadCPU += w * source.wholeGraphGrossTimeThreadCPU;
+            timeInInjectedCodeInAbsCounts += w * source.timeInInjectedCodeInAbsCounts;
+            timeInInjectedCodeInThreadCPUCounts += w * source.timeInInjectedCodeInThreadCPUCounts;
+            wholeGraphPureTimeAbs += w * source.wholeGraphPureTimeAbs;
+            wholeGraphPureTimeThreadCPU += w * source.wholeGraphPureTimeThreadCPU;
+            wholeGraphNetTime0 += w * source.wholeGraphNetTime0;
+            wholeGraphNetTime1 += w * source.wholeGraphNetTime1;
+            totalInvNo += w * source.totalInvNo;
+        }
+
+        nodeSize = collectingTwoTimeStamps ? OFS_SUBNODE02 : OFS_SUBNODE01;
+
+        // The merged tree cannot have more nodes than all the sources together. Every source node except the root
+        // is referenced by exactly one child offset, which gives its number of nodes from the compact data length.
+        long nNodes = 0;
+
+        for (CPUCCTContainer source : sources) {
+            int sourceChildOfsSize = source.childOfsSize;
+            nNodes += (source.compactData.length + sourceChildOfsSize) / (source.nodeSize + sourceChildOfsSize);
+        }
+
+        childOfsSize = CHILD_OFS_SIZE_3;
+
+        long arraySize = (nodeSize * nNodes) + (childOfsSize * (nNodes - 1));
+
+        if (arraySize > 0xFFFFFF) { // compactData may be to big to use 3 bytes subnode offsets
+            childOfsSize = CHILD_OFS_SIZE_4;
+            arraySize = (nodeSize * nNodes) + (childOfsSize * (nNodes - 1));
+        }
+
+        if (arraySize > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Merged CCT for thread " + threadName + " too large: " + arraySize + " bytes"); // NOI18N
+        }
+
+        compactData = new byte[(int) arraySize];
+
+        methodGroups = new int[nMethods];
+        Arrays.fill(methodGroups, -1);
+
+        int[] rootSources = new int[sources.length];
+        int[] rootOffsets = new int[sources.length];
+
+        for (int i = 0; i < rootSources.length; i++) {
+            rootSources[i] = i;
+        }
+
+        int lastOfs = generateMergedTree(rootSources, rootOffsets);
+
+        // Create an array of appropriate size. When 4 bytes subnode offsets are used, the array must stay larger
+        // than 0xFFFFFF, readFromStream() decides about the offset size by the length of compactData.
+        int length = (childOfsSize == CHILD_OFS_SIZE_4) ? Math.max(lastOfs, 0xFFFFFF + 1) : lastOfs;
+
+        if (length < compactData.length) {
+            compactData = Arrays.copyOf(compactData, length);
+        }
+
+        this.sources = null;
+        this.methodIdMaps = null;
+        this.weights = null;
+        this.methodGroups = null;
+
+        rootNode = new PrestimeCPUCCTNodeBacked(this, null, 0);
+
+        if (getMethodIdForNodeOfs(0) == 0) {
+            rootNode.setThreadNode();
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Generates the merged tree for the root source nodes, in the same depth-first order as generateMirrorNode() does.
+     * An explicit stack of nodes with not yet generated children is used instead of recursion, so that deep CCTs
+     * cannot overflow the thread stack.
+     * Returns the offset right after the last generated node.
+     */
+    private int generateMergedTree(int[] rootSources, int[] rootOffsets) {
+        MergedChildren rootChildren = generateMergedNode(rootSources, rootOffsets, 0, rootSources.length, 0);
+
+        if (rootChildren == null) {
+            return nodeSize;
+        }
+
+        Deque<MergedChildren> stack = new ArrayDeque<>();
+        int nextNodeOfs = rootChildren.getFirstChildOfs();
+        stack.push(rootChildren);
+
+        while (!stack.isEmpty()) {
+            MergedChildren parent = stack.peek();
+
+            if (parent.nextGroup == parent.nGroups) {
+                stack.pop();
+                continue;
+            }
+
+            int g = parent.nextGroup++;
+            setChildOfsForNodeOfs(parent.dataOfs, g, nextNodeOfs);
+
+            MergedChildren children = generateMergedNode(parent.nodeSources, parent.nodeOffsets, parent.groupStarts[g],
+                                                         parent.groupStarts[g + 1], nextNodeOfs);
+
+            if (children == null) {
+                nextNodeOfs += nodeSize;
+            } else {
+                nextNodeOfs = children.getFirstChildOfs();
+                stack.push(children);
+            }
+        }
+
+        return nextNodeOfs;
+    }
+
+    /**
+     * Generates a single node out of the source nodes nodeSources[from..to) / nodeOffsets[from..to), which all have
+     * the same merged method id. Children of the source nodes with the same merged method id are grouped together,
+     * each group becomes a single child of the generated node.
+     * Returns the groups of children to be generated, or null if the node has no children.
+     */
+    private MergedChildren generateMergedNode(int[] nodeSources, int[] nodeOffsets, int from, int to, int dataOfs) {
+        int nCalls = 0;
+        long time0 = 0;
+        long selfTime0 = 0;
+        long time1 = 0;
+        long selfTime1 = 0;
+        int nAllChildren = 0;
+
+        for (int i = from; i < to; i++) {
+            CPUCCTContainer source = sources[nodeSources[i]];
+            int w = weights[nodeSources[i]];
+            int ofs = nodeOffsets[i];
+
+            nCalls += w * source.getNCallsForNodeOfs(ofs);
+            time0 += w * source.getTotalTime0ForNodeOfs(ofs);
+            selfTime0 += w * source.getSelfTime0ForNodeOfs(ofs);
+
+            if (collectingTwoTimeStamps) {
+                time1 += w * source.getTotalTime1ForNodeOfs(ofs);
+                selfTime1 += w * source.getSelfTime1ForNodeOfs(ofs);
+            }
+
+            nAllChildren += source.getNChildrenForNodeOfs(ofs);
+        }
+
+        int firstSource = nodeSources[from];
+        setMethodIdForNodeOfs(dataOfs, methodIdMaps[firstSource][sources[firstSource].getMethodIdForNodeOfs(nodeOffsets[from])]);
+        setNCallsForNodeOfs(dataOfs, nCalls);
+        setTotalTime0ForNodeOfs(dataOfs, time0);
+        setSelfTime0ForNodeOfs(dataOfs, selfTime0);
+
+        if (collectingTwoTimeStamps) {
+            setTotalTime1ForNodeOfs(dataOfs, time1);
+            setSelfTime1ForNodeOfs(dataOfs, selfTime1);
+        }
+
+        if (nAllChildren == 0) {
+            setNChildrenForNodeOfs(dataOfs, 0);
+
+            return null;
+        }
+
+        // Assign children of all source nodes to groups by their merged method id, keeping the order of first occurrence
+        int[] childSources = new int[nAllChildren];
+        int[] childOffsets = new int[nAllChildren];
+        int[] childGroups = new int[nAllChildren];
+        int[] groupMethods = new int[nAllChildren];
+        int[] groupStarts = new int[nAllChildren + 1];
+        int nGroups = 0;
+        int childIdx = 0;
+
+        for (int i = from; i < to; i++) {
+            int sourceIdx = nodeSources[i];
+            CPUCCTContainer source = sources[sourceIdx];
+            int[] methodIdMap = methodIdMaps[sourceIdx];
+            int ofs = nodeOffsets[i];
+            int nChildren = source.getNChildrenForNodeOfs(ofs);
+
+            for (int j = 0; j < nChildren; j++) {
+                int childOfs = source.getChildOfsForNodeOfs(ofs, j);
+                int methodId = methodIdMap[source.getMethodIdForNodeOfs(childOfs)];
+                int group = methodGroups[methodId];
+
+                if (group == -1) {
+                    group = nGroups++;
+                    methodGroups[methodId] = group;
+                    groupMethods[group] = methodId;
+                }
+
+                childSources[childIdx] = sourceIdx;
+                childOffsets[childIdx] = childOfs;
+                childGroups[childIdx] = group;
+                groupStarts[group + 1]++;
+                childIdx++;
+            }
+        }
+
+        for (int g = 0; g < nGroups; g++) {
+            methodGroups[groupMethods[g]] = -1;
+            groupStarts[g + 1] += groupStarts[g];
+        }
+
+        if (nGroups > 0xFFFF) {
+            throw new IllegalStateException("Too many merged children (" + nGroups + ") in thread " + threadName); // NOI18N
+        }
+
+        // Order the children by groups
+        int[] sortedSources = new int[nAllChildren];
+        int[] sortedOffsets = new int[nAllChildren];
+        int[] groupPos = Arrays.copyOf(groupStarts, nGroups);
+
+        for (int i = 0; i < nAllChildren; i++) {
+            int pos = groupPos[childGroups[i]]++;
+            sortedSources[pos] = childSources[i];
+            sortedOffsets[pos] = childOffsets[i];
+        }
+
+        childSources = childOffsets = childGroups = groupMethods = groupPos = null;
+
+        setNChildrenForNodeOfs(dataOfs, nGroups);
+
+        return new MergedChildren(dataOfs, nGroups, sortedSources, sortedOffsets, groupStarts);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Groups of source children of a generated node, children of group g are
+     * nodeSources[groupStarts[g]..groupStarts[g + 1]) / nodeOffsets[groupStarts[g]..groupStarts[g + 1]).
+     */
+    private final class MergedChildren {
+        //~ Instance fields ------------------------------------------------------------------------------------------------------
+
+        private final int dataOfs;
+        private final int nGroups;
+        private final int[] nodeSources;
+        private final int[] nodeOffsets;
+        private final int[] groupStarts;
+        private int nextGroup;
+
+        //~ Constructors ---------------------------------------------------------------------------------------------------------
+
+        MergedChildren(int dataOfs, int nGroups, int[] nodeSources, int[] nodeOffsets, int[] groupStarts) {
+            this.dataOfs = dataOfs;
+            this.nGroups = nGroups;
+            this.nodeSources = nodeSources;
+            this.nodeOffsets = nodeOffsets;
+            this.groupStarts = groupStarts;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
+
+        int getFirstChildOfs() {
+            return dataOfs + nodeSize + (nGroups * childOfsSize);
+        }
+    }
+}
@@ -63,6 +63,8 @@ public class ThreadInfo {
     public long topMethodEntryTime1;
     // Entry (or "re-entry" upon return from the callee) time for the topmost method
     public long totalNInv;
+    long lastLoggedTimeStamp;
+    // Timestamp of the last event of this thread logged at FINEST level, used to log the time between events
 
     ThreadInfo(int threadId) {
         super();
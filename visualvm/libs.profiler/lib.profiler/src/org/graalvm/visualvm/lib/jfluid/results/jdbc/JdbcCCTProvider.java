@@ -62,6 +62,9 @@ public interface JdbcCCTProvider extends CCTProvider, FlatProfileProvider {
     int getCommandType(int selectId);
     int getSQLCommand(int selectId);
     String[] getTables(int selectId);
+    default String[] getSamples(int selectId) { return new String[0]; }
+    default long[] getSampleCounts(int selectId) { return new long[0]; }
+    default long getStatementsSize() { return 0; }
     void updateInternals();
     void beginTrans(boolean mutable);
     void endTrans();
@@ -69,6 +69,10 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
 
     static final Logger JDBC_LOGGER = Logger.getLogger(JdbcGraphBuilder.class.getName());
 
+    // number of concrete statements sampled for each fingerprint
+    private static final int SQL_SAMPLES = Integer.getInteger("org.graalvm.visualvm.lib.jfluid.results.jdbc.sqlSamples", 10).intValue(); // NOI18N
+
+    private boolean aggregateSQL;
     private Map statements;
     private Map connections;
     private Map<Select,Integer> selectsToId;
@@ -197,6 +201,7 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
         stacksForSelects = null;
         lastSelectId = 0;
         profilerClient.registerJdbcCCTProvider(this);
+        aggregateSQL = profilerClient.getSettings().isAggregateSQL();
         InstrumentationFilter f = profilerClient.getSettings().getInstrumentationFilter();
         filter = new TextFilter(f.getValue(), f.getType(), false);
     }
@@ -446,16 +451,22 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
     }
 
     private int getSelectId(int type, String select) {
-        Select sel = new Select(type, select);
+        String key = aggregateSQL ? SQLFingerprint.fingerprint(select) : select;
+        Select sel = new Select(type, key);
         
         Integer selectId = selectsToId.get(sel);
         if (selectId == null) {
             selectId = Integer.valueOf(++lastSelectId);
-            sel.setCommandType(extractSQLCommandType(select));
-            sel.setTables(extractTables(select));
+            sel.setCommandType(extractSQLCommandType(key));
+            sel.setTables(extractTables(key));
             selectsToId.put(sel, selectId);
             idsToSelect.put(selectId, sel);
             updateNumberOfSelects();
+        } else {
+            sel = idsToSelect.get(selectId);
+        }
+        if (aggregateSQL && SQL_SAMPLES > 0) {
+            sel.addSample(select);
         }
         return selectId.intValue();
     }
@@ -807,6 +818,37 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
         return new String[0];
     }
 
+    @Override
+    public String[] getSamples(int selectId) {
+        Select sel = idsToSelect.get(Integer.valueOf(selectId));
+        if (sel != null && sel.getSamples() != null) {
+            return sel.getSamples().getStatements();
+        }
+        return new String[0];
+    }
+
+    @Override
+    public long[] getSampleCounts(int selectId) {
+        Select sel = idsToSelect.get(Integer.valueOf(selectId));
+        if (sel != null && sel.getSamples() != null) {
+            return sel.getSamples().getCounts();
+        }
+        return new long[0];
+    }
+
+    @Override
+    public long getStatementsSize() {
+        long size = 0;
+
+        for (Select sel : idsToSelect.values()) {
+            size += SQLSamples.getRetainedSize(sel.getSelect());
+            if (sel.getSamples() != null) {
+                size += sel.getSamples().getRetainedSize();
+            }
+        }
+        return size;
+    }
+
     private int incrementSqlLevel(ThreadInfo ti) {
         Integer sqlLevel = currentSqlLevel.get(ti);
         if (sqlLevel == null) {
@@ -878,6 +920,7 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
         private  int commandType;
         private final String select;
         private String[] tables;
+        private SQLSamples samples;
         
         Select(int t, String s) {
             type = t;
@@ -908,6 +951,17 @@ public class JdbcGraphBuilder extends BaseCallGraphBuilder implements CPUProfili
             return select;
         }
 
+        private void addSample(String sql) {
+            if (samples == null) {
+                samples = new SQLSamples(SQL_SAMPLES);
+            }
+            samples.add(sql);
+        }
+
+        private SQLSamples getSamples() {
+            return samples;
+        }
+
         @Override
         public int hashCode() {
             return type ^ select.hashCode();
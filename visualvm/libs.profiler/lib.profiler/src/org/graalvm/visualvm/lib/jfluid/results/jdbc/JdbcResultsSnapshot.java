@@ -55,6 +55,9 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
     int         version
     long        timestamp
     long        duration
+    --- missing in JDBC data version 1
+    int         -(JDBC data version), currently -2
+    ---
     int         # profiled selects
     ===> for(# profiled selects)
     string      select
@@ -74,8 +77,22 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
     <=====
     <::: load node
     <===
+    --- only in JDBC data version 2
+    long        approximate size of statements kept by the profiler
+    boolean     contains samples
+    ===> for(# profiled selects)
+    int         # samples
+    ======> for(# samples)
+    string      concrete statement
+    long        number of invocations (upper bound)
+    <=====
+    <===
     ***************************************************************************/
-    
+
+    // JDBC data version 1 has no version marker
+    private static final int DATA_VERSION_SAMPLES = 2;
+    private static final int DATA_VERSION = DATA_VERSION_SAMPLES;
+
     private JMethodIdTable table;
     /** [0-nProfiledSelects] select names */
     String[] selectNames;
@@ -98,6 +115,15 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
     /** [1-nProfiledSelects] select Id -> root of its allocation traces tree */
     private RuntimeMemoryCCTNode[] stacksForSelects;
 
+    /** [1-nProfiledSelects] most frequent concrete statements aggregated under selectId, null if not aggregated */
+    String[][] samplesForSelectId;
+
+    /** [1-nProfiledSelects] number of invocations of the statements in samplesForSelectId */
+    long[][] sampleCountsForSelectId;
+
+    /** approximate size of statements kept by the profiler */
+    long statementsSize;
+
     /** total number of profiled selects */
     int nProfiledSelects;
 
@@ -161,6 +187,22 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
         return tablesForSelectId;
     }
 
+    public String[][] getSamplesForSelectId() {
+        return samplesForSelectId;
+    }
+
+    public long[][] getSampleCountsForSelectId() {
+        return sampleCountsForSelectId;
+    }
+
+    public long getStatementsSize() {
+        return statementsSize;
+    }
+
+    public boolean containsSamples() {
+        return samplesForSelectId != null;
+    }
+
     public boolean containsStacks() {
         return stacksForSelects != null;
     }
@@ -255,7 +297,18 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
         super.readFromStream(in);
         
         StringCache strings = new StringCache();
+        int dataVersion = 1;
         nProfiledSelects = in.readInt();
+
+        if (nProfiledSelects < 0) {
+            // explicit version marker, number of profiled selects is never negative
+            dataVersion = -nProfiledSelects;
+
+            if (dataVersion > DATA_VERSION) {
+                throw new IOException("Stored JDBC data version not supported: " + dataVersion); // NOI18N
+            }
+            nProfiledSelects = in.readInt();
+        }
         selectNames = new String[nProfiledSelects];
         invocationsPerSelectId = new long[nProfiledSelects];
         timePerSelectId = new long[nProfiledSelects];
@@ -296,6 +349,25 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
             }
         }
 
+        if (dataVersion >= DATA_VERSION_SAMPLES) {
+            statementsSize = in.readLong();
+
+            if (in.readBoolean()) {
+                samplesForSelectId = new String[nProfiledSelects][];
+                sampleCountsForSelectId = new long[nProfiledSelects][];
+
+                for (int i = 1; i < nProfiledSelects; i++) {
+                    int nSamples = in.readInt();
+                    samplesForSelectId[i] = new String[nSamples];
+                    sampleCountsForSelectId[i] = new long[nSamples];
+                    for (int j = 0; j < nSamples; j++) {
+                        samplesForSelectId[i][j] = in.readUTF();
+                        sampleCountsForSelectId[i][j] = in.readLong();
+                    }
+                }
+            }
+        }
+
         if (LOGGER.isLoggable(Level.FINEST)) {
             debugValues();
         }
@@ -305,6 +377,7 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
     public void writeToStream(DataOutputStream out) throws IOException {
         super.writeToStream(out);
 
+        out.writeInt(-DATA_VERSION);
         out.writeInt(nProfiledSelects);
 
         for (int i = 1; i < nProfiledSelects; i++) {
@@ -342,6 +415,22 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
                 table.writeToStream(out);
             }
         }
+
+        out.writeLong(statementsSize);
+        out.writeBoolean(samplesForSelectId != null);
+
+        if (samplesForSelectId != null) {
+            for (int i = 1; i < nProfiledSelects; i++) {
+                String[] samples = samplesForSelectId[i];
+                int nSamples = (samples == null) ? 0 : samples.length;
+
+                out.writeInt(nSamples);
+                for (int j = 0; j < nSamples; j++) {
+                    out.writeUTF(samples[j]);
+                    out.writeLong(sampleCountsForSelectId[i][j]);
+                }
+            }
+        }
     }
 
     /**
@@ -369,6 +458,9 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
             commandTypeForSelectId = new int[nProfiledSelects];
             tablesForSelectId = new String[nProfiledSelects][];
             selectNames = new String[nProfiledSelects];
+            samplesForSelectId = new String[nProfiledSelects][];
+            sampleCountsForSelectId = new long[nProfiledSelects][];
+            boolean hasSamples = false;
             for (int i=0; i<fpc.getNRows() ; i++) {
                 int selectId = fpc.getMethodIdAtRow(i);
                 selectNames[selectId] = fpc.getMethodNameAtRow(i);
@@ -377,7 +469,15 @@ public class JdbcResultsSnapshot extends ResultsSnapshot {
                 typeForSelectId[selectId] = provider.getCommandType(selectId);
                 commandTypeForSelectId[selectId] = provider.getSQLCommand(selectId);
                 tablesForSelectId[selectId] = provider.getTables(selectId);
+                samplesForSelectId[selectId] = provider.getSamples(selectId);
+                sampleCountsForSelectId[selectId] = provider.getSampleCounts(selectId);
+                hasSamples |= samplesForSelectId[selectId].length > 0;
+            }
+            if (!hasSamples) {
+                samplesForSelectId = null;
+                sampleCountsForSelectId = null;
             }
+            statementsSize = provider.getStatementsSize();
 
             RuntimeMemoryCCTNode[] stacks = provider.getStacksForSelects();
             if ((stacks != null) && checkContainsStacks(stacks)) {
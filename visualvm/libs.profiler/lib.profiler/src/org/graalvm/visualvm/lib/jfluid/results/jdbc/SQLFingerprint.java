@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.results.jdbc;
+
+/**
+ * Normalizes SQL statements into fingerprints. String and numeric literals are
+ * replaced by <code>?</code>, IN-lists of placeholders are collapsed to a single
+ * <code>(?)</code>, comments are dropped and whitespace is squeezed, so that
+ * statements differing only in bound values or comments share one fingerprint.
+ */
+final class SQLFingerprint {
+
+    private SQLFingerprint() {
+    }
+
+    static String fingerprint(String sql) {
+        int len = sql.length();
+        StringBuilder fp = new StringBuilder(len);
+        int inListStart = -1;
+        int i = 0;
+
+        while (i < len) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {                          // string literal, '' is an escaped quote
+                i++;
+                while (i < len) {
+                    if (sql.charAt(i++) == '\'') {
+                        if (i < len && sql.charAt(i) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                }
+                fp.append('?');
+            } else if (c == '"') {                    // quoted identifier
+                int end = sql.indexOf('"', i + 1);
+                end = end == -1 ? len : end + 1;
+                fp.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierEnd(sql, i)) {
+                i++;
+                while (i < len) {
+                    char n = sql.charAt(i);
+                    if (Character.isLetterOrDigit(n) || n == '.') {
+                        i++;
+                    } else if ((n == '+' || n == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E')) {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                fp.append('?');
+            } else if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {   // line comment
+                int end = sql.indexOf('\n', i + 2);
+                i = end == -1 ? len : end;
+                appendSpace(fp);
+            } else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {   // block comment, including hints
+                int end = sql.indexOf("*/", i + 2); // NOI18N
+                i = end == -1 ? len : end + 2;
+                appendSpace(fp);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(fp);
+                i++;
+            } else if (c == '(') {
+                inListStart = endsWithIn(fp) ? fp.length() : -1;
+                fp.append(c);
+                i++;
+            } else if (c == ')') {
+                if (inListStart != -1 && onlyPlaceholders(fp, inListStart + 1)) {
+                    fp.setLength(inListStart);
+                    appendSpace(fp);
+                    fp.append("(?"); // NOI18N
+                }
+                inListStart = -1;
+                fp.append(c);
+                i++;
+            } else {
+                fp.append(c);
+                i++;
+            }
+        }
+        int end = fp.length();
+        if (end > 0 && fp.charAt(end - 1) == ' ') {
+            fp.setLength(end - 1);
+        }
+        return fp.toString();
+    }
+
+    private static void appendSpace(StringBuilder fp) {
+        if (fp.length() > 0 && fp.charAt(fp.length() - 1) != ' ') {
+            fp.append(' ');
+        }
+    }
+
+    private static boolean isIdentifierEnd(String sql, int index) {
+        if (index == 0) {
+            return false;
+        }
+        char p = sql.charAt(index - 1);
+        return Character.isLetterOrDigit(p) || p == '_' || p == '$' || p == '.';
+    }
+
+    private static boolean endsWithIn(StringBuilder fp) {
+        int end = fp.length();
+
+        if (end > 0 && fp.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end < 2) {
+            return false;
+        }
+        char i = fp.charAt(end - 2);
+        char n = fp.charAt(end - 1);
+
+        if ((i != 'i' && i != 'I') || (n != 'n' && n != 'N')) {
+            return false;
+        }
+        return end == 2 || !Character.isLetterOrDigit(fp.charAt(end - 3)) && fp.charAt(end - 3) != '_';
+    }
+
+    private static boolean onlyPlaceholders(StringBuilder fp, int start) {
+        boolean expectPlaceholder = true;
+
+        for (int i = start; i < fp.length(); i++) {
+            char c = fp.charAt(i);
+
+            if (c == ' ') {
+                continue;
+            }
+            if (expectPlaceholder ? c != '?' : c != ',') {
+                return false;
+            }
+            expectPlaceholder = !expectPlaceholder;
+        }
+        return !expectPlaceholder;
+    }
+}
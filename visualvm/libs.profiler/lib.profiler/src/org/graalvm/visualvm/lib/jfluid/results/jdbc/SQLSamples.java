@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.results.jdbc;
+
+/**
+ * Bounded sample of concrete SQL statements sharing one fingerprint.
+ * Keeps the most frequent statements using the Space-Saving algorithm: once
+ * all slots are taken, a new statement replaces the least frequent one and
+ * inherits its count, so counts are upper bounds of the real frequencies.
+ */
+final class SQLSamples {
+
+    private final String[] statements;
+    private final long[] counts;
+    private int size;
+
+    SQLSamples(int capacity) {
+        statements = new String[capacity];
+        counts = new long[capacity];
+    }
+
+    void add(String statement) {
+        int hash = statement.hashCode();
+        int min = 0;
+
+        for (int i = 0; i < size; i++) {
+            String s = statements[i];
+            if (s.hashCode() == hash && s.equals(statement)) {
+                counts[i]++;
+                return;
+            }
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        if (size < statements.length) {
+            statements[size] = statement;
+            counts[size++] = 1;
+        } else {
+            statements[min] = statement;
+            counts[min]++;
+        }
+    }
+
+    /** Sampled statements ordered by decreasing count. */
+    String[] getStatements() {
+        int[] order = getOrder();
+        String[] ret = new String[order.length];
+
+        for (int i = 0; i < order.length; i++) {
+            ret[i] = statements[order[i]];
+        }
+        return ret;
+    }
+
+    /** Counts of the statements returned by {@link #getStatements()}. */
+    long[] getCounts() {
+        int[] order = getOrder();
+        long[] ret = new long[order.length];
+
+        for (int i = 0; i < order.length; i++) {
+            ret[i] = counts[order[i]];
+        }
+        return ret;
+    }
+
+    /** Approximate number of bytes retained by the sampled statements. */
+    long getRetainedSize() {
+        long retained = 16 + 12L * statements.length;
+
+        for (int i = 0; i < size; i++) {
+            retained += getRetainedSize(statements[i]);
+        }
+        return retained;
+    }
+
+    static long getRetainedSize(String s) {
+        return 40 + 2L * s.length();
+    }
+
+    private int[] getOrder() {
+        int[] order = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            int j = i - 1;
+
+            while (j >= 0 && counts[order[j]] < counts[i]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = i;
+        }
+        return order;
+    }
+}
@@ -36,7 +36,7 @@ public abstract class AbstractLockDataFrameProcessor extends AbstractDataFramePr
     protected volatile int currentThreadId = -1;
 
     protected void fireMonitorEntry(final int threadId, final long timeStamp0, final long timeStamp1, final int monitorId, final int ownerThreadId) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
             public void execute(ProfilingResultListener listener) {
                 ((LockProfilingResultListener) listener).monitorEntry(threadId, timeStamp0, timeStamp1, monitorId, ownerThreadId);
             }
@@ -44,7 +44,7 @@ public abstract class AbstractLockDataFrameProcessor extends AbstractDataFramePr
     }
 
     protected void fireMonitorExit(final int threadId, final long timeStamp0, final long timeStamp1, final int monitorId) {
-        foreachListener(new ListenerFunctor() {
+        foreachThreadListener(threadId, new ListenerFunctor() {
             public void execute(ProfilingResultListener listener) {
                 ((LockProfilingResultListener) listener).monitorExit(threadId, timeStamp0, timeStamp1, monitorId);
             }
@@ -74,4 +74,12 @@ public abstract class AbstractLockDataFrameProcessor extends AbstractDataFramePr
                 }
             });
     }
+
+    /**
+     * Dispatches an event which affects only the state kept for the given thread.
+     * Subclasses may defer such events and apply them concurrently with events of other threads.
+     */
+    protected void foreachThreadListener(int threadId, ListenerFunctor functor) {
+        foreachListener(functor);
+    }
 }
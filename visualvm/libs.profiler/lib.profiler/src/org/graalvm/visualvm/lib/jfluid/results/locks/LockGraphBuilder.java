@@ -353,6 +353,10 @@ public class LockGraphBuilder extends BaseCallGraphBuilder implements LockProfil
         public void onAllocStackTrace(char classId, long objSize, int[] methodIds) {
         }
 
+        @Override
+        public void onAllocStackTraces(char classId, long objSize, int count, int[] methodIds) {
+        }
+
         @Override
         public void onGcPerformed(char classId, long objectId, int objEpoch) {
         }
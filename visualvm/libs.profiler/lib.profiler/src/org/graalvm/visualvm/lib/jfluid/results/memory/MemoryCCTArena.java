@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.memory;
+
+import java.util.Arrays;
+
+
+/**
+ * Compact run time Memory Profiling Calling Context Tree for all profiled classes. Instead of a graph of
+ * RuntimeMemoryCCTNode objects, nodes are stored in primitive column arrays and identified by their index.
+ * Children of a node are kept in a singly linked list (firstChild/nextSibling), the newest child first.
+ * Live object epochs (see RuntimeObjLivenessTermCCTNode) are only allocated for liveness terminal nodes.
+ * <p>
+ * RuntimeMemoryCCTNode trees and PresoObjAllocCCTNode trees are created from the arena on demand, only
+ * for the class which is being displayed or saved.
+ * <p>
+ * Not thread safe, access is guarded by the transaction of MemoryCallGraphBuilder.
+ */
+final class MemoryCCTArena {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    static final int NO_NODE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    // -- node columns, [0 - nNodes]
+    private int[] methodIds;
+    private int[] classIds;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private byte[] types; // one of RuntimeMemoryCCTNode.TYPE_xxx
+    private long[] nCalls;
+    private long[] totalObjSize;
+    private int[][][] epochAndNLiveObjects; // only for TYPE_RuntimeObjLivenessTermCCTNode nodes, lazily allocated
+
+    /** [0 - nClasses] class Id -> index of the root of its allocation traces tree or NO_NODE */
+    private int[] classRoots;
+    private int nNodes;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    MemoryCCTArena() {
+        classRoots = new int[0];
+        reset();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    int getNClasses() {
+        return classRoots.length;
+    }
+
+    boolean hasStacksForClass(int classId) {
+        return (classId < classRoots.length) && (classRoots[classId] != NO_NODE);
+    }
+
+    int sizeInBytes() {
+        return methodIds.length * (4 + 4 + 4 + 4 + 1 + 8 + 8 + 4) + (classRoots.length * 4);
+    }
+
+    void ensureClasses(int nClasses) {
+        int oldLen = classRoots.length;
+
+        if (oldLen < nClasses) {
+            classRoots = Arrays.copyOf(classRoots, nClasses);
+            Arrays.fill(classRoots, oldLen, nClasses, NO_NODE);
+        }
+    }
+
+    void reset() {
+        methodIds = new int[INITIAL_CAPACITY];
+        classIds = new int[INITIAL_CAPACITY];
+        firstChild = new int[INITIAL_CAPACITY];
+        nextSibling = new int[INITIAL_CAPACITY];
+        types = new byte[INITIAL_CAPACITY];
+        nCalls = new long[INITIAL_CAPACITY];
+        totalObjSize = new long[INITIAL_CAPACITY];
+        epochAndNLiveObjects = null;
+        nNodes = 0;
+        Arrays.fill(classRoots, NO_NODE);
+    }
+
+    /**
+     * Given the classId and the array of methodIds of the stack trace for the newly allocated object, updates the
+     * reverse Calling Context Tree for this class and returns the index of the terminating node. A node in the middle
+     * of an existing chain is turned into a terminal node if the new chain is a prefix of an existing longer one.
+     */
+    int addStackTrace(int classId, int[] methodIds, boolean live) {
+        int curNode = classRoots[classId];
+
+        if (curNode == NO_NODE) {
+            curNode = newNode(classId, 0);
+            classRoots[classId] = curNode;
+        }
+
+        for (int i = 0; i < methodIds.length; i++) {
+            int methodId = methodIds[i];
+            int child = firstChild[curNode];
+
+            while ((child != NO_NODE) && (this.methodIds[child] != methodId)) {
+                child = nextSibling[child];
+            }
+
+            if (child == NO_NODE) {
+                child = newNode(classId, methodId);
+                nextSibling[child] = firstChild[curNode];
+                firstChild[curNode] = child;
+            }
+
+            curNode = child;
+        }
+
+        if (types[curNode] == RuntimeMemoryCCTNode.TYPE_RuntimeMemoryCCTNode) {
+            types[curNode] = (byte) (live ? RuntimeMemoryCCTNode.TYPE_RuntimeObjLivenessTermCCTNode
+                                          : RuntimeMemoryCCTNode.TYPE_RuntimeObjAllocTermCCTNode);
+        }
+
+        return curNode;
+    }
+
+    void addObject(int node, long objSize) {
+        nCalls[node]++;
+        totalObjSize[node] += objSize;
+    }
+
+    void addObjects(int node, int count, long totalSize) {
+        nCalls[node] += count;
+        totalObjSize[node] += totalSize;
+    }
+
+    void addLiveObject(int node, int epoch) {
+        if (epochAndNLiveObjects == null) {
+            epochAndNLiveObjects = new int[methodIds.length][][];
+        }
+
+        epochAndNLiveObjects[node] = RuntimeObjLivenessTermCCTNode.addLiveObjectForEpoch(epochAndNLiveObjects[node], epoch);
+    }
+
+    void removeLiveObject(int node, long objSize, int epoch) {
+        totalObjSize[node] -= objSize;
+
+        if ((epochAndNLiveObjects != null) && (epochAndNLiveObjects[node] != null)) {
+            RuntimeObjLivenessTermCCTNode.removeLiveObjectForEpoch(epochAndNLiveObjects[node], epoch);
+        }
+    }
+
+    /**
+     * Calculates average object ages for all classes in a single pass over the arena.
+     */
+    void calculateAverageObjectAges(float[] avgObjectAge, int currentEpoch) {
+        if (epochAndNLiveObjects == null) {
+            return;
+        }
+
+        int nClasses = Math.min(avgObjectAge.length, classRoots.length);
+        int[][] nObjAndAge = new int[nClasses][];
+
+        for (int i = 0; i < nNodes; i++) {
+            int[][] epochs = epochAndNLiveObjects[i];
+            int classId = classIds[i];
+
+            if ((epochs != null) && (classId < nClasses)) {
+                if (nObjAndAge[classId] == null) {
+                    nObjAndAge[classId] = new int[2];
+                }
+
+                RuntimeObjLivenessTermCCTNode.addNObjAndAge(epochs, currentEpoch, nObjAndAge[classId]);
+            }
+        }
+
+        for (int i = 0; i < nClasses; i++) {
+            if ((nObjAndAge[i] != null) && (nObjAndAge[i][0] != 0)) {
+                avgObjectAge[i] = (float) ((double) nObjAndAge[i][1] / (double) nObjAndAge[i][0]);
+            }
+        }
+    }
+
+    /**
+     * Calculates number of surviving generations for all classes in a single pass over the arena.
+     */
+    void calculateTotalNumberOfSurvGens(int[] maxSurvGen) {
+        if (epochAndNLiveObjects == null) {
+            return;
+        }
+
+        int nClasses = Math.min(maxSurvGen.length, classRoots.length);
+        SurvGenSet[] sgSets = new SurvGenSet[nClasses];
+
+        for (int i = 0; i < nNodes; i++) {
+            int[][] epochs = epochAndNLiveObjects[i];
+            int classId = classIds[i];
+
+            if ((epochs != null) && (classId < nClasses)) {
+                if (sgSets[classId] == null) {
+                    sgSets[classId] = new SurvGenSet();
+                }
+
+                RuntimeObjLivenessTermCCTNode.addSurvGens(epochs, sgSets[classId]);
+            }
+        }
+
+        for (int i = 0; i < nClasses; i++) {
+            if (sgSets[i] != null) {
+                maxSurvGen[i] = sgSets[i].getTotalNoOfAges();
+            }
+        }
+    }
+
+    void checkMethodIds(JMethodIdTable table) {
+        for (int i = 0; i < nNodes; i++) {
+            if (methodIds[i] != 0) {
+                table.checkMethodId(methodIds[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates RuntimeMemoryCCTNode tree for the given class, or null if there are no stacks for this class.
+     */
+    RuntimeMemoryCCTNode createRuntimeCCT(int classId) {
+        if (!hasStacksForClass(classId)) {
+            return null;
+        }
+
+        return createRuntimeNode(classRoots[classId]);
+    }
+
+    /**
+     * Creates PresoObjAllocCCTNode tree for the given class directly from the arena, without creating
+     * the intermediate RuntimeMemoryCCTNode tree. Names are not assigned.
+     */
+    PresoObjAllocCCTNode createPresentationCCT(int classId) {
+        if (!hasStacksForClass(classId)) {
+            return null;
+        }
+
+        return createPresentationNode(classRoots[classId]);
+    }
+
+    private RuntimeMemoryCCTNode createRuntimeNode(int node) {
+        RuntimeMemoryCCTNode rtNode;
+
+        switch (types[node]) {
+            case RuntimeMemoryCCTNode.TYPE_RuntimeObjLivenessTermCCTNode:
+                rtNode = new RuntimeObjLivenessTermCCTNode(methodIds[node], nCalls[node], totalObjSize[node],
+                                                           (epochAndNLiveObjects == null) ? null : epochAndNLiveObjects[node]);
+                break;
+            case RuntimeMemoryCCTNode.TYPE_RuntimeObjAllocTermCCTNode:
+                RuntimeObjAllocTermCCTNode termNode = new RuntimeObjAllocTermCCTNode(methodIds[node]);
+                termNode.nCalls = nCalls[node];
+                termNode.totalObjSize = totalObjSize[node];
+                rtNode = termNode;
+                break;
+            default:
+                rtNode = new RuntimeMemoryCCTNode(methodIds[node]);
+        }
+
+        int nChildren = getNChildren(node);
+
+        if (nChildren == 1) {
+            rtNode.children = createRuntimeNode(firstChild[node]);
+        } else if (nChildren > 1) {
+            RuntimeMemoryCCTNode[] ar = new RuntimeMemoryCCTNode[nChildren];
+            int child = firstChild[node];
+
+            // newest child is first in the list, keep the order of RuntimeMemoryCCTNode.addNewChild()
+            for (int i = nChildren - 1; i >= 0; i--) {
+                ar[i] = createRuntimeNode(child);
+                child = nextSibling[child];
+            }
+
+            rtNode.children = ar;
+        }
+
+        return rtNode;
+    }
+
+    private PresoObjAllocCCTNode createPresentationNode(int node) {
+        PresoObjAllocCCTNode thisNode = new PresoObjAllocCCTNode();
+        thisNode.methodId = methodIds[node];
+
+        if (types[node] != RuntimeMemoryCCTNode.TYPE_RuntimeMemoryCCTNode) {
+            thisNode.nCalls = nCalls[node];
+            thisNode.totalObjSize = totalObjSize[node];
+        }
+
+        int nChildren = getNChildren(node);
+
+        if (nChildren > 0) {
+            thisNode.children = new PresoObjAllocCCTNode[nChildren];
+            int child = firstChild[node];
+
+            for (int i = nChildren - 1; i >= 0; i--) {
+                PresoObjAllocCCTNode childNode = createPresentationNode(child);
+                thisNode.children[i] = childNode;
+                childNode.parent = thisNode;
+                thisNode.nCalls += childNode.nCalls;
+                thisNode.totalObjSize += childNode.totalObjSize;
+                child = nextSibling[child];
+            }
+        }
+
+        return thisNode;
+    }
+
+    private int getNChildren(int node) {
+        int n = 0;
+
+        for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+            n++;
+        }
+
+        return n;
+    }
+
+    private int newNode(int classId, int methodId) {
+        if (nNodes == methodIds.length) {
+            grow();
+        }
+
+        int node = nNodes++;
+        methodIds[node] = methodId;
+        classIds[node] = classId;
+        firstChild[node] = NO_NODE;
+        nextSibling[node] = NO_NODE;
+        types[node] = RuntimeMemoryCCTNode.TYPE_RuntimeMemoryCCTNode;
+
+        return node;
+    }
+
+    private void grow() {
+        int newCapacity = methodIds.length * 2;
+
+        methodIds = Arrays.copyOf(methodIds, newCapacity);
+        classIds = Arrays.copyOf(classIds, newCapacity);
+        firstChild = Arrays.copyOf(firstChild, newCapacity);
+        nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        nCalls = Arrays.copyOf(nCalls, newCapacity);
+        totalObjSize = Arrays.copyOf(totalObjSize, newCapacity);
+
+        if (epochAndNLiveObjects != null) {
+            epochAndNLiveObjects = Arrays.copyOf(epochAndNLiveObjects, newCapacity);
+        }
+    }
+}
@@ -44,7 +44,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
     //~ Inner Classes ------------------------------------------------------------------------------------------------------------
 
     /**
-     * A hashtable specialized for mapping object ids to references to the respective CCT terminating nodes.
+     * A hashtable specialized for mapping object ids to indexes of the respective CCT terminating nodes in MemoryCCTArena.
      * <p/>
      * Only used for updating of existing structures with new data.
      */
@@ -58,8 +58,8 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         /** [0-capacity] size in Bytes of tracked instance */
         private long[] objSize;
 
-        /** [0-capacity] pointer to the "Term" node containing data - see RuntimeObjLivenessTermCCTNode */
-        private RuntimeObjLivenessTermCCTNode[] values;
+        /** [0-capacity] index of the "Term" node containing data - see MemoryCCTArena */
+        private int[] values;
         private int capacity;
         private int k;
         private int nObjects;
@@ -79,7 +79,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
             return lastRemovedObjSize;
         }
 
-        public RuntimeObjLivenessTermCCTNode getNode(long key) {
+        public int getNode(long key) {
             int pos = hash(key);
             long keyAtPos = keys[pos];
             int iter = capacity >> 2;
@@ -91,13 +91,13 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
             }
 
             if (iter == 0) {
-                return null;
+                return MemoryCCTArena.NO_NODE;
             }
 
             keys[pos] = -1;
 
-            RuntimeObjLivenessTermCCTNode ret = values[pos];
-            values[pos] = null;
+            int ret = values[pos];
+            values[pos] = MemoryCCTArena.NO_NODE;
             lastRemovedObjSize = objSize[pos];
             nObjects--;
 
@@ -110,7 +110,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
             init();
         }
 
-        public void put(long key, RuntimeObjLivenessTermCCTNode value, long size) {
+        public void put(long key, int value, long size) {
             if (nObjects > threshold) {
                 rehash();
             }
@@ -150,13 +150,13 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
                 keys[i] = -1;
             }
 
-            values = new RuntimeObjLivenessTermCCTNode[capacity];
+            values = new int[capacity];
             objSize = new long[capacity];
         }
 
         private void rehash() {
             long[] oldKeys = keys;
-            RuntimeObjLivenessTermCCTNode[] oldValues = values;
+            int[] oldValues = values;
             long[] oldObjSize = objSize;
             int oldCapacity = capacity;
             capacity = capacity * 2;
@@ -167,7 +167,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
                 keys[i] = -1;
             }
 
-            values = new RuntimeObjLivenessTermCCTNode[capacity];
+            values = new int[capacity];
             objSize = new long[capacity];
 
             for (int i = 0; i < oldCapacity; i++) {
@@ -214,7 +214,9 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
      */
     private int[] nTrackedLiveObjects;
     private long[] objectsSizePerClass; // [0-nProfiledClasses] total size in bytes for tracked instances of this class
-    private RuntimeMemoryCCTNode[] stacksForClasses; // [0-nProfiledClasses] class Id -> root of its allocation traces tree
+
+    /** allocation traces trees of all classes, RuntimeMemoryCCTNode trees are only created on demand */
+    private MemoryCCTArena arena;
 
     /**
      * [0 - nProfiledClasses] index: classId, if true, the class has been selected for not being profiled
@@ -300,11 +302,27 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         }
     }
 
+    /**
+     * Creates RuntimeMemoryCCTNode trees of all classes from the arena. The trees are not kept by this builder,
+     * every call creates new ones, so this should only be used when the trees of all classes are needed,
+     * like when taking a snapshot.
+     */
     public RuntimeMemoryCCTNode[] getStacksForClasses() {
         transaction.beginTrans(false);
 
         try {
-            return stacksForClasses;
+            if (arena == null) {
+                return null;
+            }
+
+            int nClasses = arena.getNClasses();
+            RuntimeMemoryCCTNode[] stacks = new RuntimeMemoryCCTNode[nClasses];
+
+            for (int i = 0; i < nClasses; i++) {
+                stacks[i] = arena.createRuntimeCCT(i);
+            }
+
+            return stacks;
         } finally {
             transaction.endTrans();
         }
@@ -330,22 +348,23 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
 
         try {
             PresoObjAllocCCTNode presNode = null;
-            RuntimeMemoryCCTNode classNode = getClassNode(classId);
             String className = getClassName(classId);
 
-            if ((classNode == null) || (className == null)) {
+            if ((arena == null) || !arena.hasStacksForClass(classId) || (className == null)) {
                 return null;
             }
 
             switch (getClient().getCurrentInstrType()) {
                 case CommonConstants.INSTR_OBJECT_LIVENESS: {
+                    RuntimeMemoryCCTNode classNode = arena.createRuntimeCCT(classId);
                     presNode = PresoObjLivenessCCTNode.createPresentationCCTFromVM(getClient(), classNode, className,
                                                                                    currentEpoch, dontShowZeroLiveObjAllocPaths);
 
                     break;
                 }
                 case CommonConstants.INSTR_OBJECT_ALLOCATIONS: {
-                    presNode = PresoObjAllocCCTNode.createPresentationCCTFromVM(getClient(), classNode, className);
+                    presNode = arena.createPresentationCCT(classId);
+                    PresoObjAllocCCTNode.assignNamesToNodesFromVM(getClient(), presNode, className);
 
                     break;
                 }
@@ -373,30 +392,40 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
     }
 
     public void onAllocStackTrace(char classId, long objSize, int[] methodIds) {
-        RuntimeObjAllocTermCCTNode termNode = (RuntimeObjAllocTermCCTNode) processStackTrace(classId, methodIds, false);
+        int termNode = processStackTrace(classId, methodIds, false);
 
-        if (termNode != null) {
-            termNode.updateForNewObject(objSize);
+        if (termNode != MemoryCCTArena.NO_NODE) {
+            arena.addObject(termNode, objSize);
             objectsSizePerClass[classId] += objSize;
         }
 
         batchNotEmpty = true;
     }
 
+    public void onAllocStackTraces(char classId, long objSize, int count, int[] methodIds) {
+        int termNode = processStackTrace(classId, methodIds, false);
+
+        if (termNode != MemoryCCTArena.NO_NODE) {
+            arena.addObjects(termNode, count, objSize * count);
+            objectsSizePerClass[classId] += (objSize * count);
+        }
+
+        batchNotEmpty = true;
+    }
+
     public void onGcPerformed(char classId, long objectId, int objEpoch) {
         if (currentEpoch < objEpoch) {
             currentEpoch = objEpoch;
         }
 
-        RuntimeObjLivenessTermCCTNode termNode = objMap.getNode(objectId);
+        int termNode = objMap.getNode(objectId);
         long objSize = objMap.getLastRemovedObjSize();
 
-        if (termNode == null) {
+        if (termNode == MemoryCCTArena.NO_NODE) {
             return; // Can happen if "reset collectors" previously performed
         }
 
-        termNode.updateForRemovedObject(objSize);
-        termNode.removeLiveObjectForEpoch(objEpoch);
+        arena.removeLiveObject(termNode, objSize, objEpoch);
         nTrackedLiveObjects[classId]--;
         objectsSizePerClass[classId] -= objSize;
 
@@ -413,11 +442,11 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         }
 
         try {
-            RuntimeObjLivenessTermCCTNode termNode = (RuntimeObjLivenessTermCCTNode) processStackTrace(classId, methodIds, true);
+            int termNode = processStackTrace(classId, methodIds, true);
 
-            if (termNode != null) {
-                termNode.updateForNewObject(objSize);
-                termNode.addLiveObjectForEpoch(objEpoch);
+            if (termNode != MemoryCCTArena.NO_NODE) {
+                arena.addObject(termNode, objSize);
+                arena.addLiveObject(termNode, objEpoch);
                 objMap.put(objectId, termNode, objSize);
 
                 nTrackedAllocObjects[classId]++;
@@ -494,11 +523,8 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         transaction.beginTrans(true);
 
         try {
-            if (stacksForClasses != null) {
-                for (int i = 0; i < stacksForClasses.length; i++) {
-                    stacksForClasses[i] = null;
-                    objectsSizePerClass[i] = 0;
-                }
+            if (arena != null) {
+                arena.reset();
             }
 
             if (objMap != null) {
@@ -544,7 +570,7 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         currentEpoch = 0;
 
         nProfiledClasses = 0;
-        stacksForClasses = null;
+        arena = null;
         objectsSizePerClass = null;
         nTrackedAllocObjects = null;
         nTrackedLiveObjects = null;
@@ -565,16 +591,8 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         }
     }
 
-    private RuntimeMemoryCCTNode getClassNode(int classId) {
-        return stacksForClasses[classId];
-    }
-
     private boolean isInitialized() {
-        return (unprofiledClass != null) && (stacksForClasses != null);
-    }
-
-    private RuntimeMemoryCCTNode getNewTerminalNode(int methodId, boolean live) {
-        return live ? new RuntimeObjLivenessTermCCTNode(methodId) : new RuntimeObjAllocTermCCTNode(methodId);
+        return (unprofiledClass != null) && (arena != null);
     }
 
     private void calculateAverageObjectAges() {
@@ -585,25 +603,12 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         int nClasses = nProfiledClasses;
 
         avgObjectAge = new float[nClasses];
+        arena.calculateAverageObjectAges(avgObjectAge, currentEpoch);
 
         for (int i = 0; i < nClasses; i++) {
-            if (unprofiledClass[i]) {
-                continue;
+            if (unprofiledClass[i] || (avgObjectAge[i] < 0.0f)) {
+                avgObjectAge[i] = 0.0f; // Negative age may happen after "Reset collectors"
             }
-
-            RuntimeMemoryCCTNode rootNode = stacksForClasses[i];
-
-            if (rootNode == null) {
-                continue;
-            }
-
-            float age = RuntimeObjLivenessTermCCTNode.calculateAvgObjectAgeForAllPaths(rootNode, currentEpoch);
-
-            if (age < 0.0f) {
-                age = 0.0f; // May happen after "Reset collectors"
-            }
-
-            avgObjectAge[i] = age;
         }
     }
 
@@ -613,19 +618,12 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
         }
 
         maxSurvGen = new int[nProfiledClasses];
+        arena.calculateTotalNumberOfSurvGens(maxSurvGen);
 
         for (int i = 0; i < maxSurvGen.length; i++) {
             if (unprofiledClass[i]) {
-                continue;
-            }
-
-            RuntimeMemoryCCTNode rootNode = stacksForClasses[i];
-
-            if (rootNode == null) {
-                continue;
+                maxSurvGen[i] = 0;
             }
-
-            maxSurvGen[i] = RuntimeObjLivenessTermCCTNode.calculateTotalNumberOfSurvGensForAllPaths(rootNode);
         }
     }
 
@@ -643,7 +641,11 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
                 transaction.beginTrans(false);
 
                 try {
-                    PresoObjAllocCCTNode.getNamesForMethodIdsFromVM(client, stacksForClasses);
+                    if (arena != null) {
+                        JMethodIdTable table = client.getJMethodIdTable();
+                        arena.checkMethodIds(table);
+                        table.getNamesForMethodIds(client);
+                    }
                 } catch (ClientUtils.TargetAppOrVMTerminated ex) {
                     ProfilerLogger.log(ex.getMessage()); /* No longer ignore silently */
                 } finally {
@@ -656,112 +658,23 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
     /**
      * Given the classId and the array of methodIds of the stack trace for
      * the newly allocated object, update the reverse Calling Context Tree for this
-     * class. Adds new nodes and/or increases allocated object counters/size in nodes. Returns the terminating
-     * node in the resulting CCT branch.
+     * class. Adds new nodes and/or increases allocated object counters/size in nodes. Returns the index of
+     * the terminating node in the resulting CCT branch, see MemoryCCTArena.addStackTrace().
      */
-    private RuntimeMemoryCCTNode processStackTrace(char classId, int[] methodIds, boolean live) {
-        if (classId >= stacksForClasses.length) {
-            ProfilerLogger.severe("Received stack for non existent class Id: " + (int) classId + ", current length: " + stacksForClasses.length); // NOI18N
+    private int processStackTrace(char classId, int[] methodIds, boolean live) {
+        if (classId >= arena.getNClasses()) {
+            ProfilerLogger.severe("Received stack for non existent class Id: " + (int) classId + ", current length: " + arena.getNClasses()); // NOI18N
             updateNumberOfClasses();
             ProfilerLogger.severe("Received stack for non existent class Id: " + (int) classId
                                   + ", current length after updateNumberOfClasses: " // NOI18N
-                                  + stacksForClasses.length);
+                                  + arena.getNClasses());
 
-            if (classId >= stacksForClasses.length) {
-                return null;
-            }
-        }
-
-        RuntimeMemoryCCTNode curNode = stacksForClasses[classId];
-        RuntimeMemoryCCTNode parentNode = null;
-
-        if (curNode == null) {
-            curNode = new RuntimeMemoryCCTNode(0);
-            stacksForClasses[classId] = curNode;
-        }
-
-        int depth = methodIds.length;
-        int depthMinusOne = depth - 1;
-
-        for (int i = 0; i < depth; i++) {
-            int methodId = methodIds[i];
-            parentNode = curNode;
-
-            Object children = curNode.children;
-
-            boolean found = false;
-
-            if (children != null) {
-                if (children instanceof RuntimeMemoryCCTNode) {
-                    if (((RuntimeMemoryCCTNode) children).methodId == methodId) {
-                        curNode = (RuntimeMemoryCCTNode) children;
-                        found = true;
-                    }
-                } else {
-                    RuntimeMemoryCCTNode[] ar = (RuntimeMemoryCCTNode[]) children;
-
-                    for (RuntimeMemoryCCTNode ar1 : ar) {
-                        if (ar1.methodId == methodId) {
-                            curNode = ar1;
-                            found = true;
-
-                            break;
-                        }
-                    }
-                }
-            }
-
-            if (!found) {
-                // Appropriate subnode not found or there are no subnodes yet - create one.
-                if (i < depthMinusOne) {
-                    curNode = curNode.addNewChild(methodId); // Non-terminal node
-                } else { // Terminal node - need to create a specialized one depending on the profiling type (obj alloc or obj liveness)
-
-                    RuntimeMemoryCCTNode newNode = getNewTerminalNode(methodId, live);
-                    curNode.attachNodeAsChild(newNode);
-                    curNode = newNode;
-                }
+            if (classId >= arena.getNClasses()) {
+                return MemoryCCTArena.NO_NODE;
             }
         }
 
-        // Now check if the curNode that we are going to return is actually not an instance of one of classes representing
-        // "terminal nodes", like RuntimeObjAllocTermCCTNode or RuntimeObjLivenessTermCCTNode. Such nodes contain information
-        // that is normally the same for the whole call chain - such as total number/size of objects of the given type allocated
-        // by this call chain. However, it looks like in some cases (different threads?) it may happen that one complete call
-        // chain may become a fragment of another, longer call chain. In that case we will neeed to have a "terminal" node in the middle
-        // of the chain. Here we are checking for the case when first a longer chain is created, and then a shorter one that
-        // matches a part of the longer one is found, and taking measures.
-        if (curNode.getClass() == RuntimeMemoryCCTNode.class) {
-            RuntimeMemoryCCTNode newNode = getNewTerminalNode(curNode.methodId, live);
-            newNode.children = curNode.children;
-
-            if (parentNode != null) {
-                Object parChildren = parentNode.children;
-                assert (parChildren != null); // parent will always have chilren
-
-                if (parChildren instanceof RuntimeMemoryCCTNode) {
-                    if (parChildren == curNode) {
-                        parentNode.children = newNode;
-                    }
-                } else {
-                    RuntimeMemoryCCTNode[] ar = (RuntimeMemoryCCTNode[]) parChildren;
-
-                    for (int i = 0; i < ar.length; i++) {
-                        if (ar[i] == curNode) {
-                            ar[i] = newNode;
-
-                            break;
-                        }
-                    }
-                }
-            } else {
-                stacksForClasses[classId] = newNode;
-            }
-
-            curNode = newNode;
-        }
-
-        return curNode;
+        return arena.addStackTrace(classId, methodIds, live);
     }
 
     private void updateNumberOfClasses() {
@@ -773,15 +686,13 @@ public class MemoryCallGraphBuilder extends BaseCallGraphBuilder implements Memo
             status.endTrans();
         }
 
-        if ((stacksForClasses == null) || (stacksForClasses.length < nProfiledClasses)) {
-            int newSize = (nProfiledClasses * 3) / 2;
-            RuntimeMemoryCCTNode[] newStacks = new RuntimeMemoryCCTNode[newSize];
-
-            if (stacksForClasses != null) {
-                System.arraycopy(stacksForClasses, 0, newStacks, 0, stacksForClasses.length);
-            }
+        if (arena == null) {
+            arena = new MemoryCCTArena();
+        }
 
-            stacksForClasses = newStacks;
+        if (arena.getNClasses() < nProfiledClasses) {
+            int newSize = (nProfiledClasses * 3) / 2;
+            arena.ensureClasses(newSize);
 
             long[] newObjSize = new long[newSize];
 
@@ -65,6 +65,27 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
 
                     break;
                 }
+                case CommonConstants.OBJ_ALLOC_STACK_TRACE_AGGREGATED: {
+                    char classId = buffer.getChar();
+                    long objSize = getObjSize(buffer);
+                    int count = buffer.getChar();
+                    int depth = getDepth(buffer);
+
+                    if (LOGGER.isLoggable(Level.FINEST)) {
+                        LOGGER.finest("Aggregated allocation stack trace: classId=" + (int) classId + ", objSize=" + objSize // NOI18N
+                                      + ", count=" + count + ", depth=" + depth); // NOI18N
+                    }
+
+                    int[] methodIds = new int[depth];
+
+                    for (int i = 0; i < depth; i++) {
+                        methodIds[i] = buffer.getInt();
+                    }
+
+                    fireAllocStackTraces(classId, objSize, count, methodIds);
+
+                    break;
+                }
                 case CommonConstants.OBJ_LIVENESS_STACK_TRACE: {
                     char classId = buffer.getChar();
                     int objEpoch = buffer.getChar();
@@ -125,7 +146,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                 case CommonConstants.BUFFEREVENT_PROFILEPOINT_HIT: {
                     int id = buffer.getChar();
                     long timeStamp = getTimeStamp(buffer);
-                    int threadId = buffer.getChar();
+                    int threadId = buffer.getInt();
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.finest("Profile Point Hit " + id + ", threadId=" + id + ", timeStamp=" + timeStamp); // NOI18N
                     }
@@ -135,7 +156,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.SET_FOLLOWING_EVENTS_THREAD: {
-                    currentThreadId = buffer.getChar();
+                    currentThreadId = buffer.getInt();
                     if (LOGGER.isLoggable(Level.FINEST)) {
                         LOGGER.log(Level.FINEST, "Change current thread , tId={0}", currentThreadId); // NOI18N
                     }
@@ -143,7 +164,7 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
                     break;
                 }
                 case CommonConstants.NEW_THREAD: {
-                    int threadId = buffer.getChar();
+                    int threadId = buffer.getInt();
                     String threadName = getString(buffer);
                     String threadClassName = getString(buffer);
 
@@ -225,6 +246,18 @@ public class MemoryDataFrameProcessor extends AbstractLockDataFrameProcessor {
             });
     }
 
+    private void fireAllocStackTraces(final char classId, final long objSize, final int count, final int[] methodIds) {
+        foreachListener(new ListenerFunctor() {
+                public void execute(ProfilingResultListener listener) {
+                    try {
+                        ((MemoryProfilingResultsListener) listener).onAllocStackTraces(classId, objSize, count, methodIds);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+    }
+
     private void fireGCPerformed(final char classId, final long objectId, final int objEpoch) {
         foreachListener(new ListenerFunctor() {
                 public void execute(ProfilingResultListener listener) {
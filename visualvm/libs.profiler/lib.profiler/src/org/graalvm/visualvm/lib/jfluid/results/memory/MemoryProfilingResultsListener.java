@@ -37,6 +37,17 @@ public interface MemoryProfilingResultsListener extends LockProfilingResultListe
 
     void onAllocStackTrace(char classId, long objSize, int[] methodIds);
 
+    /**
+     * Called for count allocations of objects of the same class and size with identical stacks,
+     * which were aggregated by the agent. The default implementation calls
+     * {@link #onAllocStackTrace(char, long, int[])} count times.
+     */
+    default void onAllocStackTraces(char classId, long objSize, int count, int[] methodIds) {
+        for (int i = 0; i < count; i++) {
+            onAllocStackTrace(classId, objSize, methodIds);
+        }
+    }
+
     void onGcPerformed(char classId, long objectId, int objEpoch);
 
     void onLivenessStackTrace(char classId, long objectId, int objEpoch, long objSize, int[] methodIds);
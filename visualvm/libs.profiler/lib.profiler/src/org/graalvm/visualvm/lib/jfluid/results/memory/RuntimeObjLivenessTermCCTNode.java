@@ -66,6 +66,22 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
     protected RuntimeObjLivenessTermCCTNode() {
     } // only for I/O
 
+    /**
+     * Used by MemoryCCTArena when materializing nodes, the epoch data are copied
+     */
+    RuntimeObjLivenessTermCCTNode(int methodId, long nCalls, long totalObjSize, int[][] epochAndNLiveObjects) {
+        super(methodId);
+        this.nCalls = nCalls;
+        this.totalObjSize = totalObjSize;
+
+        if (epochAndNLiveObjects != null) {
+            int len = epochAndNLiveObjects[0].length;
+            this.epochAndNLiveObjects = new int[2][len];
+            System.arraycopy(epochAndNLiveObjects[0], 0, this.epochAndNLiveObjects[0], 0, len);
+            System.arraycopy(epochAndNLiveObjects[1], 0, this.epochAndNLiveObjects[1], 0, len);
+        }
+    }
+
     //~ Methods ------------------------------------------------------------------------------------------------------------------
 
     public int getType() {
@@ -76,6 +92,13 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
      * Only called (from ObjLivenessCallGraphBuilder) when processing results during profiled app runtime
      */
     public void addLiveObjectForEpoch(int epoch) {
+        epochAndNLiveObjects = addLiveObjectForEpoch(epochAndNLiveObjects, epoch);
+    }
+
+    /**
+     * Records a live object for the given epoch in the epoch table, returns the (possibly reallocated) table
+     */
+    static int[][] addLiveObjectForEpoch(int[][] epochAndNLiveObjects, int epoch) {
         if (epochAndNLiveObjects == null) {
             epochAndNLiveObjects = new int[2][2];
             epochAndNLiveObjects[0][0] = epochAndNLiveObjects[0][1] = -1;
@@ -112,13 +135,15 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
 
                 if (epochAndNLiveObjects[0][row] != epoch) { // Pathological case. We don't track them - they shouldn't be frequent anyway.
 
-                    return;
+                    return epochAndNLiveObjects;
                 }
             }
         }
 
         epochAndNLiveObjects[0][row] = epoch;
         epochAndNLiveObjects[1][row]++;
+
+        return epochAndNLiveObjects;
     }
 
     public static float calculateAvgObjectAgeForAllPaths(RuntimeMemoryCCTNode rootNode, int currentEpoch) {
@@ -136,6 +161,10 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
      * Works with epoch
      */
     public int calculateTotalNLiveObjects() {
+        return calculateTotalNLiveObjects(epochAndNLiveObjects);
+    }
+
+    static int calculateTotalNLiveObjects(int[][] epochAndNLiveObjects) {
         if (epochAndNLiveObjects == null) {
             return 0;
         }
@@ -191,6 +220,10 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
      * Only called (from ObjLivenessCallGraphBuilder) when processing results during profiled app runtime
      */
     public void removeLiveObjectForEpoch(int epoch) {
+        removeLiveObjectForEpoch(epochAndNLiveObjects, epoch);
+    }
+
+    static void removeLiveObjectForEpoch(int[][] epochAndNLiveObjects, int epoch) {
         assert (epochAndNLiveObjects != null);
 
         int len = epochAndNLiveObjects[0].length;
@@ -241,19 +274,7 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
      */
     protected static void calculateNObjAndAge(RuntimeMemoryCCTNode node, int currentEpoch, int[] nObjAndAge) {
         if (node instanceof RuntimeObjLivenessTermCCTNode) {
-            RuntimeObjLivenessTermCCTNode thisNode = (RuntimeObjLivenessTermCCTNode) node;
-            int[][] epochAndNLiveObjects = thisNode.epochAndNLiveObjects;
-
-            if (epochAndNLiveObjects != null) {
-                int row = 0;
-                int len = epochAndNLiveObjects[0].length;
-
-                while ((row < len) && (epochAndNLiveObjects[0][row] != -1)) {
-                    nObjAndAge[0] += epochAndNLiveObjects[1][row]; // Add the number of objects for this epoch
-                    nObjAndAge[1] += (epochAndNLiveObjects[1][row] * (currentEpoch - epochAndNLiveObjects[0][row])); // Add their total age
-                    row++;
-                }
-            }
+            addNObjAndAge(((RuntimeObjLivenessTermCCTNode) node).epochAndNLiveObjects, currentEpoch, nObjAndAge);
         }
 
         if (node.children != null) {
@@ -274,21 +295,7 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
      */
     protected static void calculateTotalNumberOfSurvGens(RuntimeMemoryCCTNode node, SurvGenSet sgSet) {
         if (node instanceof RuntimeObjLivenessTermCCTNode) {
-            RuntimeObjLivenessTermCCTNode thisNode = (RuntimeObjLivenessTermCCTNode) node;
-            int[][] epochAndNLiveObjects = thisNode.epochAndNLiveObjects;
-
-            if (epochAndNLiveObjects != null) {
-                int[] epochs = epochAndNLiveObjects[0];
-                int len = epochs.length;
-
-                for (int i = 0; i < len; i++) {
-                    if (epochs[i] != -1) {
-                        sgSet.addAge(epochs[i]);
-                    } else {
-                        break;
-                    }
-                }
-            }
+            addSurvGens(((RuntimeObjLivenessTermCCTNode) node).epochAndNLiveObjects, sgSet);
         }
 
         if (node.children != null) {
@@ -304,6 +311,40 @@ public class RuntimeObjLivenessTermCCTNode extends RuntimeObjAllocTermCCTNode {
         }
     }
 
+    /**
+     * Works with epoch
+     */
+    static void addNObjAndAge(int[][] epochAndNLiveObjects, int currentEpoch, int[] nObjAndAge) {
+        if (epochAndNLiveObjects != null) {
+            int row = 0;
+            int len = epochAndNLiveObjects[0].length;
+
+            while ((row < len) && (epochAndNLiveObjects[0][row] != -1)) {
+                nObjAndAge[0] += epochAndNLiveObjects[1][row]; // Add the number of objects for this epoch
+                nObjAndAge[1] += (epochAndNLiveObjects[1][row] * (currentEpoch - epochAndNLiveObjects[0][row])); // Add their total age
+                row++;
+            }
+        }
+    }
+
+    /**
+     * Works with epoch
+     */
+    static void addSurvGens(int[][] epochAndNLiveObjects, SurvGenSet sgSet) {
+        if (epochAndNLiveObjects != null) {
+            int[] epochs = epochAndNLiveObjects[0];
+            int len = epochs.length;
+
+            for (int i = 0; i < len; i++) {
+                if (epochs[i] != -1) {
+                    sgSet.addAge(epochs[i]);
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Works with epoch
      */
@@ -56,14 +56,40 @@ public class ThreadData {
     private int capacity;
     private int curSize;
 
+    // Compact storage of state transitions, used instead of the arrays above
+    // @GuardedBy dataLock
+    private ThreadStateTimeline timeline;
+    private final ThreadStatesFile statesFile;
+    private final boolean compact;
+
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
     public ThreadData(String name, String className) {
+        this(name, className, false, null);
+    }
+
+    /**
+     * Creates thread data recording only changes of the thread state. Older
+     * transitions are spilled to given file if not null.
+     */
+    ThreadData(String name, String className, ThreadStatesFile statesFile) {
+        this(name, className, true, statesFile);
+    }
+
+    private ThreadData(String name, String className, boolean compact, ThreadStatesFile statesFile) {
+        this.compact = compact;
+        this.statesFile = statesFile;
         synchronized (dataLock) {
-            capacity = 50;
-            timeStamps = new long[capacity];
-            threadStates = new byte[capacity];
-            curSize = 0;
+            if (compact) {
+                timeline = new ThreadStateTimeline(statesFile);
+                capacity = 0;
+                curSize = 0;
+            } else {
+                capacity = 50;
+                timeStamps = new long[capacity];
+                threadStates = new byte[capacity];
+                curSize = 0;
+            }
         }
 
         this.name = name;
@@ -78,40 +104,42 @@ public class ThreadData {
 
     public byte getFirstState() {
         synchronized (dataLock) {
-            if (curSize == 0) {
+            if (size() == 0) {
                 return NO_STATE;
             } else {
-                return threadStates[0];
+                return getStateAt(0);
             }
         }
     }
 
     public long getFirstTimeStamp() {
         synchronized (dataLock) {
-            if (curSize == 0) {
+            if (size() == 0) {
                 return 0;
             } else {
-                return timeStamps[0];
+                return getTimeStampAt(0);
             }
         }
     }
 
     public byte getLastState() {
         synchronized (dataLock) {
-            if (curSize == 0) {
+            int size = size();
+            if (size == 0) {
                 return NO_STATE;
             } else {
-                return threadStates[curSize - 1];
+                return getStateAt(size - 1);
             }
         }
     }
 
     public long getLastTimeStamp() {
         synchronized (dataLock) {
-            if (curSize == 0) {
+            int size = size();
+            if (size == 0) {
                 return 0;
             } else {
-                return timeStamps[curSize - 1];
+                return getTimeStampAt(size - 1);
             }
         }
     }
@@ -174,7 +202,7 @@ public class ThreadData {
 
     public byte getStateAt(int idx) {
         synchronized (dataLock) {
-            return threadStates[idx];
+            return compact ? timeline.getState(idx) : threadStates[idx];
         }
     }
 
@@ -210,18 +238,50 @@ public class ThreadData {
 
     public Color getThreadStateColorAt(int idx) {
         synchronized (dataLock) {
-            return getThreadStateColor(threadStates[idx]);
+            return getThreadStateColor(getStateAt(idx));
         }
     }
 
     public long getTimeStampAt(int idx) {
         synchronized (dataLock) {
-            return timeStamps[idx];
+            return compact ? timeline.getTimeStamp(idx) : timeStamps[idx];
+        }
+    }
+
+    /**
+     * Returns index of the last state recorded at or before the given time,
+     * or -1 if the time precedes the first recorded state.
+     */
+    public int getIndexAt(long timeStamp) {
+        synchronized (dataLock) {
+            if (compact) return timeline.getIndexAt(timeStamp);
+            
+            int low = 0;
+            int high = curSize - 1;
+            if (high < 0 || timeStamps[0] > timeStamp) return -1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (timeStamps[mid] <= timeStamp) low = mid;
+                else high = mid - 1;
+            }
+            return low;
         }
     }
 
     public void add(long timeStamp, byte threadState) {
         synchronized (dataLock) {
+            if (compact) {
+                int size = timeline.size();
+                long lastTimeStamp = size == 0 ? 0 : timeline.getTimeStamp(size - 1);
+                byte lastState = size == 0 ? NO_STATE : timeline.getState(size - 1);
+                if (timeline.add(timeStamp, threadState) && size > 0) {
+                    long duration = timeStamp - lastTimeStamp;
+                    times[lastState] += duration;
+                    times[0] += duration;
+                }
+                return;
+            }
+            
             if (curSize == capacity) {
                 long[] oldStamps = timeStamps;
                 byte[] oldStates = threadStates;
@@ -248,6 +308,11 @@ public class ThreadData {
 
     public void clearStates() {
         synchronized (dataLock) {
+            times = new long[6];
+            if (compact) {
+                timeline = new ThreadStateTimeline(statesFile);
+                return;
+            }
             capacity = 50;
             timeStamps = new long[capacity];
             threadStates = new byte[capacity];
@@ -258,7 +323,7 @@ public class ThreadData {
 
     public int size() {
         synchronized (dataLock) {
-            return curSize;
+            return compact ? timeline.size() : curSize;
         }
     }
     
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.threads;
+
+import java.util.Arrays;
+
+
+/**
+ * Compact storage of thread state transitions. Only changes of the state are
+ * recorded, the transitions are kept in fixed size chunks of primitive arrays
+ * and full chunks except for the most recent ones are moved to a shared
+ * {@link ThreadStatesFile}. Access is guarded by the owning {@link ThreadData}.
+ */
+final class ThreadStateTimeline {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    static final int CHUNK_SIZE = 1024;
+    private static final int MEMORY_CHUNKS = 2; // full chunks kept in memory
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private final ThreadStatesFile file;
+
+    // full chunks
+    private long[] chunkFirstStamps = new long[4];
+    private long[][] chunkStamps = new long[4][];
+    private byte[][] chunkStates = new byte[4][];
+    private int[] chunkRecords = new int[4]; // record in file, -1 while in memory
+    private int chunks;
+    private int firstMemoryChunk;
+
+    // current chunk, grows up to CHUNK_SIZE
+    private long[] stamps = new long[8];
+    private byte[] states = new byte[8];
+    private int count;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    ThreadStateTimeline(ThreadStatesFile file) {
+        this.file = file;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    int size() {
+        return chunks * CHUNK_SIZE + count;
+    }
+
+    /**
+     * Appends the state if it differs from the last one.
+     * @return true if a new transition has been recorded
+     */
+    boolean add(long timeStamp, byte state) {
+        int size = size();
+        if (size > 0 && getState(size - 1) == state) return false;
+        
+        if (count == CHUNK_SIZE) sealChunk();
+        if (count == stamps.length) {
+            stamps = Arrays.copyOf(stamps, Math.min(CHUNK_SIZE, count * 2));
+            states = Arrays.copyOf(states, stamps.length);
+        }
+        stamps[count] = timeStamp;
+        states[count] = state;
+        count++;
+        return true;
+    }
+
+    long getTimeStamp(int idx) {
+        int chunk = idx / CHUNK_SIZE;
+        int offset = idx % CHUNK_SIZE;
+        if (chunk == chunks) return stamps[offset];
+        if (chunkRecords[chunk] == -1) return chunkStamps[chunk][offset];
+        return file.getTimeStamp(chunkRecords[chunk], offset);
+    }
+
+    byte getState(int idx) {
+        int chunk = idx / CHUNK_SIZE;
+        int offset = idx % CHUNK_SIZE;
+        if (chunk == chunks) return states[offset];
+        if (chunkRecords[chunk] == -1) return chunkStates[chunk][offset];
+        return file.getState(chunkRecords[chunk], offset);
+    }
+
+    /**
+     * Index of the last transition at or before given time, -1 if the time
+     * precedes the first transition.
+     */
+    int getIndexAt(long time) {
+        if (size() == 0) return -1;
+        
+        int chunk;
+        if (count > 0 && stamps[0] <= time) {
+            chunk = chunks;
+        } else {
+            chunk = Arrays.binarySearch(chunkFirstStamps, 0, chunks, time);
+            if (chunk < 0) chunk = -chunk - 2;
+            else while (chunk < chunks - 1 && chunkFirstStamps[chunk + 1] == time) chunk++;
+            if (chunk < 0) return -1;
+        }
+        
+        int low = chunk * CHUNK_SIZE;
+        int high = chunk == chunks ? low + count - 1 : low + CHUNK_SIZE - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (getTimeStamp(mid) <= time) low = mid;
+            else high = mid - 1;
+        }
+        return low;
+    }
+
+    private void sealChunk() {
+        if (chunks == chunkStamps.length) {
+            int newLength = chunks * 2;
+            chunkFirstStamps = Arrays.copyOf(chunkFirstStamps, newLength);
+            chunkStamps = Arrays.copyOf(chunkStamps, newLength);
+            chunkStates = Arrays.copyOf(chunkStates, newLength);
+            chunkRecords = Arrays.copyOf(chunkRecords, newLength);
+        }
+        chunkFirstStamps[chunks] = stamps[0];
+        chunkStamps[chunks] = stamps;
+        chunkStates[chunks] = states;
+        chunkRecords[chunks] = -1;
+        chunks++;
+        
+        stamps = new long[CHUNK_SIZE];
+        states = new byte[CHUNK_SIZE];
+        count = 0;
+        
+        if (file != null && chunks - firstMemoryChunk > MEMORY_CHUNKS) {
+            int record = file.write(chunkStamps[firstMemoryChunk], chunkStates[firstMemoryChunk]);
+            if (record != -1) {
+                chunkRecords[firstMemoryChunk] = record;
+                chunkStamps[firstMemoryChunk] = null;
+                chunkStates[firstMemoryChunk] = null;
+                firstMemoryChunk++;
+            }
+        }
+    }
+}
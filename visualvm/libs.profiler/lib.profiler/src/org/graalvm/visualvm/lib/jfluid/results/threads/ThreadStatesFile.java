@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import org.graalvm.visualvm.lib.jfluid.ProfilerLogger;
+
+
+/**
+ * Memory-mapped temporary file holding full chunks of thread states spilled
+ * from {@link ThreadStateTimeline}s of all threads of a ThreadsDataManager.
+ * A record consists of CHUNK_SIZE timestamps followed by CHUNK_SIZE states.
+ */
+final class ThreadStatesFile {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final int RECORD_SIZE = ThreadStateTimeline.CHUNK_SIZE * (8 + 1);
+    private static final int RECORDS_PER_WINDOW = 2048;
+    private static final long WINDOW_SIZE = (long)RECORD_SIZE * RECORDS_PER_WINDOW;
+
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private File file;
+    private RandomAccessFile raFile;
+    private MappedByteBuffer[] windows = new MappedByteBuffer[4];
+    private int records;
+    private boolean failed;
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Stores a full chunk, returns index of the record or -1 if the chunk
+     * could not be written and must stay in memory.
+     */
+    synchronized int write(long[] timeStamps, byte[] states) {
+        MappedByteBuffer window = getWindow(records);
+        if (window == null) return -1;
+        
+        int offset = (records % RECORDS_PER_WINDOW) * RECORD_SIZE;
+        for (int i = 0; i < ThreadStateTimeline.CHUNK_SIZE; i++) {
+            window.putLong(offset + i * 8, timeStamps[i]);
+        }
+        offset += ThreadStateTimeline.CHUNK_SIZE * 8;
+        for (int i = 0; i < ThreadStateTimeline.CHUNK_SIZE; i++) {
+            window.put(offset + i, states[i]);
+        }
+        return records++;
+    }
+
+    synchronized long getTimeStamp(int record, int index) {
+        return windows[record / RECORDS_PER_WINDOW].getLong((record % RECORDS_PER_WINDOW) * RECORD_SIZE + index * 8);
+    }
+
+    synchronized byte getState(int record, int index) {
+        return windows[record / RECORDS_PER_WINDOW].get((record % RECORDS_PER_WINDOW) * RECORD_SIZE +
+                                                        ThreadStateTimeline.CHUNK_SIZE * 8 + index);
+    }
+
+    synchronized void close() {
+        windows = new MappedByteBuffer[4];
+        records = 0;
+        if (raFile != null) {
+            try {
+                raFile.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+            raFile = null;
+        }
+        if (file != null) {
+            file.delete(); // file is also marked as deleteOnExit, mapped file cannot be deleted on some platforms
+            file = null;
+        }
+    }
+
+    private MappedByteBuffer getWindow(int record) {
+        if (failed) return null;
+        
+        int windowIdx = record / RECORDS_PER_WINDOW;
+        if (windowIdx >= windows.length) windows = Arrays.copyOf(windows, windows.length * 2);
+        if (windows[windowIdx] != null) return windows[windowIdx];
+        
+        try {
+            if (raFile == null) {
+                file = File.createTempFile("NBProfiler", ".threads"); // NOI18N
+                file.deleteOnExit();
+                raFile = new RandomAccessFile(file, "rw"); // NOI18N
+            }
+            windows[windowIdx] = raFile.getChannel().map(FileChannel.MapMode.READ_WRITE, windowIdx * WINDOW_SIZE, WINDOW_SIZE);
+        } catch (IOException ex) {
+            ProfilerLogger.severe("cannot spill thread states to temporary file, keeping them in memory"); // NOI18N
+            ProfilerLogger.log(ex);
+            failed = true;
+        }
+        return windows[windowIdx];
+    }
+}
@@ -44,6 +44,10 @@ import org.graalvm.visualvm.lib.jfluid.results.DataManager;
  * @author Misha Dmitriev
  */
 public class ThreadsDataManager extends DataManager {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    private static final boolean COMPACT_STORAGE = Boolean.getBoolean("org.graalvm.visualvm.lib.jfluid.results.threads.compactStorage"); // NOI18N
+
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     private Map<Integer,Integer> idToIndex = new HashMap(30);
@@ -52,6 +56,8 @@ public class ThreadsDataManager extends DataManager {
     private boolean threadsMonitoringEnabled = true;
     private long endTime; // Timestamp of threadData end
     private long startTime; // Timestamp of threadData start
+    private final boolean compactStorage;
+    private ThreadStatesFile statesFile; // Spilled state transitions in compact storage mode
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -59,6 +65,18 @@ public class ThreadsDataManager extends DataManager {
      * Creates a new instance of ThreadsDataManager
      */
     public ThreadsDataManager() {
+        this(COMPACT_STORAGE);
+    }
+
+    /**
+     * Creates a new instance of ThreadsDataManager
+     *
+     * @param compactStorage if true, only thread state changes are recorded and
+     * older changes are moved to a memory-mapped temporary file. Suitable for
+     * long running sessions with many threads.
+     */
+    public ThreadsDataManager(boolean compactStorage) {
+        this.compactStorage = compactStorage;
         reset();
     }
 
@@ -114,6 +132,7 @@ public class ThreadsDataManager extends DataManager {
             for (ThreadData threadData1 : threadData) {
                 threadData1.clearStates();
             }
+            closeStatesFile();
         }
     }
 
@@ -214,6 +233,7 @@ public class ThreadsDataManager extends DataManager {
         endTime = 0;
         threadData = new ThreadData[0];
         idToIndex.clear();
+        closeStatesFile();
         fireDataReset(); // all listeners are notified about threadData change
     }
     
@@ -225,10 +245,22 @@ public class ThreadsDataManager extends DataManager {
             startTime = 0;
             endTime = 0;
             for (ThreadData data : threadData) data.clearStates();
+            closeStatesFile();
             fireDataReset(); // all listeners are notified about threadData change
         }
     }
 
+    /**
+     * Releases the collected data including the temporary file of thread states
+     * spilled in compact storage mode. To be called once the manager is not used anymore.
+     */
+    public synchronized void close() {
+        threadData = new ThreadData[0];
+        idToIndex.clear();
+        closeStatesFile();
+        statesFile = null;
+    }
+
     public synchronized boolean supportsSleepingStateMonitoring() {
         return supportsSleepingState;
     }
@@ -247,12 +279,23 @@ public class ThreadsDataManager extends DataManager {
         }
 
         for (int i = threadData.length, idx = 0; i < newSize; i++, idx++) {
-            tmpData[i] = new ThreadData(newNames[idx], newClassNames[idx]);
+            tmpData[i] = compactStorage ? new ThreadData(newNames[idx], newClassNames[idx], getStatesFile()) :
+                                          new ThreadData(newNames[idx], newClassNames[idx]);
         }
 
         threadData = tmpData;
     }
 
+    private ThreadStatesFile getStatesFile() {
+        if (statesFile == null) statesFile = new ThreadStatesFile();
+        return statesFile;
+    }
+
+    private void closeStatesFile() {
+        // the file is created lazily again by the first spilled chunk
+        if (statesFile != null) statesFile.close();
+    }
+
     //  private void debugData() {
     //    System.err.print("start time: " + startTime); // NOI18N
     //    System.err.print(", end time: " + endTime); // NOI18N
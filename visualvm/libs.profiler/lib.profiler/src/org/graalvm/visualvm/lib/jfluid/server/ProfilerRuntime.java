@@ -102,21 +102,30 @@ public class ProfilerRuntime implements CommonConstants {
                     continue;
                 }
 
-                int curPos = ti.evBufPos; // Guaranteed to be at event boundary
-
-                if (((globalEvBufPos + curPos) - ti.evBufDumpLastPos) > globalEvBufPosThreshold) {
-                    break; // We don't try to perform more than one global buffer dumps yet
-                }
-
-                int evBufSize = curPos - ti.evBufDumpLastPos;
-
-                if (evBufSize > 0) {
-                    eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
-                    eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
-                    eventBuffer[globalEvBufPos++] = (byte) (ti.threadId & 0xFF);
-                    System.arraycopy(ti.evBuf, ti.evBufDumpLastPos, eventBuffer, globalEvBufPos, evBufSize);
-                    globalEvBufPos += evBufSize;
-                    ti.evBufDumpLastPos = curPos;
+                synchronized (ti) { // Pending aggregated allocation is written only after the local buffer contents
+                    int curPos = ti.evBufPos; // Guaranteed to be at event boundary
+                    int pendingSize = ProfilerRuntimeMemory.getPendingObjAllocSize(ti);
+
+                    if ((((globalEvBufPos + curPos) - ti.evBufDumpLastPos) + pendingSize) > globalEvBufPosThreshold) {
+                        break; // We don't try to perform more than one global buffer dumps yet
+                    }
+
+                    int evBufSize = curPos - ti.evBufDumpLastPos;
+
+                    if ((evBufSize > 0) || (pendingSize > 0)) {
+                        eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
+                        eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 24) & 0xFF);
+                        eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 16) & 0xFF);
+                        eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
+                        eventBuffer[globalEvBufPos++] = (byte) (ti.threadId & 0xFF);
+                        System.arraycopy(ti.evBuf, ti.evBufDumpLastPos, eventBuffer, globalEvBufPos, evBufSize);
+                        globalEvBufPos += evBufSize;
+                        ti.evBufDumpLastPos = curPos;
+
+                        if (pendingSize > 0) {
+                            globalEvBufPos = ProfilerRuntimeMemory.writePendingObjAlloc(ti, eventBuffer, globalEvBufPos);
+                        }
+                    }
                 }
             }
 
@@ -160,8 +169,9 @@ public class ProfilerRuntime implements CommonConstants {
 
             // First check if the global buffer itself needs to be dumped
             int evBufDumpLastPos = ti.evBufDumpLastPos;
+            int pendingSize = ProfilerRuntimeMemory.getPendingObjAllocSize(ti);
 
-            if (((globalEvBufPos + curPos) - evBufDumpLastPos) > globalEvBufPosThreshold) {
+            if ((((globalEvBufPos + curPos) - evBufDumpLastPos) + pendingSize) > globalEvBufPosThreshold) {
                 sendingBuffer = true;
 
                 if (!needToAdjustTime) {
@@ -179,6 +189,8 @@ public class ProfilerRuntime implements CommonConstants {
             if (eventBuffer != null) {
                 // Finally copy the local buffer into the global one
                 eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
+                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 24) & 0xFF);
+                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 16) & 0xFF);
                 eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
                 eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId) & 0xFF);
                 System.arraycopy(ti.evBuf, evBufDumpLastPos, eventBuffer, globalEvBufPos, curPos - evBufDumpLastPos);
@@ -186,6 +198,12 @@ public class ProfilerRuntime implements CommonConstants {
                 ti.evBufPos = 0;
                 ti.evBufDumpLastPos = 0;
 
+                synchronized (ti) { // Pending aggregated allocation follows the local buffer contents
+                    if (ti.allocCount != 0) {
+                        globalEvBufPos = ProfilerRuntimeMemory.writePendingObjAlloc(ti, eventBuffer, globalEvBufPos);
+                    }
+                }
+
                 // Now, if we previously spent time waiting for another thread to dump the global buffer, or doing that
                 // ourselves, write the ADJUST_TIME event into the local buffer
                 if (needToAdjustTime) {
@@ -546,20 +564,28 @@ public class ProfilerRuntime implements CommonConstants {
     }
 
     static void writeThreadCreationEvent(ThreadInfo ti) {
-        writeThreadCreationEvent(ti.thread, ti.getThreadId());
+        if (ti.threadGroupId != 0) {
+            writeThreadCreationEvent(ti.getReportedThreadName(), ti.thread.getClass().getName(), ti.getThreadId());
+        } else {
+            writeThreadCreationEvent(ti.thread, ti.getThreadId());
+        }
     }
 
     protected static void writeThreadCreationEvent(Thread thread, int threadId) {
         String threadName;
-        String threadClassName = thread.getClass().getName();
-        int fullInfoLen;
         
         try {
             threadName = thread.getName();
         } catch (NullPointerException e) {
             threadName = "*Unknown thread ("+threadId+")*";  // NOI18N
         }
-        fullInfoLen = ((threadName.length() + threadClassName.length()) * 2) + 7;
+        writeThreadCreationEvent(threadName, thread.getClass().getName(), threadId);
+    }
+
+    private static void writeThreadCreationEvent(String threadName, String threadClassName, int threadId) {
+        int fullInfoLen;
+
+        fullInfoLen = ((threadName.length() + threadClassName.length()) * 2) + 9;
         synchronized (eventBuffer) {
             if ((globalEvBufPos + fullInfoLen) > globalEvBufPosThreshold) {
                 sendingBuffer = true;
@@ -570,6 +596,8 @@ public class ProfilerRuntime implements CommonConstants {
 
             eventBuffer[globalEvBufPos++] = NEW_THREAD;
 
+            eventBuffer[globalEvBufPos++] = (byte) ((threadId >> 24) & 0xFF);
+            eventBuffer[globalEvBufPos++] = (byte) ((threadId >> 16) & 0xFF);
             eventBuffer[globalEvBufPos++] = (byte) ((threadId >> 8) & 0xFF);
             eventBuffer[globalEvBufPos++] = (byte) ((threadId) & 0xFF);
 
@@ -621,6 +649,8 @@ public class ProfilerRuntime implements CommonConstants {
 
                 // Finally copy the local buffer into the global one
                 eventBuffer[globalEvBufPos++] = SET_FOLLOWING_EVENTS_THREAD;
+                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 24) & 0xFF);
+                eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 16) & 0xFF);
                 eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId >> 8) & 0xFF);
                 eventBuffer[globalEvBufPos++] = (byte) ((ti.threadId) & 0xFF);
                 System.arraycopy(evBuf, evBufDumpLastPos, eventBuffer, globalEvBufPos, curPos - evBufDumpLastPos);
@@ -830,6 +860,8 @@ public class ProfilerRuntime implements CommonConstants {
         buf[curPos++] = (byte) ((absTimeStamp >> 16) & 0xFF);
         buf[curPos++] = (byte) ((absTimeStamp >> 8) & 0xFF);
         buf[curPos++] = (byte) ((absTimeStamp) & 0xFF);
+        buf[curPos++] = (byte) ((tid >> 24) & 0xFF);
+        buf[curPos++] = (byte) ((tid >> 16) & 0xFF);
         buf[curPos++] = (byte) ((tid >> 8) & 0xFF);
         buf[curPos++] = (byte) ((tid) & 0xFF);
 
@@ -50,8 +50,8 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
     protected static short samplingInterval;
     protected static int stackSamplingDepth;
     static final Object classIdMapLock = new Object();
-    private static int currentStackDepth;
-    private static int[] stackFrameIds;
+    private static final Object stackFramesLock = new Object();
+    private static final int MAX_AGGREGATED_ALLOCATIONS = 0xFFFF; // Maximum count of one OBJ_ALLOC_STACK_TRACE_AGGREGATED event
     private static Map classIdMap;
     private static volatile boolean resultsAvailable;
     private static final boolean DEBUG = false;
@@ -69,7 +69,6 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
         if (aic == null) {
             allocatedInstThreshold = null;
             objectSize = null;
-            stackFrameIds = null;
             Stacks.clearNativeStackFrameBuffer();
 
             return;
@@ -102,8 +101,6 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
             if (val > MAX_STACK_FRAMES) {
                 val = MAX_STACK_FRAMES;
             }
-        } else {
-            currentStackDepth = 0;
         }
 
         stackSamplingDepth = val;
@@ -201,35 +198,51 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
     
     // ------------------------------------------ Stack trace obtaining -----------------------------------------------
 
-    /** This is used in Object Allocation profiling mode */
-    protected static synchronized void getAndSendCurrentStackTrace(int classId, long objSize) {
+    /**
+     * This is used in Object Allocation profiling mode. Stack frames are collected into the thread-local buffer of the
+     * given ThreadInfo and the resulting event is written into its local event buffer, which is handed over to the global
+     * buffer in batches, so that no global lock is taken for each sampled allocation.
+     */
+    protected static void getAndSendCurrentStackTrace(ThreadInfo ti, int classId, long objSize) {
         if (eventBuffer == null) {
             return; // Chances are that instrumentation has been removed while we were executing instrumentation code
         }
 
-        synchronized (eventBuffer) { // Note that we have to use synchronization here due to the static stackFrameIds[] array
-
-            if (stackSamplingDepth != 0) {
-                currentStackDepth = Stacks.getCurrentStackFrameIds(Thread.currentThread(), stackSamplingDepth, stackFrameIds);
-            }
+        int depth = 0;
 
-            writeObjAllocStackTraceEvent(classId, objSize);
+        if (stackSamplingDepth != 0) {
+            depth = getCurrentStackFrameIds(ti);
         }
+
+        writeObjAllocStackTraceEvent(ti, classId, objSize, depth);
     }
 
-    /** This is used in Object Liveness profiling mode */
-    protected static synchronized void getAndSendCurrentStackTrace(int classId, char epoch, int objCount, long objSize) {
+    /**
+     * This is used in Object Liveness profiling mode. Stack frames are collected into the thread-local buffer of the
+     * given ThreadInfo, however the event itself goes directly into the global buffer, since it has to precede
+     * the OBJ_GC_HAPPENED event for the same object, which is written by the reference manager thread.
+     */
+    protected static void getAndSendCurrentStackTrace(ThreadInfo ti, int classId, char epoch, int objCount, long objSize) {
         if (eventBuffer == null) {
             return; // Chances are that instrumentation has been removed while we were executing instrumentation code
         }
 
-        synchronized (eventBuffer) { // Note that we have to use synchronization here due to the static stackFrameIds[] array
+        int depth = 0;
 
-            if (stackSamplingDepth != 0) {
-                currentStackDepth = Stacks.getCurrentStackFrameIds(Thread.currentThread(), stackSamplingDepth, stackFrameIds);
-            }
+        if (stackSamplingDepth != 0) {
+            depth = getCurrentStackFrameIds(ti);
+        }
+
+        writeObjLivenessStackTraceEvent(ti, classId, epoch, objCount, objSize, depth);
+    }
 
-            writeObjLivenessStackTraceEvent(classId, epoch, objCount, objSize);
+    private static int getCurrentStackFrameIds(ThreadInfo ti) {
+        int[] stackFrameIds = ti.getStackFrameIdsBuffer();
+
+        // Stacks.getCurrentStackFrameIds uses a single static C-level frame buffer, so the native call itself has to be
+        // serialized. Only the frame capture is under this lock, the events are written without any global lock.
+        synchronized (stackFramesLock) {
+            return Stacks.getCurrentStackFrameIds(ti.thread, stackSamplingDepth, stackFrameIds);
         }
     }
 
@@ -264,13 +277,11 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
     protected static void clearDataStructures() {
         ProfilerRuntime.clearDataStructures();
         allocatedInstancesCount = null;
-        stackFrameIds = null;
         Stacks.clearNativeStackFrameBuffer();
     }
 
     protected static void createNewDataStructures() {
         ProfilerRuntime.createNewDataStructures();
-        stackFrameIds = new int[MAX_STACK_FRAMES];
         Stacks.createNativeStackFrameBuffer(MAX_STACK_FRAMES);
         classIdMap = new HashMap();
         resultsAvailable = false;
@@ -325,14 +336,51 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
 
     // ---------------------------------------- Writing profiler events -----------------------------------------
 
-    /** Note that there is no synchronized(eventBuffer) in this method, since synchronization is already required by its callers */
-    protected static void writeObjAllocStackTraceEvent(int classId, long objSize) {
+    /** Writes OBJ_GC_HAPPENED events for a batch of object ids, locking the global buffer just once */
+    protected static void writeObjGCEvents(long[] objectIds, int count) {
+        if (eventBuffer == null) {
+            return; // Instrumentation removal happened when we were in instrumentation 
+        }
+
+        synchronized (eventBuffer) {
+            int curPos = globalEvBufPos;
+
+            for (int i = 0; i < count; i++) {
+                if (curPos > globalEvBufPosThreshold) { // Dump the buffer
+                    externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
+                    curPos = 0;
+                }
+
+                long objectId = objectIds[i];
+
+                eventBuffer[curPos++] = OBJ_GC_HAPPENED;
+                eventBuffer[curPos++] = (byte) ((objectId >> 56) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 48) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 40) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 32) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 24) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 16) & 0xFF);
+                eventBuffer[curPos++] = (byte) ((objectId >> 8) & 0xFF);
+                eventBuffer[curPos++] = (byte) (objectId & 0xFF);
+            }
+            globalEvBufPos = curPos;
+        }
+    }
+
+    /**
+     * Allocations of the same class and size with identical stacks are aggregated in the ThreadInfo of the given thread.
+     * The pending aggregate is written as one OBJ_ALLOC_STACK_TRACE_AGGREGATED event into the thread-local event buffer
+     * when an allocation with another stack comes, or directly into the global buffer when the local buffer is handed over
+     * or dumped asynchronously. The global buffer is locked only when the local buffer is full and its contents are copied
+     * there.
+     */
+    protected static void writeObjAllocStackTraceEvent(ThreadInfo ti, int classId, long objSize, int depth) {
         if (eventBuffer == null) {
             return; // Instrumentation removal happened when we were in instrumentation 
         }
 
-        if (currentStackDepth != 0) {
-            currentStackDepth -= NO_OF_PROFILER_FRAMES; // Top frames are our own methods
+        if (depth != 0) {
+            depth -= NO_OF_PROFILER_FRAMES; // Top frames are our own methods
         }
 
         if (!resultsAvailable) {
@@ -340,61 +388,108 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
             ProfilerServer.notifyClientOnResultsAvailability();
         }
 
-        int curPos = globalEvBufPos;
+        if (ti.evBuf == null) {
+            ti.useEventBuffer();
+        }
+
+        if (isPendingObjAlloc(ti, classId, objSize, depth)) {
+            synchronized (ti) {
+                if ((ti.allocCount != 0) && (ti.allocCount < MAX_AGGREGATED_ALLOCATIONS)) { // Not flushed in the meantime
+                    ti.allocCount++;
 
-        if ((curPos + 16 + (currentStackDepth * 4)) > globalEvBufPosThreshold) { // Dump the buffer
-            externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
-            curPos = 0;
+                    return;
+                }
+            }
         }
 
-        eventBuffer[curPos++] = OBJ_ALLOC_STACK_TRACE;
-        eventBuffer[curPos++] = (byte) ((classId >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((classId) & 0xFF);
+        int curPos = ti.evBufPos; // It's important to use a local copy for evBufPos, so that evBufPos is at event boundary at any moment
+
+        if ((curPos + getPendingObjAllocSize(ti)) > ThreadInfo.evBufPosThreshold) { // Hand the local buffer over to the global one
+            copyLocalBuffer(ti);
+            curPos = ti.evBufPos;
 
-        eventBuffer[curPos++] = (byte) ((objSize >> 32) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 24) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 16) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) (objSize & 0xFF);
+            if ((curPos + getPendingObjAllocSize(ti)) > ThreadInfo.evBufPosThreshold) {
+                return; // Reset collectors performed when we were already executing instrumentation code
+            }
+        }
+
+        synchronized (ti) {
+            if (ti.allocCount != 0) {
+                ti.evBufPos = writePendingObjAlloc(ti, ti.evBuf, curPos);
+            }
 
-        curPos = writeStack(curPos);
-        globalEvBufPos = curPos;
+            int[] stackFrameIds = ti.allocStackFrameIds;
+
+            ti.allocStackFrameIds = ti.stackFrameIds;
+            ti.stackFrameIds = stackFrameIds;
+            ti.allocClassId = classId;
+            ti.allocObjSize = objSize;
+            ti.allocDepth = depth;
+            ti.allocCount = 1;
+        }
     }
 
-    protected static void writeObjGCEvent(long objectId) {
-        if (eventBuffer == null) {
-            return; // Instrumentation removal happened when we were in instrumentation 
+    /**
+     * Size of the pending aggregated allocation event of the given thread, 0 if there is none.
+     */
+    static int getPendingObjAllocSize(ThreadInfo ti) {
+        return (ti.allocCount == 0) ? 0 : (13 + (ti.allocDepth * 4));
+    }
+
+    /**
+     * Writes the pending aggregated allocation event of the given thread into the buffer and clears it.
+     * The caller has to hold the lock of the ThreadInfo.
+     */
+    static int writePendingObjAlloc(ThreadInfo ti, byte[] buf, int curPos) {
+        int classId = ti.allocClassId;
+        long objSize = ti.allocObjSize;
+        int count = ti.allocCount;
+
+        buf[curPos++] = OBJ_ALLOC_STACK_TRACE_AGGREGATED;
+        buf[curPos++] = (byte) ((classId >> 8) & 0xFF);
+        buf[curPos++] = (byte) ((classId) & 0xFF);
+
+        buf[curPos++] = (byte) ((objSize >> 32) & 0xFF);
+        buf[curPos++] = (byte) ((objSize >> 24) & 0xFF);
+        buf[curPos++] = (byte) ((objSize >> 16) & 0xFF);
+        buf[curPos++] = (byte) ((objSize >> 8) & 0xFF);
+        buf[curPos++] = (byte) (objSize & 0xFF);
+
+        buf[curPos++] = (byte) ((count >> 8) & 0xFF);
+        buf[curPos++] = (byte) ((count) & 0xFF);
+
+        curPos = writeStack(buf, curPos, ti.allocStackFrameIds, ti.allocDepth);
+        ti.allocCount = 0;
+
+        return curPos;
+    }
+
+    private static boolean isPendingObjAlloc(ThreadInfo ti, int classId, long objSize, int depth) {
+        if ((ti.allocCount == 0) || (ti.allocClassId != classId) || (ti.allocObjSize != objSize) || (ti.allocDepth != depth)) {
+            return false;
         }
 
-        synchronized (eventBuffer) {
-            int curPos = globalEvBufPos;
+        int[] stackFrameIds = ti.stackFrameIds;
+        int[] allocStackFrameIds = ti.allocStackFrameIds;
+        int end = NO_OF_PROFILER_FRAMES + depth;
 
-            if (curPos > globalEvBufPosThreshold) { // Dump the buffer
-                externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
-                curPos = 0;
+        for (int i = NO_OF_PROFILER_FRAMES; i < end; i++) {
+            if (stackFrameIds[i] != allocStackFrameIds[i]) {
+                return false;
             }
-
-            eventBuffer[curPos++] = OBJ_GC_HAPPENED;
-            eventBuffer[curPos++] = (byte) ((objectId >> 56) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 48) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 40) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 32) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 24) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 16) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((objectId >> 8) & 0xFF);
-            eventBuffer[curPos++] = (byte) (objectId & 0xFF);
-            globalEvBufPos = curPos;
         }
+
+        return true;
     }
 
-    /** Note that there is no synchronized(eventBuffer) in this method, since synchronization is already required by its callers */
-    protected static void writeObjLivenessStackTraceEvent(int classId, char epoch, int objCount, long objSize) {
+    protected static void writeObjLivenessStackTraceEvent(ThreadInfo ti, int classId, char epoch, int objCount, long objSize,
+                                                          int depth) {
         if (eventBuffer == null) {
             return; // Instrumentation removal happened when we were in instrumentation 
         }
 
-        if (currentStackDepth != 0) {
-            currentStackDepth -= NO_OF_PROFILER_FRAMES; // Top 4 frames are our own methods
+        if (depth != 0) {
+            depth -= NO_OF_PROFILER_FRAMES; // Top frames are our own methods
         }
 
         if (!resultsAvailable) {
@@ -402,51 +497,53 @@ public class ProfilerRuntimeMemory extends ProfilerRuntime {
             ProfilerServer.notifyClientOnResultsAvailability();
         }
 
-        int curPos = globalEvBufPos;
-
-        if ((curPos + 24 + (currentStackDepth * 4)) > globalEvBufPosThreshold) { // Dump the buffer
-            externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
-            curPos = 0;
-        }
-
-        eventBuffer[curPos++] = OBJ_LIVENESS_STACK_TRACE;
-        eventBuffer[curPos++] = (byte) ((classId >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((classId) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((epoch >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((epoch) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objCount >> 24) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objCount >> 16) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objCount >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objCount) & 0xFF);
+        synchronized (eventBuffer) {
+            int curPos = globalEvBufPos;
 
-        eventBuffer[curPos++] = (byte) ((objSize >> 32) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 24) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 16) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((objSize >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) (objSize & 0xFF);
+            if ((curPos + 24 + (depth * 4)) > globalEvBufPosThreshold) { // Dump the buffer
+                externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
+                curPos = 0;
+            }
 
-        curPos = writeStack(curPos);
-        globalEvBufPos = curPos;
+            eventBuffer[curPos++] = OBJ_LIVENESS_STACK_TRACE;
+            eventBuffer[curPos++] = (byte) ((classId >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((classId) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((epoch >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((epoch) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 24) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 16) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objCount) & 0xFF);
+
+            eventBuffer[curPos++] = (byte) ((objSize >> 32) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objSize >> 24) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objSize >> 16) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((objSize >> 8) & 0xFF);
+            eventBuffer[curPos++] = (byte) (objSize & 0xFF);
+
+            curPos = writeStack(eventBuffer, curPos, ti.stackFrameIds, depth);
+            globalEvBufPos = curPos;
+        }
     }
 
-    private static int writeStack(int curPos) {
-        eventBuffer[curPos++] = (byte) ((currentStackDepth >> 16) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((currentStackDepth >> 8) & 0xFF);
-        eventBuffer[curPos++] = (byte) ((currentStackDepth) & 0xFF);
+    private static int writeStack(byte[] buf, int curPos, int[] stackFrameIds, int depth) {
+        buf[curPos++] = (byte) ((depth >> 16) & 0xFF);
+        buf[curPos++] = (byte) ((depth >> 8) & 0xFF);
+        buf[curPos++] = (byte) ((depth) & 0xFF);
 
         /// A variant when we send non-reversed call graph
         //int base = depth + NO_OF_PROFILER_FRAMES - 1;
         //for (int i = 0; i < depth; i++) {
-        //  eventBuffer[curPos++] = (char) ((stackFrameIds[base-i] >> 16) & 0xFFFF);
-        //  eventBuffer[curPos++] = (char) ((stackFrameIds[base-i]) & 0xFFFF);
+        //  buf[curPos++] = (char) ((stackFrameIds[base-i] >> 16) & 0xFFFF);
+        //  buf[curPos++] = (char) ((stackFrameIds[base-i]) & 0xFFFF);
         //}
         int frameIdx = NO_OF_PROFILER_FRAMES;
 
-        for (int i = 0; i < currentStackDepth; i++) {
-            eventBuffer[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 24) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 16) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 8) & 0xFF);
-            eventBuffer[curPos++] = (byte) ((stackFrameIds[frameIdx]) & 0xFF);
+        for (int i = 0; i < depth; i++) {
+            buf[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 24) & 0xFF);
+            buf[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 16) & 0xFF);
+            buf[curPos++] = (byte) ((stackFrameIds[frameIdx] >> 8) & 0xFF);
+            buf[curPos++] = (byte) ((stackFrameIds[frameIdx]) & 0xFF);
             frameIdx++;
         }
 
@@ -109,7 +109,7 @@ public class ProfilerRuntimeObjAlloc extends ProfilerRuntimeMemory {
 
         if (allocatedInstThreshold[classInt] <= 0) {
             long objSize = getCachedObjectSize(classInt, object);
-            getAndSendCurrentStackTrace(classInt, objSize);
+            getAndSendCurrentStackTrace(ti, classInt, objSize);
             allocatedInstThreshold[classInt] = nextRandomizedInterval();
         }
 
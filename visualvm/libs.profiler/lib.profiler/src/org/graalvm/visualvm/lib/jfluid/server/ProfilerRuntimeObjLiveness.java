@@ -69,12 +69,28 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
         //~ Methods --------------------------------------------------------------------------------------------------------------
 
         public void run() {
+            ReferenceQueue<?> queue = rq;
+            long[] objIds = new long[GC_EVENTS_BATCH_SIZE];
+
             while (!terminated) {
                 try {
-                    ProfilerRuntimeObjLivenessWeakRef wr = (ProfilerRuntimeObjLivenessWeakRef) rq.remove(200);
+                    ProfilerRuntimeObjLivenessWeakRef wr = (ProfilerRuntimeObjLivenessWeakRef) queue.remove(200);
+                    int nObjIds = 0;
+
+                    // Drain whatever else is already enqueued, so that the event buffer is locked once per batch
+                    while (wr != null && !terminated) {
+                        objIds[nObjIds++] = removeObj(wr);
 
-                    if (wr != null && !terminated) {
-                        signalObjGC(wr);
+                        if (nObjIds == objIds.length) {
+                            writeObjGCEvents(objIds, nObjIds);
+                            nObjIds = 0;
+                        }
+
+                        wr = (ProfilerRuntimeObjLivenessWeakRef) queue.poll();
+                    }
+
+                    if (nObjIds > 0 && !terminated) {
+                        writeObjGCEvents(objIds, nObjIds);
                     }
                 } catch (InterruptedException ex) { /* Should not happen */
                 }
@@ -88,79 +104,166 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
         }
     }
 
-    /** A hashtable keeping a set of all tracked objects */
+    /**
+     * A hashtable keeping a set of all tracked objects. It is split into independently locked segments selected by
+     * the reference's hash, so that allocating threads and the reference manager thread rarely contend, and growing
+     * the table rehashes just one segment.
+     */
     static class WeakRefSet {
+        //~ Static fields/initializers -------------------------------------------------------------------------------------------
+
+        private static final int MAX_SEGMENTS = 64;
+
         //~ Instance fields ------------------------------------------------------------------------------------------------------
 
-        private WeakReference[] keys;
-        private int capacity;
-        private int nObjects;
-        private int threshold;
+        private final Segment[] segments;
+        private final int segmentShift;
 
         //~ Constructors ---------------------------------------------------------------------------------------------------------
 
         WeakRefSet() {
-            capacity = 1003;
-            setThreshold();
-            keys = new WeakReference[capacity];
-        }
-
-        //~ Methods --------------------------------------------------------------------------------------------------------------
+            int nSegments = 1;
+            int shift = 32;
+            int nCpus = Runtime.getRuntime().availableProcessors();
 
-        public synchronized void put(WeakReference key) {
-            if (nObjects > threshold) {
-                rehash();
+            while (nSegments < (nCpus * 4) && nSegments < MAX_SEGMENTS) {
+                nSegments <<= 1;
+                shift--;
             }
 
-            int pos = (key.hashCode() & 0x7FFFFFFF) % capacity;
+            segments = new Segment[nSegments];
+            segmentShift = shift;
 
-            while (keys[pos] != null) {
-                pos = (pos + 1) % capacity;
+            for (int i = 0; i < nSegments; i++) {
+                segments[i] = new Segment();
             }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------------------------------------
 
-            keys[pos] = key;
-            nObjects++;
+        public void put(ProfilerRuntimeObjLivenessWeakRef key) {
+            int hash = hash(key);
+
+            segmentFor(hash).put(key, hash);
         }
 
-        public synchronized void remove(WeakReference key) {
-            int pos = (key.hashCode() & 0x7FFFFFFF) % capacity;
+        public void remove(ProfilerRuntimeObjLivenessWeakRef key) {
+            int hash = hash(key);
 
-            while (keys[pos] != key) {
-                pos = (pos + 1) % capacity;
-            }
+            segmentFor(hash).remove(key, hash);
+        }
 
-            keys[pos] = null;
-            nObjects--;
+        private Segment segmentFor(int hash) {
+            return (segmentShift == 32) ? segments[0] : segments[hash >>> segmentShift];
         }
 
-        private void setThreshold() {
-            threshold = (capacity * 3) / 4;
+        private static int hash(ProfilerRuntimeObjLivenessWeakRef key) {
+            // identity hash codes are not well distributed in the upper bits used for segment selection
+            int h = System.identityHashCode(key);
+
+            h ^= (h >>> 16);
+            h *= 0x85EBCA6B;
+            h ^= (h >>> 13);
+
+            return h;
         }
 
-        private void rehash() {
-            WeakReference[] oldKeys = keys;
-            int oldCapacity = capacity;
-            capacity = (capacity * 2) + 1;
-            keys = new WeakReference[capacity];
+        /** An open addressing table with linear probing, all its methods are called with its monitor held */
+        private static class Segment {
+            //~ Instance fields --------------------------------------------------------------------------------------------------
+
+            private ProfilerRuntimeObjLivenessWeakRef[] keys;
+            private int mask;
+            private int nObjects;
+            private int threshold;
+
+            //~ Constructors -----------------------------------------------------------------------------------------------------
+
+            Segment() {
+                keys = new ProfilerRuntimeObjLivenessWeakRef[64];
+                mask = keys.length - 1;
+                setThreshold();
+            }
+
+            //~ Methods ----------------------------------------------------------------------------------------------------------
+
+            synchronized void put(ProfilerRuntimeObjLivenessWeakRef key, int hash) {
+                if (nObjects > threshold) {
+                    rehash();
+                }
 
-            for (int i = 0; i < oldCapacity; i++) {
-                if (oldKeys[i] != null) {
-                    int pos = (oldKeys[i].hashCode() & 0x7FFFFFFF) % capacity;
+                int pos = hash & mask;
 
-                    while (keys[pos] != null) {
-                        pos = (pos + 1) % capacity;
+                while (keys[pos] != null) {
+                    pos = (pos + 1) & mask;
+                }
+
+                keys[pos] = key;
+                nObjects++;
+            }
+
+            synchronized void remove(ProfilerRuntimeObjLivenessWeakRef key, int hash) {
+                int pos = hash & mask;
+                ProfilerRuntimeObjLivenessWeakRef k;
+
+                while ((k = keys[pos]) != key) {
+                    if (k == null) {
+                        return; // Not tracked, can happen if the set was recreated by reset collectors
+                    }
+
+                    pos = (pos + 1) & mask;
+                }
+
+                keys[pos] = null;
+                nObjects--;
+
+                // Shift back the following entries of the probe sequence, so that no tombstones are needed
+                int next = (pos + 1) & mask;
+
+                while ((k = keys[next]) != null) {
+                    int home = hash(k) & mask;
+
+                    if (((next - home) & mask) >= ((next - pos) & mask)) {
+                        keys[pos] = k;
+                        keys[next] = null;
+                        pos = next;
                     }
 
-                    keys[pos] = oldKeys[i];
+                    next = (next + 1) & mask;
                 }
             }
 
-            setThreshold();
+            private void setThreshold() {
+                threshold = (keys.length * 3) / 4;
+            }
+
+            private void rehash() {
+                ProfilerRuntimeObjLivenessWeakRef[] oldKeys = keys;
+                keys = new ProfilerRuntimeObjLivenessWeakRef[oldKeys.length * 2];
+                mask = keys.length - 1;
+
+                for (int i = 0; i < oldKeys.length; i++) {
+                    ProfilerRuntimeObjLivenessWeakRef k = oldKeys[i];
+
+                    if (k != null) {
+                        int pos = hash(k) & mask;
+
+                        while (keys[pos] != null) {
+                            pos = (pos + 1) & mask;
+                        }
+
+                        keys[pos] = k;
+                    }
+                }
+
+                setThreshold();
+            }
         }
     }
 
     //~ Static fields/initializers -----------------------------------------------------------------------------------------------
 
+    private static final int GC_EVENTS_BATCH_SIZE = 256;
     protected static ReferenceQueue rq;
     private static WeakRefSet objSet;
     private static ReferenceManagerThread rmt;
@@ -207,10 +310,13 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
         // numbers were reported after resetting the results, which he (rightfully so) considered wrong
     }
 
-    static void signalObjGC(ProfilerRuntimeObjLivenessWeakRef wr) {
-        long objectId = wr.objId;
-        objSet.remove(wr);
-        writeObjGCEvent(objectId);
+    private static long removeObj(ProfilerRuntimeObjLivenessWeakRef wr) {
+        WeakRefSet set = objSet;
+
+        if (set != null) {
+            set.remove(wr);
+        }
+        return wr.objId;
     }
 
     public static void traceObjAlloc(Object object, char classId) {
@@ -270,7 +376,7 @@ public class ProfilerRuntimeObjLiveness extends ProfilerRuntimeMemory {
 
             long objSize = getCachedObjectSize(classInt, object);
 
-            getAndSendCurrentStackTrace(classInt, epoch, objCount, objSize);
+            getAndSendCurrentStackTrace(ti, classInt, epoch, objCount, objSize);
 
             allocatedInstThreshold[classInt] = nextRandomizedInterval();
         }
@@ -177,7 +177,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
 
             int curPos = globalEvBufPos;
 
-            if (curPos + 3 > globalEvBufPosThreshold) { // Dump the buffer
+            if (curPos + 5 > globalEvBufPosThreshold) { // Dump the buffer
                 externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
                 curPos = 0;
             }
@@ -185,6 +185,8 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
             int threadId = tid.intValue();
             
             eventBuffer[curPos++] = THREAD_INFO_IDENTICAL;
+            eventBuffer[curPos++] = (byte) ((threadId >> 24) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((threadId >> 16) & 0xFF);
             eventBuffer[curPos++] = (byte) ((threadId >> 8) & 0xFF);
             eventBuffer[curPos++] = (byte) ((threadId) & 0xFF);
             globalEvBufPos = curPos;
@@ -197,7 +199,7 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
 
             int curPos = globalEvBufPos;
 
-            if (curPos + 6 + mids.length*4 > globalEvBufPosThreshold) { // Dump the buffer
+            if (curPos + 8 + mids.length*4 > globalEvBufPosThreshold) { // Dump the buffer
                 externalActionsHandler.handleEventBufferDump(eventBuffer, 0, curPos);
                 curPos = 0;
             }
@@ -206,6 +208,8 @@ class ProfilerRuntimeSampler extends ProfilerRuntime {
             int stackLen = mids.length;
             
             eventBuffer[curPos++] = THREAD_INFO;
+            eventBuffer[curPos++] = (byte) ((threadId >> 24) & 0xFF);
+            eventBuffer[curPos++] = (byte) ((threadId >> 16) & 0xFF);
             eventBuffer[curPos++] = (byte) ((threadId >> 8) & 0xFF);
             eventBuffer[curPos++] = (byte) ((threadId) & 0xFF);
             eventBuffer[curPos++] = (byte) ((status) & 0xFF);
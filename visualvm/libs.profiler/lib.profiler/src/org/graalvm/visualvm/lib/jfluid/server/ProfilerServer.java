@@ -377,6 +377,16 @@ public class ProfilerServer extends Thread implements CommonConstants {
 
     // @GuardedBy resultsNotifiedLock
     private static boolean resultsNotified = false;
+
+    // Remote event buffers are pipelined: up to this many may be sent before their acknowledgements arrive. The agent threads
+    // thus don't wait a network round trip for each buffer. A value of 1 restores the synchronous behavior.
+    private static final int EVENT_BUFFER_WINDOW = Math.max(1, Integer.getInteger(
+            "org.graalvm.visualvm.lib.jfluid.server.eventBufferWindow", 4).intValue()); // NOI18N
+    private static final Object eventBufferWindowLock = new Object();
+
+    // @GuardedBy eventBufferWindowLock
+    private static int eventBufferSequenceId;
+    private static int eventBuffersInFlight;
     private static boolean resourcesInitialized = false;
 
     // This data is needed to avoid passing parameters to doActivate() which may cause problems in attach by pid mode on Windows.
@@ -719,10 +729,45 @@ public class ProfilerServer extends Thread implements CommonConstants {
     }
 
     public boolean sendEventBufferDumpedCommand(int length, byte[] buffer, int startPos) {
-        EventBufferDumpedCommand cmd = new EventBufferDumpedCommand(length,buffer,startPos);
-        sendComplexCmdToClient(cmd);
+        if (EVENT_BUFFER_WINDOW == 1) {
+            EventBufferDumpedCommand cmd = new EventBufferDumpedCommand(length,buffer,startPos);
+            sendComplexCmdToClient(cmd);
 
-        return getAndCheckLastResponse();
+            return getAndCheckLastResponse();
+        }
+
+        int sequenceId;
+
+        synchronized (eventBufferWindowLock) {
+            // Backpressure - don't get too far ahead of the client
+            while ((eventBuffersInFlight >= EVENT_BUFFER_WINDOW) && connectionOpen) {
+                try {
+                    eventBufferWindowLock.wait(100);
+                } catch (InterruptedException ex) {
+                }
+            }
+            if (!connectionOpen) {
+                return false;
+            }
+            if (++eventBufferSequenceId <= 0) {
+                eventBufferSequenceId = 1;
+            }
+            sequenceId = eventBufferSequenceId;
+            eventBuffersInFlight++;
+        }
+        // The buffer is compressed into the stream here, so it can be reused as soon as this returns
+        sendComplexCmdToClient(new EventBufferDumpedCommand(length, buffer, startPos, sequenceId));
+
+        return true;
+    }
+
+    private static void eventBufferAcknowledged() {
+        synchronized (eventBufferWindowLock) {
+            if (eventBuffersInFlight > 0) {
+                eventBuffersInFlight--;
+            }
+            eventBufferWindowLock.notifyAll();
+        }
     }
 
     public synchronized void sendSimpleCmdToClient(int cmdType) {
@@ -1221,6 +1266,10 @@ public class ProfilerServer extends Thread implements CommonConstants {
 
     private synchronized void closeConnection() {
         connectionOpen = false;
+        synchronized (eventBufferWindowLock) {
+            eventBuffersInFlight = 0;
+            eventBufferWindowLock.notifyAll();
+        }
         if (status != null) {
             status.targetAppRunning = false;
         }
@@ -1464,6 +1513,7 @@ public class ProfilerServer extends Thread implements CommonConstants {
                 ProfilerRuntimeMemory.setSamplingInterval((short) scipCmd.getObjAllocStackSamplingInterval());
                 ProfilerRuntimeMemory.setStackSamplingDepth(scipCmd.getObjAllocStackSamplingDepth());
                 ProfilerRuntimeObjLiveness.setRunGCOnGetResults(scipCmd.getRunGCOnGetResultsInMemoryProfiling());
+                ThreadInfo.setGroupVirtualThreads(scipCmd.isGroupVirtualThreads());
                 threadSampling = scipCmd.isThreadsSamplingEnabled();
                 waitTracking = scipCmd.isWaitTrackingEnabled();
                 sleepTracking = scipCmd.isSleepTrackingEnabled();
@@ -1757,6 +1807,8 @@ public class ProfilerServer extends Thread implements CommonConstants {
                 //System.out.println(">>> Profiler Engine: received command or response " + o);
                 if (o instanceof Command) {
                     handleClientCommand((Command) o);
+                } else if (o instanceof EventBufferAckResponse) {
+                    eventBufferAcknowledged();
                 } else {
                     setLastResponse((Response) o);
                 }
@@ -25,6 +25,7 @@
 
 package org.graalvm.visualvm.lib.jfluid.server;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,6 +43,7 @@ public class ThreadInfo {
 
     static final int MAX_EVENT_ENTRIES_IN_LOCAL_BUFFER = 500; // Thread-local buffer, in events
     static final int MAX_EVENT_SIZE = 1 + 2 + 7 + 7; // In bytes; comprises event type, method id, and two long timestamps
+    static final int MAX_RECYCLED_THREAD_INFOS = 1024; // Max number of ThreadInfos of terminated virtual threads kept for reuse
     static int evBufSize; // Size and threshold, same for each thread-local buffer
     static int evBufPosThreshold; // Size and threshold, same for each thread-local buffer
 
@@ -62,11 +64,26 @@ public class ThreadInfo {
     private static int nThreads;
     private static boolean hasDeadThreads;
     private static ThreadInfo lastThreadInfo = dummyThreadInfo;
+    private static final ThreadInfo deadThreadInfo = new ThreadInfo(null); // Replaces recycled ThreadInfos in the hash table
+
+    // Virtual threads support
+    private static final Method isVirtualMethod = getIsVirtualMethod();
+    private static ThreadInfo[] recycledThreadInfos = new ThreadInfo[MAX_RECYCLED_THREAD_INFOS];
+    private static int nRecycledThreadInfos;
+    private static int nThreadGroups;
+    private static boolean groupVirtualThreads;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     Thread thread; // Thread object for this ThreadInfo
-    byte[] evBuf; // Thread-local event (rough profiling data) buffer. Currently used in CPU profiling only.
+    byte[] evBuf; // Thread-local event (rough profiling data) buffer. Used in CPU and object allocation profiling.
+    byte[] spareEvBuf; // Event buffer of a terminated virtual thread, reused by the next virtual thread
+    int[] stackFrameIds; // Thread-local buffer for stack frame ids, used in memory profiling
+    int[] allocStackFrameIds; // Stack frame ids of the pending aggregated allocation, used in object allocation profiling
+    int allocClassId; // Class id of the pending aggregated allocation
+    int allocDepth; // Stack depth of the pending aggregated allocation
+    int allocCount; // Number of allocations aggregated in the pending event, 0 if there is none. @GuardedBy this
+    long allocObjSize; // Object size of the pending aggregated allocation
     boolean inCallGraph; // Indicates whether the thread is currently in the profiled subgraph
     boolean sampleDue; // In sampled instrumentation mode, indicates that next sampling should be done
     int evBufDumpLastPos; // Used to avoid synchronization in writeEvent() and yet to allow for asynchronous event buffer dumps.
@@ -78,6 +95,8 @@ public class ThreadInfo {
     long absEntryTime; // Used to support thread suspension and code fragment profiling
     long lastWaitStartTime; // Used in Code Region profiling for tracking wait times
     long threadEntryTime; // Used to support thread suspension and code fragment profiling
+    boolean virtual; // Indicates that the thread is a virtual thread, its ThreadInfo is recycled once the thread terminates
+    int threadGroupId; // Number of the logical thread used for grouped virtual threads, 0 otherwise
     private boolean initialized; // To signal that this thread is not initialized or was reset, so this threadInfo is unusable
     List parameters;
 
@@ -86,7 +105,12 @@ public class ThreadInfo {
     private ThreadInfo(Thread thread) {
         this.thread = thread;
         inProfilingRuntimeMethod = 1; // To make possible trace method calls while ThreadInfo is initialized return immediately
-        threadId = nThreads & 0xFFFF;
+        threadId = nThreads;
+    }
+
+    private ThreadInfo(Thread thread, boolean virtual) {
+        this(thread);
+        this.virtual = virtual;
     }
 
     //~ Methods ------------------------------------------------------------------------------------------------------------------
@@ -103,6 +127,37 @@ public class ThreadInfo {
         return threadId;
     }
 
+    /**
+     * Returns the name under which the thread is reported to the tool. Grouped virtual threads are reported
+     * under the name of the logical thread they share.
+     */
+    final String getReportedThreadName() {
+        if (threadGroupId != 0) {
+            return "Virtual Threads #" + threadGroupId; // NOI18N
+        }
+        return thread.getName();
+    }
+
+    static void setGroupVirtualThreads(boolean group) {
+        if (groupVirtualThreads != group) {
+            synchronized (threadInfosLock) {
+                groupVirtualThreads = group;
+                clearRecycledThreadInfos(); // recycled ThreadInfos were prepared for the other mode
+            }
+        }
+    }
+
+    static boolean isVirtualThread(Thread thread) {
+        if (isVirtualMethod == null || thread == null) {
+            return false;
+        }
+        try {
+            return ((Boolean) isVirtualMethod.invoke(thread)).booleanValue();
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
     static boolean isProfilerServerMonitor(Object monitor) {
         return monitor == threadInfosLock || monitor == ProfilerRuntimeMemory.classIdMapLock;
     }
@@ -234,7 +289,19 @@ public class ThreadInfo {
     }
 
     final void useEventBuffer() {
-        evBuf = new byte[evBufSize];
+        if (spareEvBuf != null && spareEvBuf.length == evBufSize) {
+            evBuf = spareEvBuf;
+        } else {
+            evBuf = new byte[evBufSize];
+        }
+        spareEvBuf = null;
+    }
+
+    final int[] getStackFrameIdsBuffer() {
+        if (stackFrameIds == null) {
+            stackFrameIds = new int[ProfilerRuntimeMemory.MAX_STACK_FRAMES];
+        }
+        return stackFrameIds;
     }
 
     void addParameter(Object par) {
@@ -298,7 +365,7 @@ public class ThreadInfo {
             for (int i = 0; i < threadInfos.length; i++) {
                 ThreadInfo ti = threadInfos[i];
 
-                if (!ti.inCallGraph) {
+                if (ti == null || !ti.inCallGraph) {
                     continue;
                 }
 
@@ -313,6 +380,7 @@ public class ThreadInfo {
         synchronized (threadInfosLock) {
             nProfiledAppThreads = 0;
             lastThreadInfo = dummyThreadInfo; // To avoid null checks
+            clearRecycledThreadInfos();
 
             for (int i = 0; i < oldTIs.length; i++) {
                 ThreadInfo ti = oldTIs[i];
@@ -349,20 +417,85 @@ public class ThreadInfo {
                 Thread t = ti.thread;
 
                 if ((t != null) && !t.isAlive()) {
+                    if (ti.virtual && recycleThreadInfo(ti, t)) {
+                        continue;
+                    }
                     if (ti.evBuf != null) {
-                        if (ti.evBufPos > 0) { // dump local event buffer
+                        if (ti.evBufPos > 0 || ti.allocCount != 0) { // dump local event buffer
                             ProfilerRuntimeCPU.copyLocalBuffer(ti);
                         }
                         ti.evBuf = null; // release results buffer
                     }
                     ti.thread = null; // release dead thread
                     ti.parameters = null;
+                    ti.stackFrameIds = null;
+                    ti.allocStackFrameIds = null;
                     hasDeadThreads = true;
                 }
             }
         }
     }
 
+    /**
+     * Flushes the ThreadInfo of a terminated virtual thread, removes it from the hash table and keeps it for reuse
+     * by a new virtual thread together with its event buffer. In the grouped mode the reused ThreadInfo also keeps
+     * its thread id and initialized state, so the new virtual thread's data are added to the same logical thread.
+     */
+    private static boolean recycleThreadInfo(ThreadInfo ti, Thread t) {
+        if (ti.inCallGraph || ti.stackDepth != 0 || ti.inProfilingRuntimeMethod != 0) {
+            return false; // The thread terminated abruptly, its state cannot be reused
+        }
+        if (ti.evBuf != null && (ti.evBufPos > 0 || ti.allocCount != 0)) { // dump local event buffer
+            ProfilerRuntimeCPU.copyLocalBuffer(ti);
+        }
+        synchronized (threadInfosLock) {
+            if (nRecycledThreadInfos == recycledThreadInfos.length || ti.thread != t) {
+                return false;
+            }
+
+            ThreadInfo[] tis = threadInfos;
+            int capacity = tis.length;
+            int pos = getThreadHashCode(t) % capacity;
+
+            while (tis[pos] != ti) {
+                if (tis[pos] == null) {
+                    return false;
+                }
+                pos = (pos + 1) % capacity;
+            }
+            tis[pos] = deadThreadInfo; // Keeps the probe sequences of other entries intact
+            hasDeadThreads = true;
+
+            ti.thread = null;
+            ti.parameters = null;
+            ti.evBufPos = ti.evBufDumpLastPos = 0;
+            if (ti.threadGroupId == 0) {
+                ti.spareEvBuf = ti.evBuf;
+                ti.evBuf = null;
+            }
+            recycledThreadInfos[nRecycledThreadInfos++] = ti;
+        }
+        return true;
+    }
+
+    private static void clearRecycledThreadInfos() {
+        for (int i = 0; i < nRecycledThreadInfos; i++) {
+            recycledThreadInfos[i] = null;
+        }
+        nRecycledThreadInfos = 0;
+    }
+
+    private static Method getIsVirtualMethod() {
+        try {
+            Method m = Thread.class.getMethod("isVirtual"); // NOI18N, since JDK 19
+            m.invoke(Thread.currentThread()); // Make sure reflection is initialized before it is used in instrumentation
+
+            return m;
+        } catch (Exception ex) {
+            return null; // Virtual threads are not supported
+        }
+    }
+
     private static int getThreadHashCode(Thread t) {
         return System.identityHashCode(t) & 0x7fffffff;
     }
@@ -401,6 +534,8 @@ public class ThreadInfo {
     }
 
     private static ThreadInfo newThreadInfo(Thread thread) {
+        boolean virtual = isVirtualThread(thread);
+
         synchronized (threadInfosLock) {
             ThreadInfo ti = getThreadInfoOrNull(thread);
 
@@ -408,9 +543,27 @@ public class ThreadInfo {
                 return ti;
             }
 
-            ThreadInfo res = new ThreadInfo(thread);
+            ThreadInfo res;
+
+            if (virtual && nRecycledThreadInfos > 0) {
+                res = recycledThreadInfos[--nRecycledThreadInfos];
+                recycledThreadInfos[nRecycledThreadInfos] = null;
+                res.inProfilingRuntimeMethod = 1;
+                res.thread = thread;
 
-            nThreads++;
+                if (res.threadGroupId == 0) {
+                    res.threadId = nThreads;
+                    res.initialized = false;
+                    nThreads++;
+                }
+            } else {
+                res = new ThreadInfo(thread, virtual);
+                nThreads++;
+
+                if (virtual && groupVirtualThreads) {
+                    res.threadGroupId = ++nThreadGroups;
+                }
+            }
             addThreadInfo(res, thread);
             res.inProfilingRuntimeMethod = 0;
 
@@ -447,6 +600,9 @@ public class ThreadInfo {
 
     private void resetInternalState() {
         evBufPos = evBufDumpLastPos = 0;
+        synchronized (this) {
+            allocCount = 0;
+        }
         absEntryTime = lastWaitStartTime = threadEntryTime = 0;
         rootMethodStackDepth = stackDepth = 0;
         inCallGraph = sampleDue = false;
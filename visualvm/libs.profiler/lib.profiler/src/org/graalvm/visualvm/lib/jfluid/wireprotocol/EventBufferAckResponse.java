@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.wireprotocol;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+
+/**
+ * Response of the client to a pipelined EventBufferDumpedCommand, sent once the buffer has been processed.
+ * It carries the sequence id of the acknowledged buffer, since the back end doesn't wait for it synchronously
+ * and it may arrive while another response is awaited.
+ */
+public class EventBufferAckResponse extends Response {
+    //~ Instance fields ----------------------------------------------------------------------------------------------------------
+
+    private int sequenceId;
+
+    //~ Constructors -------------------------------------------------------------------------------------------------------------
+
+    public EventBufferAckResponse(int sequenceId) {
+        super(true, EVENT_BUFFER_ACK);
+        this.sequenceId = sequenceId;
+    }
+
+    // Custom serialization support
+    EventBufferAckResponse() {
+        super(true, EVENT_BUFFER_ACK);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------------------------------------
+
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
+    // For debugging
+    public String toString() {
+        return "EventBufferAckResponse, sequenceId: " + sequenceId + ", " + super.toString(); // NOI18N
+    }
+
+    void readObject(ObjectInputStream in) throws IOException {
+        sequenceId = in.readInt();
+    }
+
+    void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeInt(sequenceId);
+    }
+}
@@ -42,12 +42,24 @@ import java.util.zip.Inflater;
  * @author Tomas Hurka
  */
 public class EventBufferDumpedCommand extends Command {
+    //~ Static fields/initializers -----------------------------------------------------------------------------------------------
+
+    // Compressed buffers are written by one thread holding the WireIO lock and read by the single listener thread, so one
+    // compressor and one decompressor, together with their scratch buffers, are reused instead of creating them per buffer.
+    private static final Object compressorLock = new Object();
+    private static final Object decompressorLock = new Object();
+    private static Deflater compressor;
+    private static Inflater decompressor;
+    private static byte[] compressedOutputBuf;
+    private static byte[] compressedInputBuf;
+
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
     private int bufSize;
     private String eventBufferFileName;
     private byte[] buffer;
     private int startPos;
+    private int sequenceId; // > 0 for buffers the back end doesn't wait for, acknowledged by EventBufferAckResponse
 
     //~ Constructors -------------------------------------------------------------------------------------------------------------
 
@@ -59,6 +71,11 @@ public class EventBufferDumpedCommand extends Command {
         eventBufferFileName = "";
     }
 
+    public EventBufferDumpedCommand(int bufSize, byte[] buf, int start, int sequenceId) {
+        this(bufSize, buf, start);
+        this.sequenceId = sequenceId;
+    }
+
     public EventBufferDumpedCommand(int bufSize, String bufferName) {
         super(EVENT_BUFFER_DUMPED);
         this.bufSize = bufSize;
@@ -82,9 +99,18 @@ public class EventBufferDumpedCommand extends Command {
         return buffer;
     }
 
+    /**
+     * Returns the sequence id of a pipelined buffer, which the client acknowledges with EventBufferAckResponse,
+     * or 0 if the back end waits for a simple response.
+     */
+    public int getSequenceId() {
+        return sequenceId;
+    }
+
     // For debugging
     public String toString() {
-        return super.toString() + ", bufSize: " + bufSize + (eventBufferFileName.length()>0 ? ", eventBufferFileName:" + eventBufferFileName : ""); // NOI18N
+        return super.toString() + ", bufSize: " + bufSize + (eventBufferFileName.length()>0 ? ", eventBufferFileName:" + eventBufferFileName : "") // NOI18N
+               + (sequenceId > 0 ? ", sequenceId: " + sequenceId : ""); // NOI18N
     }
 
     public String getEventBufferFileName() {
@@ -95,22 +121,28 @@ public class EventBufferDumpedCommand extends Command {
         boolean hasBuffer;
         
         bufSize = in.readInt();
+        sequenceId = in.readInt();
         hasBuffer = in.readBoolean();
         if (hasBuffer) {
             int compressedSize = in.readInt();
-            byte[] compressedBuf = new byte[compressedSize];
-            Inflater decompressor = new Inflater();
-            
+
             buffer = new byte[bufSize];
-            in.readFully(compressedBuf);
-            decompressor.setInput(compressedBuf);
-            try {
-                int originalSize = decompressor.inflate(buffer);
-                assert originalSize==bufSize;
-            } catch (DataFormatException ex) {
-                throw new IOException(ex.getMessage());
-            } finally {
-                decompressor.end();
+            synchronized (decompressorLock) {
+                if (decompressor == null) {
+                    decompressor = new Inflater();
+                }
+                if ((compressedInputBuf == null) || (compressedInputBuf.length < compressedSize)) {
+                    compressedInputBuf = new byte[compressedSize];
+                }
+                in.readFully(compressedInputBuf, 0, compressedSize);
+                decompressor.reset();
+                decompressor.setInput(compressedInputBuf, 0, compressedSize);
+                try {
+                    int originalSize = decompressor.inflate(buffer);
+                    assert originalSize==bufSize;
+                } catch (DataFormatException ex) {
+                    throw new IOException(ex.getMessage());
+                }
             }
             eventBufferFileName = "";
         } else {
@@ -120,18 +152,34 @@ public class EventBufferDumpedCommand extends Command {
     
     void writeObject(ObjectOutputStream out) throws IOException {
         out.writeInt(bufSize);
+        out.writeInt(sequenceId);
         out.writeBoolean(buffer != null);
         if (buffer != null) {
-            Deflater compressor = new Deflater();
-            // for small buffers, the compressed size can be somewhat larger than the original  
-            byte[] compressedBytes = new byte[bufSize + 32]; 
-            int compressedSize;
-            
-            compressor.setInput(buffer,startPos,bufSize);
-            compressor.finish();
-            compressedSize = compressor.deflate(compressedBytes);
-            out.writeInt(compressedSize);
-            out.write(compressedBytes,0,compressedSize);
+            synchronized (compressorLock) {
+                if (compressor == null) {
+                    compressor = new Deflater();
+                }
+                // for small buffers, the compressed size can be somewhat larger than the original  
+                if ((compressedOutputBuf == null) || (compressedOutputBuf.length < (bufSize + 32))) {
+                    compressedOutputBuf = new byte[bufSize + 32];
+                }
+                int compressedSize = 0;
+
+                compressor.reset();
+                compressor.setInput(buffer,startPos,bufSize);
+                compressor.finish();
+                while (true) {
+                    compressedSize += compressor.deflate(compressedOutputBuf, compressedSize, compressedOutputBuf.length - compressedSize);
+                    if (compressor.finished()) {
+                        break;
+                    }
+                    byte[] newBuf = new byte[compressedOutputBuf.length * 2];
+                    System.arraycopy(compressedOutputBuf, 0, newBuf, 0, compressedSize);
+                    compressedOutputBuf = newBuf;
+                }
+                out.writeInt(compressedSize);
+                out.write(compressedOutputBuf,0,compressedSize);
+            }
         } else {
             out.writeUTF(eventBufferFileName);
         }
@@ -57,6 +57,7 @@ public class Response {
     public static final int HEAP_HISTOGRAM = 13;
     public static final int THREAD_DUMP = 14;
     public static final int GET_CLASS_FILE_BYTES_RESPONSE = 15;
+    public static final int EVENT_BUFFER_ACK = 16;
 
     //~ Instance fields ----------------------------------------------------------------------------------------------------------
 
@@ -163,6 +164,8 @@ public class Response {
                     return "THREAD_DUMP";   // NOI18N
                 case GET_CLASS_FILE_BYTES_RESPONSE:
                     return "GET_CLASS_FILE_BYTES_RESPONSE";
+                case EVENT_BUFFER_ACK:
+                    return "EVENT_BUFFER_ACK"; // NOI18N
                 default:
                     return "Unknown response"; // NOI18N
             }
@@ -45,6 +45,7 @@ public class SetChangeableInstrParamsCommand extends Command {
     private boolean sleepTrackingEnabled;
     private boolean waitTrackingEnabled;
     private boolean threadsSamplingEnabled;
+    private boolean groupVirtualThreads;
     private boolean lockContentionMonitoringEnabled;
     private int nProfiledThreadsLimit;
     private int stackDepthLimit;
@@ -59,7 +60,8 @@ public class SetChangeableInstrParamsCommand extends Command {
                                            int samplingInterval, int objAllocStackSamplingInterval,
                                            int objAllocStackSamplingDepth, boolean runGCOnGetResults,
                                            boolean waitTrackingEnabled, boolean sleepTrackingEnabled,
-                                           boolean threadsSamplingEnabled, int threadsSamplingFrequency) {
+                                           boolean threadsSamplingEnabled, int threadsSamplingFrequency,
+                                           boolean groupVirtualThreads) {
         super(SET_CHANGEABLE_INSTR_PARAMS);
         this.lockContentionMonitoringEnabled = lockContentionMonitoringEnabled;
         this.nProfiledThreadsLimit = nProfiledThreadsLimit;
@@ -72,6 +74,7 @@ public class SetChangeableInstrParamsCommand extends Command {
         this.waitTrackingEnabled = waitTrackingEnabled;
         this.sleepTrackingEnabled = sleepTrackingEnabled;
         this.threadsSamplingEnabled = threadsSamplingEnabled;
+        this.groupVirtualThreads = groupVirtualThreads;
     }
 
     // Custom serialization support
@@ -125,6 +128,10 @@ public class SetChangeableInstrParamsCommand extends Command {
         return threadsSamplingEnabled;
     }
 
+    public boolean isGroupVirtualThreads() {
+        return groupVirtualThreads;
+    }
+
     // For debugging
     public String toString() {
         return super.toString() + ", lockContentionMonitoringEnabled: " + lockContentionMonitoringEnabled // NOI18N
@@ -137,7 +144,8 @@ public class SetChangeableInstrParamsCommand extends Command {
                + ", waitTrackingEnabled: " + waitTrackingEnabled // NOI18N
                + ", sleepTrackingEnabled: " + sleepTrackingEnabled // NOI18N
                + ", threadsSamplingEnabled: " + threadsSamplingEnabled // NOI18N
-               + ", threadsSamplingFrequency: " + threadsSamplingFrequency; // NOI18N
+               + ", threadsSamplingFrequency: " + threadsSamplingFrequency // NOI18N
+               + ", groupVirtualThreads: " + groupVirtualThreads; // NOI18N
     }
 
     void readObject(ObjectInputStream in) throws IOException {
@@ -152,6 +160,7 @@ public class SetChangeableInstrParamsCommand extends Command {
         sleepTrackingEnabled = in.readBoolean();
         threadsSamplingEnabled = in.readBoolean();
         threadsSamplingFrequency = in.readInt();
+        groupVirtualThreads = in.readBoolean();
     }
 
     void writeObject(ObjectOutputStream out) throws IOException {
@@ -166,5 +175,6 @@ public class SetChangeableInstrParamsCommand extends Command {
         out.writeBoolean(sleepTrackingEnabled);
         out.writeBoolean(threadsSamplingEnabled);
         out.writeInt(threadsSamplingFrequency);
+        out.writeBoolean(groupVirtualThreads);
     }
 }
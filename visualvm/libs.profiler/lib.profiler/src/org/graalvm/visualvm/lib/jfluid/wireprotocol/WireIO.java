@@ -254,6 +254,10 @@ public class WireIO {
                     case Response.GET_CLASS_FILE_BYTES_RESPONSE:
                         resp = new GetClassFileBytesResponse();
                         
+                        break;
+                    case Response.EVENT_BUFFER_ACK:
+                        resp = new EventBufferAckResponse();
+
                         break;
                     default:
                         throw new IOException("JFluid wire protocol error: received unknown response type. Value: " + respType); // NOI18N
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.lib.jfluid.results.cpu;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.graalvm.visualvm.lib.jfluid.client.ClientUtils;
+import org.graalvm.visualvm.lib.jfluid.results.CCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.StackTraceSnapshotBuilder.SampledThreadInfo;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of merging and diffing CPU snapshots by CPUCCTMerger.
+ */
+public class CPUCCTMergerTest {
+
+    private static final long MS = 1000000L;
+
+    private final StackTraceElement[] stackA = new StackTraceElement[] {
+        new StackTraceElement("test.Class1", "method2", "Class1.java", 20),
+        new StackTraceElement("test.Class1", "method1", "Class1.java", 10)
+    };
+
+    private final StackTraceElement[] stackB = new StackTraceElement[] {
+        new StackTraceElement("test.Class1", "method3", "Class1.java", 30),
+        new StackTraceElement("test.Class1", "method1", "Class1.java", 10)
+    };
+
+    private final StackTraceElement[] stackC = new StackTraceElement[] {
+        new StackTraceElement("test.Class2", "method4", "Class2.java", 40),
+        new StackTraceElement("test.Class1", "method2", "Class1.java", 20),
+        new StackTraceElement("test.Class1", "method1", "Class1.java", 10)
+    };
+
+    private final StackTraceElement[] stackD = new StackTraceElement[] {
+        new StackTraceElement("test.Class3", "run", "Class3.java", 50)
+    };
+
+    private CPUResultsSnapshot snapshot1;
+    private CPUResultsSnapshot snapshot2;
+
+    @Before
+    public void setUp() throws Exception {
+        StackTraceSnapshotBuilder builder1 = new StackTraceSnapshotBuilder();
+        builder1.addStacktrace(threads(thread(1, "main", stackA), thread(2, "worker", stackD)), 0);
+        builder1.addStacktrace(threads(thread(1, "main", stackB), thread(2, "worker", stackD)), 10 * MS);
+        builder1.addStacktrace(threads(thread(1, "main", stackB), thread(2, "worker", stackD)), 30 * MS);
+        builder1.addStacktrace(threads(thread(1, "main", stackA)), 40 * MS);
+        snapshot1 = builder1.createSnapshot(0);
+
+        // different thread ids and a different order of methods than in snapshot1
+        StackTraceSnapshotBuilder builder2 = new StackTraceSnapshotBuilder();
+        builder2.addStacktrace(threads(thread(5, "other", stackD), thread(7, "main", stackC)), 0);
+        builder2.addStacktrace(threads(thread(5, "other", stackD), thread(7, "main", stackA)), 20 * MS);
+        builder2.addStacktrace(threads(thread(7, "main", stackC)), 25 * MS);
+        builder2.addStacktrace(threads(thread(7, "main", stackB)), 50 * MS);
+        snapshot2 = builder2.createSnapshot(0);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        Map<String, long[]> values1 = collectValues(snapshot1);
+        Map<String, long[]> values2 = collectValues(snapshot2);
+        CPUResultsSnapshot merged = CPUCCTMerger.merge(snapshot1, snapshot2);
+        Map<String, long[]> mergedValues = collectValues(merged);
+
+        assertEquals(3, merged.getThreadNames().length);
+        assertEquals(paths(values1, values2), mergedValues.keySet());
+        for (Map.Entry<String, long[]> entry : mergedValues.entrySet()) {
+            long[] value1 = get(values1, entry.getKey());
+            long[] value2 = get(values2, entry.getKey());
+            long[] value = entry.getValue();
+            assertEquals(entry.getKey(), value1[0] + value2[0], value[0]);
+            assertEquals(entry.getKey(), value1[1] + value2[1], value[1]);
+        }
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        Map<String, long[]> values1 = collectValues(snapshot1);
+        Map<String, long[]> values2 = collectValues(snapshot2);
+        CPUResultsSnapshot diff = CPUCCTMerger.diff(snapshot1, snapshot2);
+        Map<String, long[]> diffValues = collectValues(diff);
+        boolean negativeTime = false;
+
+        assertEquals(paths(values1, values2), diffValues.keySet());
+        for (Map.Entry<String, long[]> entry : diffValues.entrySet()) {
+            long[] value1 = get(values1, entry.getKey());
+            long[] value2 = get(values2, entry.getKey());
+            long[] value = entry.getValue();
+            assertEquals(entry.getKey(), value2[0] - value1[0], value[0]);
+            assertEquals(entry.getKey(), value2[1] - value1[1], value[1]);
+            negativeTime |= value[0] < 0;
+        }
+        assertTrue(negativeTime);
+    }
+
+    @Test
+    public void testResultsDiffTree() throws Exception {
+        Map<String, long[]> diffValues = collectValues(CPUCCTMerger.diff(snapshot1, snapshot2));
+        CPUResultsDiff resultsDiff = new CPUResultsDiff(snapshot1, snapshot2);
+        Map<Integer, ClientUtils.SourceCodeSelection> idMap = resultsDiff.getMethodIDMap(CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+        PrestimeCPUCCTNode root = resultsDiff.getRootNode(CPUResultsSnapshot.METHOD_LEVEL_VIEW, null, false);
+        Map<String, long[]> values = new HashMap<>();
+
+        for (CCTNode threadNode : root.getChildren()) {
+            collectValues((PrestimeCPUCCTNode) threadNode, threadNode.toString(), values);
+        }
+
+        assertEquals(diffValues.keySet(), values.keySet());
+        for (Map.Entry<String, long[]> entry : values.entrySet()) {
+            assertEquals(entry.getKey(), diffValues.get(entry.getKey())[0], entry.getValue()[0]);
+        }
+        for (CCTNode node : root.getChildren()[0].getChildren()) {
+            PrestimeCPUCCTNode methodNode = (PrestimeCPUCCTNode) node;
+            ClientUtils.SourceCodeSelection sel = idMap.get(methodNode.getMethodId());
+            String[] name = resultsDiff.getMethodClassNameAndSig(methodNode.getMethodId(), CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+            assertEquals(sel.getClassName(), name[0]);
+            assertEquals(sel.getMethodName(), name[1]);
+            assertTrue(methodNode.getNodeName().startsWith(name[0] + "." + name[1])); // NOI18N
+        }
+    }
+
+    @Test
+    public void testResultsDiffFlatProfile() throws Exception {
+        Map<ClientUtils.SourceCodeSelection, long[]> expected = new HashMap<>();
+        addFlatProfile(snapshot1.getFlatProfile(-1, CPUResultsSnapshot.METHOD_LEVEL_VIEW), -1, expected);
+        addFlatProfile(snapshot2.getFlatProfile(-1, CPUResultsSnapshot.METHOD_LEVEL_VIEW), 1, expected);
+        for (Iterator<long[]> it = expected.values().iterator(); it.hasNext();) {
+            long[] value = it.next();
+            if (value[0] == 0 && value[1] == 0 && value[2] == 0) it.remove();
+        }
+
+        CPUResultsDiff resultsDiff = new CPUResultsDiff(snapshot1, snapshot2);
+        DiffFlatProfileContainer flat = resultsDiff.getFlatProfile(-1, CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+        Map<ClientUtils.SourceCodeSelection, long[]> values = new HashMap<>();
+        addFlatProfile(flat, 1, values);
+
+        assertEquals(expected.keySet(), values.keySet());
+        for (Map.Entry<ClientUtils.SourceCodeSelection, long[]> entry : values.entrySet()) {
+            assertArrayEquals(entry.getKey().toString(), expected.get(entry.getKey()), entry.getValue());
+        }
+        assertTrue(flat.getMinTime() < 0);
+    }
+
+    @Test
+    public void testDeepTree() throws Exception {
+        final int depth = 20000;
+        final StackTraceElement[] stack = new StackTraceElement[depth];
+        for (int i = 0; i < depth; i++) {
+            stack[depth - i - 1] = new StackTraceElement("test.Deep", "method" + i, "Deep.java", i); // NOI18N
+        }
+
+        // the source snapshots are created recursively, only the merge has to work on a small thread stack
+        final CPUResultsSnapshot[] snapshots = new CPUResultsSnapshot[2];
+        runWithStack(64 * 1024 * 1024, new Task() {
+            public void call() throws Exception {
+                for (int i = 0; i < snapshots.length; i++) {
+                    StackTraceSnapshotBuilder builder = new StackTraceSnapshotBuilder();
+                    builder.addStacktrace(threads(thread(1, "main", stack)), 0);
+                    builder.addStacktrace(threads(thread(1, "main", stack)), (i + 1) * 10 * MS);
+                    snapshots[i] = builder.createSnapshot(0);
+                }
+            }
+        });
+
+        final CPUResultsSnapshot[] merged = new CPUResultsSnapshot[1];
+        runWithStack(256 * 1024, new Task() {
+            public void call() throws Exception {
+                merged[0] = CPUCCTMerger.merge(snapshots);
+            }
+        });
+
+        long[] leaf1 = getDeepestNode(snapshots[0]);
+        long[] leaf2 = getDeepestNode(snapshots[1]);
+        long[] leaf = getDeepestNode(merged[0]);
+        assertEquals(depth + 1, leaf[0]); // thread node and all the frames
+        assertEquals(leaf1[0], leaf[0]);
+        assertEquals(leaf1[1] + leaf2[1], leaf[1]);
+        assertTrue(leaf[1] > 0);
+    }
+
+    @Test
+    public void testSaveMerged() throws Exception {
+        CPUResultsSnapshot merged = CPUCCTMerger.merge(snapshot1, snapshot2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        merged.writeToStream(out);
+        out.close();
+
+        CPUResultsSnapshot loaded = new CPUResultsSnapshot();
+        loaded.readFromStream(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Map<String, long[]> mergedValues = collectValues(merged);
+        Map<String, long[]> loadedValues = collectValues(loaded);
+
+        assertEquals(mergedValues.keySet(), loadedValues.keySet());
+        for (Map.Entry<String, long[]> entry : mergedValues.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), loadedValues.get(entry.getKey()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testSaveDiff() throws Exception {
+        CPUResultsSnapshot diff = CPUCCTMerger.diff(snapshot1, snapshot2);
+        diff.writeToStream(new DataOutputStream(new ByteArrayOutputStream()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDiff() throws Exception {
+        CPUCCTMerger.merge(snapshot1, new CPUResultsDiff(snapshot1, snapshot2));
+    }
+
+    private interface Task {
+        void call() throws Exception;
+    }
+
+    private static void runWithStack(long stackSize, final Task task) throws Exception {
+        final Exception[] exception = new Exception[1];
+        final Error[] error = new Error[1];
+        Thread thread = new Thread(null, new Runnable() {
+            public void run() {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    exception[0] = e;
+                } catch (Error e) {
+                    error[0] = e;
+                }
+            }
+        }, "CPUCCTMergerTest", stackSize); // NOI18N
+        thread.start();
+        thread.join();
+        if (exception[0] != null) throw exception[0];
+        if (error[0] != null) throw error[0];
+    }
+
+    /**
+     * Returns the depth and total time of the deepest node of a single-path CCT of the first thread.
+     */
+    private static long[] getDeepestNode(CPUResultsSnapshot snapshot) {
+        CPUCCTContainer container = snapshot.getContainerForThread(snapshot.getThreadIds()[0], CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+        int ofs = 0;
+        long nodes = 1;
+        while (container.getNChildrenForNodeOfs(ofs) > 0) {
+            assertEquals(1, container.getNChildrenForNodeOfs(ofs));
+            ofs = container.getChildOfsForNodeOfs(ofs, 0);
+            nodes++;
+        }
+        return new long[] { nodes, container.getTotalTime0ForNodeOfs(ofs) };
+    }
+
+    private static void addFlatProfile(FlatProfileContainer flat, int weight, Map<ClientUtils.SourceCodeSelection, long[]> values) {
+        for (int row = 0; row < flat.getNRows(); row++) {
+            ClientUtils.SourceCodeSelection sel = flat.getSourceCodeSelectionAtRow(row);
+            long[] value = values.get(sel);
+            if (value == null) {
+                value = new long[3];
+                values.put(sel, value);
+            }
+            value[0] += weight * flat.getTimeInMcs0AtRow(row);
+            value[1] += weight * flat.getTotalTimeInMcs0AtRow(row);
+            value[2] += weight * flat.getNInvocationsAtRow(row);
+        }
+    }
+
+    private static SampledThreadInfo thread(long tid, String name, StackTraceElement[] stack) {
+        return new SampledThreadInfo(name, tid, Thread.State.RUNNABLE, stack, null);
+    }
+
+    private static SampledThreadInfo[] threads(SampledThreadInfo... threads) {
+        return threads;
+    }
+
+    private static Set<String> paths(Map<String, long[]> values1, Map<String, long[]> values2) {
+        Set<String> paths = new HashSet<>(values1.keySet());
+        paths.addAll(values2.keySet());
+        return paths;
+    }
+
+    private static long[] get(Map<String, long[]> values, String path) {
+        long[] value = values.get(path);
+        return value == null ? new long[2] : value;
+    }
+
+    /**
+     * Collects total time and number of calls of all method-level nodes, keyed by thread name and call path.
+     */
+    private static Map<String, long[]> collectValues(CPUResultsSnapshot snapshot) {
+        Map<String, long[]> values = new HashMap<>();
+        for (int threadId : snapshot.getThreadIds()) {
+            CPUCCTContainer container = snapshot.getContainerForThread(threadId, CPUResultsSnapshot.METHOD_LEVEL_VIEW);
+            collectValues(container.getRootNode(), container.getThreadName(), values);
+        }
+        return values;
+    }
+
+    private static void collectValues(PrestimeCPUCCTNode node, String path, Map<String, long[]> values) {
+        values.put(path, new long[] { node.getTotalTime0(), node.getNCalls() });
+        CCTNode[] children = node.getChildren();
+        if (children != null) {
+            for (CCTNode child : children) {
+                PrestimeCPUCCTNode childNode = (PrestimeCPUCCTNode) child;
+                if (childNode.isSelfTimeNode()) {
+                    continue; // present only for nodes with children
+                }
+                collectValues(childNode, path + "/" + childNode.getNodeName(), values); // NOI18N
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.cpu;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.graalvm.visualvm.lib.jfluid.filters.InstrumentationFilter;
+import org.graalvm.visualvm.lib.jfluid.global.CommonConstants;
+import org.graalvm.visualvm.lib.jfluid.global.ProfilingSessionStatus;
+import org.graalvm.visualvm.lib.jfluid.results.RuntimeCCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.cct.nodes.MethodCPUCCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.cct.nodes.ThreadCPUCCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.cpu.cct.nodes.TimedCPUCCTNode;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that applying the events of different threads in parallel builds the same call trees
+ * as applying them sequentially.
+ */
+public class CPUDataFrameProcessorTest {
+
+    private static final int N_THREADS = 4;
+    private static final int N_FRAMES = 5;
+    private static final int N_CALLS = 50;
+
+    private long timeStamp;
+
+    @Test
+    public void testParallelAndSequentialCCTsEqual() {
+        ExecutorService executor = Executors.newFixedThreadPool(N_THREADS);
+
+        try {
+            TestCallGraphBuilder sequential = process(null);
+            TestCallGraphBuilder parallel = process(executor);
+
+            assertEquals(Collections.singleton(Thread.currentThread()), sequential.eventThreads);
+            // events of a single pending thread are still applied inline
+            assertTrue(parallel.eventThreads.size() > 1);
+
+            String sequentialCCT = dump(sequential.getRootNode());
+            assertTrue(sequentialCCT.contains("method 4")); // NOI18N
+            assertEquals(sequentialCCT, dump(parallel.getRootNode()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private TestCallGraphBuilder process(ExecutorService executor) {
+        TestCallGraphBuilder builder = new TestCallGraphBuilder();
+        TestDataFrameProcessor processor = new TestDataFrameProcessor(executor, builder);
+        timeStamp = 0;
+
+        for (int frame = 0; frame < N_FRAMES; frame++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            for (int threadId = 0; threadId < N_THREADS; threadId++) {
+                if (frame == 0) {
+                    writeNewThread(out, threadId);
+                    writeMethodEvent(out, CommonConstants.ROOT_ENTRY, 1);
+                }
+            }
+            for (int call = 0; call < N_CALLS; call++) {
+                for (int threadId = 0; threadId < N_THREADS; threadId++) {
+                    // threads call different methods, and each thread a different one in each frame
+                    int methodId = 2 + ((threadId + frame) % 3);
+
+                    writeThread(out, threadId);
+                    writeMethodEvent(out, CommonConstants.METHOD_ENTRY, methodId);
+                    writeMethodEvent(out, CommonConstants.METHOD_ENTRY, methodId + 1);
+                    writeMethodEvent(out, CommonConstants.METHOD_EXIT, methodId + 1);
+                    writeMethodEvent(out, CommonConstants.METHOD_EXIT, methodId);
+                }
+            }
+            if (frame == N_FRAMES - 1) {
+                for (int threadId = 0; threadId < N_THREADS; threadId++) {
+                    writeThread(out, threadId);
+                    writeMethodEvent(out, CommonConstants.ROOT_EXIT, 1);
+                }
+            }
+            processor.doProcessDataFrame(ByteBuffer.wrap(out.toByteArray()));
+        }
+
+        return builder;
+    }
+
+    private static void writeNewThread(ByteArrayOutputStream out, int threadId) {
+        byte[] name = ("Thread-" + threadId).getBytes(); // NOI18N
+        byte[] className = "java.lang.Thread".getBytes(); // NOI18N
+
+        out.write(CommonConstants.NEW_THREAD);
+        writeInt(out, threadId);
+        writeChar(out, name.length);
+        out.write(name, 0, name.length);
+        writeChar(out, className.length);
+        out.write(className, 0, className.length);
+    }
+
+    private static void writeThread(ByteArrayOutputStream out, int threadId) {
+        out.write(CommonConstants.SET_FOLLOWING_EVENTS_THREAD);
+        writeInt(out, threadId);
+    }
+
+    private void writeMethodEvent(ByteArrayOutputStream out, byte eventType, int methodId) {
+        timeStamp += 10;
+        out.write(eventType);
+        writeChar(out, methodId);
+
+        for (int shift = 48; shift >= 0; shift -= 8) {
+            out.write((int) (timeStamp >> shift));
+        }
+    }
+
+    private static void writeChar(ByteArrayOutputStream out, int value) {
+        out.write(value >> 8);
+        out.write(value);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >> 24);
+        out.write(value >> 16);
+        out.write(value >> 8);
+        out.write(value);
+    }
+
+    private static String dump(RuntimeCCTNode root) {
+        StringBuilder sb = new StringBuilder();
+        dump(root, 0, sb);
+        return sb.toString();
+    }
+
+    private static void dump(RuntimeCCTNode node, int depth, StringBuilder sb) {
+        for (int i = 0; i < depth; i++) {
+            sb.append(' ');
+        }
+        if (node instanceof ThreadCPUCCTNode) {
+            sb.append("thread ").append(((ThreadCPUCCTNode) node).getThreadId()); // NOI18N
+        } else if (node instanceof MethodCPUCCTNode) {
+            sb.append("method ").append(((MethodCPUCCTNode) node).getMethodId()); // NOI18N
+        } else {
+            sb.append(node.getClass().getSimpleName());
+        }
+        if (node instanceof TimedCPUCCTNode) {
+            TimedCPUCCTNode timedNode = (TimedCPUCCTNode) node;
+            sb.append(", calls ").append(timedNode.getNCalls()); // NOI18N
+            sb.append(", time ").append(timedNode.getNetTime0()); // NOI18N
+        }
+        sb.append('\n');
+
+        RuntimeCCTNode[] children = node.getChildren();
+
+        if (children != null) {
+            for (RuntimeCCTNode child : children) {
+                dump(child, depth + 1, sb);
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------------------------------------
+
+    private static class TestCallGraphBuilder extends CPUCallGraphBuilder {
+        final Set<Thread> eventThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+        TestCallGraphBuilder() {
+            status = new ProfilingSessionStatus();
+            setFilter(new InstrumentationFilter());
+        }
+
+        @Override
+        public void methodEntry(int methodId, int threadId, int methodType, long timeStamp0, long timeStamp1,
+                                List parameters, int[] methodIds) {
+            eventThreads.add(Thread.currentThread());
+            super.methodEntry(methodId, threadId, methodType, timeStamp0, timeStamp1, parameters, methodIds);
+        }
+
+        RuntimeCCTNode getRootNode() {
+            return getAppRootNode();
+        }
+    }
+
+    private static class TestDataFrameProcessor extends CPUDataFrameProcessor {
+        TestDataFrameProcessor(ExecutorService executor, CPUCallGraphBuilder builder) {
+            super(executor, 1);
+            addListener(builder);
+        }
+    }
+}
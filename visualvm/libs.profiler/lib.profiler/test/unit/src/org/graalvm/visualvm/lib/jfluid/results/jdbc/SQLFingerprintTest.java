@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.jdbc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of SQL statements normalization by SQLFingerprint.
+ */
+public class SQLFingerprintTest {
+
+    @Test
+    public void testStringLiterals() {
+        assertEquals("select * from users where name = ?", // NOI18N
+                     SQLFingerprint.fingerprint("select * from users where name = 'John'")); // NOI18N
+        assertEquals("select * from users where name = ? and city = ?", // NOI18N
+                     SQLFingerprint.fingerprint("select * from users where name = 'O''Brien' and city = 'Prague'")); // NOI18N
+        assertEquals("insert into t values (?, ?)", // NOI18N
+                     SQLFingerprint.fingerprint("insert into t values ('a)b', '')")); // NOI18N
+    }
+
+    @Test
+    public void testNumericLiterals() {
+        assertEquals("select * from orders where id = ? and total > ?", // NOI18N
+                     SQLFingerprint.fingerprint("select * from orders where id = 42 and total > 1.5e+3")); // NOI18N
+        // digits inside identifiers are kept
+        assertEquals("select col1, t2.x from table2 t2 where t2.x = ?", // NOI18N
+                     SQLFingerprint.fingerprint("select col1, t2.x from table2 t2 where t2.x = 7")); // NOI18N
+        // quoted identifiers are kept
+        assertEquals("select \"Col 1\" from t where a = ?", // NOI18N
+                     SQLFingerprint.fingerprint("select \"Col 1\" from t where a = 1")); // NOI18N
+    }
+
+    @Test
+    public void testInLists() {
+        String expected = "select * from users where id in (?)"; // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id in (1)")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id in (1, 2, 3)")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id in('a','b')")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id in (?, ?)")); // NOI18N
+        assertEquals("SELECT * FROM USERS WHERE ID IN (?)", // NOI18N
+                     SQLFingerprint.fingerprint("SELECT * FROM USERS WHERE ID IN (1, 2, 3)")); // NOI18N
+        // subqueries and non-IN parentheses are not collapsed
+        assertEquals("select * from users where id in (select uid from roles where r = ?)", // NOI18N
+                     SQLFingerprint.fingerprint("select * from users where id in (select uid from roles where r = 5)")); // NOI18N
+        assertEquals("insert into t values (?, ?)", // NOI18N
+                     SQLFingerprint.fingerprint("insert into t values (1, 2)")); // NOI18N
+        assertEquals("select * from t where join_in(?, ?)", // NOI18N
+                     SQLFingerprint.fingerprint("select * from t where join_in(1, 2)")); // NOI18N
+    }
+
+    @Test
+    public void testComments() {
+        String expected = "select * from users where id = ?"; // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users -- find user\nwhere id = 1")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select /*+ INDEX(users) */ * from users where id = 1")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id = 1 -- trailing")); // NOI18N
+        assertEquals(expected, SQLFingerprint.fingerprint("select * from users where id = 1 /* unterminated")); // NOI18N
+    }
+
+    @Test
+    public void testWhitespace() {
+        assertEquals("select a, b from t where c = ?", // NOI18N
+                     SQLFingerprint.fingerprint("  select a,\tb\n  from   t\r\nwhere c = 3  ")); // NOI18N
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.jdbc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of the bounded heavy hitters sample of SQLSamples.
+ */
+public class SQLSamplesTest {
+
+    @Test
+    public void testCounts() {
+        SQLSamples samples = new SQLSamples(3);
+        add(samples, "b", 2); // NOI18N
+        add(samples, "a", 5); // NOI18N
+        add(samples, "c", 1); // NOI18N
+
+        assertArrayEquals(new String[] { "a", "b", "c" }, samples.getStatements()); // NOI18N
+        assertArrayEquals(new long[] { 5, 2, 1 }, samples.getCounts());
+    }
+
+    @Test
+    public void testBounded() {
+        SQLSamples samples = new SQLSamples(2);
+        add(samples, "a", 10); // NOI18N
+        add(samples, "b", 3); // NOI18N
+        // replaces the least frequent statement and inherits its count
+        add(samples, "c", 1); // NOI18N
+
+        assertArrayEquals(new String[] { "a", "c" }, samples.getStatements()); // NOI18N
+        assertArrayEquals(new long[] { 10, 4 }, samples.getCounts());
+
+        // a frequent statement displaces rare ones
+        add(samples, "d", 20); // NOI18N
+        assertEquals(2, samples.getStatements().length);
+        assertEquals("d", samples.getStatements()[0]); // NOI18N
+        assertEquals("a", samples.getStatements()[1]); // NOI18N
+    }
+
+    @Test
+    public void testRetainedSize() {
+        SQLSamples samples = new SQLSamples(4);
+        long empty = samples.getRetainedSize();
+        add(samples, "select 1", 100); // NOI18N
+
+        assertEquals(empty + SQLSamples.getRetainedSize("select 1"), samples.getRetainedSize()); // NOI18N
+        add(samples, "select 2", 1); // NOI18N
+        assertEquals(empty + 2 * SQLSamples.getRetainedSize("select 1"), samples.getRetainedSize()); // NOI18N
+    }
+
+    private static void add(SQLSamples samples, String statement, int count) {
+        for (int i = 0; i < count; i++) {
+            samples.add(new String(statement));
+        }
+    }
+}
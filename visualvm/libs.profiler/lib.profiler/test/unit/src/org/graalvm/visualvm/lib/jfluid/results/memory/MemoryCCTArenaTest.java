@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.memory;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of the compact allocation traces trees of MemoryCCTArena.
+ */
+public class MemoryCCTArenaTest {
+
+    private MemoryCCTArena arena;
+
+    @Before
+    public void setUp() {
+        arena = new MemoryCCTArena();
+        arena.ensureClasses(3);
+    }
+
+    @Test
+    public void testAddStackTrace() {
+        int node1 = arena.addStackTrace(1, new int[] { 10, 20, 30 }, false);
+        int node2 = arena.addStackTrace(1, new int[] { 10, 20, 30 }, false);
+        int node3 = arena.addStackTrace(1, new int[] { 10, 40 }, false);
+
+        assertEquals(node1, node2);
+        assertTrue(node1 != node3);
+        assertTrue(arena.hasStacksForClass(1));
+        assertFalse(arena.hasStacksForClass(0));
+        assertFalse(arena.hasStacksForClass(2));
+        assertNull(arena.createRuntimeCCT(0));
+
+        RuntimeMemoryCCTNode root = arena.createRuntimeCCT(1);
+        assertEquals(0, root.methodId);
+        RuntimeMemoryCCTNode node10 = getChild(root, 10);
+        assertEquals(RuntimeMemoryCCTNode.TYPE_RuntimeMemoryCCTNode, node10.getType());
+        assertEquals(2, node10.getChildren().length);
+        // children are kept in the order in which they were added
+        assertEquals(20, ((RuntimeMemoryCCTNode) node10.getChildren()[0]).methodId);
+        assertEquals(40, ((RuntimeMemoryCCTNode) node10.getChildren()[1]).methodId);
+        assertEquals(RuntimeMemoryCCTNode.TYPE_RuntimeObjAllocTermCCTNode, getChild(getChild(node10, 20), 30).getType());
+    }
+
+    @Test
+    public void testPrefixBecomesTerminal() {
+        int longNode = arena.addStackTrace(1, new int[] { 10, 20, 30 }, false);
+        arena.addObject(longNode, 16);
+
+        // the shorter stack ends in the middle of the existing chain
+        int shortNode = arena.addStackTrace(1, new int[] { 10, 20 }, false);
+        arena.addObject(shortNode, 8);
+        arena.addObject(shortNode, 8);
+
+        assertTrue(shortNode != longNode);
+        assertEquals(shortNode, arena.addStackTrace(1, new int[] { 10, 20 }, false));
+
+        RuntimeMemoryCCTNode node20 = getChild(getChild(arena.createRuntimeCCT(1), 10), 20);
+        assertEquals(RuntimeMemoryCCTNode.TYPE_RuntimeObjAllocTermCCTNode, node20.getType());
+        assertEquals(2, ((RuntimeObjAllocTermCCTNode) node20).nCalls);
+        assertEquals(16, ((RuntimeObjAllocTermCCTNode) node20).totalObjSize);
+
+        RuntimeObjAllocTermCCTNode node30 = (RuntimeObjAllocTermCCTNode) getChild(node20, 30);
+        assertEquals(1, node30.nCalls);
+        assertEquals(16, node30.totalObjSize);
+
+        // the terminal node stays terminal and keeps its counts when it becomes a prefix
+        arena.addStackTrace(1, new int[] { 10 }, false);
+        assertEquals(RuntimeMemoryCCTNode.TYPE_RuntimeObjAllocTermCCTNode,
+                     getChild(getChild(arena.createRuntimeCCT(1), 10), 20).getType());
+    }
+
+    @Test
+    public void testLiveness() {
+        int node = arena.addStackTrace(2, new int[] { 10, 20 }, true);
+        arena.addObject(node, 24);
+        arena.addLiveObject(node, 1);
+        arena.addObject(node, 24);
+        arena.addLiveObject(node, 1);
+        arena.addObject(node, 24);
+        arena.addLiveObject(node, 2);
+
+        RuntimeObjLivenessTermCCTNode termNode = (RuntimeObjLivenessTermCCTNode) getChild(getChild(arena.createRuntimeCCT(2), 10), 20);
+        assertEquals(3, termNode.nCalls);
+        assertEquals(72, termNode.totalObjSize);
+        assertEquals(3, termNode.calculateTotalNLiveObjects());
+
+        arena.removeLiveObject(node, 24, 1);
+
+        termNode = (RuntimeObjLivenessTermCCTNode) getChild(getChild(arena.createRuntimeCCT(2), 10), 20);
+        assertEquals(3, termNode.nCalls); // number of allocations does not change
+        assertEquals(48, termNode.totalObjSize);
+        assertEquals(2, termNode.calculateTotalNLiveObjects());
+
+        float[] avgObjectAge = new float[3];
+        arena.calculateAverageObjectAges(avgObjectAge, 3);
+        assertEquals(1.5f, avgObjectAge[2], 0.0001f); // one object of age 2 and one of age 1
+
+        int[] maxSurvGen = new int[3];
+        arena.calculateTotalNumberOfSurvGens(maxSurvGen);
+        assertEquals(2, maxSurvGen[2]);
+    }
+
+    @Test
+    public void testPresentationCCT() {
+        int[][] stacks = new int[][] {
+            { 10, 20, 30 }, { 10, 20 }, { 10, 40 }, { 50 }, { 10, 20, 30 }, { 10, 40, 60, 70 }, { 10, 40 }
+        };
+        long expectedCalls = 0;
+        long expectedSize = 0;
+        for (int i = 0; i < stacks.length; i++) {
+            int node = arena.addStackTrace(1, stacks[i], false);
+            for (int j = 0; j <= i; j++) {
+                arena.addObject(node, 8 * (i + 1));
+                expectedCalls++;
+                expectedSize += 8 * (i + 1);
+            }
+        }
+
+        PresoObjAllocCCTNode fromArena = arena.createPresentationCCT(1);
+        PresoObjAllocCCTNode fromNodes = PresoObjAllocCCTNode.generateMirrorNode(arena.createRuntimeCCT(1));
+
+        assertEquals(expectedCalls, fromArena.nCalls);
+        assertEquals(expectedSize, fromArena.totalObjSize);
+        assertSameTree(fromNodes, fromArena);
+        assertNull(arena.createPresentationCCT(0));
+    }
+
+    @Test
+    public void testReset() {
+        arena.addStackTrace(1, new int[] { 10 }, false);
+        arena.reset();
+
+        assertEquals(3, arena.getNClasses());
+        assertFalse(arena.hasStacksForClass(1));
+    }
+
+    private static RuntimeMemoryCCTNode getChild(RuntimeMemoryCCTNode node, int methodId) {
+        for (Object child : node.getChildren()) {
+            if (((RuntimeMemoryCCTNode) child).methodId == methodId) {
+                return (RuntimeMemoryCCTNode) child;
+            }
+        }
+        fail("No child " + methodId); // NOI18N
+        return null;
+    }
+
+    private static void assertSameTree(PresoObjAllocCCTNode expected, PresoObjAllocCCTNode node) {
+        assertEquals(expected.methodId, node.methodId);
+        assertEquals(expected.nCalls, node.nCalls);
+        assertEquals(expected.totalObjSize, node.totalObjSize);
+
+        int nChildren = expected.children == null ? 0 : expected.children.length;
+        assertEquals(nChildren, node.children == null ? 0 : node.children.length);
+        for (int i = 0; i < nChildren; i++) {
+            assertSame(node, node.children[i].parent);
+            assertSameTree(expected.children[i], node.children[i]);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.jfluid.results.threads;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of the compact thread states storage of ThreadStateTimeline and ThreadStatesFile.
+ */
+public class ThreadStateTimelineTest {
+
+    private static final int CHUNK_SIZE = ThreadStateTimeline.CHUNK_SIZE;
+
+    private ThreadStatesFile file;
+
+    @Before
+    public void setUp() {
+        file = new ThreadStatesFile();
+    }
+
+    @After
+    public void tearDown() {
+        file.close();
+    }
+
+    @Test
+    public void testAddOnlyTransitions() {
+        ThreadStateTimeline timeline = new ThreadStateTimeline(null);
+        assertTrue(timeline.add(10, (byte)1));
+        assertFalse(timeline.add(20, (byte)1));
+        assertTrue(timeline.add(30, (byte)2));
+        assertEquals(2, timeline.size());
+        assertEquals(30, timeline.getTimeStamp(1));
+        assertEquals(2, timeline.getState(1));
+    }
+
+    @Test
+    public void testGetIndexAtInMemory() {
+        ThreadStateTimeline timeline = new ThreadStateTimeline(null);
+        assertEquals(-1, timeline.getIndexAt(100));
+
+        int size = 3 * CHUNK_SIZE + 5;
+        fill(timeline, size);
+        assertEquals(size, timeline.size());
+        checkIndexes(timeline, size);
+    }
+
+    @Test
+    public void testGetIndexAtSpilled() {
+        ThreadStateTimeline timeline = new ThreadStateTimeline(file);
+        int size = 6 * CHUNK_SIZE + 1;
+        fill(timeline, size);
+        assertEquals(size, timeline.size());
+
+        // the oldest chunks have been moved to the file
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            assertEquals(stamp(i), file.getTimeStamp(0, i));
+            assertEquals(state(i), file.getState(0, i));
+        }
+        for (int i = 0; i < size; i++) {
+            assertEquals(stamp(i), timeline.getTimeStamp(i));
+            assertEquals(state(i), timeline.getState(i));
+        }
+        checkIndexes(timeline, size);
+    }
+
+    @Test
+    public void testSharedFile() {
+        ThreadStateTimeline timeline1 = new ThreadStateTimeline(file);
+        ThreadStateTimeline timeline2 = new ThreadStateTimeline(file);
+        int size = 5 * CHUNK_SIZE;
+        for (int i = 0; i < size; i++) {
+            timeline1.add(stamp(i), state(i));
+            timeline2.add(stamp(i) + 1, state(i + 1));
+        }
+        for (int i = 0; i < size; i++) {
+            assertEquals(stamp(i), timeline1.getTimeStamp(i));
+            assertEquals(state(i), timeline1.getState(i));
+            assertEquals(stamp(i) + 1, timeline2.getTimeStamp(i));
+            assertEquals(state(i + 1), timeline2.getState(i));
+        }
+    }
+
+    @Test
+    public void testFileReusedAfterClose() {
+        long[] stamps = new long[CHUNK_SIZE];
+        byte[] states = new byte[CHUNK_SIZE];
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            stamps[i] = stamp(i);
+            states[i] = state(i);
+        }
+        assertEquals(0, file.write(stamps, states));
+        assertEquals(1, file.write(stamps, states));
+
+        // records are written from the beginning of a new file after close
+        file.close();
+        stamps[0] = -1;
+        assertEquals(0, file.write(stamps, states));
+        assertEquals(-1, file.getTimeStamp(0, 0));
+        assertEquals(stamp(1), file.getTimeStamp(0, 1));
+    }
+
+    private static void fill(ThreadStateTimeline timeline, int size) {
+        for (int i = 0; i < size; i++) assertTrue(timeline.add(stamp(i), state(i)));
+    }
+
+    private static void checkIndexes(ThreadStateTimeline timeline, int size) {
+        assertEquals(-1, timeline.getIndexAt(stamp(0) - 1));
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, timeline.getIndexAt(stamp(i)));
+            assertEquals(i, timeline.getIndexAt(stamp(i) + 5));
+        }
+        assertEquals(size - 1, timeline.getIndexAt(Long.MAX_VALUE));
+    }
+
+    private static long stamp(int index) {
+        return 1000 + index * 10L;
+    }
+
+    private static byte state(int index) {
+        return (byte)(index % 3);
+    }
+
+}
@@ -68,6 +68,13 @@ public final class IdeSnapshot {
         return cpuSnapshot.getTimestamp(sampleIndex);
     }
 
+    /**
+     * Releases resources held by the snapshot.
+     */
+    public void close() {
+        cpuSnapshot.close();
+    }
+
     FileObject getNpssFileObject() {
         return npssFileObject;
     }
@@ -557,6 +557,9 @@ public class LoadedSnapshot {
         long lastTimestamp;
         ObjectInputStream in;
         Map<Long,ThreadInfo> threads;
+        // raw data of the last sample, used by SamplesIndex.Writer
+        long[] lastSameThreads;
+        CompositeData[] lastNewThreads;
         
         SamplesInputStream(File file) throws IOException {
             this(new FileInputStream(file));
@@ -569,7 +572,13 @@ public class LoadedSnapshot {
                 samples = in.readInt();
                 lastTimestamp = in.readLong();
             }
-            threads = new HashMap(128);
+            threads = new HashMap<>(128);
+        }
+
+        /** Reads samples from headerless stream, see SamplesIndex */
+        SamplesInputStream(ObjectInputStream ois) {
+            in = ois;
+            threads = new HashMap<>(128);
         }
 
         int getSamples() {
@@ -582,7 +591,6 @@ public class LoadedSnapshot {
         
         ThreadsSample readSample() throws IOException {
             long time;
-            ThreadInfo infos[];
             int sameThreads;
             Map<Long,ThreadInfo> newThreads;
             
@@ -593,14 +601,16 @@ public class LoadedSnapshot {
             }
             newThreads = new HashMap(threads.size());
             sameThreads = in.readInt();
+            lastSameThreads = new long[sameThreads];
             for (int i=0;i<sameThreads;i++) {
                 Long tid = Long.valueOf(in.readLong());
                 ThreadInfo oldThread = threads.get(tid);
                 assert oldThread != null;
                 newThreads.put(tid,oldThread);
+                lastSameThreads[i] = tid.longValue();
             }
-            infos = new ThreadInfo[in.readInt()];
-            for (ThreadInfo info : infos) {
+            lastNewThreads = new CompositeData[in.readInt()];
+            for (int i=0;i<lastNewThreads.length;i++) {
                 CompositeData infoData;
                 ThreadInfo thread;
                 
@@ -611,6 +621,7 @@ public class LoadedSnapshot {
                 }
                 thread = ThreadInfo.from(infoData);
                 newThreads.put(Long.valueOf(thread.getThreadId()),thread);
+                lastNewThreads[i] = infoData;
             }
             threads = newThreads;
             return new ThreadsSample(time,threads.values());
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2010, 2018, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2010, 2022, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -58,14 +58,26 @@ public final class SampledCPUSnapshot {
     private ThreadsSample sample;
     private StackTraceSnapshotBuilder builder;
     private long startTime;
+    private volatile SamplesIndex index;
+    private boolean buildIndex;
+    private SamplesIndex.Writer indexWriter;
 
     public SampledCPUSnapshot(FileObject file) throws IOException {
         samplesStream = new SamplesInputStream(file.getInputStream());
         npssFile = file;
+        index = SamplesIndex.open(file);
         samples = samplesStream.getSamples();
         lastTimestamp = samplesStream.getLastTimestamp();
         if (samples == 0) {
-            initSamples();
+            if (index != null) {
+                samples = index.getSamples();
+                lastTimestamp = index.getLastTimestamp();
+            } else {
+                initSamples();
+            }
+        } else if (index == null) {
+            // build the index during the first sequential pass, see getSample()
+            buildIndex = true;
         }
         currentIndex = -1;
     }
@@ -235,6 +247,10 @@ public final class SampledCPUSnapshot {
     }
 
     private SamplesInputStream seek(final int sampleIndex) throws IOException {
+        SamplesIndex samplesIndex = index;
+        if (samplesIndex != null) {
+            return samplesIndex.seek(sampleIndex);
+        }
         SamplesInputStream stream = new SamplesInputStream(npssFile.getInputStream());
 //        ThreadsSample sample;
 
@@ -251,9 +267,49 @@ public final class SampledCPUSnapshot {
         if (currentIndex+1 == sampleIndex) {
             currentIndex++;
             sample = samplesStream.readSample();
+            if (buildIndex) {
+                buildIndex = false;
+                indexWriter = SamplesIndex.Writer.create(npssFile);
+            }
+            if (indexWriter != null) {
+                indexWriter.addSample(sample.getTime(), samplesStream);
+            }
             if (sampleIndex == getSamplesCount()-1) {
                 samplesStream.close();
                 samplesStream = null;
+                if (indexWriter != null) {
+                    index = indexWriter.finish();
+                    indexWriter = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases resources held by the snapshot. An index which is still being
+     * built is discarded.
+     */
+    public void close() {
+        buildIndex = false;
+        if (indexWriter != null) {
+            indexWriter.abort();
+            indexWriter = null;
+        }
+        if (samplesStream != null) {
+            try {
+                samplesStream.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+            samplesStream = null;
+        }
+        SamplesIndex samplesIndex = index;
+        index = null;
+        if (samplesIndex != null) {
+            try {
+                samplesIndex.close();
+            } catch (IOException ex) {
+                // ignore
             }
         }
     }
@@ -365,6 +421,7 @@ public final class SampledCPUSnapshot {
 
     private void initSamples() throws IOException {
         SamplesInputStream stream = new SamplesInputStream(npssFile.getInputStream());
+        SamplesIndex.Writer writer = SamplesIndex.Writer.create(npssFile);
         int samplesGuess = (int)(npssFile.getSize()/130);
         ProgressHandle ph = ProgressHandle.createSystemHandle("Computing snapshot samples", null);
         ph.start(samplesGuess);
@@ -372,10 +429,17 @@ public final class SampledCPUSnapshot {
         for(ThreadsSample s = stream.readSample(); s != null; s = stream.readSample()) {
             samples++;
             lastTimestamp = s.getTime();
+            if (writer != null) {
+                writer.addSample(lastTimestamp, stream);
+            }
             if (samples < samplesGuess) {
                 ph.progress(samples);
             }
         }
+        stream.close();
+        if (writer != null) {
+            index = writer.finish();
+        }
         ph.finish();
     }
 }
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.lib.profiler;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.management.openmbean.CompositeData;
+import org.graalvm.visualvm.lib.profiler.LoadedSnapshot.SamplesInputStream;
+import org.graalvm.visualvm.lib.profiler.LoadedSnapshot.ThreadsSample;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
+
+/** SamplesIndex is a seekable copy of the NPSS samples stream. Samples are
+ * stored in independently compressed blocks, each block starts with a keyframe
+ * containing the full threads state. Offsets of the blocks are stored in the
+ * footer, so any sample can be read by decompressing just the block
+ * which covers it. The index is built once from the NPSS file and kept in
+ * the cache directory.
+ */
+final class SamplesIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(SamplesIndex.class.getName());
+
+    private static final String ID = "NPSI"; // NPSS index
+    private static final int VERSION = 1;
+    private static final int DEFAULT_BLOCK_SIZE = 256;
+    private static final int BLOCK_SIZE = getBlockSize();
+    private static final String CACHE_DIR = "profiler/npss"; // NOI18N
+    private static final String INDEX_EXT = ".npsi"; // NOI18N
+    private static final String TMP_EXT = ".tmp"; // NOI18N
+
+    private final RandomAccessFile raf;
+    private final String npssPath;
+    private final long npssSize;
+    private final long npssLastModified;
+    private final int blockSize;
+    private final int samples;
+    private final long lastTimestamp;
+    // offsets of blocks, the last item is offset of the footer
+    private final long[] blockOffsets;
+
+    private SamplesIndex(File indexFile) throws IOException {
+        raf = new RandomAccessFile(indexFile, "r"); // NOI18N
+        try {
+            byte[] idarr = new byte[ID.length()];
+            raf.readFully(idarr);
+            if (!ID.equals(new String(idarr)) || raf.read() != VERSION) {
+                throw new IOException("Invalid index file " + indexFile); // NOI18N
+            }
+            npssPath = raf.readUTF();
+            npssSize = raf.readLong();
+            npssLastModified = raf.readLong();
+            raf.seek(raf.length() - 8);
+            long footerOffset = raf.readLong();
+            raf.seek(footerOffset);
+            blockSize = raf.readInt();
+            if (blockSize <= 0) {
+                throw new IOException("Invalid block size " + blockSize + " in index file " + indexFile); // NOI18N
+            }
+            samples = raf.readInt();
+            lastTimestamp = raf.readLong();
+            blockOffsets = new long[raf.readInt() + 1];
+            for (int i = 0; i < blockOffsets.length - 1; i++) {
+                blockOffsets[i] = raf.readLong();
+            }
+            blockOffsets[blockOffsets.length - 1] = footerOffset;
+        } catch (IOException ex) {
+            raf.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens index for the NPSS file.
+     * @param npssFile NPSS file
+     * @return up-to-date index or <code>null</code> if it was not built yet
+     */
+    static SamplesIndex open(FileObject npssFile) {
+        File file = FileUtil.toFile(npssFile);
+        if (file == null) {
+            return null;
+        }
+        File indexFile = getIndexFile(file);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            SamplesIndex index = new SamplesIndex(indexFile);
+            if (index.isIndexOf(file)) {
+                return index;
+            }
+            index.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Cannot open samples index " + indexFile, ex); // NOI18N
+        }
+        indexFile.delete();
+        return null;
+    }
+
+    int getSamples() {
+        return samples;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns stream positioned at the given sample, only the block covering
+     * <code>sampleIndex</code> is decompressed. Subsequent blocks are read
+     * as the stream advances.
+     */
+    SamplesInputStream seek(int sampleIndex) throws IOException {
+        int block = sampleIndex / blockSize;
+        BlockStream stream = new BlockStream(this, block);
+
+        for (int i = block * blockSize; i < sampleIndex; i++) {
+            stream.readSample();
+        }
+        return stream;
+    }
+
+    void close() throws IOException {
+        raf.close();
+    }
+
+    private boolean isIndexOf(File file) {
+        return npssPath.equals(file.getAbsolutePath()) && npssSize == file.length()
+               && npssLastModified == file.lastModified();
+    }
+
+    private int getBlockCount() {
+        return blockOffsets.length - 1;
+    }
+
+    private ObjectInputStream readBlock(int block) throws IOException {
+        byte[] data = new byte[(int)(blockOffsets[block + 1] - blockOffsets[block])];
+
+        synchronized (raf) {
+            raf.seek(blockOffsets[block]);
+            raf.readFully(data);
+        }
+        return new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private static int getBlockSize() {
+        int size = Integer.getInteger("org.graalvm.visualvm.lib.profiler.npssBlockSize", DEFAULT_BLOCK_SIZE); // NOI18N
+        if (size <= 0) {
+            LOGGER.log(Level.WARNING, "Invalid npssBlockSize {0}, using {1}", new Object[] { size, DEFAULT_BLOCK_SIZE }); // NOI18N
+            return DEFAULT_BLOCK_SIZE;
+        }
+        return size;
+    }
+
+    private static File getIndexFile(File npssFile) {
+        File cacheDir = Places.getCacheSubdirectory(CACHE_DIR);
+        String name = Integer.toHexString(npssFile.getAbsolutePath().hashCode());
+        return new File(cacheDir, npssFile.getName() + "-" + name + INDEX_EXT); // NOI18N
+    }
+
+    private static class BlockStream extends SamplesInputStream {
+
+        private final SamplesIndex index;
+        private int block;
+
+        BlockStream(SamplesIndex index, int block) throws IOException {
+            super(index.readBlock(block));
+            this.index = index;
+            this.block = block;
+            samples = index.samples;
+            lastTimestamp = index.lastTimestamp;
+        }
+
+        @Override
+        ThreadsSample readSample() throws IOException {
+            ThreadsSample sample = super.readSample();
+
+            if (sample == null && block + 1 < index.getBlockCount()) {
+                in.close();
+                in = index.readBlock(++block);
+                sample = super.readSample();
+            }
+            return sample;
+        }
+    }
+
+    /** Builds the index while NPSS file is read sequentially */
+    static final class Writer {
+
+        private final File npssFile;
+        private final File indexFile;
+        private final File tmpFile;
+        private final DataOutputStream out;
+        private final Deflater deflater;
+        private long position;
+        private long[] blockOffsets;
+        private int blocks;
+        private Map<Long,CompositeData> threads;
+        private ByteArrayOutputStream blockBytes;
+        private ObjectOutputStream blockOut;
+        private int blockSamples;
+        private int samples;
+        private long lastTimestamp;
+        private boolean failed;
+
+        private Writer(File npss, File index) throws IOException {
+            npssFile = npss;
+            indexFile = index;
+            // another snapshot of the same NPSS file may be building the index too
+            tmpFile = File.createTempFile(index.getName(), TMP_EXT, index.getParentFile());
+            DataOutputStream dos = null;
+            try {
+                dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+                dos.write(ID.getBytes());
+                dos.write(VERSION);
+                dos.writeUTF(npss.getAbsolutePath());
+                dos.writeLong(npss.length());
+                dos.writeLong(npss.lastModified());
+            } catch (IOException ex) {
+                if (dos != null) {
+                    dos.close();
+                }
+                tmpFile.delete();
+                throw ex;
+            }
+            out = dos;
+            position = out.size();
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            blockOffsets = new long[64];
+            threads = new HashMap<>();
+            blockBytes = new ByteArrayOutputStream(64 * 1024);
+        }
+
+        /**
+         * Creates writer for the NPSS file.
+         * @return writer or <code>null</code> if the index cannot be created
+         */
+        static Writer create(FileObject npssFile) {
+            File file = FileUtil.toFile(npssFile);
+            if (file == null) {
+                return null;
+            }
+            try {
+                return new Writer(file, getIndexFile(file));
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Cannot create samples index for " + file, ex); // NOI18N
+                return null;
+            }
+        }
+
+        /**
+         * Adds the sample last read from <code>stream</code>.
+         */
+        void addSample(long time, SamplesInputStream stream) {
+            if (failed) {
+                return;
+            }
+            try {
+                long[] sameThreads = stream.lastSameThreads;
+                CompositeData[] newThreads = stream.lastNewThreads;
+                Map<Long,CompositeData> newState = new HashMap<>(threads.size());
+
+                for (long tid : sameThreads) {
+                    newState.put(tid, threads.get(tid));
+                }
+                for (CompositeData data : newThreads) {
+                    newState.put((Long)data.get("threadId"), data); // NOI18N
+                }
+                if (blockSamples == BLOCK_SIZE) {
+                    flushBlock();
+                }
+                if (blockOut == null) {
+                    // keyframe
+                    deflater.reset();
+                    blockBytes.reset();
+                    blockOut = new ObjectOutputStream(new DeflaterOutputStream(blockBytes, deflater));
+                    blockOut.writeLong(time);
+                    blockOut.writeInt(0);
+                    blockOut.writeInt(newState.size());
+                    for (CompositeData data : newState.values()) {
+                        blockOut.writeObject(data);
+                    }
+                } else {
+                    blockOut.writeLong(time);
+                    blockOut.writeInt(sameThreads.length);
+                    for (long tid : sameThreads) {
+                        blockOut.writeLong(tid);
+                    }
+                    blockOut.writeInt(newThreads.length);
+                    for (CompositeData data : newThreads) {
+                        blockOut.writeObject(data);
+                    }
+                }
+                threads = newState;
+                blockSamples++;
+                samples++;
+                lastTimestamp = time;
+            } catch (IOException ex) {
+                fail(ex);
+            }
+        }
+
+        /**
+         * Writes the footer and opens the finished index.
+         * @return index or <code>null</code> if writing failed
+         */
+        SamplesIndex finish() {
+            if (failed) {
+                return null;
+            }
+            try {
+                if (blockOut != null) {
+                    flushBlock();
+                }
+                long footerOffset = position;
+                out.writeInt(BLOCK_SIZE);
+                out.writeInt(samples);
+                out.writeLong(lastTimestamp);
+                out.writeInt(blocks);
+                for (int i = 0; i < blocks; i++) {
+                    out.writeLong(blockOffsets[i]);
+                }
+                out.writeLong(footerOffset);
+                out.close();
+                deflater.end();
+                Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                SamplesIndex index = new SamplesIndex(indexFile);
+                if (index.isIndexOf(npssFile)) {
+                    return index;
+                }
+                index.close();
+                indexFile.delete();
+            } catch (IOException ex) {
+                fail(ex);
+            }
+            return null;
+        }
+
+        /**
+         * Discards the partially written index.
+         */
+        void abort() {
+            if (!failed) {
+                fail(null);
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            blockOut.close();
+            blockOut = null;
+            blockSamples = 0;
+            if (blocks == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+            }
+            blockOffsets[blocks++] = position;
+            blockBytes.writeTo(out);
+            position += blockBytes.size();
+        }
+
+        private void fail(IOException ex) {
+            if (ex != null) {
+                LOGGER.log(Level.INFO, "Cannot write samples index " + indexFile, ex); // NOI18N
+            }
+            failed = true;
+            threads = null;
+            blockOut = null;
+            try {
+                out.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            deflater.end();
+            tmpFile.delete();
+        }
+    }
+}
@@ -36,6 +36,7 @@ import java.awt.event.ActionEvent;
 import javax.swing.AbstractButton;
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
@@ -65,6 +66,7 @@ public abstract class ProfilerCPUPanel extends JPanel {
     private JRadioButton inclFilterRadioButton;
     private JRadioButton exclFilterRadioButton;
     private TextAreaComponent filtersArea;
+    private JCheckBox virtualThreadsCheckBox;
     
     private final Runnable validator;
     private boolean rootsValid = true;
@@ -108,6 +110,7 @@ public abstract class ProfilerCPUPanel extends JPanel {
         }
         
         settings.setStackDepthLimit(Integer.MAX_VALUE);
+        settings.setGroupVirtualThreads(virtualThreadsCheckBox.isSelected());
         
         return settings;
     }
@@ -128,6 +131,7 @@ public abstract class ProfilerCPUPanel extends JPanel {
         inclFilterRadioButton.setSelected(!preset.getFilterModeP());
         exclFilterRadioButton.setSelected(preset.getFilterModeP());
         filtersArea.getTextArea().setText(preset.getFilterP());
+        virtualThreadsCheckBox.setSelected(preset.getVirtualThreadsP());
         highlighInvalid();
         internalChange = false;
         
@@ -142,6 +146,7 @@ public abstract class ProfilerCPUPanel extends JPanel {
 //        preset.setRunnablesP(runnablesCheckBox.isSelected());
         preset.setFilterModeP(exclFilterRadioButton.isSelected());
         preset.setFilterP(getFilterValue());
+        preset.setVirtualThreadsP(virtualThreadsCheckBox.isSelected());
     }
     
     public abstract void settingsChanged();
@@ -301,8 +306,25 @@ public abstract class ProfilerCPUPanel extends JPanel {
         constraints.gridwidth = GridBagConstraints.REMAINDER;
         constraints.anchor = GridBagConstraints.NORTHWEST;
         constraints.fill = GridBagConstraints.BOTH;
-        constraints.insets = new Insets(0, 10, 10, 10);
+        constraints.insets = new Insets(0, 10, 5, 10);
         add(filtersArea, constraints);
+        
+        virtualThreadsCheckBox = new JCheckBox() {
+            protected void fireActionPerformed(ActionEvent e) { syncUI(); }
+        };
+        setText(virtualThreadsCheckBox, NbBundle.getMessage(ProfilerCPUPanel.class,
+                "LBL_Group_Virtual_Threads"), mnemonics); // NOI18N
+        virtualThreadsCheckBox.setToolTipText(NbBundle.getMessage(ProfilerCPUPanel.class, "TOOLTIP_Group_Virtual_Threads")); // NOI18N
+        virtualThreadsCheckBox.setOpaque(false);
+        virtualThreadsCheckBox.setBorder(rootClassesLabel.getBorder());
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 5;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(0, 10, 10, 10);
+        add(virtualThreadsCheckBox, constraints);
     }
     
     
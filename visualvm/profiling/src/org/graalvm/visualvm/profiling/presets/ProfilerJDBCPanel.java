@@ -33,7 +33,9 @@ import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.event.ActionEvent;
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
@@ -68,6 +70,7 @@ public abstract class ProfilerJDBCPanel extends JPanel {
     
     private JLabel filterLabel;
     private TextAreaComponent filterArea;
+    private JCheckBox aggregateCheckbox;
     
     private boolean internalChange;
     
@@ -95,6 +98,7 @@ public abstract class ProfilerJDBCPanel extends JPanel {
 
         String filter = PresetsUtils.normalizeValue(getFilterValue());
         settings.setInstrumentationFilter(new TextFilter(filter, TextFilter.TYPE_INCLUSIVE, false));
+        settings.setAggregateSQL(aggregateCheckbox.isSelected());
         
         return settings;
     }
@@ -107,12 +111,14 @@ public abstract class ProfilerJDBCPanel extends JPanel {
 
         internalChange = true;
         filterArea.getTextArea().setText(preset.getJDBCFilterP().trim());
+        aggregateCheckbox.setSelected(preset.getJDBCAggregateP());
         internalChange = false;
     }
     
     public void saveToPreset(ProfilerPreset preset) {
         if (preset == null) return;
         preset.setJDBCFilterP(getFilterValue());
+        preset.setJDBCAggregateP(aggregateCheckbox.isSelected());
     }
     
     public abstract void settingsChanged();
@@ -193,9 +199,26 @@ public abstract class ProfilerJDBCPanel extends JPanel {
         constraints.insets = new Insets(0, 10, 5, 10);
         add(hintLabel, constraints);
         
+        aggregateCheckbox = new JCheckBox(NbBundle.getMessage(ProfilerJDBCPanel.class, "ProfilerJDBCPanel_BTN_Aggregate")) { // NOI18N
+            protected void fireActionPerformed(ActionEvent e) {
+                super.fireActionPerformed(e);
+                syncUI();
+            }
+        };
+        aggregateCheckbox.setToolTipText(NbBundle.getMessage(ProfilerJDBCPanel.class, "ProfilerJDBCPanel_TOOLTIP_Aggregate")); // NOI18N
+        aggregateCheckbox.setOpaque(false);
         constraints = new GridBagConstraints();
         constraints.gridx = 0;
         constraints.gridy = 4;
+        constraints.gridwidth = GridBagConstraints.REMAINDER;
+        constraints.anchor = GridBagConstraints.WEST;
+        constraints.fill = GridBagConstraints.NONE;
+        constraints.insets = new Insets(5, 10, 0, 5);
+        add(aggregateCheckbox, constraints);
+        
+        constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 5;
         constraints.weightx = 1;
         constraints.weighty = 0.35;
         constraints.gridwidth = GridBagConstraints.REMAINDER;
@@ -45,11 +45,13 @@ public final class ProfilerPreset {
     private static final String PROP_RUNNABLES_P = "prof_preset_runnables_p"; // NOI18N
     private static final String PROP_FILTER_MODE_P = "prof_preset_filterMode_p"; // NOI18N
     private static final String PROP_FILTER_P = "prof_preset_filter_p"; // NOI18N
+    private static final String PROP_VIRTUAL_THREADS_P = "prof_preset_virtualThreads_p"; // NOI18N
     private static final String PROP_MEMORY_MODE_P = "prof_preset_memoryMode_p"; // NOI18N
     private static final String PROP_ALLOC_P = "prof_preset_alloc_p"; // NOI18N
     private static final String PROP_STACKS_P = "prof_preset_stacks_p"; // NOI18N
     private static final String PROP_MEMORY_FILTER_P = "prof_memory_filter_p"; // NOI18N
     private static final String PROP_JDBC_FILTER_P = "prof_jdbc_filter_p"; // NOI18N
+    private static final String PROP_JDBC_AGGREGATE_P = "prof_jdbc_aggregate_p"; // NOI18N
 
     private boolean valid;
     private String name;
@@ -63,11 +65,13 @@ public final class ProfilerPreset {
     private boolean runnablesP;
     private boolean filterModeP;
     private String filterP;
+    private boolean virtualThreadsP;
     private boolean memoryModeP;
     private int allocP;
     private boolean stacksP;
     private String memoryFilterP;
     private String jdbcFilterP;
+    private boolean jdbcAggregateP;
 
 
     public ProfilerPreset(String name, String selector) {
@@ -83,11 +87,13 @@ public final class ProfilerPreset {
         this.runnablesP = true;
         this.filterModeP = true;
         this.filterP = ""; // NOI18N
+        this.virtualThreadsP = false;
         this.memoryModeP = true;
         this.allocP = 10;
         this.stacksP = true;
         this.memoryFilterP = ""; // NOI18N
         this.jdbcFilterP = ""; // NOI18N
+        this.jdbcAggregateP = false;
     }
 
     public ProfilerPreset(ProfilerPreset preset) {
@@ -103,11 +109,13 @@ public final class ProfilerPreset {
         this.runnablesP = preset.runnablesP;
         this.filterModeP = preset.filterModeP;
         this.filterP = preset.filterP;
+        this.virtualThreadsP = preset.virtualThreadsP;
         this.memoryModeP = preset.memoryModeP;
         this.allocP = preset.allocP;
         this.stacksP = preset.stacksP;
         this.memoryFilterP = preset.memoryFilterP;
         this.jdbcFilterP = preset.jdbcFilterP;
+        this.jdbcAggregateP = preset.jdbcAggregateP;
     }
 
     ProfilerPreset(Preferences prefs, String prefix) {
@@ -123,11 +131,13 @@ public final class ProfilerPreset {
         runnablesP = prefs.getBoolean(prefix + PROP_RUNNABLES_P, true);
         filterModeP = prefs.getBoolean(prefix + PROP_FILTER_MODE_P, true);
         filterP = prefs.get(prefix + PROP_FILTER_P, ""); // NOI18N
+        virtualThreadsP = prefs.getBoolean(prefix + PROP_VIRTUAL_THREADS_P, false);
         memoryModeP = prefs.getBoolean(prefix + PROP_MEMORY_MODE_P, true);
         allocP = prefs.getInt(prefix + PROP_ALLOC_P, 10);
         stacksP = prefs.getBoolean(prefix + PROP_STACKS_P, true);
         memoryFilterP = prefs.get(prefix + PROP_MEMORY_FILTER_P, ""); // NOI18N
         jdbcFilterP = prefs.get(prefix + PROP_JDBC_FILTER_P, ""); // NOI18N
+        jdbcAggregateP = prefs.getBoolean(prefix + PROP_JDBC_AGGREGATE_P, false);
     }
     
 
@@ -143,11 +153,13 @@ public final class ProfilerPreset {
         prefs.putBoolean(prefix + PROP_RUNNABLES_P, runnablesP);
         prefs.putBoolean(prefix + PROP_FILTER_MODE_P, filterModeP);
         prefs.put(prefix + PROP_FILTER_P, filterP);
+        prefs.putBoolean(prefix + PROP_VIRTUAL_THREADS_P, virtualThreadsP);
         prefs.putBoolean(prefix + PROP_MEMORY_MODE_P, memoryModeP);
         prefs.putInt(prefix + PROP_ALLOC_P, allocP);
         prefs.putBoolean(prefix + PROP_STACKS_P, stacksP);
         prefs.put(prefix + PROP_MEMORY_FILTER_P, memoryFilterP);
         prefs.put(prefix + PROP_JDBC_FILTER_P, jdbcFilterP);
+        prefs.putBoolean(prefix + PROP_JDBC_AGGREGATE_P, jdbcAggregateP);
     }
 
 
@@ -248,6 +260,14 @@ public final class ProfilerPreset {
         return filterP;
     }
 
+    public void setVirtualThreadsP(boolean group) {
+        this.virtualThreadsP = group;
+    }
+
+    public boolean getVirtualThreadsP() {
+        return virtualThreadsP;
+    }
+
     public void setMemoryModeP(boolean memoryMode) {
         this.memoryModeP = memoryMode;
     }
@@ -287,6 +307,14 @@ public final class ProfilerPreset {
     public String getJDBCFilterP() {
         return jdbcFilterP;
     }
+    
+    public void setJDBCAggregateP(boolean aggregate) {
+        this.jdbcAggregateP = aggregate;
+    }
+
+    public boolean getJDBCAggregateP() {
+        return jdbcAggregateP;
+    }
 
     public String toString() {
         return getName();
@@ -75,6 +75,7 @@ class ProfilerSnapshotNPSS extends ProfilerSnapshot {
     @Override
     protected void remove() {
         super.remove();
+        if (loadedSnapshot != null) loadedSnapshot.close();
         loadedSnapshot = null;
     }
 
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.jfr;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.management.jfr.RemoteRecordingStream;
+import org.graalvm.visualvm.sampler.memory.AllocationSampler;
+import org.graalvm.visualvm.sampler.memory.AllocationSamples;
+
+/**
+ * Allocation sampler consuming jdk.ObjectAllocationSample events from a JFR
+ * stream opened on the target JVM over JMX. jdk.ObjectAllocationInNewTLAB
+ * events are used as well if some other recording enables them, but only
+ * until the first jdk.ObjectAllocationSample event arrives so that the same
+ * allocations are not counted twice.
+ */
+final class JFRAllocationSampler extends AllocationSampler {
+    
+    private static final Logger LOGGER = Logger.getLogger(JFRAllocationSampler.class.getName());
+    
+    private static final String OBJECT_ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample"; // NOI18N
+    private static final String OBJECT_ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB"; // NOI18N
+    private static final String THROTTLE = System.getProperty("org.graalvm.visualvm.sampler.jfr.throttle", "150/s"); // NOI18N
+    private static final Duration MAX_AGE = Duration.ofMinutes(1);
+    private static final int MIN_TARGET_VERSION = 16;
+    
+    private static final Provider PROVIDER = new Provider() {
+        public AllocationSampler createSampler(MBeanServerConnection connection) throws Exception {
+            if (!isSupported(connection)) return null;
+            return new JFRAllocationSampler(connection);
+        }
+    };
+    
+    private final MBeanServerConnection connection;
+    private RemoteRecordingStream stream;
+    
+    
+    private JFRAllocationSampler(MBeanServerConnection connection) {
+        this.connection = connection;
+    }
+    
+    
+    static void register() {
+        AllocationSampler.registerProvider(PROVIDER);
+    }
+    
+    static void unregister() {
+        AllocationSampler.unregisterProvider(PROVIDER);
+    }
+    
+    
+    public synchronized void start(AllocationSamples samples) throws IOException {
+        if (stream != null) return;
+        
+        RemoteRecordingStream rs = new RemoteRecordingStream(connection);
+        try {
+            rs.setMaxAge(MAX_AGE);
+            rs.enable(OBJECT_ALLOCATION_SAMPLE).with("throttle", THROTTLE).withStackTrace(); // NOI18N
+            
+            final StackConverter converter = new StackConverter(samples);
+            rs.onEvent(OBJECT_ALLOCATION_SAMPLE, new Consumer<RecordedEvent>() {
+                public void accept(RecordedEvent event) {
+                    converter.hasSampleEvents = true;
+                    converter.addSample(event, event.getLong("weight")); // NOI18N
+                }
+            });
+            rs.onEvent(OBJECT_ALLOCATION_IN_NEW_TLAB, new Consumer<RecordedEvent>() {
+                public void accept(RecordedEvent event) {
+                    if (!converter.hasSampleEvents) converter.addSample(event, event.getLong("tlabSize")); // NOI18N
+                }
+            });
+            rs.onError(new Consumer<Throwable>() {
+                public void accept(Throwable t) {
+                    LOGGER.log(Level.INFO, "Allocation sampling failed", t); // NOI18N
+                }
+            });
+            rs.startAsync();
+        } catch (RuntimeException e) {
+            rs.close();
+            throw e;
+        }
+        stream = rs;
+    }
+
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+    
+    
+    private static boolean isSupported(MBeanServerConnection connection) throws Exception {
+        if (!connection.isRegistered(new ObjectName("jdk.management.jfr:type=FlightRecorder"))) return false; // NOI18N
+        
+        Object specVersion = connection.getAttribute(new ObjectName(ManagementFactory.RUNTIME_MXBEAN_NAME), "SpecVersion"); // NOI18N
+        try {
+            // 1.8 and older parse as 1
+            return Integer.parseInt(String.valueOf(specVersion).split("\\.")[0]) >= MIN_TARGET_VERSION; // NOI18N
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    
+    // Events of one stream are dispatched from a single thread
+    private static final class StackConverter {
+        
+        private final AllocationSamples samples;
+        private int[] methodIds;
+        private volatile boolean hasSampleEvents;
+        
+        StackConverter(AllocationSamples samples) {
+            this.samples = samples;
+            methodIds = new int[64];
+        }
+        
+        void addSample(RecordedEvent event, long bytes) {
+            RecordedClass cls = event.getClass("objectClass"); // NOI18N
+            if (cls == null) return;
+            
+            int depth = 0;
+            RecordedStackTrace stackTrace = event.getStackTrace();
+            if (stackTrace != null) {
+                List<RecordedFrame> frames = stackTrace.getFrames();
+                if (frames.size() > methodIds.length) methodIds = new int[frames.size()];
+                for (RecordedFrame frame : frames) {
+                    RecordedMethod method = frame.getMethod();
+                    if (method == null || method.isHidden()) continue;
+                    methodIds[depth++] = samples.getMethodId(method.getType().getName(), method.getName(), method.getDescriptor());
+                }
+            }
+            samples.addSample(cls.getName(), bytes, methodIds, depth);
+        }
+        
+    }
+    
+}
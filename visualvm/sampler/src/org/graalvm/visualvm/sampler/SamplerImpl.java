@@ -46,6 +46,7 @@ import org.graalvm.visualvm.profiling.presets.PresetSelector;
 import org.graalvm.visualvm.profiling.presets.ProfilerPresets;
 import org.graalvm.visualvm.profiling.snapshot.ProfilerSnapshot;
 import org.graalvm.visualvm.sampler.cpu.CPUSamplerSupport;
+import org.graalvm.visualvm.sampler.memory.AllocationSampler;
 import org.graalvm.visualvm.sampler.memory.MemorySamplerSupport;
 import org.graalvm.visualvm.sampler.memory.ThreadsMemory;
 import org.graalvm.visualvm.threaddump.ThreadDumpSupport;
@@ -90,7 +91,7 @@ import javax.swing.SwingUtilities;
 import org.graalvm.visualvm.core.VisualVM;
 import org.graalvm.visualvm.lib.common.ProfilingSettingsPresets;
 import org.graalvm.visualvm.lib.jfluid.results.cpu.CPUResultsSnapshot;
-import org.graalvm.visualvm.lib.jfluid.results.memory.SampledMemoryResultsSnapshot;
+import org.graalvm.visualvm.lib.jfluid.results.memory.MemoryResultsSnapshot;
 import org.graalvm.visualvm.lib.profiler.LoadedSnapshot;
 import org.graalvm.visualvm.lib.profiler.ResultsManager;
 import org.graalvm.visualvm.lib.profiler.api.ProfilerDialogs;
@@ -705,6 +706,7 @@ final class SamplerImpl {
 
                 MemoryMXBean memoryBean = null;
                 ThreadsMemory threadsMemory = null;
+                AllocationSampler allocationSampler = null;
                 JmxModel jmxModel = JmxModelFactory.getJmxModelFor(application);
                 if (jmxModel != null && jmxModel.getConnectionState() == JmxModel.ConnectionState.CONNECTED) {
                     JvmMXBeans mxbeans = JvmMXBeansFactory.getJvmMXBeans(jmxModel);
@@ -717,6 +719,7 @@ final class SamplerImpl {
                             threadsMemory = null;
                         }
                     }
+                    allocationSampler = AllocationSampler.createSampler(jmxModel.getMBeanServerConnection());
                 }
                 final String noPerformGC = memoryBean == null ? NbBundle.getMessage(
                         SamplerImpl.class, "MSG_Gc_unsupported") : null; // NOI18N
@@ -739,7 +742,7 @@ final class SamplerImpl {
                                 DataOutputStream dos = null;
                                 try {
                                     long time = System.currentTimeMillis();
-                                    SampledMemoryResultsSnapshot snapshot = dumper.createSnapshot(time);
+                                    MemoryResultsSnapshot snapshot = dumper.createSnapshot(time);
                                     if (snapshot == null) {
                                         DialogDisplayer.getDefault().notifyLater(new NotifyDescriptor.Message(
                                                 NbBundle.getMessage(SamplerImpl.class, "MSG_No_save_data_memory"), // NOI18N
@@ -783,7 +786,7 @@ final class SamplerImpl {
                             else hds.takeRemoteHeapDump(application, null, openView);
                         }
                     };
-                memorySampler = new MemorySamplerSupport(application, jvm, hasPermGenHisto, threadsMemory, memoryBean, snapshotDumper, heapDumper) {
+                memorySampler = new MemorySamplerSupport(application, jvm, hasPermGenHisto, threadsMemory, allocationSampler, memoryBean, snapshotDumper, heapDumper) {
                     protected Timer getTimer() { return SamplerImpl.this.getTimer(); }
                 };
                 SwingUtilities.invokeLater(new Runnable() {
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.memory;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServerConnection;
+
+/**
+ * Source of allocation samples read from the target JVM without taking
+ * heap histograms. Implementations live in JDK-specific modules and
+ * register their {@link Provider} when the module is installed.
+ */
+public abstract class AllocationSampler {
+
+    private static final Logger LOGGER = Logger.getLogger(AllocationSampler.class.getName());
+
+    private static Provider PROVIDER;
+
+    public static synchronized void registerProvider(Provider provider) {
+        PROVIDER = provider;
+    }
+
+    public static synchronized void unregisterProvider(Provider provider) {
+        if (PROVIDER == provider) PROVIDER = null;
+    }
+
+    /**
+     * Returns allocation sampler for the target JVM or <code>null</code> if
+     * there is no registered provider or the target does not support it.
+     */
+    public static AllocationSampler createSampler(MBeanServerConnection connection) {
+        Provider provider;
+        synchronized (AllocationSampler.class) {
+            provider = PROVIDER;
+        }
+        if (provider == null || connection == null) return null;
+        try {
+            return provider.createSampler(connection);
+        } catch (Exception e) {
+            LOGGER.log(Level.INFO, "Allocation sampler not available", e); // NOI18N
+            return null;
+        }
+    }
+
+    /**
+     * Starts delivering allocation samples to <code>samples</code>.
+     */
+    public abstract void start(AllocationSamples samples) throws Exception;
+
+    public abstract void stop();
+
+    public static abstract class Provider {
+        public abstract AllocationSampler createSampler(MBeanServerConnection connection) throws Exception;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.memory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.graalvm.visualvm.lib.jfluid.results.memory.AllocMemoryResultsSnapshot;
+import org.graalvm.visualvm.lib.jfluid.results.memory.RuntimeMemoryCCTNode;
+import org.graalvm.visualvm.lib.jfluid.results.memory.RuntimeObjAllocTermCCTNode;
+
+/**
+ * Aggregates allocation samples by class and by allocation stack. Stacks are
+ * stored leaf first (allocating method is the first child of the class root)
+ * in a calling context tree kept in parallel arrays. The tree is bounded by
+ * the number of nodes; once the limit is reached new call paths are cut at
+ * the deepest existing node, so the allocation site is preserved and only
+ * the outer callers are lost.
+ */
+public final class AllocationSamples {
+
+    private static final int MAX_NODES = Integer.getInteger("org.graalvm.visualvm.sampler.memory.AllocationSamples.maxNodes", 256 * 1024); // NOI18N
+    private static final int MAX_DEPTH = 1024;
+    private static final int NO_NODE = -1;
+
+    private final int maxNodes;
+
+    private final Map<String,Integer> classIds;
+    private String[] classNames;
+    private long[] classBytes;
+    private long[] classSamples;
+    private int[] classRoots;
+    private int nClasses;
+
+    private final Map<String,Integer> methodIds;
+    private final List<String[]> methods;
+
+    private int[] nodeMethods;
+    private int[] nodeFirstChild;
+    private int[] nodeNextSibling;
+    private long[] nodeBytes;
+    private long[] nodeSamples;
+    private int nNodes;
+    private long truncatedSamples;
+
+    private final long startTime;
+
+    public AllocationSamples() {
+        this(MAX_NODES);
+    }
+
+    AllocationSamples(int maxNodes) {
+        this.maxNodes = maxNodes;
+        classIds = new HashMap<>();
+        classNames = new String[64];
+        classBytes = new long[64];
+        classSamples = new long[64];
+        classRoots = new int[64];
+        methodIds = new HashMap<>();
+        methods = new ArrayList<>();
+        int size = Math.min(maxNodes, 1024);
+        nodeMethods = new int[size];
+        nodeFirstChild = new int[size];
+        nodeNextSibling = new int[size];
+        nodeBytes = new long[size];
+        nodeSamples = new long[size];
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns id of the method to be used in the <code>methodIds</code>
+     * stack passed to {@link #addSample}. Ids are stable for the lifetime of
+     * this instance, callers may cache them.
+     */
+    public synchronized int getMethodId(String className, String methodName, String methodSig) {
+        String key = className + '.' + methodName + methodSig;
+        Integer id = methodIds.get(key);
+
+        if (id == null) {
+            methods.add(new String[] { className, methodName, methodSig });
+            id = methods.size();  // 0 is reserved for class roots
+            methodIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Records one allocation sample.
+     *
+     * @param className name of the allocated class as reported by the JVM
+     * @param bytes estimated number of bytes this sample represents
+     * @param methodIds allocation stack, allocating method first, may be <code>null</code>
+     * @param depth number of valid entries in <code>methodIds</code>
+     */
+    public synchronized void addSample(String className, long bytes, int[] methodIds, int depth) {
+        int classId = getClassId(className);
+        classBytes[classId] += bytes;
+        classSamples[classId]++;
+
+        int node = classRoots[classId];
+        if (node == NO_NODE) {
+            node = newNode(0);
+            if (node == NO_NODE) {
+                truncatedSamples++;
+                return;
+            }
+            classRoots[classId] = node;
+        }
+        if (methodIds != null) {
+            depth = Math.min(depth, MAX_DEPTH);
+            for (int i = 0; i < depth; i++) {
+                int methodId = methodIds[i];
+                int child = nodeFirstChild[node];
+
+                while (child != NO_NODE && nodeMethods[child] != methodId) {
+                    child = nodeNextSibling[child];
+                }
+                if (child == NO_NODE) {
+                    child = newNode(methodId);
+                    if (child == NO_NODE) {
+                        truncatedSamples++;
+                        break;
+                    }
+                    nodeNextSibling[child] = nodeFirstChild[node];
+                    nodeFirstChild[node] = child;
+                }
+                node = child;
+            }
+        }
+        nodeBytes[node] += bytes;
+        nodeSamples[node]++;
+    }
+
+    /**
+     * Number of samples whose allocation stack was cut because the tree
+     * reached its node limit.
+     */
+    public synchronized long getTruncatedSamples() {
+        return truncatedSamples;
+    }
+
+    synchronized AllocationsInfo getAllocationsInfo() {
+        return new AllocationsInfo(System.currentTimeMillis(), nClasses,
+                                   Arrays.copyOf(classNames, nClasses),
+                                   Arrays.copyOf(classBytes, nClasses),
+                                   Arrays.copyOf(classSamples, nClasses));
+    }
+
+    synchronized AllocMemoryResultsSnapshot createSnapshot(long time) throws IOException {
+        if (nClasses == 0) return null;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+        DataOutputStream dos = new DataOutputStream(output);
+
+        dos.writeInt(1);    // version
+        dos.writeLong(startTime); // begin time
+        dos.writeLong(time); // taken time
+        dos.writeInt(nClasses);   // no of classes
+        for (int i = 0; i < nClasses; i++) {
+            dos.writeUTF(classNames[i]);       // name
+            dos.writeLong(classBytes[i]);      // total number of bytes
+        }
+        dos.writeBoolean(true); // stacktraces
+        dos.writeInt(nClasses);
+        for (int i = 0; i < nClasses; i++) {
+            if (classRoots[i] == NO_NODE) {
+                dos.writeInt(0);
+            } else {
+                RuntimeMemoryCCTNode root = createRuntimeNode(classRoots[i]);
+                dos.writeInt(root.getType());
+                root.writeToStream(dos);
+            }
+        }
+        dos.writeBoolean(true); // method table, same layout as JMethodIdTable.writeToStream
+        dos.writeInt(97);   // size
+        dos.writeInt(0);    // no of elements, recomputed while reading
+        dos.writeInt(97 * 3 / 4); // threshold
+        dos.writeInt(methods.size());
+        for (int i = 0; i < methods.size(); i++) {
+            String[] method = methods.get(i);
+            dos.writeInt(i + 1);
+            dos.writeUTF(method[0].replace('.', '/')); // NOI18N
+            dos.writeUTF(method[1]);
+            dos.writeUTF(method[2]);
+        }
+        dos.writeInt(nClasses);   // no of classes
+        for (int i = 0; i < nClasses; i++) {
+            dos.writeInt((int)Math.min(classSamples[i], Integer.MAX_VALUE));  // number of samples
+        }
+        dos.close();
+
+        AllocMemoryResultsSnapshot result = new AllocMemoryResultsSnapshot();
+        result.readFromStream(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+        return result;
+    }
+
+    private RuntimeMemoryCCTNode createRuntimeNode(int node) {
+        RuntimeMemoryCCTNode rtNode;
+
+        if (nodeSamples[node] > 0) {
+            RuntimeObjAllocTermCCTNode termNode = new RuntimeObjAllocTermCCTNode(nodeMethods[node]);
+            termNode.nCalls = nodeSamples[node];
+            termNode.totalObjSize = nodeBytes[node];
+            rtNode = termNode;
+        } else {
+            rtNode = new RuntimeMemoryCCTNode(nodeMethods[node]);
+        }
+        for (int child = nodeFirstChild[node]; child != NO_NODE; child = nodeNextSibling[child]) {
+            rtNode.attachNodeAsChild(createRuntimeNode(child));
+        }
+        return rtNode;
+    }
+
+    private int getClassId(String className) {
+        Integer id = classIds.get(className);
+
+        if (id == null) {
+            if (nClasses == classNames.length) {
+                int size = nClasses * 2;
+                classNames = Arrays.copyOf(classNames, size);
+                classBytes = Arrays.copyOf(classBytes, size);
+                classSamples = Arrays.copyOf(classSamples, size);
+                classRoots = Arrays.copyOf(classRoots, size);
+            }
+            classNames[nClasses] = convertJVMName(className);
+            classRoots[nClasses] = NO_NODE;
+            id = nClasses++;
+            classIds.put(className, id);
+        }
+        return id;
+    }
+
+    private int newNode(int methodId) {
+        if (nNodes == nodeMethods.length) {
+            if (nNodes >= maxNodes) return NO_NODE;
+            int size = (int)Math.min((long)nNodes * 2, maxNodes);
+            nodeMethods = Arrays.copyOf(nodeMethods, size);
+            nodeFirstChild = Arrays.copyOf(nodeFirstChild, size);
+            nodeNextSibling = Arrays.copyOf(nodeNextSibling, size);
+            nodeBytes = Arrays.copyOf(nodeBytes, size);
+            nodeSamples = Arrays.copyOf(nodeSamples, size);
+        }
+        int node = nNodes++;
+        nodeMethods[node] = methodId;
+        nodeFirstChild[node] = NO_NODE;
+        nodeNextSibling[node] = NO_NODE;
+        return node;
+    }
+
+    // converts array descriptors like [B or [[Ljava.lang.String; to the
+    // byte[] and java.lang.String[][] form used by heap histograms
+    private static String convertJVMName(String jvmName) {
+        int dims = 0;
+        while (dims < jvmName.length() && jvmName.charAt(dims) == '[') dims++;
+        if (dims == 0) return jvmName;
+
+        String name;
+        switch (jvmName.charAt(dims)) {
+            case 'Z': name = "boolean"; break;  // NOI18N
+            case 'C': name = "char"; break;     // NOI18N
+            case 'B': name = "byte"; break;     // NOI18N
+            case 'S': name = "short"; break;    // NOI18N
+            case 'I': name = "int"; break;      // NOI18N
+            case 'J': name = "long"; break;     // NOI18N
+            case 'F': name = "float"; break;    // NOI18N
+            case 'D': name = "double"; break;   // NOI18N
+            case 'L': name = jvmName.substring(dims + 1, jvmName.length() - 1); break;
+            default: return jvmName;
+        }
+        StringBuilder sb = new StringBuilder(name.length() + dims * 2);
+        sb.append(name);
+        for (int i = 0; i < dims; i++) sb.append("[]");  // NOI18N
+        return sb.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.memory;
+
+/**
+ * Per-class allocation totals taken from {@link AllocationSamples} at one
+ * point in time. Class ids are stable, so infos taken later only append
+ * new classes.
+ */
+class AllocationsInfo {
+
+    private final long timestamp;
+    private final int nClasses;
+    private final String[] classNames;
+    private final long[] allocatedBytes;
+    private final long[] samples;
+    private final long totalBytes;
+    private long totalDiffBytes;
+    private long totalAllocatedBytesPerSecond;
+
+    AllocationsInfo(long time, int nClasses, String[] classNames, long[] allocatedBytes, long[] samples) {
+        timestamp = time;
+        this.nClasses = nClasses;
+        this.classNames = classNames;
+        this.allocatedBytes = allocatedBytes;
+        this.samples = samples;
+        long total = 0;
+        for (int i = 0; i < nClasses; i++) total += allocatedBytes[i];
+        totalBytes = total;
+    }
+
+    int getClassesCount() {
+        return nClasses;
+    }
+
+    String getClassName(int index) {
+        return classNames[index];
+    }
+
+    long[] getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    long[] getSamples() {
+        return samples;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    long[] getAllocatedDiffBytes(AllocationsInfo info) {
+        long[] newAllocatedBytes = info.getAllocatedBytes();
+        long[] allocDiff = new long[newAllocatedBytes.length];
+
+        totalDiffBytes = 0;
+        for (int i = 0; i < allocDiff.length; i++) {
+            long oldAlloc = i < nClasses ? allocatedBytes[i] : 0;
+            long diff = newAllocatedBytes[i] - oldAlloc;
+            allocDiff[i] = diff;
+            totalDiffBytes += diff;
+        }
+        return allocDiff;
+    }
+
+    long[] getSamplesDiff(AllocationsInfo info) {
+        long[] newSamples = info.getSamples();
+        long[] samplesDiff = new long[newSamples.length];
+
+        for (int i = 0; i < samplesDiff.length; i++) {
+            samplesDiff[i] = newSamples[i] - (i < nClasses ? samples[i] : 0);
+        }
+        return samplesDiff;
+    }
+
+    long getTotalDiffBytes() {
+        return totalDiffBytes;
+    }
+
+    long[] getAllocatedBytesPerSecond(AllocationsInfo newInfo) {
+        assert newInfo.timestamp >= timestamp;
+        long[] diff = getAllocatedDiffBytes(newInfo);
+        double secs = Math.max(newInfo.timestamp - timestamp, 1) / 1000.0;
+
+        for (int i = 0; i < diff.length; i++) {
+            diff[i] = (long)(diff[i] / secs);
+        }
+        totalAllocatedBytesPerSecond = (long) (getTotalDiffBytes() / secs);
+        return diff;
+    }
+
+    long getTotalAllocatedBytesPerSecond() {
+        return totalAllocatedBytesPerSecond;
+    }
+}
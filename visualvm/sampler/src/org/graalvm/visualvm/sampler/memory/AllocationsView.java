@@ -0,0 +1,589 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.sampler.memory;
+
+import org.graalvm.visualvm.sampler.AbstractSamplerSupport;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.LayoutManager;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.awt.event.ItemEvent;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JMenuItem;
+import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.JToggleButton;
+import javax.swing.SortOrder;
+import javax.swing.UIManager;
+import javax.swing.table.AbstractTableModel;
+import org.graalvm.visualvm.lib.ui.Formatters;
+import org.graalvm.visualvm.lib.ui.components.ProfilerToolbar;
+import org.graalvm.visualvm.lib.ui.swing.FilterUtils;
+import org.graalvm.visualvm.lib.ui.swing.GrayLabel;
+import org.graalvm.visualvm.lib.ui.swing.ProfilerTable;
+import org.graalvm.visualvm.lib.ui.swing.ProfilerTableContainer;
+import org.graalvm.visualvm.lib.ui.swing.SearchUtils;
+import org.graalvm.visualvm.lib.ui.swing.renderer.HideableBarRenderer;
+import org.graalvm.visualvm.lib.ui.swing.renderer.JavaNameRenderer;
+import org.graalvm.visualvm.lib.ui.swing.renderer.NumberPercentRenderer;
+import org.graalvm.visualvm.lib.ui.swing.renderer.NumberRenderer;
+import org.graalvm.visualvm.lib.profiler.api.icons.GeneralIcons;
+import org.graalvm.visualvm.lib.profiler.api.icons.Icons;
+import org.graalvm.visualvm.lib.profiler.api.icons.LanguageIcons;
+import org.graalvm.visualvm.lib.profiler.api.icons.ProfilerIcons;
+import org.openide.util.ImageUtilities;
+import org.openide.util.NbBundle;
+
+/**
+ * Allocation rate by class computed from allocation samples, does not
+ * require heap histograms.
+ */
+final class AllocationsView extends JPanel {
+    
+    private static final long[] NO_DATA = new long[0];
+    
+    private final AbstractSamplerSupport.Refresher refresher;
+    private boolean forceRefresh = false;
+    
+    private final MemorySamplerSupport.SnapshotDumper snapshotDumper;
+    
+    private AllocationsInfo classes;
+    private long[] allocatedBytes;
+    private long[] allocatedBytesPerSec;
+    private long[] samples;
+    private AllocationsInfo currentInfo;
+    private AllocationsInfo baseInfo;
+    
+    private int totalClasses = -1;
+    private long totalBytes = -1;
+    
+    AllocationsView(AbstractSamplerSupport.Refresher refresher, MemorySamplerSupport.SnapshotDumper snapshotDumper) {    
+        this.refresher = refresher;
+        this.snapshotDumper = snapshotDumper;
+        
+        allocatedBytes = NO_DATA;
+        allocatedBytesPerSec = NO_DATA;
+        samples = NO_DATA;
+        
+        initComponents();
+        
+        addHierarchyListener(new HierarchyListener() {
+            public void hierarchyChanged(HierarchyEvent e) {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                    if (isShowing()) AllocationsView.this.refresher.refresh();
+                }
+            }
+        });
+    }    
+    
+    void initSession() {
+    }
+    
+    boolean isPaused() {
+        return lrPauseButton.isSelected() && !forceRefresh;
+    }
+    
+    boolean isEmpty() {
+        return tableModel.getRowCount() == 0;
+    }
+    
+    void refresh(AllocationsInfo info) {
+        if (isPaused()) return;
+        forceRefresh = false;
+        classes = info;
+        if (currentInfo != null) {
+            allocatedBytesPerSec = currentInfo.getAllocatedBytesPerSecond(info);
+            renderers[1].setMaxValue(currentInfo.getTotalAllocatedBytesPerSecond());
+        }
+        currentInfo = info;
+        
+        boolean diff = lrDeltasButton.isSelected();
+        if (diff) {
+            if (baseInfo == null) baseInfo = info;
+            totalClasses = info.getClassesCount() - baseInfo.getClassesCount();
+            allocatedBytes = baseInfo.getAllocatedDiffBytes(info);
+            samples = baseInfo.getSamplesDiff(info);
+            totalBytes = baseInfo.getTotalDiffBytes();
+        } else {
+            if (baseInfo != null) baseInfo = null;
+            allocatedBytes = info.getAllocatedBytes();
+            samples = info.getSamples();
+            totalBytes = info.getTotalBytes();
+            totalClasses = info.getClassesCount();
+        }
+        
+        renderers[0].setDiffMode(diff);
+        renderers[0].setMaxValue(totalBytes);
+        
+        classesCount.setDiffMode(diff);
+        classesCount.setValue(totalClasses, -1);
+        
+        classesTotalBytes.setDiffMode(diff);
+        classesTotalBytes.setValue(totalBytes, -1);
+
+        tableModel.fireTableDataChanged();
+        
+        if (pdSnapshotButton != null) pdSnapshotButton.setEnabled(true);
+    }
+    
+    void starting() {
+        lrPauseButton.setEnabled(true);
+        lrRefreshButton.setEnabled(false);
+        lrDeltasButton.setEnabled(true);
+    }
+    
+    void stopping() {
+        lrPauseButton.setEnabled(false);
+        lrRefreshButton.setEnabled(false);
+        lrDeltasButton.setEnabled(false);
+    }
+    
+    void terminated() {
+        lrPauseButton.setEnabled(false);
+        lrRefreshButton.setEnabled(false);
+        lrDeltasButton.setEnabled(false);
+        if (pdSnapshotButton != null) pdSnapshotButton.setEnabled(false);
+    }
+    
+    
+    private JLabel lrLabel;
+    private JToggleButton lrPauseButton;
+    private JButton lrRefreshButton;
+    private JToggleButton lrDeltasButton;
+    private ProfilerToolbar toolbar;
+    
+    private JLabel pdLabel;
+    private JButton pdSnapshotButton;
+    
+    private boolean popupPause;
+    
+    private JComponent bottomPanel;
+    private JComponent filterPanel;
+    private JComponent searchPanel;
+    
+    private NumberRenderer classesCount;
+    private NumberRenderer classesTotalBytes;
+    
+    private AllocationsTableModel tableModel;
+    private ProfilerTable table;
+    
+    private HideableBarRenderer[] renderers;
+    
+    private void initComponents() {
+        tableModel = new AllocationsTableModel();
+        
+        table = new ProfilerTable(tableModel, true, true, null) {
+            protected void populatePopup(JPopupMenu popup, Object value, Object userValue) {
+                popup.add(createCopyMenuItem());
+                popup.addSeparator();
+                
+                popup.add(new JMenuItem(FilterUtils.ACTION_FILTER) {
+                    protected void fireActionPerformed(ActionEvent e) { AllocationsView.this.activateFilter(); }
+                });
+                popup.add(new JMenuItem(SearchUtils.ACTION_FIND) {
+                    protected void fireActionPerformed(ActionEvent e) { AllocationsView.this.activateSearch(); }
+                });
+            }
+            protected void popupShowing() {
+                if (lrPauseButton.isEnabled() && !lrRefreshButton.isEnabled()) {
+                    popupPause = true;
+                    lrPauseButton.setSelected(true);
+                }
+            }
+            protected void popupHidden() {
+                if (lrPauseButton.isEnabled() && popupPause) {
+                    popupPause = false;
+                    lrPauseButton.setSelected(false);
+                }
+            }
+        };
+        
+        table.setColumnToolTips(new String[] { NbBundle.getMessage(AllocationsView.class, "AllocationsView_TOOLTIP_Col_name"), // NOI18N
+                                               NbBundle.getMessage(AllocationsView.class, "AllocationsView_TOOLTIP_Col_bytes"), // NOI18N
+                                               NbBundle.getMessage(AllocationsView.class, "AllocationsView_TOOLTIP_Col_bytessec"), // NOI18N
+                                               NbBundle.getMessage(AllocationsView.class, "AllocationsView_TOOLTIP_Col_samples") // NOI18N
+                                });
+        
+        table.providePopupMenu(true);
+        
+        table.setMainColumn(0);
+        table.setFitWidthColumn(0);
+        
+        table.setSortColumn(2);
+        table.setDefaultSortOrder(1, SortOrder.DESCENDING);
+        table.setDefaultSortOrder(2, SortOrder.DESCENDING);
+        table.setDefaultSortOrder(3, SortOrder.DESCENDING);
+        
+        renderers = new HideableBarRenderer[3];
+        
+        renderers[0] = new HideableBarRenderer(new NumberPercentRenderer(Formatters.bytesFormat()));
+        renderers[0].setBarDiffMode(HideableBarRenderer.BarDiffMode.MODE_BAR_NORMAL);
+        renderers[1] = new HideableBarRenderer(new NumberPercentRenderer(Formatters.bytesFormat()));
+        renderers[1].setBarDiffMode(HideableBarRenderer.BarDiffMode.MODE_BAR_NORMAL);
+        renderers[2] = new HideableBarRenderer(new NumberPercentRenderer());
+        
+        table.setColumnRenderer(0, new JavaNameRenderer(Icons.getIcon(LanguageIcons.CLASS)));
+        table.setColumnRenderer(1, renderers[0]);
+        table.setColumnRenderer(2, renderers[1]);
+        table.setColumnRenderer(3, renderers[2]);
+        
+        long refTime = 12345678;
+        renderers[0].setMaxValue(refTime);
+        renderers[1].setMaxValue(refTime);
+        renderers[2].setMaxValue(refTime);
+        table.setDefaultColumnWidth(1, renderers[0].getOptimalWidth());
+        table.setDefaultColumnWidth(2, renderers[1].getOptimalWidth());
+        table.setDefaultColumnWidth(3, renderers[2].getMaxNoBarWidth());
+        
+        renderers[1].setMaxValue(1000 * 1000);
+        
+        ProfilerTableContainer tableContainer = new ProfilerTableContainer(table, false, null);
+        
+        
+        // --- Toolbar ---------------------------------------------------------
+        
+        lrLabel = new GrayLabel(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_Results")); // NOI18N
+            
+        lrPauseButton = new JToggleButton(Icons.getIcon(GeneralIcons.PAUSE)) {
+            protected void fireItemStateChanged(ItemEvent event) {
+                boolean paused = isSelected();
+                lrRefreshButton.setEnabled(paused && !popupPause);
+                if (!paused) refresher.refresh();
+            }
+        };
+        lrPauseButton.setToolTipText(NbBundle.getMessage(MemoryView.class, "TOOLTIP_Pause_results")); // NOI18N
+
+        lrRefreshButton = new JButton(Icons.getIcon(GeneralIcons.UPDATE_NOW)) {
+            protected void fireActionPerformed(ActionEvent e) {
+                forceRefresh = true;
+                refresher.refresh();
+            }
+        };
+        lrRefreshButton.setToolTipText(NbBundle.getMessage(MemoryView.class, "TOOLTIP_Update_results")); // NOI18N
+        lrRefreshButton.setEnabled(false);
+        
+        Icon icon = Icons.getIcon(ProfilerIcons.DELTA_RESULTS);
+        lrDeltasButton = new JToggleButton(icon) {
+            protected void fireActionPerformed(ActionEvent e) {
+                if (!lrPauseButton.isSelected()) {
+                    forceRefresh = true;
+                    refresher.refresh();
+                }
+            }
+        };
+        lrDeltasButton.setToolTipText(NbBundle.getMessage(MemoryView.class, "TOOLTIP_Deltas")); // NOI18N
+        
+        if (snapshotDumper != null) {
+            pdLabel = new GrayLabel(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_Data")); // NOI18N
+            
+            pdSnapshotButton = new JButton(NbBundle.getMessage(MemoryView.class,
+                        "LBL_Snapshot"), new ImageIcon(ImageUtilities.loadImage( // NOI18N
+                        "org/graalvm/visualvm/sampler/resources/snapshot.png", true))) { // NOI18N
+                protected void fireActionPerformed(ActionEvent event) {
+                    snapshotDumper.takeSnapshot((event.getModifiers() & Toolkit.getDefaultToolkit().getMenuShortcutKeyMask()) == 0);
+                }
+            };
+            pdSnapshotButton.setText(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_Snapshot")); // NOI18N
+            pdSnapshotButton.setToolTipText(NbBundle.getMessage(AllocationsView.class, "AllocationsView_TOOLTIP_Snapshot")); // NOI18N
+            pdSnapshotButton.putClientProperty("JComponent.sizeVariant", "regular"); // NOI18N
+            pdSnapshotButton.setEnabled(false);
+        }
+        
+        toolbar = ProfilerToolbar.create(true);
+
+        toolbar.addSpace(5);
+
+        toolbar.add(lrLabel);
+        toolbar.addSpace(2);
+        toolbar.add(lrPauseButton);
+        toolbar.add(lrRefreshButton);
+        
+        toolbar.addSpace(5);
+        toolbar.add(lrDeltasButton);
+        
+        if (pdSnapshotButton != null) {
+        
+            toolbar.addSpace(2);
+            toolbar.addSeparator();
+            toolbar.addSpace(5);
+
+            toolbar.add(pdLabel);
+            toolbar.addSpace(2);
+            toolbar.add(pdSnapshotButton);
+        
+        }
+        
+        toolbar.addSpace(2);
+        toolbar.addSeparator();
+        toolbar.addSpace(5);
+        
+        toolbar.add(new GrayLabel(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_Statistics"))); // NOI18N
+        toolbar.addSpace(5);
+        
+        toolbar.add(new JLabel(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_CCount"))); // NOI18N
+        final Dimension ccDim = new Dimension(-1, -1);
+        final JLabel classesCountL = new JLabel() {
+            public Dimension getPreferredSize() {
+                Dimension dim = super.getPreferredSize();
+                
+                if (ccDim.width >= 0) {
+                    dim.width = Math.max(dim.width, ccDim.width);
+                    dim.height = Math.max(dim.height, ccDim.height);
+                }
+                
+                return dim;
+            }
+            public Dimension getMaximumSize() {
+                return getPreferredSize();
+            }
+        };
+        classesCount = new NumberRenderer() {
+            public void setText(String text) {
+                super.setText(text);
+                classesCountL.setText(super.getText());
+            }
+        };
+        classesCount.setDiffMode(true);
+        classesCount.setValue(9999, -1);
+        ccDim.setSize(classesCountL.getPreferredSize());
+        classesCount.setDiffMode(false);
+        classesCount.setValue(0, -1);
+        toolbar.addSpace(3);
+        toolbar.add(classesCountL);
+        
+        toolbar.addSpace(5);
+        
+        toolbar.add(new JLabel(NbBundle.getMessage(AllocationsView.class, "AllocationsView_LBL_Total_bytes"))); // NOI18N
+        final JLabel classesTotalBytesL = new JLabel();
+        classesTotalBytes = new NumberRenderer(Formatters.bytesFormat()) {
+            public void setText(String text) {
+                super.setText(text);
+                classesTotalBytesL.setText(super.getText());
+            }
+        };
+        toolbar.addSpace(3);
+        toolbar.add(classesTotalBytesL);
+        
+        toolbar.addFiller();
+        
+        
+        setOpaque(false);
+        setLayout(new BorderLayout());
+        add(toolbar.getComponent(), BorderLayout.NORTH);
+        add(tableContainer, BorderLayout.CENTER);
+    }
+    
+    private JComponent getBottomPanel() {
+        if (bottomPanel == null) {
+            bottomPanel = new JPanel(new FilterFindLayout());
+            bottomPanel.setOpaque(true);
+            bottomPanel.setBackground(UIManager.getColor("controlShadow")); // NOI18N
+            add(bottomPanel, BorderLayout.SOUTH);
+        }
+        return bottomPanel;
+    }
+    
+    private void activateFilter() {
+        JComponent panel = getBottomPanel();
+        
+        if (filterPanel == null) {
+            filterPanel = FilterUtils.createFilterPanel(table);
+            panel.add(filterPanel);
+            Container parent = panel.getParent();
+            parent.invalidate();
+            parent.revalidate();
+            parent.repaint();
+        }
+        
+        panel.setVisible(true);
+        
+        filterPanel.setVisible(true);
+        filterPanel.requestFocusInWindow();
+    }
+    
+    private void activateSearch() {
+        JComponent panel = getBottomPanel();
+        
+        if (searchPanel == null) {
+            searchPanel = SearchUtils.createSearchPanel(table);
+            panel.add(searchPanel);
+            Container parent = panel.getParent();
+            parent.invalidate();
+            parent.revalidate();
+            parent.repaint();
+        }
+        
+        panel.setVisible(true);
+        
+        searchPanel.setVisible(true);
+        searchPanel.requestFocusInWindow();
+    }
+    
+    
+    private static final String COL_NAME = NbBundle.getMessage(MemoryView.class, "COL_Class_name"); // NOI18N
+    private static final String COL_BYTES = NbBundle.getMessage(MemoryView.class, "COL_ABytes"); // NOI18N
+    private static final String COL_BYTES_SEC = NbBundle.getMessage(MemoryView.class, "COL_ABytes_Sec"); // NOI18N
+    private static final String COL_SAMPLES = NbBundle.getMessage(MemoryView.class, "COL_Samples"); // NOI18N
+    
+    private class AllocationsTableModel extends AbstractTableModel {
+        
+        public String getColumnName(int columnIndex) {
+            if (columnIndex == 0) {
+                return COL_NAME;
+            } else if (columnIndex == 1) {
+                return COL_BYTES;
+            } else if (columnIndex == 2) {
+                return COL_BYTES_SEC;
+            } else if (columnIndex == 3) {
+                return COL_SAMPLES;
+            }
+            
+            return null;
+        }
+
+        public Class<?> getColumnClass(int columnIndex) {
+            if (columnIndex == 0) {
+                return String.class;
+            } else {
+                return Long.class;
+            }
+        }
+
+        public int getRowCount() {
+            return classes == null ? 0 : classes.getClassesCount();
+        }
+
+        public int getColumnCount() {
+            return 4;
+        }
+
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            if (columnIndex == 0) {
+                return classes.getClassName(rowIndex);
+            } else if (columnIndex == 1) {
+                return allocatedBytes[rowIndex];
+            } else if (columnIndex == 2) {
+                return rowIndex < allocatedBytesPerSec.length ? allocatedBytesPerSec[rowIndex] : 0;
+            } else if (columnIndex == 3) {
+                return samples[rowIndex];
+            }
+
+            return null;
+        }
+        
+    }
+    
+    
+    private final class FilterFindLayout implements LayoutManager {
+
+        public void addLayoutComponent(String name, Component comp) {}
+        public void removeLayoutComponent(Component comp) {}
+
+        public Dimension preferredLayoutSize(Container parent) {
+            JComponent filter = filterPanel;
+            if (filter != null && !filter.isVisible()) filter = null;
+            
+            JComponent search = searchPanel;
+            if (search != null && !search.isVisible()) search = null;
+            
+            Dimension dim = new Dimension();
+            
+            if (filter != null && search != null) {
+                Dimension dim1 = filter.getPreferredSize();
+                Dimension dim2 = search.getPreferredSize();
+                dim.width = dim1.width + dim2.width + 1;
+                dim.height = Math.max(dim1.height, dim2.height);
+            } else if (filter != null) {
+                dim = filter.getPreferredSize();
+            } else if (search != null) {
+                dim = search.getPreferredSize();
+            }
+            
+            if (filter != null || search != null)
+                dim.height += 1;
+            
+            return dim;
+        }
+
+        public Dimension minimumLayoutSize(Container parent) {
+            JComponent filter = filterPanel;
+            if (filter != null && !filter.isVisible()) filter = null;
+            
+            JComponent search = searchPanel;
+            if (search != null && !search.isVisible()) search = null;
+            
+            Dimension dim = new Dimension();
+            
+            if (filter != null && search != null) {
+                Dimension dim1 = filter.getMinimumSize();
+                Dimension dim2 = search.getMinimumSize();
+                dim.width = dim1.width + dim2.width + 1;
+                dim.height = Math.max(dim1.height, dim2.height);
+            } else if (filter != null) {
+                dim = filter.getMinimumSize();
+            } else if (search != null) {
+                dim = search.getMinimumSize();
+            }
+            
+            if (filter != null || search != null)
+                dim.height += 1;
+            
+            return dim;
+        }
+
+        public void layoutContainer(Container parent) {
+            JComponent filter = filterPanel;
+            if (filter != null && !filter.isVisible()) filter = null;
+            
+            JComponent search = searchPanel;
+            if (search != null && !search.isVisible()) search = null;
+            
+            if (filter != null && search != null) {
+                Dimension size = parent.getSize();
+                int w = (size.width - 1) / 2;
+                filter.setBounds(0, 0, w, size.height);
+                search.setBounds(w + 1, 0, size.width - w - 1, size.height);
+            } else if (filter != null) {
+                Dimension size = parent.getSize();
+                filter.setBounds(0, 0, size.width, size.height);
+            } else if (search != null) {
+                Dimension size = parent.getSize();
+                search.setBounds(0, 0, size.width, size.height);
+            }
+        }
+        
+    }
+    
+}
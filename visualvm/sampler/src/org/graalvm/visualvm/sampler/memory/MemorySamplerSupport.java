@@ -36,6 +36,8 @@ import java.lang.management.MemoryMXBean;
 import java.util.Set;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import org.graalvm.visualvm.application.Application;
@@ -44,6 +46,7 @@ import org.graalvm.visualvm.application.jvm.Jvm;
 import org.graalvm.visualvm.core.options.GlobalPreferences;
 import org.graalvm.visualvm.core.ui.components.DataViewComponent;
 import org.graalvm.visualvm.lib.common.ProfilingSettings;
+import org.graalvm.visualvm.lib.jfluid.results.memory.MemoryResultsSnapshot;
 import org.graalvm.visualvm.lib.jfluid.results.memory.SampledMemoryResultsSnapshot;
 import org.graalvm.visualvm.sampler.AbstractSamplerSupport;
 import org.graalvm.visualvm.sampler.AbstractSamplerSupport.Refresher;
@@ -56,6 +59,8 @@ import org.openide.util.NbBundle;
  */
 public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     
+    private static final Logger LOGGER = Logger.getLogger(MemorySamplerSupport.class.getName());
+    
     private final Application application;
     
     private final Jvm jvm;
@@ -80,9 +85,19 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     private Refresher threadAllocRefresher;
     private ThreadsMemoryView threadAllocView;
     
+    private final AllocationSampler allocationSampler;
+    private final AllocationSamples allocationSamples;
+    private Timer allocTimer;
+    private Refresher allocRefresher;
+    private AllocationsView allocView;
+    
     private DataViewComponent.DetailsView[] detailsViews;
     
     public MemorySamplerSupport(Application application, Jvm jvm, boolean hasPermGen, ThreadsMemory mem, MemoryMXBean memoryBean, SnapshotDumper snapshotDumper, HeapDumper heapDumper) {
+        this(application, jvm, hasPermGen, mem, null, memoryBean, snapshotDumper, heapDumper);
+    }
+    
+    public MemorySamplerSupport(Application application, Jvm jvm, boolean hasPermGen, ThreadsMemory mem, AllocationSampler allocSampler, MemoryMXBean memoryBean, SnapshotDumper snapshotDumper, HeapDumper heapDumper) {
         this.application = application;
         
         this.jvm = jvm;
@@ -91,6 +106,8 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         this.memoryBean = memoryBean;
         this.heapDumper = heapDumper;
         this.snapshotDumper = snapshotDumper;
+        allocationSampler = allocSampler;
+        allocationSamples = allocSampler != null ? new AllocationSamples() : null;
         updateIsRunning = new AtomicBoolean();
     }
     
@@ -103,6 +120,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         heapView.initSession();
         if (permgenView != null) permgenView.initSession();
         if (threadAllocView != null) threadAllocView.initSession();
+        if (allocView != null) allocView.initSession();
         return detailsViews.clone();
     }
     
@@ -115,6 +133,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 if (heapView != null) heapView.starting();
                 if (permgenView != null) permgenView.starting();
                 if (threadAllocView != null) threadAllocView.starting();
+                if (allocView != null) allocView.starting();
             }
         });
 
@@ -123,6 +142,10 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
             permgenRefresher.setRefreshRate(samplingRate);
         if (threadAllocRefresher != null)
             threadAllocRefresher.setRefreshRate(samplingRate);
+        if (allocRefresher != null) {
+            startAllocationSampler();
+            allocRefresher.setRefreshRate(samplingRate);
+        }
         if (heapView != null) {
             if (permgenView != null) doRefreshImpl(heapTimer, heapView, permgenView);
             else doRefreshImpl(heapTimer, heapView);
@@ -140,6 +163,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 if (heapView != null) heapView.stopping();
                 if (permgenView != null) permgenView.stopping();
                 if (threadAllocView != null) threadAllocView.stopping();
+                if (allocView != null) allocView.stopping();
             }
         });
         
@@ -149,6 +173,10 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         }
         if (threadAllocTimer != null)
             threadAllocTimer.stop();
+        if (allocTimer != null) {
+            allocTimer.stop();
+            stopAllocationSampler();
+        }
         if (heapView != null) {
             if (permgenView != null) doRefreshImplImpl(snapshotDumper.lastHistogram, heapView, permgenView);
             else doRefreshImplImpl(snapshotDumper.lastHistogram, heapView);
@@ -161,8 +189,10 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 if (heapView != null) heapView.terminated();
                 if (permgenView != null) permgenView.terminated();
                 if (threadAllocView != null) threadAllocView.terminated();
+                if (allocView != null) allocView.terminated();
             }
         });
+        if (allocTimer != null) stopAllocationSampler();
     }
     
     
@@ -250,6 +280,31 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 }
             };
         }
+        
+        if (allocationSampler != null) {
+            allocTimer = new Timer(defaultRefresh, new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    allocRefresher.refresh();
+                }
+            });
+            allocRefresher = new Refresher() {
+                public final boolean checkRefresh() {
+                    if (!allocTimer.isRunning()) return false;
+                    return allocView.isShowing();
+                }
+                public final void doRefresh() {
+                    doRefreshImpl(allocTimer, allocView);
+                }
+                public final void setRefreshRate(int refreshRate) {
+                    allocTimer.setDelay(refreshRate);
+                    allocTimer.setInitialDelay(refreshRate);
+                    allocTimer.restart();
+                }
+                public final int getRefreshRate() {
+                    return allocTimer.getDelay();
+                }
+            };
+        }
     }
     
     private DataViewComponent.DetailsView[] createViews() {
@@ -257,6 +312,7 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         int detailsCount = 1;
         if (hasPermGenHisto) detailsCount++;
         if (threadAllocRefresher != null) detailsCount++;
+        if (allocRefresher != null) detailsCount++;
         DataViewComponent.DetailsView[] details = new DataViewComponent.DetailsView[detailsCount];
         
         heapView = new MemoryView(application, heapRefresher, MemoryView.MODE_HEAP, memoryBean, snapshotDumper, heapDumper);
@@ -275,6 +331,12 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                     NbBundle.getMessage(MemorySamplerSupport.class, "LBL_ThreadAlloc"), // NOI18N
                     null, 30, threadAllocView, null);
         }
+        if (allocRefresher != null) {
+            allocView = new AllocationsView(allocRefresher, snapshotDumper);
+            details[detailIndex++] = new DataViewComponent.DetailsView(
+                    NbBundle.getMessage(MemorySamplerSupport.class, "LBL_Allocations"), // NOI18N
+                    null, 40, allocView, null);
+        }
         return details;
     }
     
@@ -299,6 +361,27 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         }
     }
     
+    private void doRefreshImpl(final Timer timer, final AllocationsView view) {
+        if (!timer.isRunning() || view.isPaused()) return;
+        if (!updateIsRunning.compareAndSet(false, true)) return;
+        try {
+            processor.schedule(new TimerTask() {
+                public void run() {
+                    try {
+                        if (!timer.isRunning()) return;
+                        doRefreshImplImpl(allocationSamples.getAllocationsInfo(), view);
+                    } catch (Exception e) {
+                        terminate();
+                    } finally {
+                        updateIsRunning.set(false);
+                    }
+                }
+            }, 0);
+        } catch (Exception e) {
+            terminate();
+        }
+    }
+    
     private void doRefreshImpl(final Timer timer, final MemoryView... views) {
         if (!timer.isRunning() || (views.length == 1 && views[0].isPaused())) return;
         if (!updateIsRunning.compareAndSet(false, true)) return;
@@ -324,7 +407,10 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
         if (heapHistogram != null)
             SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
-                    snapshotDumper.lastHistogram = heapHistogram;
+                    if (snapshotDumper.lastHistogram != heapHistogram) {
+                        snapshotDumper.lastHistogram = heapHistogram;
+                        snapshotDumper.lastAllocations = null;
+                    }
                     for (MemoryView view : views) view.refresh(heapHistogram);
                 }
             });
@@ -337,6 +423,45 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
                 }
             });
     }
+    
+    private void doRefreshImplImpl(final AllocationsInfo info, final AllocationsView view) {
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    snapshotDumper.lastAllocations = allocationSamples;
+                    view.refresh(info);
+                }
+            });
+    }
+    
+    private void startAllocationSampler() {
+        processor.schedule(new TimerTask() {
+            public void run() {
+                try {
+                    allocationSampler.start(allocationSamples);
+                } catch (Exception e) {
+                    LOGGER.log(Level.INFO, "Failed to start allocation sampler for " + application, e); // NOI18N
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            if (allocView != null) allocView.terminated();
+                        }
+                    });
+                }
+            }
+        }, 0);
+    }
+    
+    private void stopAllocationSampler() {
+        try {
+            processor.schedule(new TimerTask() {
+                public void run() {
+                    allocationSampler.stop();
+                }
+            }, 0);
+        } catch (IllegalStateException e) {
+            // processor already cancelled
+            allocationSampler.stop();
+        }
+    }
 
     public static abstract class HeapDumper {
         public abstract void takeHeapDump(boolean openView);
@@ -344,10 +469,21 @@ public abstract class MemorySamplerSupport extends AbstractSamplerSupport {
     
     public static abstract class SnapshotDumper {
         private volatile HeapHistogram lastHistogram;
+        private volatile AllocationSamples lastAllocations;
         
         public abstract void takeSnapshot(boolean openView);
         
-        public SampledMemoryResultsSnapshot createSnapshot(long time) {
+        public MemoryResultsSnapshot createSnapshot(long time) {
+            AllocationSamples allocations = lastAllocations;
+            
+            if (allocations != null) {
+                try {
+                    return allocations.createSnapshot(time);
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+                return null;
+            }
             HeapHistogram histogram = lastHistogram;
 
             if (histogram != null) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.visualvm.sampler.memory;
+
+import org.graalvm.visualvm.lib.jfluid.results.memory.AllocMemoryResultsSnapshot;
+import org.graalvm.visualvm.lib.jfluid.results.memory.PresoObjAllocCCTNode;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests of aggregating allocation samples by AllocationSamples.
+ */
+public class AllocationSamplesTest {
+
+    private AllocationSamples samples;
+    private int run;
+    private int process;
+    private int allocate;
+
+    @Before
+    public void setUp() {
+        samples = new AllocationSamples();
+        run = samples.getMethodId("test.Worker", "run", "()V");               // NOI18N
+        process = samples.getMethodId("test.Worker", "process", "(I)V");      // NOI18N
+        allocate = samples.getMethodId("test.Buffer", "allocate", "()[B");    // NOI18N
+    }
+
+    @Test
+    public void testMethodIds() {
+        assertTrue(run > 0);
+        assertTrue(process > 0 && process != run);
+        assertEquals(process, samples.getMethodId("test.Worker", "process", "(I)V"));   // NOI18N
+    }
+
+    @Test
+    public void testClasses() {
+        samples.addSample("[B", 100, new int[] { allocate, run }, 2);                      // NOI18N
+        samples.addSample("[B", 50, null, 0);                                              // NOI18N
+        samples.addSample("[[Ljava.lang.String;", 24, new int[] { process, run }, 2);      // NOI18N
+        samples.addSample("java.lang.Object", 16, new int[] { run }, 1);                   // NOI18N
+
+        AllocationsInfo info = samples.getAllocationsInfo();
+        assertEquals(3, info.getClassesCount());
+        assertEquals("byte[]", info.getClassName(0));                  // NOI18N
+        assertEquals("java.lang.String[][]", info.getClassName(1));    // NOI18N
+        assertEquals("java.lang.Object", info.getClassName(2));        // NOI18N
+        assertArrayEquals(new long[] { 150, 24, 16 }, info.getAllocatedBytes());
+        assertArrayEquals(new long[] { 2, 1, 1 }, info.getSamples());
+        assertEquals(190, info.getTotalBytes());
+        assertEquals(0, samples.getTruncatedSamples());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        samples.addSample("[B", 100, new int[] { allocate, process, run }, 3);    // NOI18N
+        samples.addSample("[B", 60, new int[] { allocate, run }, 2);              // NOI18N
+        samples.addSample("[B", 40, new int[] { allocate, process, run }, 3);     // NOI18N
+
+        AllocMemoryResultsSnapshot snapshot = samples.createSnapshot(System.currentTimeMillis());
+        assertEquals(1, snapshot.getNProfiledClasses());
+        assertEquals("byte[]", snapshot.getClassName(0));   // NOI18N
+        assertEquals(200, snapshot.getObjectsSizePerClass()[0]);
+        assertEquals(3, snapshot.getObjectsCounts()[0]);
+
+        PresoObjAllocCCTNode root = snapshot.createPresentationCCT(0, false);
+        assertEquals(200, root.totalObjSize);
+        assertEquals(3, root.nCalls);
+        assertEquals(1, root.getNChildren());
+
+        PresoObjAllocCCTNode allocateNode = (PresoObjAllocCCTNode) root.getChild(0);
+        assertEquals("test.Buffer.allocate()", allocateNode.getNodeName());    // NOI18N
+        assertEquals(200, allocateNode.totalObjSize);
+        assertEquals(2, allocateNode.getNChildren());
+        assertEquals(140, childNamed(allocateNode, "test.Worker.process(int)").totalObjSize);    // NOI18N
+        assertEquals(60, childNamed(allocateNode, "test.Worker.run()").totalObjSize);         // NOI18N
+    }
+
+    @Test
+    public void testEmptySnapshot() throws Exception {
+        assertNull(samples.createSnapshot(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testBoundedTree() throws Exception {
+        AllocationSamples bounded = new AllocationSamples(8);
+        int[] methods = new int[20];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = bounded.getMethodId("test.Deep", "m" + i, "()V");   // NOI18N
+        }
+
+        // class root + 5 nodes of the first stack fit, the second stack shares its leaf
+        // and gets one more node, the rest is cut at the deepest existing node
+        bounded.addSample("[B", 10, new int[] { methods[0], methods[1], methods[2], methods[3], methods[4] }, 5);  // NOI18N
+        bounded.addSample("[B", 20, new int[] { methods[0], methods[5], methods[6], methods[7] }, 4);              // NOI18N
+        bounded.addSample("[C", 30, new int[] { methods[8] }, 1);                                                  // NOI18N
+        assertEquals(2, bounded.getTruncatedSamples());
+
+        for (int i = 0; i < 100; i++) {
+            bounded.addSample("[B", 1, methods, methods.length);   // NOI18N
+        }
+        assertEquals(102, bounded.getTruncatedSamples());
+
+        // class totals are exact, a sample cut at the class root is missing in the tree only
+        AllocationsInfo info = bounded.getAllocationsInfo();
+        assertArrayEquals(new long[] { 130, 30 }, info.getAllocatedBytes());
+        assertArrayEquals(new long[] { 102, 1 }, info.getSamples());
+
+        AllocMemoryResultsSnapshot snapshot = bounded.createSnapshot(System.currentTimeMillis());
+        PresoObjAllocCCTNode bytesRoot = snapshot.createPresentationCCT(0, false);
+        assertEquals(130, bytesRoot.totalObjSize);
+        assertEquals(102, bytesRoot.nCalls);
+        assertNull(snapshot.createPresentationCCT(1, false));
+        assertEquals(30, snapshot.getObjectsSizePerClass()[1]);
+    }
+
+    private static PresoObjAllocCCTNode childNamed(PresoObjAllocCCTNode node, String name) {
+        for (int i = 0; i < node.getNChildren(); i++) {
+            PresoObjAllocCCTNode child = (PresoObjAllocCCTNode) node.getChild(i);
+            if (name.equals(child.getNodeName())) {
+                return child;
+            }
+        }
+        fail("Missing child " + name);    // NOI18N
+        return null;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.threaddump.impl;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact model of a parsed thread dump. Stack lines are interned and threads
+ * with identical stacks share a single {@link Stack} instance.
+ */
+final class ThreadDumpModel {
+    
+    private final List<Object> blocks;
+    private final ThreadEntry[] threads;
+    private final Stack[] stacks;
+    private final Map<String, ThreadEntry> lockOwners;
+    
+    
+    ThreadDumpModel(List<Object> blocks, ThreadEntry[] threads, Stack[] stacks, Map<String, ThreadEntry> lockOwners) {
+        this.blocks = blocks;
+        this.threads = threads;
+        this.stacks = stacks;
+        this.lockOwners = lockOwners;
+    }
+    
+    
+    /** Threads and text sections in the order they appear in the dump. */
+    List<Object> getBlocks() {
+        return blocks;
+    }
+    
+    ThreadEntry[] getThreads() {
+        return threads;
+    }
+    
+    /** Distinct stacks ordered by the number of threads sharing them. */
+    Stack[] getStacks() {
+        return stacks;
+    }
+    
+    /** Thread holding the lock referenced by given stack line, or null. */
+    ThreadEntry getLockOwner(String stackLine) {
+        String lock = getWaitedLock(stackLine);
+        return lock == null ? null : lockOwners.get(lock);
+    }
+    
+    
+    /** Address of a lock the stack line waits for, or null. */
+    static String getWaitedLock(String stackLine) {
+        String line = stackLine.trim();
+        if (line.startsWith("- waiting to lock") || line.startsWith("- parking to wait for")) { // NOI18N
+            return getLockAddress(line);
+        }
+        return null;
+    }
+    
+    /** Address of a lock held according to the stack line, or null. */
+    static String getHeldLock(String stackLine) {
+        String line = stackLine.trim();
+        if (line.startsWith("- locked <") || line.startsWith("- <")) { // NOI18N
+            return getLockAddress(line);
+        }
+        return null;
+    }
+    
+    private static String getLockAddress(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        return start == -1 || end == -1 ? null : line.substring(start + 1, end);
+    }
+    
+    
+    static final class ThreadEntry {
+        
+        final String header;
+        final Stack stack;
+        
+        ThreadEntry(String header, Stack stack) {
+            this.header = header;
+            this.stack = stack;
+        }
+        
+    }
+    
+    static final class Stack {
+        
+        final String[] lines;
+        private final int hash;
+        int threadCount;
+        
+        Stack(String[] lines) {
+            this.lines = lines;
+            int h = 0;
+            for (String line : lines) h = 31 * h + line.hashCode();
+            hash = h;
+        }
+        
+        public int hashCode() {
+            return hash;
+        }
+        
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (!(o instanceof Stack)) return false;
+            Stack s = (Stack)o;
+            if (s.hash != hash || s.lines.length != lines.length) return false;
+            // lines are interned
+            for (int i = 0; i < lines.length; i++)
+                if (lines[i] != s.lines[i]) return false;
+            return true;
+        }
+        
+    }
+    
+    static final class Text {
+        
+        final String[] lines;
+        
+        Text(String[] lines) {
+            this.lines = lines;
+        }
+        
+    }
+    
+}
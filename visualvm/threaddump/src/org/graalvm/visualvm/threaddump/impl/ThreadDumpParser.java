@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.threaddump.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming parser of thread dumps in the jstack / VisualVM text format.
+ * The dump is read line by line, stack lines are interned and identical
+ * stacks are shared by all threads they belong to.
+ */
+final class ThreadDumpParser {
+    
+    private final Map<String, String> lines = new HashMap<>();
+    private final Map<ThreadDumpModel.Stack, ThreadDumpModel.Stack> stacks = new HashMap<>();
+    private final Map<String, ThreadDumpModel.ThreadEntry> lockOwners = new HashMap<>();
+    private final List<Object> blocks = new ArrayList<>();
+    private final List<ThreadDumpModel.ThreadEntry> threads = new ArrayList<>();
+    
+    private String threadHeader;
+    private final List<String> blockLines = new ArrayList<>();
+    private int pendingBlankLines;
+    private boolean textOnly;
+    
+    
+    private ThreadDumpParser() {}
+    
+    
+    static ThreadDumpModel parse(Reader reader) throws IOException {
+        ThreadDumpParser parser = new ThreadDumpParser();
+        BufferedReader br = new BufferedReader(reader, 64 * 1024);
+        
+        String line;
+        while ((line = br.readLine()) != null) parser.processLine(line);
+        
+        return parser.createModel();
+    }
+    
+    
+    private void processLine(String line) {
+        if (!textOnly && isThreadHeader(line)) {
+            finishBlock();
+            threadHeader = line;
+        } else if (threadHeader != null) {
+            if (line.isEmpty()) {
+                pendingBlankLines++;
+            } else if (Character.isWhitespace(line.charAt(0))) {
+                // blank line separates the stack and locked synchronizers of the same thread
+                for (; pendingBlankLines > 0; pendingBlankLines--) blockLines.add(""); // NOI18N
+                blockLines.add(intern(line));
+            } else {
+                finishBlock();
+                processTextLine(line);
+            }
+        } else {
+            processTextLine(line);
+        }
+    }
+    
+    private void processTextLine(String line) {
+        // deadlock reports list thread names and stacks in their own format
+        if (line.startsWith("Found ") && line.contains("deadlock")) textOnly = true; // NOI18N
+        blockLines.add(line);
+    }
+    
+    private static boolean isThreadHeader(String line) {
+        return line.startsWith("\"") && !line.endsWith("\":"); // NOI18N
+    }
+    
+    private void finishBlock() {
+        if (threadHeader != null) {
+            ThreadDumpModel.Stack stack = new ThreadDumpModel.Stack(blockLines.toArray(new String[0]));
+            ThreadDumpModel.Stack shared = stacks.get(stack);
+            if (shared == null) {
+                stacks.put(stack, stack);
+                shared = stack;
+            }
+            shared.threadCount++;
+            
+            ThreadDumpModel.ThreadEntry thread = new ThreadDumpModel.ThreadEntry(threadHeader, shared);
+            for (String stackLine : shared.lines) {
+                String lock = ThreadDumpModel.getHeldLock(stackLine);
+                if (lock != null && !lockOwners.containsKey(lock)) lockOwners.put(lock, thread);
+            }
+            threads.add(thread);
+            blocks.add(thread);
+            
+            threadHeader = null;
+            pendingBlankLines = 0;
+        } else if (!blockLines.isEmpty()) {
+            blocks.add(new ThreadDumpModel.Text(blockLines.toArray(new String[0])));
+        }
+        blockLines.clear();
+    }
+    
+    private String intern(String line) {
+        String interned = lines.get(line);
+        if (interned == null) {
+            lines.put(line, line);
+            interned = line;
+        }
+        return interned;
+    }
+    
+    private ThreadDumpModel createModel() {
+        finishBlock();
+        
+        ThreadDumpModel.Stack[] stacksArr = stacks.keySet().toArray(new ThreadDumpModel.Stack[0]);
+        Arrays.sort(stacksArr, new Comparator<ThreadDumpModel.Stack>() {
+            public int compare(ThreadDumpModel.Stack s1, ThreadDumpModel.Stack s2) {
+                return Integer.compare(s2.threadCount, s1.threadCount);
+            }
+        });
+        
+        return new ThreadDumpModel(blocks, threads.toArray(new ThreadDumpModel.ThreadEntry[0]), stacksArr, lockOwners);
+    }
+    
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.threaddump.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+import org.graalvm.visualvm.threaddump.impl.ThreadDumpModel.Stack;
+import org.graalvm.visualvm.threaddump.impl.ThreadDumpModel.Text;
+import org.graalvm.visualvm.threaddump.impl.ThreadDumpModel.ThreadEntry;
+import org.openide.util.NbBundle;
+
+/**
+ * Single column table model exposing the lines of a parsed thread dump.
+ * Rows are resolved on demand from the blocks of the model, the full text
+ * is never materialized.
+ */
+final class ThreadDumpRows extends AbstractTableModel {
+    
+    private final ThreadDumpModel model;
+    private final String columnName;
+    
+    private boolean grouped;
+    
+    // Text, ThreadEntry or Group
+    private Object[] blocks;
+    // first row of each block
+    private int[] blockRows;
+    private int rowCount;
+    // row of each thread header in current mode
+    private Map<ThreadEntry, Integer> threadRows;
+    
+    
+    ThreadDumpRows(ThreadDumpModel model) {
+        this.model = model;
+        columnName = NbBundle.getMessage(ThreadDumpRows.class, "COL_Thread_Dump", // NOI18N
+                                         model.getThreads().length, model.getStacks().length);
+        initBlocks();
+    }
+    
+    
+    boolean isGrouped() {
+        return grouped;
+    }
+    
+    void setGrouped(boolean grouped) {
+        if (this.grouped == grouped) return;
+        this.grouped = grouped;
+        initBlocks();
+        fireTableDataChanged();
+    }
+    
+    String getLine(int row) {
+        int block = getBlock(row);
+        int offset = row - blockRows[block];
+        Object b = blocks[block];
+        
+        if (b instanceof Text) return ((Text)b).lines[offset];
+        
+        if (b instanceof ThreadEntry) {
+            ThreadEntry thread = (ThreadEntry)b;
+            if (offset == 0) return thread.header;
+            String[] lines = thread.stack.lines;
+            return offset <= lines.length ? lines[offset - 1] : ""; // NOI18N
+        }
+        
+        Group group = (Group)b;
+        if (offset == 0) return group.getSummary();
+        offset--;
+        if (offset < group.threads.length) return group.threads[offset].header;
+        offset -= group.threads.length;
+        String[] lines = group.stack.lines;
+        return offset < lines.length ? lines[offset] : ""; // NOI18N
+    }
+    
+    /** Thread whose header is displayed at given row, or null. */
+    ThreadEntry getThread(int row) {
+        int block = getBlock(row);
+        int offset = row - blockRows[block];
+        Object b = blocks[block];
+        
+        if (b instanceof ThreadEntry) return offset == 0 ? (ThreadEntry)b : null;
+        
+        if (b instanceof Group) {
+            Group group = (Group)b;
+            return offset > 0 && offset <= group.threads.length ? group.threads[offset - 1] : null;
+        }
+        
+        return null;
+    }
+    
+    /** Row displaying header of given thread, or -1. */
+    int getRow(ThreadEntry thread) {
+        Integer row = threadRows.get(thread);
+        return row == null ? -1 : row.intValue();
+    }
+    
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return 1;
+    }
+    
+    public String getColumnName(int columnIndex) {
+        return columnName;
+    }
+    
+    public Class<?> getColumnClass(int columnIndex) {
+        return String.class;
+    }
+
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return getLine(rowIndex);
+    }
+    
+    
+    private int getBlock(int row) {
+        int block = Arrays.binarySearch(blockRows, row);
+        return block >= 0 ? block : -block - 2;
+    }
+    
+    private void initBlocks() {
+        List<Object> list = new ArrayList<>();
+        List<Object> trailing = new ArrayList<>();
+        
+        if (grouped) {
+            // text preceding the first thread stays on top, the rest goes below the groups
+            boolean leading = true;
+            for (Object block : model.getBlocks()) {
+                if (block instanceof Text) (leading ? list : trailing).add(block);
+                else leading = false;
+            }
+            
+            Map<Stack, List<ThreadEntry>> stackThreads = new HashMap<>();
+            for (ThreadEntry thread : model.getThreads()) {
+                List<ThreadEntry> threads = stackThreads.get(thread.stack);
+                if (threads == null) {
+                    threads = new ArrayList<>(thread.stack.threadCount);
+                    stackThreads.put(thread.stack, threads);
+                }
+                threads.add(thread);
+            }
+            for (Stack stack : model.getStacks()) {
+                List<ThreadEntry> threads = stackThreads.get(stack);
+                list.add(new Group(stack, threads.toArray(new ThreadEntry[0])));
+            }
+            list.addAll(trailing);
+        } else {
+            list.addAll(model.getBlocks());
+        }
+        
+        blocks = list.toArray();
+        blockRows = new int[blocks.length];
+        threadRows = new IdentityHashMap<>(model.getThreads().length);
+        
+        int row = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            blockRows[i] = row;
+            Object b = blocks[i];
+            if (b instanceof Text) {
+                row += ((Text)b).lines.length;
+            } else if (b instanceof ThreadEntry) {
+                ThreadEntry thread = (ThreadEntry)b;
+                threadRows.put(thread, row);
+                row += thread.stack.lines.length + 2;
+            } else {
+                Group group = (Group)b;
+                for (int j = 0; j < group.threads.length; j++)
+                    threadRows.put(group.threads[j], row + 1 + j);
+                row += group.threads.length + group.stack.lines.length + 2;
+            }
+        }
+        rowCount = row;
+    }
+    
+    
+    private static final class Group {
+        
+        final Stack stack;
+        final ThreadEntry[] threads;
+        
+        Group(Stack stack, ThreadEntry[] threads) {
+            this.stack = stack;
+            this.threads = threads;
+        }
+        
+        String getSummary() {
+            return NbBundle.getMessage(ThreadDumpRows.class, "MSG_Identical_Stacks", threads.length); // NOI18N
+        }
+        
+    }
+    
+}
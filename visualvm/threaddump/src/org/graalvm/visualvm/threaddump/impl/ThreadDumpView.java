@@ -29,31 +29,36 @@ import org.graalvm.visualvm.core.datasource.descriptor.DataSourceDescriptor;
 import org.graalvm.visualvm.core.datasource.descriptor.DataSourceDescriptorFactory;
 import org.graalvm.visualvm.threaddump.ThreadDump;
 import org.graalvm.visualvm.core.ui.components.DataViewComponent;
-import org.graalvm.visualvm.core.ui.components.ScrollableContainer;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
+import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.SwingConstants;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Document;
-import javax.swing.text.Segment;
-import javax.swing.text.html.HTMLDocument;
-import javax.swing.text.html.HTMLEditorKit;
-import javax.swing.text.html.StyleSheet;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableCellRenderer;
 import org.graalvm.visualvm.core.VisualVM;
 import org.graalvm.visualvm.core.snapshot.SnapshotView;
-import org.graalvm.visualvm.lib.ui.components.HTMLTextArea;
-import org.graalvm.visualvm.lib.ui.components.HTMLTextAreaSearchUtils;
+import org.graalvm.visualvm.lib.ui.swing.ProfilerTable;
+import org.graalvm.visualvm.lib.ui.swing.ProfilerTableContainer;
+import org.graalvm.visualvm.lib.ui.swing.SearchUtils;
+import org.graalvm.visualvm.lib.ui.swing.renderer.LabelRenderer;
+import org.graalvm.visualvm.threaddump.impl.ThreadDumpModel.ThreadEntry;
 import org.graalvm.visualvm.uisupport.UISupport;
 import org.openide.util.NbBundle;
 
@@ -114,124 +119,102 @@ class ThreadDumpView extends SnapshotView {
             setOpaque(false);
         }
 
-        private static String htmlize(String value) {
-            return value.replace("&", "&amp;").replace("<", "&lt;").replace("\t", "        ");     // NOI18N
-        }
-
-        private static String transform(String value) {
-            String alternateColor = !UISupport.isDarkResultsBackground() ? "#0033CC" : "#FFCC33"; // NOI18N
-            StringBuilder sb = new StringBuilder();
-            String[] result = value.split("\\r?\\n"); // NOI18N
-            for (String line : result) {
-                if (!line.isEmpty() && !Character.isWhitespace(line.charAt(0))) {
-                    sb.append("<span style=\"color: ").append(alternateColor).append("\">"); // NOI18N
-                    sb.append(line);
-                    sb.append("</span><br>"); // NOI18N
-                } else {
-                    sb.append(line);
-                    sb.append("<br>"); // NOI18N
-                }
-            }
-            return sb.toString();
-        }
-
         private void loadThreadDump(final File file) {
             VisualVM.getInstance().runTask(new Runnable() {
-            public void run() {
-              InputStream is = null;
-              try {
-                is = new FileInputStream(file);
-                byte[] data = new byte[(int)file.length()];
-                try {
-                  is.read(data);
-                } catch (IOException ex) {
-                  LOGGER.log(Level.INFO, "Failed to read thread dump", ex);     // NOI18N
-                }
-                try {
-                  HTMLTextArea area = new HTMLTextArea();
-                  area.setEditorKit(new CustomHtmlEditorKit());
-                  area.setForeground(!UISupport.isDarkResultsBackground() ? new Color(0xcc, 0x33, 0) : new Color(0x33, 0xcc, 0xff));
-                  area.setText("<pre>" + transform(htmlize(new String(data, "UTF-8"))) + "</pre>"); // NOI18N
-                  area.setCaretPosition(0);
-                  area.setBorder(BorderFactory.createEmptyBorder(14, 8, 14, 8));
-                  contentsPanel.remove(progressLabel);
-                  contentsPanel.add(new ScrollableContainer(area), BorderLayout.CENTER);
-                  contentsPanel.add(HTMLTextAreaSearchUtils.createSearchPanel(area), BorderLayout.SOUTH);
-                  contentsPanel.revalidate();
-                  contentsPanel.repaint();
-//                  contentsPanel.doLayout();
-                } catch (Exception ex) {
-                  LOGGER.throwing(ThreadDumpView.class.getName(), "loadThreadDump", ex);     // NOI18N
+                public void run() {
+                    try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) { // NOI18N
+                        final ThreadDumpModel model = ThreadDumpParser.parse(reader);
+                        SwingUtilities.invokeLater(new Runnable() {
+                            public void run() { showThreadDump(model); }
+                        });
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.INFO, "Failed to load thread dump", ex);       // NOI18N
+                    }
                 }
-              } catch (FileNotFoundException ex) {
-                LOGGER.log(Level.INFO, "Failed to load thread dump", ex);       // NOI18N
-              } finally {
-                  if (is != null) {
-                      try {
-                          is.close();
-                      } catch (IOException e) {
-                          // ignore
-                      }
-                  }
-              }
-           }
-          });
+            });
         }
         
-    }
-
-    private static class CustomHtmlEditorKit extends HTMLEditorKit {
-
-        @Override
-        public Document createDefaultDocument() {
-            StyleSheet styles = getStyleSheet();
-            StyleSheet ss = new StyleSheet();
-
-            ss.addStyleSheet(styles);
-
-            HTMLDocument doc = new CustomHTMLDocument(ss);
-            doc.setParser(getParser());
-            doc.setAsynchronousLoadPriority(4);
-            doc.setTokenThreshold(100);
-            return doc;
+        private void showThreadDump(final ThreadDumpModel model) {
+            final ThreadDumpRows rows = new ThreadDumpRows(model);
+            
+            boolean dark = UISupport.isDarkResultsBackground();
+            final Color headerColor = !dark ? new Color(0x00, 0x33, 0xcc) : new Color(0xff, 0xcc, 0x33);
+            final Color stackColor = !dark ? new Color(0xcc, 0x33, 0) : new Color(0x33, 0xcc, 0xff);
+            
+            final LabelRenderer renderer = new LabelRenderer() {
+                public void setValue(Object value, int row) {
+                    super.setValue(value == null ? null : value.toString().replace("\t", "        "), row); // NOI18N
+                }
+            };
+            renderer.setFont(new Font(Font.MONOSPACED, Font.PLAIN, renderer.getFont().getSize()));
+            
+            final ProfilerTable table = new ProfilerTable(rows, false, false, new int[] { 0 }) {
+                public Component prepareRenderer(TableCellRenderer r, int row, int column) {
+                    Component c = super.prepareRenderer(r, row, column);
+                    if (!isCellSelected(row, column) && isEnabled()) {
+                        // plain text appearance, no stripes
+                        String line = rows.getLine(row);
+                        boolean header = !line.isEmpty() && !Character.isWhitespace(line.charAt(0));
+                        renderer.setForeground(header ? headerColor : stackColor);
+                        renderer.setBackground(getBackground());
+                    }
+                    return c;
+                }
+                protected void populatePopup(JPopupMenu popup, Object value, Object userValue) {
+                    final int ownerRow = getLockOwnerRow(rows, model, getSelectedRow());
+                    JMenuItem lockOwnerItem = new JMenuItem(NbBundle.getMessage(ThreadDumpView.class, "ACT_Go_To_Lock_Owner")) { // NOI18N
+                        protected void fireActionPerformed(ActionEvent e) { selectRow(ownerRow, true); }
+                    };
+                    lockOwnerItem.setEnabled(ownerRow != -1);
+                    popup.add(lockOwnerItem);
+                    popup.addSeparator();
+                    popup.add(createCopyMenuItem());
+                }
+            };
+            table.providePopupMenu(true);
+            table.setMainColumn(0);
+            table.setFitWidthColumn(0);
+            table.setColumnRenderer(0, renderer);
+            table.setShowHorizontalLines(false);
+            
+            table.setDefaultAction(new AbstractAction() {
+                public void actionPerformed(ActionEvent e) {
+                    int row = getLockOwnerRow(rows, model, table.getSelectedRow());
+                    if (row != -1) table.selectRow(row, true);
+                }
+            });
+            
+            final JCheckBox groupCheckBox = new JCheckBox(NbBundle.getMessage(ThreadDumpView.class, "LBL_Group_Identical_Stacks")); // NOI18N
+            groupCheckBox.setOpaque(false);
+            groupCheckBox.addActionListener(new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    // keep the selected thread selected
+                    int selected = table.getSelectedRow();
+                    ThreadEntry thread = selected == -1 ? null : rows.getThread(selected);
+                    rows.setGrouped(groupCheckBox.isSelected());
+                    if (thread != null) table.selectRow(rows.getRow(thread), true);
+                }
+            });
+            
+            JPanel optionsPanel = new JPanel(new BorderLayout());
+            optionsPanel.setOpaque(false);
+            optionsPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+            optionsPanel.add(groupCheckBox, BorderLayout.WEST);
+            
+            contentsPanel.remove(progressLabel);
+            contentsPanel.add(optionsPanel, BorderLayout.NORTH);
+            contentsPanel.add(new ProfilerTableContainer(table, false, null), BorderLayout.CENTER);
+            contentsPanel.add(SearchUtils.createSearchPanel(table), BorderLayout.SOUTH);
+            contentsPanel.revalidate();
+            contentsPanel.repaint();
         }
-    }
-    
-    private static class CustomHTMLDocument extends HTMLDocument {
-        private static final int CACHE_BOUNDARY = 1000;
-        private char[] segArray;
-        private int segOffset;
-        private int segCount;
-        private boolean segPartialReturn;
-        private int lastOffset;
-        private int lastLength;
         
-        private CustomHTMLDocument(StyleSheet ss) {
-            super(ss);
-            lastOffset = -1;
-            lastLength = -1;
-            putProperty("multiByte", Boolean.TRUE);      // NOI18N
-        }
-
-        @Override
-        public void getText(int offset, int length, Segment txt) throws BadLocationException {
-            if (lastOffset == offset && lastLength == length) {
-                txt.array = segArray;
-                txt.offset = segOffset;
-                txt.count = segCount;
-                txt.setPartialReturn(segPartialReturn);
-                return;
-            }
-            super.getText(offset, length, txt);
-            if (length > CACHE_BOUNDARY || lastLength <= CACHE_BOUNDARY) {
-                segArray = Arrays.copyOf(txt.array, txt.array.length);
-                segOffset = txt.offset;
-                segCount = txt.count;
-                segPartialReturn = txt.isPartialReturn();
-                lastOffset = offset;
-                lastLength = length;
-            }
+        private static int getLockOwnerRow(ThreadDumpRows rows, ThreadDumpModel model, int row) {
+            if (row == -1) return -1;
+            ThreadEntry owner = model.getLockOwner(rows.getLine(row));
+            return owner == null ? -1 : rows.getRow(owner);
         }
+        
     }
     
 }
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2022, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.visualvm.tools.attach;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.graalvm.visualvm.application.jvm.HeapHistogram;
+import org.graalvm.visualvm.application.jvm.HeapHistogram.ClassInfo;
+
+/**
+ * Builds {@link HeapHistogram}s of repeatedly taken class histograms of a JVM,
+ * as printed by the GC.class_histogram diagnostic command. Classes are kept in
+ * a table between histograms, so each class name is converted only once. Counts
+ * are accumulated in primitive arrays indexed by class slot and ClassInfo instances
+ * are reused for classes whose counts did not change since the previous histogram.
+ * Classes which have not been seen for {@link #MAX_AGE} histograms, typically
+ * unloaded classes, are dropped from the class table once they make up most of it.
+ * <p>
+ * For each histogram the parser calls {@link #startHistogram()}, then
+ * {@link #addClass(int, long, long)} for each entry with the slot returned by
+ * {@link #getSlot(String)} for its JVM class name, and {@link #createHistogram(long, long)}.
+ * Slots cached by the parser must be remapped after {@link #prune()}.
+ * <p>
+ * Instances of this class are not thread safe.
+ *
+ * @author Tomas Hurka
+ */
+public final class HeapHistogramBuilder {
+
+    private static final int MAX_AGE = 16;  // histograms before an unseen class is dropped
+    private static final int MIN_PRUNE_SLOTS = 1024;
+
+    private static final String BOOLEAN_TEXT = "boolean"; // NOI18N
+    private static final String CHAR_TEXT = "char"; // NOI18N
+    private static final String BYTE_TEXT = "byte"; // NOI18N
+    private static final String SHORT_TEXT = "short"; // NOI18N
+    private static final String INT_TEXT = "int"; // NOI18N
+    private static final String LONG_TEXT = "long"; // NOI18N
+    private static final String FLOAT_TEXT = "float"; // NOI18N
+    private static final String DOUBLE_TEXT = "double"; // NOI18N
+    private static final char BOOLEAN_CODE = 'Z'; // NOI18N
+    private static final char CHAR_CODE = 'C'; // NOI18N
+    private static final char BYTE_CODE = 'B'; // NOI18N
+    private static final char SHORT_CODE = 'S'; // NOI18N
+    private static final char INT_CODE = 'I'; // NOI18N
+    private static final char LONG_CODE = 'J'; // NOI18N
+    private static final char FLOAT_CODE = 'F'; // NOI18N
+    private static final char DOUBLE_CODE = 'D'; // NOI18N
+    private static final char OBJECT_CODE = 'L'; // NOI18N
+    private static final Map<String,String> permGenNames = new HashMap<>();
+    static {
+        permGenNames.put("<methodKlass>","Read-Write Method Metadata");      // NOI18N
+        permGenNames.put("<constMethodKlass>","Read-Only Method Metadata");     // NOI18N
+        permGenNames.put("<methodDataKlass>","Method Profiling Information");     // NOI18N
+        permGenNames.put("<constantPoolKlass>","Constant Pool Metadata");     // NOI18N
+        permGenNames.put("<constantPoolCacheKlass>","Class Resolution Optimization Metadata");     // NOI18N
+        permGenNames.put("<symbolKlass>","VM Symbol Metadata");     // NOI18N
+        permGenNames.put("<compiledICHolderKlass>","Inline Cache Metadata");     // NOI18N
+        permGenNames.put("<instanceKlassKlass>","Instance Class Metadata");     // NOI18N
+        permGenNames.put("<objArrayKlassKlass>","Object Array Class Metadata");     // NOI18N
+        permGenNames.put("<typeArrayKlassKlass>","Scalar Array Class Metadata");     // NOI18N
+        permGenNames.put("<klassKlass>","Base Class Metadata");     // NOI18N
+        permGenNames.put("<arrayKlassKlass>","Base Array Class Metadata");     // NOI18N
+    }
+
+    // Class slots
+    private final Map<String,Integer> slotsByName = new HashMap<>(1024);
+    private String[] names = new String[1024];
+    private boolean[] permGen = new boolean[1024];
+    private long[] instances = new long[1024];
+    private long[] bytes = new long[1024];
+    private int[] generations = new int[1024];
+    private ClassInfoImpl[] lastInfos = new ClassInfoImpl[1024];
+    private int nSlots;
+
+    // Slots seen by the current histogram
+    private int[] seenSlots = new int[1024];
+    private int nSeen;
+    private int generation;
+    private int nextPruneGeneration = MAX_AGE;
+
+    /**
+     * Starts a new histogram.
+     */
+    public void startHistogram() {
+        nSeen = 0;
+        generation++;
+    }
+
+    /**
+     * Returns the slot of a class, adding the class to the class table if necessary.
+     * Names of permanent generation entries start with '&lt;'.
+     *
+     * @param jvmName JVM name of the class as printed in the histogram
+     * @return slot of the class
+     */
+    public int getSlot(String jvmName) {
+        boolean isPermGen = jvmName.charAt(0) == '<';     // NOI18N
+        String name = convertJVMName(jvmName, isPermGen);
+        String key = isPermGen ? "<" + name : name;    // NOI18N
+        Integer slot = slotsByName.get(key);
+
+        if (slot == null) {
+            slot = Integer.valueOf(newSlot(name, isPermGen));
+            slotsByName.put(key, slot);
+        }
+        return slot.intValue();
+    }
+
+    /**
+     * Adds the counts of a histogram entry to its class. Several entries may
+     * map to the same class, for example classes of the same name loaded by
+     * different class loaders.
+     *
+     * @param slot slot of the class returned by {@link #getSlot(String)}
+     * @param inst number of instances
+     * @param size size of the instances in bytes
+     */
+    public void addClass(int slot, long inst, long size) {
+        if (generations[slot] != generation) {
+            generations[slot] = generation;
+            instances[slot] = 0;
+            bytes[slot] = 0;
+            if (nSeen == seenSlots.length) {
+                seenSlots = Arrays.copyOf(seenSlots, nSeen * 2);
+            }
+            seenSlots[nSeen++] = slot;
+        }
+        instances[slot] += inst;
+        bytes[slot] += size;
+    }
+
+    /**
+     * Creates the histogram of the classes added since {@link #startHistogram()}.
+     *
+     * @param totalInstances total number of instances printed in the histogram
+     * @param totalBytes total size of the instances printed in the histogram
+     * @return new histogram
+     */
+    public HeapHistogram createHistogram(long totalInstances, long totalBytes) {
+        HeapHistogramImpl histogram = new HeapHistogramImpl();
+        ClassInfo[] heapInfos = new ClassInfo[nSeen];
+        ClassInfo[] permGenInfos = new ClassInfo[nSeen];
+        int nHeap = 0;
+        int nPermGen = 0;
+
+        for (int i = 0; i < nSeen; i++) {
+            int slot = seenSlots[i];
+            long inst = instances[slot];
+            long size = bytes[slot];
+            ClassInfoImpl info = lastInfos[slot];
+
+            // ClassInfoImpl is not modified once created, so it can be shared by histograms
+            if (info == null || info.instances != inst || info.bytes != size) {
+                info = new ClassInfoImpl(names[slot], inst, size);
+                lastInfos[slot] = info;
+            }
+            if (permGen[slot]) {
+                permGenInfos[nPermGen++] = info;
+                histogram.totalPermGenBytes += size;
+                histogram.totalPermGenInstances += inst;
+            } else {
+                heapInfos[nHeap++] = info;
+                histogram.totalHeapBytes += size;
+                histogram.totalHeapInstances += inst;
+            }
+        }
+        histogram.time = new Date();
+        histogram.totalInstances = totalInstances;
+        histogram.totalBytes = totalBytes;
+        histogram.classes = new ClassInfoSet(heapInfos, nHeap);
+        histogram.permGenClasses = new ClassInfoSet(permGenInfos, nPermGen);
+        return histogram;
+    }
+
+    /**
+     * Drops classes not seen for MAX_AGE histograms. Runs only when the unseen
+     * classes outnumber the seen ones and at most once per MAX_AGE histograms,
+     * so the table is not rebuilt repeatedly. Should be called after
+     * {@link #createHistogram(long, long)}.
+     *
+     * @return <code>null</code> if no class has been dropped, otherwise an array
+     * mapping the previous slots to the new ones, -1 for dropped classes
+     */
+    public int[] prune() {
+        if (generation - nextPruneGeneration < 0 || nSlots - nSeen < Math.max(nSeen, MIN_PRUNE_SLOTS)) {
+            return null;
+        }
+        nextPruneGeneration = generation + MAX_AGE;
+
+        int[] slotMap = new int[nSlots];
+        int n = 0;
+        slotsByName.clear();
+        for (int slot = 0; slot < nSlots; slot++) {
+            if (generation - generations[slot] >= MAX_AGE) {
+                slotMap[slot] = -1;
+                continue;
+            }
+            names[n] = names[slot];
+            permGen[n] = permGen[slot];
+            instances[n] = instances[slot];
+            bytes[n] = bytes[slot];
+            generations[n] = generations[slot];
+            lastInfos[n] = lastInfos[slot];
+            slotsByName.put(permGen[n] ? "<" + names[n] : names[n], Integer.valueOf(n));    // NOI18N
+            slotMap[slot] = n++;
+        }
+        Arrays.fill(names, n, nSlots, null);
+        Arrays.fill(lastInfos, n, nSlots, null);
+        nSlots = n;
+        nSeen = 0;
+        return slotMap;
+    }
+
+    private int newSlot(String name, boolean isPermGen) {
+        if (nSlots == names.length) {
+            int len = nSlots * 2;
+            names = Arrays.copyOf(names, len);
+            permGen = Arrays.copyOf(permGen, len);
+            instances = Arrays.copyOf(instances, len);
+            bytes = Arrays.copyOf(bytes, len);
+            generations = Arrays.copyOf(generations, len);
+            lastInfos = Arrays.copyOf(lastInfos, len);
+        }
+        names[nSlots] = name;
+        permGen[nSlots] = isPermGen;
+        return nSlots++;
+    }
+
+    private static String convertJVMName(String jvmName, boolean permGen) {
+        String name = null;
+        int index = jvmName.lastIndexOf('[');     // NOI18N
+
+        if (index != -1) {
+            switch(jvmName.charAt(index+1)) {
+                case BOOLEAN_CODE:
+                    name=BOOLEAN_TEXT;
+                    break;
+                case CHAR_CODE:
+                    name=CHAR_TEXT;
+                    break;
+                case BYTE_CODE:
+                    name=BYTE_TEXT;
+                    break;
+                case SHORT_CODE:
+                    name=SHORT_TEXT;
+                    break;
+                case INT_CODE:
+                    name=INT_TEXT;
+                    break;
+                case LONG_CODE:
+                    name=LONG_TEXT;
+                    break;
+                case FLOAT_CODE:
+                    name=FLOAT_TEXT;
+                    break;
+                case DOUBLE_CODE:
+                    name=DOUBLE_TEXT;
+                    break;
+                case OBJECT_CODE:
+                    name=jvmName.substring(index+2,jvmName.length()-1);
+                    break;
+                default:
+                    System.err.println("Uknown name "+jvmName);     // NOI18N
+                    name = jvmName;
+            }
+            for (int i=0;i<=index;i++) {
+                name+="[]";
+            }
+        } else if (permGen) {
+            name = permGenNames.get(jvmName);
+        }
+        if (name == null) {
+            name = jvmName;
+        }
+        return name.intern();
+    }
+
+    private static class HeapHistogramImpl extends HeapHistogram {
+        Set<ClassInfo> classes;
+        Set<ClassInfo> permGenClasses;
+        Date time;
+        long totalBytes;
+        long totalInstances;
+        long totalHeapBytes;
+        long totalHeapInstances;
+        long totalPermGenBytes;
+        long totalPermGenInstances;
+
+        public Date getTime() {
+            return (Date) time.clone();
+        }
+
+        public Set<ClassInfo> getHeapHistogram() {
+            return classes;
+        }
+
+        public long getTotalInstances() {
+            return totalInstances;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getTotalHeapInstances() {
+            return totalHeapInstances;
+        }
+
+        public long getTotalHeapBytes() {
+            return totalHeapBytes;
+        }
+
+        public Set<ClassInfo> getPermGenHistogram() {
+            return permGenClasses;
+        }
+
+        public long getTotalPerGenInstances() {
+            return totalPermGenInstances;
+        }
+
+        public long getTotalPermGenHeapBytes() {
+            return totalPermGenBytes;
+        }
+    }
+
+    /**
+     * Read-only set of distinct ClassInfo instances backed by an array.
+     */
+    private static class ClassInfoSet extends AbstractSet<ClassInfo> {
+        private final ClassInfo[] infos;
+        private final int size;
+
+        ClassInfoSet(ClassInfo[] infos, int size) {
+            this.infos = infos;
+            this.size = size;
+        }
+
+        public Iterator<ClassInfo> iterator() {
+            return Arrays.asList(infos).subList(0, size).iterator();
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    private static class ClassInfoImpl extends ClassInfo {
+        final String name;
+        final long instances;
+        final long bytes;
+
+        ClassInfoImpl(String name, long instances, long bytes) {
+            this.name = name;
+            this.instances = instances;
+            this.bytes = bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInstancesCount() {
+            return instances;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+    }
+}
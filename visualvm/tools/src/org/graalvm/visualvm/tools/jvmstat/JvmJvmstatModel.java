@@ -69,6 +69,8 @@ public abstract class JvmJvmstatModel extends Model {
     protected List<MonitoredValue> genCapacity;
     protected List<MonitoredValue> genUsed;
     protected long[] genMaxCapacity;
+    // resolving the main class may require reading the manifest of the application jar
+    private volatile String mainClass;
     
     protected JvmJvmstatModel(Application app,JvmstatModel stat) {
         application = app;
@@ -250,6 +252,15 @@ public abstract class JvmJvmstatModel extends Model {
      *                  application.
      */
     public String getMainClass() {
+        String mainClassName = mainClass;
+        if (mainClassName == null) {
+            mainClassName = resolveMainClass();
+            mainClass = mainClassName;
+        }
+        return mainClassName;
+    }
+    
+    private String resolveMainClass() {
         String mainClassName = getFirstArgument();
 
         if (mainClassName == null) return null;